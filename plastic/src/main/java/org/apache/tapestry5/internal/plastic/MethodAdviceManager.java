@@ -1,4 +1,4 @@
-// Copyright 2011, 2012 The Apache Software Foundation
+// Copyright 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,6 +14,7 @@
 
 package org.apache.tapestry5.internal.plastic;
 
+import org.apache.tapestry5.internal.plastic.asm.Label;
 import org.apache.tapestry5.internal.plastic.asm.Opcodes;
 import org.apache.tapestry5.internal.plastic.asm.tree.ClassNode;
 import org.apache.tapestry5.internal.plastic.asm.tree.MethodNode;
@@ -24,12 +25,15 @@ import java.util.List;
 /**
  * Responsible for tracking the advice added to a method, as well as creating the MethodInvocation
  * class for the method and ultimately rewriting the original method to instantiate the MethodInvocation
- * and handle the success or failure result.
+ * and handle the success or failure result. When all the advice is {@link InlineMethodAdvice}, no
+ * MethodInvocation class is created; the original method is instead rewritten to invoke the advice hooks directly.
  */
 class MethodAdviceManager
 {
     private final static String RETURN_VALUE = "returnValue";
 
+    private final static String INLINE_ADVICE_TYPE = InlineMethodAdvice.class.getName();
+
     private final MethodDescription description;
 
     /**
@@ -38,21 +42,22 @@ class MethodAdviceManager
      */
     private final MethodNode advisedMethodNode;
 
-    private final ClassNode invocationClassNode;
+    private ClassNode invocationClassNode;
 
     private final List<MethodAdvice> advice = PlasticInternalUtils.newList();
 
     private final boolean isVoid;
 
-    private final String invocationClassName;
+    private String invocationClassName;
 
     /**
      * The new method that uses the original instructions from the advisedMethodNode.
      */
     private final String newMethodName;
 
-    private final String[] constructorTypes;
-    private PlasticClassImpl plasticClass;
+    private String[] constructorTypes;
+
+    private final PlasticClassImpl plasticClass;
 
     MethodAdviceManager(PlasticClassImpl plasticClass, MethodDescription description, MethodNode methodNode)
     {
@@ -62,6 +67,11 @@ class MethodAdviceManager
 
         isVoid = description.returnType.equals("void");
 
+        newMethodName = String.format("advised$%s_%s", description.methodName, PlasticUtils.nextUID());
+    }
+
+    private void createInvocationClass()
+    {
         invocationClassName = String.format("%s$Invocation_%s_%s", plasticClass.className, description.methodName,
                 PlasticUtils.nextUID());
 
@@ -79,8 +89,6 @@ class MethodAdviceManager
 
         createGetParameter();
 
-        newMethodName = String.format("advised$%s_%s", description.methodName, PlasticUtils.nextUID());
-
         createProceedToAdvisedMethod();
     }
 
@@ -360,6 +368,15 @@ class MethodAdviceManager
     {
         createNewMethod();
 
+        if (isAllInline())
+        {
+            rewriteAsInlineAdvice();
+
+            return;
+        }
+
+        createInvocationClass();
+
         plasticClass.pool.realize(plasticClass.className, ClassType.METHOD_INVOCATION, invocationClassNode);
 
         String fieldName = String.format("methodinvocationbundle_%s_%s", description.methodName,
@@ -373,13 +390,7 @@ class MethodAdviceManager
 
         // Ok, here's the easy part: replace the method invocation with instantiating the invocation class
 
-        advisedMethodNode.instructions.clear();
-        advisedMethodNode.tryCatchBlocks.clear();
-
-        if (advisedMethodNode.localVariables != null)
-        {
-            advisedMethodNode.localVariables.clear();
-        }
+        clearOriginalMethod();
 
         InstructionBuilder builder = plasticClass.newBuilder(description, advisedMethodNode);
 
@@ -434,4 +445,149 @@ class MethodAdviceManager
             }
         });
     }
+
+    private void clearOriginalMethod()
+    {
+        advisedMethodNode.instructions.clear();
+        advisedMethodNode.tryCatchBlocks.clear();
+
+        if (advisedMethodNode.localVariables != null)
+        {
+            advisedMethodNode.localVariables.clear();
+        }
+    }
+
+    private boolean isAllInline()
+    {
+        for (MethodAdvice a : advice)
+        {
+            if (!(a instanceof InlineMethodAdvice))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Rewrites the original method to invoke the new method between the hooks of each {@link InlineMethodAdvice}; each
+     * piece of advice is stored in its own field. The advice is nested just as with the MethodInvocation chain: an
+     * exception thrown by inner advice is seen by the outer advice.
+     */
+    private void rewriteAsInlineAdvice()
+    {
+        final String[] fieldNames = new String[advice.size()];
+
+        for (int i = 0; i < fieldNames.length; i++)
+        {
+            fieldNames[i] = String.format("inlineadvice_%s_%s", description.methodName, PlasticUtils.nextUID());
+
+            plasticClass.classNode.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, fieldNames[i],
+                    plasticClass.nameCache.toDesc(INLINE_ADVICE_TYPE), null, null);
+            plasticClass.initializeFieldFromStaticContext(fieldNames[i], INLINE_ADVICE_TYPE, advice.get(i));
+        }
+
+        clearOriginalMethod();
+
+        InstructionBuilder builder = plasticClass.newBuilder(description, advisedMethodNode);
+
+        if (isVoid)
+        {
+            invokeInlineAdvice(builder, fieldNames, 0, null);
+
+            builder.returnResult();
+
+            return;
+        }
+
+        builder.startVariable(description.returnType, new LocalVariableCallback()
+        {
+            public void doBuild(LocalVariable result, InstructionBuilder builder)
+            {
+                invokeInlineAdvice(builder, fieldNames, 0, result);
+
+                builder.loadVariable(result).returnResult();
+            }
+        });
+    }
+
+    private void invokeInlineAdvice(InstructionBuilder builder, final String[] fieldNames, final int index,
+                                    final LocalVariable result)
+    {
+        if (index == fieldNames.length)
+        {
+            builder.loadThis().loadArguments();
+            builder.invokeVirtual(plasticClass.className, description.returnType, newMethodName,
+                    description.argumentTypes);
+
+            if (!isVoid)
+            {
+                builder.storeVariable(result);
+            }
+
+            return;
+        }
+
+        final String fieldName = fieldNames[index];
+
+        builder.loadThis().getField(plasticClass.className, fieldName, INLINE_ADVICE_TYPE);
+        builder.loadThis().invoke(InlineMethodAdvice.class, Object.class, "beforeInvocation", Object.class);
+
+        builder.startVariable(Object.class.getName(), new LocalVariableCallback()
+        {
+            public void doBuild(final LocalVariable state, InstructionBuilder builder)
+            {
+                builder.storeVariable(state);
+
+                // The try block must jump over the catch block, which the InstructionBuilder can't express.
+
+                final Label success = new Label();
+
+                builder.startTryCatch(new TryCatchCallback()
+                {
+                    public void doBlock(TryCatchBlock block)
+                    {
+                        block.addTry(new InstructionBuilderCallback()
+                        {
+                            public void doBuild(InstructionBuilder builder)
+                            {
+                                invokeInlineAdvice(builder, fieldNames, index + 1, result);
+
+                                advisedMethodNode.visitJumpInsn(Opcodes.GOTO, success);
+                            }
+                        });
+
+                        block.addCatch(Throwable.class.getName(), new InstructionBuilderCallback()
+                        {
+                            public void doBuild(InstructionBuilder builder)
+                            {
+                                builder.startVariable(Throwable.class.getName(), new LocalVariableCallback()
+                                {
+                                    public void doBuild(LocalVariable exception, InstructionBuilder builder)
+                                    {
+                                        builder.storeVariable(exception);
+
+                                        builder.loadThis().getField(plasticClass.className, fieldName,
+                                                INLINE_ADVICE_TYPE);
+                                        builder.loadVariable(state).loadVariable(exception);
+                                        builder.invoke(InlineMethodAdvice.class, void.class, "afterException",
+                                                Object.class, Throwable.class);
+
+                                        builder.loadVariable(exception).throwException();
+                                    }
+                                });
+                            }
+                        });
+                    }
+                });
+
+                advisedMethodNode.visitLabel(success);
+
+                builder.loadThis().getField(plasticClass.className, fieldName, INLINE_ADVICE_TYPE);
+                builder.loadVariable(state);
+                builder.invoke(InlineMethodAdvice.class, void.class, "afterSuccess", Object.class);
+            }
+        });
+    }
 }
@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,10 +14,30 @@
 
 package org.apache.tapestry5.internal.plastic;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Class loader for transformed classes. Loading is locked per class name, rather than on the loader itself,
+ * so that unrelated classes may be read, transformed and defined by different threads at the same time.
+ * <p/>
+ * On JDK 1.7 and above, the loader is registered as parallel capable; on earlier JDKs, the JVM locks the loader
+ * during implicit class loading and classes are effectively loaded one at a time.
+ */
 public class PlasticClassLoader extends ClassLoader
 {
+    static
+    {
+        makeParallelCapable();
+    }
+
     private final ClassLoaderDelegate delegate;
 
+    /**
+     * Lock objects, keyed on class name.
+     */
+    private final ConcurrentMap<String, Object> locks = PlasticInternalUtils.newConcurrentMap();
+
     public PlasticClassLoader(ClassLoader parent, ClassLoaderDelegate delegate)
     {
         super(parent);
@@ -25,29 +45,70 @@ public class PlasticClassLoader extends ClassLoader
         this.delegate = delegate;
     }
 
-    @Override
-    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    /**
+     * ClassLoader.registerAsParallelCapable() was added in JDK 1.7, so it is invoked reflectively.
+     */
+    private static void makeParallelCapable()
     {
-        Class<?> loadedClass = findLoadedClass(name);
+        try
+        {
+            Method method = ClassLoader.class.getDeclaredMethod("registerAsParallelCapable");
 
-        if (loadedClass != null)
-            return loadedClass;
+            method.invoke(null);
+        } catch (Exception ex)
+        {
+            // Not available; class loading will be serialized by the JVM.
+        }
+    }
 
-        if (delegate.shouldInterceptClassLoading(name))
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    {
+        synchronized (getLock(name))
         {
-            Class<?> c = delegate.loadAndTransformClass(name);
+            Class<?> loadedClass = findLoadedClass(name);
 
-            if (resolve)
-                resolveClass(c);
+            if (loadedClass != null)
+                return loadedClass;
 
-            return c;
-        } else
-        {
-            return super.loadClass(name, resolve);
+            if (delegate.shouldInterceptClassLoading(name))
+            {
+                Class<?> c = delegate.loadAndTransformClass(name);
+
+                if (resolve)
+                    resolveClass(c);
+
+                return c;
+            } else
+            {
+                return super.loadClass(name, resolve);
+            }
         }
     }
 
-    public synchronized Class<?> defineClassWithBytecode(String className, byte[] bytecode)
+    /**
+     * Returns the object used to lock the loading of the named class. The same object is always returned for the
+     * same name.
+     */
+    Object getLock(String className)
+    {
+        Object lock = locks.get(className);
+
+        if (lock != null)
+            return lock;
+
+        Object newLock = new Object();
+
+        lock = locks.putIfAbsent(className, newLock);
+
+        return lock == null ? newLock : lock;
+    }
+
+    /**
+     * Defines a class from its bytecode. The caller is responsible for ensuring that the same class is not
+     * defined twice, usually by holding the {@linkplain #getLock(String) lock} for the class name.
+     */
+    public Class<?> defineClassWithBytecode(String className, byte[] bytecode)
     {
         return defineClass(className, bytecode, 0, bytecode.length);
     }
@@ -28,6 +28,10 @@ import java.util.concurrent.CopyOnWriteArrayList;
 /**
  * Responsible for managing a class loader that allows ASM {@link ClassNode}s
  * to be instantiated as runtime classes.
+ * <p/>
+ * Classes are loaded and transformed under a lock specific to the class name (see {@link PlasticClassLoader}), so
+ * unrelated classes may be transformed by different threads at the same time; the maps shared between
+ * transformations are concurrent.
  */
 @SuppressWarnings("rawtypes")
 public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticClassListenerHub
@@ -39,15 +43,23 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
     private final Set<String> controlledPackages;
 
 
-    // Would use Deque, but that's added in 1.6 and we're still striving for 1.5 code compatibility.
-
-    private final Stack<String> activeInstrumentClassNames = new Stack<String>();
+    /**
+     * Names of the classes being transformed by the current thread, used to detect cycles.
+     * Would use Deque, but that's added in 1.6 and we're still striving for 1.5 code compatibility.
+     */
+    private final ThreadLocal<Stack<String>> activeInstrumentClassNames = new ThreadLocal<Stack<String>>()
+    {
+        @Override
+        protected Stack<String> initialValue()
+        {
+            return new Stack<String>();
+        }
+    };
 
     /**
      * Maps class names to instantiators for that class name.
-     * Synchronized on the loader.
      */
-    private final Map<String, ClassInstantiator> instantiators = PlasticInternalUtils.newMap();
+    private final Map<String, ClassInstantiator> instantiators = PlasticInternalUtils.newConcurrentMap();
 
     private final InheritanceData emptyInheritanceData = new InheritanceData();
 
@@ -79,15 +91,30 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
     }
 
     /**
-     * Map from FQCN to BaseClassDef. Synchronized on the loader.
+     * Map from FQCN to BaseClassDef.
      */
-    private final Map<String, BaseClassDef> baseClassDefs = PlasticInternalUtils.newMap();
-
+    private final Map<String, BaseClassDef> baseClassDefs = PlasticInternalUtils.newConcurrentMap();
 
-    private final Map<String, FieldInstrumentations> instrumentations = PlasticInternalUtils.newMap();
+    /**
+     * Map from class internal name to field instrumentations. The entry for a transformed class is created when
+     * its transformation starts, and is only complete once the class has been loaded.
+     */
+    private final Map<String, FieldInstrumentations> instrumentations = PlasticInternalUtils.newConcurrentMap();
 
     private final FieldInstrumentations placeholder = new FieldInstrumentations(null);
 
+    /**
+     * Thread transforming each class, while the class is being transformed.
+     */
+    private final Map<String, Thread> transformingThreads = PlasticInternalUtils.newConcurrentMap();
+
+    /**
+     * Class each thread is waiting to load (to obtain its field instrumentations) while transforming another class.
+     * Together with {@link #transformingThreads}, this identifies threads that would deadlock waiting on each other.
+     * Guarded by its own lock.
+     */
+    private final Map<Thread, String> awaitedClassNames = PlasticInternalUtils.newMap();
+
 
     private final Set<TransformationOption> options;
 
@@ -117,32 +144,25 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
     public Class realizeTransformedClass(ClassNode classNode, InheritanceData inheritanceData,
                                          StaticContext staticContext)
     {
-        synchronized (loader)
-        {
-            Class result = realize(PlasticInternalUtils.toClassName(classNode.name), ClassType.PRIMARY, classNode);
-
-            baseClassDefs.put(result.getName(), new BaseClassDef(inheritanceData, staticContext));
+        Class result = realize(PlasticInternalUtils.toClassName(classNode.name), ClassType.PRIMARY, classNode);
 
-            return result;
-        }
+        baseClassDefs.put(result.getName(), new BaseClassDef(inheritanceData, staticContext));
 
+        return result;
     }
 
     public Class realize(String primaryClassName, ClassType classType, ClassNode classNode)
     {
-        synchronized (loader)
+        if (!listeners.isEmpty())
         {
-            if (!listeners.isEmpty())
-            {
-                fire(toEvent(primaryClassName, classType, classNode));
-            }
+            fire(toEvent(primaryClassName, classType, classNode));
+        }
 
-            byte[] bytecode = toBytecode(classNode);
+        byte[] bytecode = toBytecode(classNode);
 
-            String className = PlasticInternalUtils.toClassName(classNode.name);
+        String className = PlasticInternalUtils.toClassName(classNode.name);
 
-            return loader.defineClassWithBytecode(className, bytecode);
-        }
+        return loader.defineClassWithBytecode(className, bytecode);
     }
 
     private PlasticClassEvent toEvent(final String primaryClassName, final ClassType classType,
@@ -307,9 +327,10 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
         return false;
     }
 
-    // Hopefully the synchronized will not cause a deadlock
-
-    public synchronized Class<?> loadAndTransformClass(String className) throws ClassNotFoundException
+    /**
+     * Invoked by the {@link PlasticClassLoader}, while holding the lock for the class name.
+     */
+    public Class<?> loadAndTransformClass(String className) throws ClassNotFoundException
     {
         // Inner classes are not transformed, but they are loaded by the same class loader.
 
@@ -321,12 +342,14 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
         // TODO: What about interfaces, enums, annotations, etc. ... they shouldn't be in the package, but
         // we should generate a reasonable error message.
 
-        if (activeInstrumentClassNames.contains(className))
+        Stack<String> active = activeInstrumentClassNames.get();
+
+        if (active.contains(className))
         {
             StringBuilder builder = new StringBuilder("");
             String sep = "";
 
-            for (String name : activeInstrumentClassNames)
+            for (String name : active)
             {
                 builder.append(sep);
                 builder.append(name);
@@ -338,7 +361,16 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
                     className, builder));
         }
 
-        activeInstrumentClassNames.push(className);
+        active.push(className);
+
+        transformingThreads.put(className, Thread.currentThread());
+
+        // If the thread was waiting for this class, it no longer is.
+
+        synchronized (awaitedClassNames)
+        {
+            awaitedClassNames.remove(Thread.currentThread());
+        }
 
         try
         {
@@ -355,7 +387,9 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
             return transformation.getTransformedClass();
         } finally
         {
-            activeInstrumentClassNames.pop();
+            transformingThreads.remove(className);
+
+            active.pop();
         }
     }
 
@@ -506,55 +540,56 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
 
     public ClassInstantiator getClassInstantiator(String className)
     {
-        synchronized (loader)
+        ClassInstantiator result = instantiators.get(className);
+
+        if (result == null)
         {
-            if (!instantiators.containsKey(className))
+            try
             {
-                try
-                {
-                    loader.loadClass(className);
-                } catch (ClassNotFoundException ex)
-                {
-                    throw new RuntimeException(ex);
-                }
-            }
-
-            ClassInstantiator result = instantiators.get(className);
+                // Waits for any other thread that is currently transforming the class.
 
-            if (result == null)
+                loader.loadClass(className);
+            } catch (ClassNotFoundException ex)
             {
-                // TODO: Verify that the problem is incorrect package, and not any other failure.
+                throw new RuntimeException(ex);
+            }
 
-                StringBuilder b = new StringBuilder();
-                b.append("Class '")
-                        .append(className)
-                        .append("' is not a transformed class. Transformed classes should be in one of the following packages: ");
+            result = instantiators.get(className);
+        }
 
-                String sep = "";
+        if (result == null)
+        {
+            // TODO: Verify that the problem is incorrect package, and not any other failure.
 
-                List<String> names = new ArrayList<String>(controlledPackages);
-                Collections.sort(names);
+            StringBuilder b = new StringBuilder();
+            b.append("Class '")
+                    .append(className)
+                    .append("' is not a transformed class. Transformed classes should be in one of the following packages: ");
 
-                for (String name : names)
-                {
-                    b.append(sep);
-                    b.append(name);
+            String sep = "";
 
-                    sep = ", ";
-                }
+            List<String> names = new ArrayList<String>(controlledPackages);
+            Collections.sort(names);
 
-                String message = b.append(".").toString();
+            for (String name : names)
+            {
+                b.append(sep);
+                b.append(name);
 
-                throw new IllegalArgumentException(message);
+                sep = ", ";
             }
 
-            return result;
+            String message = b.append(".").toString();
+
+            throw new IllegalArgumentException(message);
         }
+
+        return result;
     }
 
     TypeCategory getTypeCategory(String typeName)
     {
-        synchronized (loader)
+        synchronized (typeName2Category)
         {
             // TODO: Is this the right place to cache this data?
 
@@ -592,21 +627,40 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
     {
         FieldInstrumentations result = instrumentations.get(classInternalName);
 
-        if (result != null)
+        if (result == placeholder)
         {
             return result;
         }
 
         String className = PlasticInternalUtils.toClassName(classInternalName);
 
+        boolean loadable = !className.contains("$") && shouldInterceptClassLoading(className);
+
+        // Classes outside of the controlled packages (transformed explicitly), and classes being transformed by
+        // this thread, add their field instrumentations as they are transformed; use them as is.
+
+        if (result != null && (!loadable || activeInstrumentClassNames.get().contains(className)))
+        {
+            return result;
+        }
+
         // If it is a top-level (not inner) class in a controlled package, then we
         // will recursively load the class, to identify any field instrumentations
-        // in it.
-        if (!className.contains("$") && shouldInterceptClassLoading(className))
+        // in it. Loading through the class loader also waits for any other thread that is
+        // part way through transforming the class (and adding its field instrumentations).
+        if (loadable)
         {
+            if (!startWaitingFor(className))
+            {
+                // The thread transforming the class is itself waiting (perhaps indirectly) for a class this thread
+                // is transforming; as when the cycle is within a single thread, use the entry as it stands.
+
+                return instrumentations.get(classInternalName);
+            }
+
             try
             {
-                loadAndTransformClass(className);
+                loader.loadClass(className);
 
                 // The key is written into the instrumentations map as a side-effect
                 // of loading the class.
@@ -614,16 +668,68 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
             } catch (Exception ex)
             {
                 throw new RuntimeException(PlasticInternalUtils.toMessage(ex), ex);
+            } finally
+            {
+                synchronized (awaitedClassNames)
+                {
+                    awaitedClassNames.remove(Thread.currentThread());
+                }
             }
         }
 
         // Either a class outside of controlled packages, or an inner class. Use a placeholder
         // that contains empty maps.
 
-        result = placeholder;
-        instrumentations.put(classInternalName, result);
+        instrumentations.put(classInternalName, placeholder);
 
-        return result;
+        return placeholder;
+    }
+
+    /**
+     * Records that the current thread is about to wait for the class to be loaded, unless that would deadlock: that
+     * is, unless the thread transforming the class is waiting, directly or through other threads, for a class being
+     * transformed by the current thread.
+     *
+     * @return true if the current thread may wait for the class, false if that would deadlock
+     */
+    private boolean startWaitingFor(String className)
+    {
+        Thread current = Thread.currentThread();
+
+        synchronized (awaitedClassNames)
+        {
+            String name = className;
+
+            Set<Thread> visited = PlasticInternalUtils.newSet();
+
+            while (true)
+            {
+                Thread owner = transformingThreads.get(name);
+
+                if (owner == current)
+                {
+                    return false;
+                }
+
+                // Stop at the end of the chain, or at a cycle of other threads.
+
+                if (owner == null || !visited.add(owner))
+                {
+                    break;
+                }
+
+                name = awaitedClassNames.get(owner);
+
+                if (name == null)
+                {
+                    break;
+                }
+            }
+
+            awaitedClassNames.put(current, className);
+
+            return true;
+        }
     }
 
     FieldInstrumentation getFieldInstrumentation(String ownerClassInternalName, String fieldName, boolean forRead)
@@ -0,0 +1,52 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.plastic;
+
+/**
+ * Base class for {@link InlineMethodAdvice}, implementing {@link #advise(MethodInvocation)} in terms of the hooks, for
+ * methods where Plastic can not invoke the hooks directly.
+ *
+ * @since 5.4
+ */
+public abstract class AbstractInlineMethodAdvice implements InlineMethodAdvice
+{
+    public void advise(MethodInvocation invocation)
+    {
+        Object state = beforeInvocation(invocation.getInstance());
+
+        try
+        {
+            invocation.proceed();
+        } catch (RuntimeException ex)
+        {
+            afterException(state, ex);
+
+            throw ex;
+        } catch (Error err)
+        {
+            afterException(state, err);
+
+            throw err;
+        }
+
+        if (invocation.didThrowCheckedException())
+        {
+            afterException(state, invocation.getCheckedException(Exception.class));
+        } else
+        {
+            afterSuccess(state);
+        }
+    }
+}
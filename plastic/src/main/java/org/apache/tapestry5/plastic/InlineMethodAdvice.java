@@ -0,0 +1,63 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.plastic;
+
+/**
+ * A lower-level form of {@link MethodAdvice}, for advice that only needs to do something before the advised method is
+ * invoked, and after it returns or throws an exception (for example, managing a transaction). Inline advice does not
+ * see or change the parameters, the return value, or the thrown exception.
+ * <p/>
+ * When <em>every</em> piece of advice added to a method is inline advice, Plastic does not create a
+ * {@link MethodInvocation} subclass for the method; instead, the advised method is rewritten to invoke each
+ * advice's hooks directly, in a straight line. No object is allocated per call, and no parameter or return value
+ * is boxed. When the method also has ordinary advice, Plastic falls back to the {@link MethodInvocation} chain, and
+ * {@link #advise(MethodInvocation)} is invoked instead; it must invoke the same hooks in the same way, which is what
+ * {@link AbstractInlineMethodAdvice} does.
+ * <p/>
+ * Advice added first is outermost: its {@link #beforeInvocation(Object)} hook is invoked first, and its
+ * {@link #afterSuccess(Object)} or {@link #afterException(Object, Throwable)} hook last.
+ *
+ * @since 5.4
+ */
+public interface InlineMethodAdvice extends MethodAdvice
+{
+    /**
+     * Invoked before the advised method (and before any inner advice).
+     *
+     * @param instance
+     *         the object on which the method is invoked
+     * @return any value (including null), which is passed to the matching after hook
+     */
+    Object beforeInvocation(Object instance);
+
+    /**
+     * Invoked after the advised method (and any inner advice) returns normally.
+     *
+     * @param state
+     *         value returned from {@link #beforeInvocation(Object)}
+     */
+    void afterSuccess(Object state);
+
+    /**
+     * Invoked after the advised method (or any inner advice) throws an exception, checked or unchecked. The exception
+     * is re-thrown once this hook returns; if the hook itself throws an exception, that exception replaces the original.
+     *
+     * @param state
+     *         value returned from {@link #beforeInvocation(Object)}
+     * @param exception
+     *         the thrown exception
+     */
+    void afterException(Object state, Throwable exception);
+}
@@ -60,6 +60,9 @@ public interface PlasticMethod extends AnnotationAccess
      * {@link MethodInvocation} and should invoke {@link MethodInvocation#proceed()} to pass control to the next piece
      * of advice (and ultimately, to the actual method invocation).
      * <p/>
+     * If all the advice for a method is {@link InlineMethodAdvice}, no MethodInvocation is created; the advised
+     * method instead invokes the advice hooks directly.
+     * <p/>
      * If a method implementation is changed, using {@link #changeImplementation(InstructionBuilderCallback)}, that
      * change will be honored, but the logic will only be invoked at the end of the chain of MethodAdvice. Internally, a
      * new method is created with the same parameters, exceptions, return type and implementation (bytecode) as the
@@ -0,0 +1,121 @@
+package org.apache.tapestry5.plastic
+
+import testsubjects.CrossAccessOne
+import testsubjects.CrossAccessTwo
+import testsubjects.MultipleMethods
+import testsubjects.SingleField
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Classes are loaded and transformed under a lock per class name, rather than a lock on the entire class loader.
+ */
+class ConcurrentClassLoading extends AbstractPlasticSpecification {
+
+    def "unrelated classes are transformed in parallel"() {
+        def singleFieldStarted = new CountDownLatch(1)
+        def multipleMethodsStarted = new CountDownLatch(1)
+        def overlapped = new ConcurrentHashMap()
+
+        // Each transformation waits for the other to start; that can only happen if they run at the same time.
+
+        def mgr = createMgr({ PlasticClass pc ->
+            if (pc.className == SingleField.name) {
+                singleFieldStarted.countDown()
+                overlapped[pc.className] = multipleMethodsStarted.await(10, TimeUnit.SECONDS)
+            }
+
+            if (pc.className == MultipleMethods.name) {
+                multipleMethodsStarted.countDown()
+                overlapped[pc.className] = singleFieldStarted.await(10, TimeUnit.SECONDS)
+            }
+        } as PlasticClassTransformer)
+
+        when:
+
+        def threads = [SingleField, MultipleMethods].collect { type ->
+            Thread.start { mgr.getClassInstantiator(type.name) }
+        }
+
+        threads*.join()
+
+        then:
+
+        overlapped == [(SingleField.name): true, (MultipleMethods.name): true]
+    }
+
+    def "a class requested by several threads at once is transformed once"() {
+        def transformations = new AtomicInteger()
+        def release = new CountDownLatch(1)
+
+        def mgr = createMgr({ PlasticClass pc ->
+            transformations.incrementAndGet()
+            release.await()
+        } as PlasticClassTransformer)
+
+        def instantiators = Collections.synchronizedList([])
+
+        when:
+
+        def threads = (1..4).collect {
+            Thread.start { instantiators << mgr.getClassInstantiator(SingleField.name) }
+        }
+
+        // Give the other threads a chance to block on the first.
+
+        Thread.sleep 100
+
+        release.countDown()
+
+        threads*.join()
+
+        then:
+
+        transformations.get() == 1
+        instantiators.size() == 4
+        instantiators.every { it.is(instantiators[0]) }
+    }
+
+    def "classes accessing each other's fields are transformed on different threads without deadlock"() {
+        def oneStarted = new CountDownLatch(1)
+        def twoStarted = new CountDownLatch(1)
+
+        // Each transformation waits for the other to start, so that each thread holds the lock for its own class
+        // when it needs the other class's field instrumentations.
+
+        def mgr = createMgr({ PlasticClass pc ->
+            if (pc.className == CrossAccessOne.name) {
+                oneStarted.countDown()
+                twoStarted.await(10, TimeUnit.SECONDS)
+            }
+
+            if (pc.className == CrossAccessTwo.name) {
+                twoStarted.countDown()
+                oneStarted.await(10, TimeUnit.SECONDS)
+            }
+        } as PlasticClassTransformer)
+
+        def instances = new ConcurrentHashMap()
+
+        when:
+
+        def threads = [CrossAccessOne, CrossAccessTwo].collect { type ->
+            Thread.start { instances[type.name] = mgr.getClassInstantiator(type.name).newInstance() }
+        }
+
+        threads.each { it.join(10000) }
+
+        then:
+
+        threads.every { !it.alive }
+
+        def one = instances[CrossAccessOne.name]
+        def two = instances[CrossAccessTwo.name]
+
+        one.getOtherValue(two) == "two"
+        two.getOtherValue(one) == "one"
+    }
+}
@@ -1,6 +1,7 @@
 package org.apache.tapestry5.plastic
 
 import org.apache.tapestry5.plastic.test.NoopAdvice
+import org.apache.tapestry5.plastic.test.RecordingInlineAdvice
 import testannotations.FieldAnnotation
 import testannotations.Maybe
 import testannotations.MethodAnnotation
@@ -303,4 +304,90 @@ class MethodAdviceTests extends AbstractPlasticSpecification {
         o.magic() == "<<MAGIC!>>"
     }
 
+    def "inline advice on a method with long and double parameters"() {
+        setup:
+
+        def events = []
+
+        def mgr = createMgr({ PlasticClass pc ->
+            findMethod(pc, "doMath").addAdvice(new RecordingInlineAdvice("outer", events)).addAdvice(new RecordingInlineAdvice("inner", events))
+        } as PlasticClassTransformer)
+
+        def o = mgr.getClassInstantiator(testsubjects.WidePrimitives.name).newInstance()
+
+        expect:
+
+        o.doMath(2l, 4.0d, 5, 6l) == 38d
+
+        events == ["outer before", "inner before", "inner success: inner state", "outer success: outer state"]
+
+        // No MethodInvocation class is created for the method
+
+        !o.class.declaredFields.any { it.name.startsWith("methodinvocationbundle") }
+    }
+
+    def "inline advice sees checked exceptions"() {
+        setup:
+
+        def events = []
+
+        def mgr = createMgr({ PlasticClass pc ->
+            findMethod(pc, "maybeThrow").addAdvice(new RecordingInlineAdvice("outer", events)).addAdvice(new RecordingInlineAdvice("inner", events))
+        } as PlasticClassTransformer)
+
+        def o = mgr.getClassInstantiator(testsubjects.MethodAdviceTarget.name).newInstance()
+
+        when:
+
+        o.maybeThrow(0L)
+
+        then:
+
+        thrown(SQLException)
+
+        events == ["outer before", "inner before", "inner exception: inner state, SQLException", "outer exception: outer state, SQLException"]
+    }
+
+    def "inline advice on a void method"() {
+        setup:
+
+        def events = []
+
+        def mgr = createMgr({ PlasticClass pc ->
+            findMethod(pc, "aSingleMethod").addAdvice(new RecordingInlineAdvice("only", events))
+        } as PlasticClassTransformer)
+
+        def o = mgr.getClassInstantiator(SingleMethod.name).newInstance()
+
+        when:
+
+        o.aSingleMethod(123)
+
+        then:
+
+        events == ["only before", "only success: only state"]
+    }
+
+    def "inline advice mixed with ordinary advice"() {
+        setup:
+
+        def events = []
+
+        def mgr = createMgr({ PlasticClass pc ->
+            findMethod(pc, "maybeThrow").addAdvice(new RecordingInlineAdvice("outer", events)).addAdvice(new NoopAdvice())
+        } as PlasticClassTransformer)
+
+        def o = mgr.getClassInstantiator(testsubjects.MethodAdviceTarget.name).newInstance()
+
+        when:
+
+        o.maybeThrow(3L) == 3L
+        o.maybeThrow(0L)
+
+        then:
+
+        thrown(SQLException)
+
+        events == ["outer before", "outer success: outer state", "outer before", "outer exception: outer state, SQLException"]
+    }
 }
@@ -0,0 +1,52 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.plastic.test;
+
+import org.apache.tapestry5.plastic.AbstractInlineMethodAdvice;
+
+import java.util.List;
+
+/**
+ * Inline advice that records the hooks invoked on it.
+ */
+public class RecordingInlineAdvice extends AbstractInlineMethodAdvice
+{
+    private final String name;
+
+    private final List<String> events;
+
+    public RecordingInlineAdvice(String name, List<String> events)
+    {
+        this.name = name;
+        this.events = events;
+    }
+
+    public Object beforeInvocation(Object instance)
+    {
+        events.add(name + " before");
+
+        return name + " state";
+    }
+
+    public void afterSuccess(Object state)
+    {
+        events.add(name + " success: " + state);
+    }
+
+    public void afterException(Object state, Throwable exception)
+    {
+        events.add(name + " exception: " + state + ", " + exception.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,14 @@
+package testsubjects;
+
+/**
+ * Accesses a field of {@link CrossAccessTwo}, which accesses a field of this class.
+ */
+public class CrossAccessOne
+{
+    String value = "one";
+
+    public String getOtherValue(CrossAccessTwo other)
+    {
+        return other.value;
+    }
+}
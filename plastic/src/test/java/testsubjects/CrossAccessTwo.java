@@ -0,0 +1,14 @@
+package testsubjects;
+
+/**
+ * Accesses a field of {@link CrossAccessOne}, which accesses a field of this class.
+ */
+public class CrossAccessTwo
+{
+    String value = "two";
+
+    public String getOtherValue(CrossAccessOne other)
+    {
+        return other.value;
+    }
+}
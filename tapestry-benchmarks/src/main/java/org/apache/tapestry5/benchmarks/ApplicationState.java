@@ -0,0 +1,60 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.test.PageTester;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Shared state for benchmarks that need a running Tapestry application: a {@link PageTester} for the small
+ * application in the {@code org.apache.tapestry5.benchmarks.app} package, running in production mode.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState
+{
+    public static final String APP_PACKAGE = "org.apache.tapestry5.benchmarks.app";
+
+    private PageTester tester;
+
+    @Setup(Level.Trial)
+    public void startup()
+    {
+        tester = new PageTester(APP_PACKAGE, "app");
+    }
+
+    /**
+     * Discards per-thread state accumulated by benchmarks that invoke services outside of a request.
+     */
+    @TearDown(Level.Iteration)
+    public void cleanupThread()
+    {
+        tester.getRegistry().cleanupThread();
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown()
+    {
+        tester.shutdown();
+    }
+
+    public PageTester getTester()
+    {
+        return tester;
+    }
+
+    public <T> T getService(Class<T> serviceInterface)
+    {
+        return tester.getService(serviceInterface);
+    }
+}
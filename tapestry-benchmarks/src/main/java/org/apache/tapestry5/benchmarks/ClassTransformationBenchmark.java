@@ -0,0 +1,132 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.plastic.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Time to load and transform the core library's component classes into a fresh {@link PlasticManager}, split
+ * between 1 to 8 threads, as happens when several unrelated pages are requested at once after a restart. Every method
+ * of every class is advised, so there's a realistic amount of work per class.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassTransformationBenchmark
+{
+    private static final String[] COMPONENTS = {
+            "ActionLink", "AddRowLink", "AjaxFormLoop", "Alerts", "Any", "BeanDisplay", "BeanEditForm", "BeanEditor",
+            "Checkbox", "Checklist", "DateField", "Delegate", "Doctype", "Dynamic", "Error", "Errors", "EventLink",
+            "ExceptionDisplay", "Form", "FormFragment", "FormInjector", "Glyphicon", "Grid", "GridCell", "GridColumns",
+            "GridPager", "GridRows", "Hidden", "If", "Label", "LinkSubmit", "Loop", "Output", "OutputRaw", "PageLink",
+            "Palette", "PasswordField", "ProgressiveDisplay", "PropertyDisplay", "PropertyEditor", "Radio",
+            "RadioGroup", "RemoveRowLink", "RenderObject", "Select", "Submit", "SubmitNotifier", "TextArea",
+            "TextField", "TextOutput", "Tree", "Trigger", "Unless", "Zone"};
+
+    private static final MethodAdvice PROCEED = new MethodAdvice()
+    {
+        public void advise(MethodInvocation invocation)
+        {
+            invocation.proceed();
+        }
+    };
+
+    private static final PlasticManagerDelegate DELEGATE = new PlasticManagerDelegate()
+    {
+        public void transform(PlasticClass plasticClass)
+        {
+            for (PlasticMethod method : plasticClass.getMethods())
+            {
+                method.addAdvice(PROCEED);
+            }
+        }
+
+        public <T> ClassInstantiator<T> configureInstantiator(String className, ClassInstantiator<T> instantiator)
+        {
+            return instantiator;
+        }
+    };
+
+    @Param({"1", "4", "8"})
+    public int threads;
+
+    private ExecutorService executor;
+
+    private PlasticManager manager;
+
+    @Setup(Level.Trial)
+    public void startThreads()
+    {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopThreads()
+    {
+        executor.shutdown();
+    }
+
+    @Setup(Level.Iteration)
+    public void createManager()
+    {
+        manager = PlasticManager.withContextClassLoader().delegate(DELEGATE)
+                .packages(Collections.singleton("org.apache.tapestry5.corelib")).create();
+    }
+
+    @Benchmark
+    public int transform() throws Exception
+    {
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+
+        for (int i = 0; i < threads; i++)
+        {
+            final int start = i;
+
+            futures.add(executor.submit(new Callable<Integer>()
+            {
+                public Integer call()
+                {
+                    int count = 0;
+
+                    for (int j = start; j < COMPONENTS.length; j += threads)
+                    {
+                        manager.getClassInstantiator("org.apache.tapestry5.corelib.components." + COMPONENTS[j]);
+
+                        count++;
+                    }
+
+                    return count;
+                }
+            }));
+        }
+
+        int count = 0;
+
+        for (Future<Integer> future : futures)
+        {
+            count += future.get();
+        }
+
+        return count;
+    }
+}
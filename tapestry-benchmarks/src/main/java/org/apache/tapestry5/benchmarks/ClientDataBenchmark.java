@@ -0,0 +1,166 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.ComponentAction;
+import org.apache.tapestry5.internal.services.ClientDataEncoderImpl;
+import org.apache.tapestry5.internal.services.ComponentClassCache;
+import org.apache.tapestry5.services.ClientDataCodec;
+import org.apache.tapestry5.services.ClientDataEncoder;
+import org.apache.tapestry5.services.ClientDataSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the component actions of a form (a 100 row Grid with two fields per row), by the
+ * {@link ClientDataEncoder}, in the compact format and in the legacy (Java serialization and GZip) format. The
+ * size of the encoded data is printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientDataBenchmark
+{
+    /**
+     * Similar to GridRows.SetupForRowWithClientValue.
+     */
+    static class SetupForRow implements ComponentAction<Object>
+    {
+        private final String clientValue;
+
+        SetupForRow(String clientValue)
+        {
+            this.clientValue = clientValue;
+        }
+
+        SetupForRow()
+        {
+            this(null);
+        }
+
+        public void execute(Object component)
+        {
+        }
+    }
+
+    /**
+     * Similar to AbstractField.Setup.
+     */
+    static class SetupField implements ComponentAction<Object>
+    {
+        private final String controlName;
+
+        SetupField(String controlName)
+        {
+            this.controlName = controlName;
+        }
+
+        SetupField()
+        {
+            this(null);
+        }
+
+        public void execute(Object component)
+        {
+        }
+    }
+
+    /**
+     * Similar to AbstractField.ProcessSubmission.
+     */
+    static class ProcessSubmission implements ComponentAction<Object>
+    {
+        public void execute(Object component)
+        {
+        }
+    }
+
+    private static final ProcessSubmission PROCESS_SUBMISSION = new ProcessSubmission();
+
+    @Param({"compact", "legacy"})
+    public String format;
+
+    private ClientDataEncoder encoder;
+
+    private String clientData;
+
+    @Setup
+    public void setup(ApplicationState state) throws IOException
+    {
+        encoder = new ClientDataEncoderImpl(null, "benchmark passphrase", null, ApplicationState.APP_PACKAGE, null,
+                format.equals("compact"), state.getService(ComponentClassCache.class),
+                Collections.<Class, ClientDataCodec>emptyMap());
+
+        clientData = encode();
+
+        System.out.printf("%nEncoded client data (%s): %,d characters%n", format, clientData.length());
+    }
+
+    @Benchmark
+    public String encode() throws IOException
+    {
+        ClientDataSink sink = encoder.createSink();
+
+        ObjectOutputStream stream = sink.getObjectOutputStream();
+
+        for (int i = 0; i < 100; i++)
+        {
+            stream.writeUTF("Index:grid.rows");
+            stream.writeObject(new SetupForRow(Integer.toString(1000 + i)));
+
+            for (String field : new String[]{"name", "quantity"})
+            {
+                stream.writeUTF("Index:grid." + field);
+                stream.writeObject(new SetupField(i == 0 ? field : field + "_" + i));
+                stream.writeUTF("Index:grid." + field);
+                stream.writeObject(PROCESS_SUBMISSION);
+            }
+        }
+
+        return sink.getClientData();
+    }
+
+    @Benchmark
+    public int decode() throws Exception
+    {
+        ObjectInputStream stream = encoder.decodeClientData(clientData);
+
+        int count = 0;
+
+        try
+        {
+            while (true)
+            {
+                stream.readUTF();
+                stream.readObject();
+
+                count++;
+            }
+        } catch (EOFException ex)
+        {
+            // Expected
+        }
+
+        return count;
+    }
+}
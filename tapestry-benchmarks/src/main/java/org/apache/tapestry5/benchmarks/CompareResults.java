@@ -0,0 +1,153 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.json.JSONArray;
+import org.apache.tapestry5.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files in JSON format (as written by the {@code benchmark} task), printing the change in
+ * score for each benchmark present in both. Exits with a non-zero status if any benchmark regressed by more than the
+ * threshold.
+ * <p/>
+ * Usage: {@code CompareResults <baseline.json> <current.json> [threshold-percent]}; the threshold defaults to 10.
+ */
+public class CompareResults
+{
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+
+        Map<String, JSONObject> baseline = read(new File(args[0]));
+        Map<String, JSONObject> current = read(new File(args[1]));
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10d;
+
+        int regressions = 0;
+
+        for (Map.Entry<String, JSONObject> entry : current.entrySet())
+        {
+            JSONObject base = baseline.get(entry.getKey());
+
+            if (base == null)
+            {
+                System.out.printf("%-100s %12s%n", entry.getKey(), "(new)");
+                continue;
+            }
+
+            double baseScore = score(base);
+            double currentScore = score(entry.getValue());
+
+            // Positive is an improvement; for throughput, higher is better, otherwise (average or sample time)
+            // lower is better.
+
+            double change = baseScore == 0 ? 0 : (currentScore - baseScore) / baseScore * 100d;
+
+            if (!entry.getValue().getString("mode").equals("thrpt"))
+            {
+                change = -change;
+            }
+
+            boolean regressed = change < -threshold;
+
+            if (regressed)
+            {
+                regressions++;
+            }
+
+            System.out.printf("%-100s %12.3f %12.3f %s %+8.1f%%%s%n", entry.getKey(), baseScore, currentScore,
+                    unit(entry.getValue()), change, regressed ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0)
+        {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%.%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static double score(JSONObject result)
+    {
+        return result.getJSONObject("primaryMetric").getDouble("score");
+    }
+
+    private static String unit(JSONObject result)
+    {
+        return result.getJSONObject("primaryMetric").getString("scoreUnit");
+    }
+
+    /**
+     * Reads the results, keyed on benchmark name and parameters (sorted, for a stable report).
+     */
+    private static Map<String, JSONObject> read(File file) throws IOException
+    {
+        JSONArray results = new JSONArray(readFile(file));
+
+        Map<String, JSONObject> map = new TreeMap<String, JSONObject>();
+
+        for (int i = 0; i < results.length(); i++)
+        {
+            JSONObject result = results.getJSONObject(i);
+
+            String key = result.getString("benchmark");
+
+            if (result.has("params"))
+            {
+                key += " " + result.getJSONObject("params").toCompactString();
+            }
+
+            map.put(key, result);
+        }
+
+        return map;
+    }
+
+    private static String readFile(File file) throws IOException
+    {
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+
+        try
+        {
+            StringBuilder builder = new StringBuilder();
+            char[] buffer = new char[4096];
+
+            while (true)
+            {
+                int length = reader.read(buffer);
+
+                if (length < 0)
+                {
+                    return builder.toString();
+                }
+
+                builder.append(buffer, 0, length);
+            }
+        } finally
+        {
+            reader.close();
+        }
+    }
+}
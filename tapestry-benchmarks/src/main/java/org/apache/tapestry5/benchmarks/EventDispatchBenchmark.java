@@ -0,0 +1,71 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.ComponentResources;
+import org.apache.tapestry5.internal.services.PageSource;
+import org.apache.tapestry5.internal.structure.Page;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Triggers events on pages with 1, 10 and 100 event handler methods (the EventsN pages of the benchmark application):
+ * the event handled by the last method, an event with no handler (as with most render phase events), and the last
+ * method's event triggered by an embedded component with no handlers, so that it bubbles up to the page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventDispatchBenchmark
+{
+    @Param({"1", "10", "100"})
+    public int handlers;
+
+    private String lastEvent;
+
+    private ComponentResources page, child;
+
+    @Setup
+    public void setup(ApplicationState state)
+    {
+        Page loaded = state.getService(PageSource.class).getPage("Events" + handlers);
+
+        page = loaded.getRootElement().getComponentResources();
+        child = loaded.getComponentElementByNestedId("child").getComponentResources();
+
+        lastEvent = "event" + (handlers - 1);
+    }
+
+    @Benchmark
+    public boolean handled()
+    {
+        return page.triggerEvent(lastEvent, null, null);
+    }
+
+    @Benchmark
+    public boolean unhandled()
+    {
+        return page.triggerEvent("unhandled", null, null);
+    }
+
+    @Benchmark
+    public boolean bubbled()
+    {
+        return child.triggerEvent(lastEvent, null, null);
+    }
+}
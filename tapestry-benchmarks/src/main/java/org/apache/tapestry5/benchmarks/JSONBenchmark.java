@@ -0,0 +1,73 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.json.JSONArray;
+import org.apache.tapestry5.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and printing of a {@link JSONObject} similar in shape to a typical Ajax partial page render response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JSONBenchmark
+{
+    private JSONObject object;
+
+    private String text;
+
+    @Setup
+    public void setup()
+    {
+        JSONArray rows = new JSONArray();
+
+        for (int i = 0; i < 100; i++)
+        {
+            rows.put(new JSONObject("id", i,
+                    "name", "Row #" + i,
+                    "selected", i % 2 == 0,
+                    "score", i * 1.5d,
+                    "tags", new JSONArray("alpha", "beta \"quoted\"", "gamma\n")));
+        }
+
+        object = new JSONObject("_tapestry", new JSONObject("redirectURL", "/index"), "rows", rows);
+
+        text = object.toCompactString();
+    }
+
+    @Benchmark
+    public JSONObject parse()
+    {
+        return new JSONObject(text);
+    }
+
+    @Benchmark
+    public String printCompact()
+    {
+        return object.toCompactString();
+    }
+
+    @Benchmark
+    public String printPretty()
+    {
+        return object.toString();
+    }
+}
@@ -0,0 +1,98 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.EventContext;
+import org.apache.tapestry5.Link;
+import org.apache.tapestry5.internal.EmptyEventContext;
+import org.apache.tapestry5.internal.services.ArrayEventContext;
+import org.apache.tapestry5.internal.test.TestableRequest;
+import org.apache.tapestry5.ioc.services.TypeCoercer;
+import org.apache.tapestry5.services.ComponentEventLinkEncoder;
+import org.apache.tapestry5.services.ComponentEventRequestParameters;
+import org.apache.tapestry5.services.PageRenderRequestParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of page render and component event links by the
+ * {@link ComponentEventLinkEncoder} (ComponentEventLinkEncoderImpl).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinkEncoderBenchmark
+{
+    private ComponentEventLinkEncoder encoder;
+
+    private TestableRequest request;
+
+    private PageRenderRequestParameters pageRenderParameters;
+
+    private ComponentEventRequestParameters componentEventParameters;
+
+    private String pageRenderPath;
+
+    private String componentEventPath;
+
+    @Setup
+    public void setup(ApplicationState state)
+    {
+        encoder = state.getService(ComponentEventLinkEncoder.class);
+        request = state.getService(TestableRequest.class);
+
+        TypeCoercer typeCoercer = state.getService(TypeCoercer.class);
+
+        EventContext context = new ArrayEventContext(typeCoercer, 97, "bar baz");
+
+        pageRenderParameters = new PageRenderRequestParameters("Index", context, false);
+        componentEventParameters = new ComponentEventRequestParameters("Index", "Index", "loop.action", "action",
+                new EmptyEventContext(), context);
+
+        pageRenderPath = encoder.createPageRenderLink(pageRenderParameters).toURI();
+        componentEventPath = encoder.createComponentEventLink(componentEventParameters, false).toURI();
+    }
+
+    @Benchmark
+    public Link encodePageRender()
+    {
+        return encoder.createPageRenderLink(pageRenderParameters);
+    }
+
+    @Benchmark
+    public Link encodeComponentEvent()
+    {
+        return encoder.createComponentEventLink(componentEventParameters, false);
+    }
+
+    @Benchmark
+    public PageRenderRequestParameters decodePageRender()
+    {
+        request.clear().setPath(pageRenderPath);
+
+        return encoder.decodePageRenderRequest(request);
+    }
+
+    @Benchmark
+    public ComponentEventRequestParameters decodeComponentEvent()
+    {
+        request.clear().setPath(componentEventPath);
+
+        return encoder.decodeComponentEventRequest(request);
+    }
+}
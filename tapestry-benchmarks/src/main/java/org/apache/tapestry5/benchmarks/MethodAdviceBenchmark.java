@@ -0,0 +1,121 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.plastic.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of method advice on a method with primitive parameters and a primitive return value: ordinary
+ * {@link MethodAdvice} (a MethodInvocation is allocated per call, and the parameters and return value boxed) against
+ * {@link InlineMethodAdvice} (the hooks are invoked directly from the advised method). The advice does nothing but
+ * pass control along. Run with <code>-prof gc</code> to see the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodAdviceBenchmark
+{
+    public interface Adder
+    {
+        int add(int left, int right);
+    }
+
+    public static class AdderImpl implements Adder
+    {
+        public int add(int left, int right)
+        {
+            return left + right;
+        }
+    }
+
+    private static class ProceedAdvice implements MethodAdvice
+    {
+        public void advise(MethodInvocation invocation)
+        {
+            invocation.proceed();
+        }
+    }
+
+    private static class NoopInlineAdvice extends AbstractInlineMethodAdvice
+    {
+        public Object beforeInvocation(Object instance)
+        {
+            return null;
+        }
+
+        public void afterSuccess(Object state)
+        {
+        }
+
+        public void afterException(Object state, Throwable exception)
+        {
+        }
+    }
+
+    @Param({"0", "1", "3"})
+    public int adviceCount;
+
+    private Adder classic, inline;
+
+    private int left = 17, right = 25;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        PlasticManager manager = PlasticManager.withContextClassLoader().create();
+
+        Method add = Adder.class.getMethod("add", int.class, int.class);
+
+        classic = createProxy(manager, add, new ProceedAdvice());
+        inline = createProxy(manager, add, new NoopInlineAdvice());
+    }
+
+    private Adder createProxy(PlasticManager manager, final Method method, final MethodAdvice advice)
+    {
+        return manager.createProxy(Adder.class, new PlasticClassTransformer()
+        {
+            public void transform(PlasticClass plasticClass)
+            {
+                PlasticField delegate = plasticClass.introduceField(Adder.class, "delegate").inject(new AdderImpl());
+
+                PlasticMethod plasticMethod = plasticClass.introduceMethod(method).delegateTo(delegate);
+
+                for (int i = 0; i < adviceCount; i++)
+                {
+                    plasticMethod.addAdvice(advice);
+                }
+            }
+        }).newInstance();
+    }
+
+    @Benchmark
+    public int classicAdvice()
+    {
+        return classic.add(left, right);
+    }
+
+    @Benchmark
+    public int inlineAdvice()
+    {
+        return inline.add(left, right);
+    }
+}
@@ -0,0 +1,179 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.ioc.internal.services.PerthreadManagerImpl;
+import org.apache.tapestry5.ioc.services.PerThreadValue;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.helpers.NOPLogger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares reading and writing {@link PerThreadValue}s, as done for every unclaimed component field and render
+ * variable, using the indexed {@link PerthreadManagerImpl} against the previous implementation (a ThreadLocal holding a
+ * HashMap keyed on a boxed integer). Each benchmark thread has its own set of values, as in a request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PerThreadValueBenchmark
+{
+    /**
+     * Number of values (that is, component fields) created; a modest page has a few hundred.
+     */
+    @Param({"16", "256"})
+    public int valueCount;
+
+    private PerThreadValue<Object>[] indexedValues;
+
+    private PerThreadValue<Object>[] mapValues;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup()
+    {
+        PerthreadManager indexedManager = new PerthreadManagerImpl(NOPLogger.NOP_LOGGER);
+        MapPerthreadManager mapManager = new MapPerthreadManager();
+
+        indexedValues = new PerThreadValue[valueCount];
+        mapValues = new PerThreadValue[valueCount];
+
+        for (int i = 0; i < valueCount; i++)
+        {
+            indexedValues[i] = indexedManager.createValue();
+            mapValues[i] = mapManager.createValue();
+        }
+    }
+
+    /**
+     * Per-thread state: stores a value in every field, as a rendering page would, and tracks which field is read next.
+     */
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        private int index;
+
+        private final Object value = new Object();
+
+        @Setup
+        public void populate(PerThreadValueBenchmark benchmark)
+        {
+            for (int i = 0; i < benchmark.valueCount; i++)
+            {
+                benchmark.indexedValues[i].set(value);
+                benchmark.mapValues[i].set(value);
+            }
+        }
+
+        int next(int count)
+        {
+            index = (index + 1) % count;
+
+            return index;
+        }
+    }
+
+    @Benchmark
+    public Object indexedGet(Cursor cursor)
+    {
+        return indexedValues[cursor.next(valueCount)].get();
+    }
+
+    @Benchmark
+    public Object indexedSet(Cursor cursor)
+    {
+        return indexedValues[cursor.next(valueCount)].set(cursor.value);
+    }
+
+    @Benchmark
+    public Object mapGet(Cursor cursor)
+    {
+        return mapValues[cursor.next(valueCount)].get();
+    }
+
+    @Benchmark
+    public Object mapSet(Cursor cursor)
+    {
+        return mapValues[cursor.next(valueCount)].set(cursor.value);
+    }
+
+    /**
+     * The PerThreadValue implementation from Tapestry 5.3, retained as a baseline: a ThreadLocal map,
+     * keyed on a boxed integer.
+     */
+    static class MapPerthreadManager
+    {
+        private static final Object NULL_VALUE = new Object();
+
+        private final AtomicInteger uuidGenerator = new AtomicInteger();
+
+        private final ThreadLocal<Map<Object, Object>> holder = new ThreadLocal<Map<Object, Object>>()
+        {
+            @Override
+            protected Map<Object, Object> initialValue()
+            {
+                return new HashMap<Object, Object>();
+            }
+        };
+
+        <T> PerThreadValue<T> createValue()
+        {
+            final Object key = uuidGenerator.getAndIncrement();
+
+            return new PerThreadValue<T>()
+            {
+                public boolean exists()
+                {
+                    return holder.get().containsKey(key);
+                }
+
+                public T get()
+                {
+                    return get(null);
+                }
+
+                @SuppressWarnings("unchecked")
+                public T get(T defaultValue)
+                {
+                    Map<Object, Object> map = holder.get();
+
+                    if (map.containsKey(key))
+                    {
+                        Object storedValue = map.get(key);
+
+                        return storedValue == NULL_VALUE ? null : (T) storedValue;
+                    }
+
+                    return defaultValue;
+                }
+
+                public T set(T newValue)
+                {
+                    holder.get().put(key, newValue == null ? NULL_VALUE : newValue);
+
+                    return newValue;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,109 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.PropertyConduit;
+import org.apache.tapestry5.services.PropertyConduitSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and updating properties through {@link PropertyConduit}s created by the {@link PropertyConduitSource}, for a
+ * simple property and a property path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyConduitBenchmark
+{
+    public static class Address
+    {
+        private String city = "Portland";
+
+        public String getCity()
+        {
+            return city;
+        }
+
+        public void setCity(String city)
+        {
+            this.city = city;
+        }
+    }
+
+    public static class Customer
+    {
+        private String name = "Howard";
+
+        private final Address address = new Address();
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName(String name)
+        {
+            this.name = name;
+        }
+
+        public Address getAddress()
+        {
+            return address;
+        }
+    }
+
+    private final Customer customer = new Customer();
+
+    private PropertyConduit nameConduit;
+
+    private PropertyConduit cityConduit;
+
+    @Setup
+    public void setup(ApplicationState state)
+    {
+        PropertyConduitSource source = state.getService(PropertyConduitSource.class);
+
+        nameConduit = source.create(Customer.class, "name");
+        cityConduit = source.create(Customer.class, "address.city");
+    }
+
+    @Benchmark
+    public Object getProperty()
+    {
+        return nameConduit.get(customer);
+    }
+
+    @Benchmark
+    public void setProperty()
+    {
+        nameConduit.set(customer, "Suzy");
+    }
+
+    @Benchmark
+    public Object getPropertyPath()
+    {
+        return cityConduit.get(customer);
+    }
+
+    @Benchmark
+    public void setPropertyPath()
+    {
+        cityConduit.set(customer, "Seattle");
+    }
+}
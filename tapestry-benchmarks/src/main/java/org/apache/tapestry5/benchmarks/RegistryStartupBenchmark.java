@@ -0,0 +1,149 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.ioc.Registry;
+import org.apache.tapestry5.ioc.RegistryBuilder;
+import org.apache.tapestry5.ioc.ServiceBinder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Time for several threads to realize every service of a freshly built registry of several hundred services, as
+ * happens while an application warms up after a restart. Each service takes a millisecond to realize, to represent
+ * services that do real work (reading configuration, opening connections) when constructed. Services with an
+ * interface are proxied, and realized on first use; services without one are realized as soon as they are located.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistryStartupBenchmark
+{
+    public static final int SERVICE_COUNT = 400;
+
+    public static class SlowService implements Runnable
+    {
+        public SlowService()
+        {
+            try
+            {
+                Thread.sleep(1);
+            } catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public void run()
+        {
+        }
+    }
+
+    public static class ProxiedServicesModule
+    {
+        public static void bind(ServiceBinder binder)
+        {
+            for (int i = 0; i < SERVICE_COUNT; i++)
+            {
+                binder.bind(Runnable.class, SlowService.class).withId("Service" + i);
+            }
+        }
+    }
+
+    public static class UnproxiedServicesModule
+    {
+        public static void bind(ServiceBinder binder)
+        {
+            for (int i = 0; i < SERVICE_COUNT; i++)
+            {
+                binder.bind(SlowService.class).withId("Service" + i);
+            }
+        }
+    }
+
+    @Param({"1", "8"})
+    public int threadCount;
+
+    @Param({"true", "false"})
+    public boolean proxied;
+
+    private ExecutorService executor;
+
+    private Registry registry;
+
+    @Setup(Level.Trial)
+    public void startExecutor()
+    {
+        executor = Executors.newFixedThreadPool(threadCount);
+    }
+
+    @Setup(Level.Invocation)
+    public void buildRegistry()
+    {
+        registry = new RegistryBuilder().add(proxied ? ProxiedServicesModule.class : UnproxiedServicesModule.class)
+                .build();
+
+        registry.performRegistryStartup();
+    }
+
+    @TearDown(Level.Invocation)
+    public void shutdownRegistry()
+    {
+        registry.shutdown();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopExecutor()
+    {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void realizeAllServices() throws Exception
+    {
+        final Class<? extends Runnable> serviceType = proxied ? Runnable.class : SlowService.class;
+
+        List<Future<?>> futures = new CopyOnWriteArrayList<Future<?>>();
+
+        for (int t = 0; t < threadCount; t++)
+        {
+            final int offset = t;
+
+            futures.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    // Each thread starts at a different point, so the threads mostly realize different services.
+
+                    for (int i = 0; i < SERVICE_COUNT; i++)
+                    {
+                        int index = (i + offset * SERVICE_COUNT / threadCount) % SERVICE_COUNT;
+
+                        registry.getService("Service" + index, serviceType).run();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures)
+        {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.ClasspathResource;
+import org.apache.tapestry5.services.assets.ResourceDependencies;
+import org.apache.tapestry5.services.assets.StreamableResource;
+import org.apache.tapestry5.services.assets.StreamableResourceProcessing;
+import org.apache.tapestry5.services.assets.StreamableResourceSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetching an asset (jQuery) through the fully decorated {@link StreamableResourceSource} service, as done for each
+ * asset request; in production mode, the results are cached after the first request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamableResourceBenchmark
+{
+    private static final ResourceDependencies IGNORE_DEPENDENCIES = new ResourceDependencies()
+    {
+        public void addDependency(Resource dependency)
+        {
+        }
+    };
+
+    @Param({"COMPRESSION_ENABLED", "COMPRESSION_DISABLED"})
+    public StreamableResourceProcessing processing;
+
+    private StreamableResourceSource source;
+
+    private Resource asset;
+
+    @Setup
+    public void setup(ApplicationState state)
+    {
+        source = state.getService(StreamableResourceSource.class);
+
+        asset = new ClasspathResource("META-INF/assets/tapestry5/jquery-1.9.1.js");
+    }
+
+    @Benchmark
+    public StreamableResource getStreamableResource() throws IOException
+    {
+        return source.getStreamableResource(asset, processing, IGNORE_DEPENDENCIES);
+    }
+}
@@ -0,0 +1,55 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.internal.parser.ComponentTemplate;
+import org.apache.tapestry5.internal.services.SaxTemplateParser;
+import org.apache.tapestry5.internal.services.TemplateParser;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.ClasspathResource;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the benchmark application's Index page template by {@link SaxTemplateParser}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateParserBenchmark
+{
+    private Resource template;
+
+    private Map<String, URL> dtdURLMappings;
+
+    @Setup
+    public void setup(ApplicationState state)
+    {
+        template = new ClasspathResource("org/apache/tapestry5/benchmarks/app/pages/Index.tml");
+
+        dtdURLMappings = state.getService(TemplateParser.class).getDTDURLMappings();
+    }
+
+    @Benchmark
+    public ComponentTemplate parseTemplate()
+    {
+        return new SaxTemplateParser(template, dtdURLMappings).parse(true);
+    }
+}
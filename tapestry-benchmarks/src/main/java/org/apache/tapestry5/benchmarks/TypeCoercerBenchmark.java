@@ -0,0 +1,72 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.ioc.services.TypeCoercer;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TypeCoercer#coerce(Object, Class)} for a few representative coercions: a single direct step, a coercion
+ * that is assembled from several steps, and a coercion to a collection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeCoercerBenchmark
+{
+    private TypeCoercer typeCoercer;
+
+    private final String number = "1234";
+
+    private final Long longValue = 1234L;
+
+    private final Object single = "single";
+
+    @Setup
+    public void setup(ApplicationState state)
+    {
+        typeCoercer = state.getService(TypeCoercer.class);
+    }
+
+    @Benchmark
+    public Integer stringToInteger()
+    {
+        return typeCoercer.coerce(number, Integer.class);
+    }
+
+    @Benchmark
+    public BigDecimal longToBigDecimal()
+    {
+        return typeCoercer.coerce(longValue, BigDecimal.class);
+    }
+
+    @Benchmark
+    public Boolean stringToBoolean()
+    {
+        return typeCoercer.coerce(number, Boolean.class);
+    }
+
+    @Benchmark
+    public List objectToList()
+    {
+        return typeCoercer.coerce(single, List.class);
+    }
+}
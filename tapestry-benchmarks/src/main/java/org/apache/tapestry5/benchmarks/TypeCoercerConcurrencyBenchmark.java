@@ -0,0 +1,85 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks;
+
+import org.apache.tapestry5.ioc.services.TypeCoercer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of steady-state {@link TypeCoercer#coerce(Object, Class)} calls (a mix of coercions already cached by the
+ * TypeCoercer), from 1 to 64 concurrent threads, to expose any contention inside the TypeCoercer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeCoercerConcurrencyBenchmark
+{
+    private TypeCoercer typeCoercer;
+
+    private final String number = "1234";
+
+    private final Long longValue = 1234L;
+
+    private final Object single = "single";
+
+    @Setup
+    public void setup(ApplicationState state)
+    {
+        typeCoercer = state.getService(TypeCoercer.class);
+    }
+
+    private void coerce(Blackhole blackhole)
+    {
+        blackhole.consume(typeCoercer.coerce(number, Integer.class));
+        blackhole.consume(typeCoercer.coerce(longValue, BigDecimal.class));
+        blackhole.consume(typeCoercer.coerce(number, Boolean.class));
+        blackhole.consume(typeCoercer.coerce(single, List.class));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void threads01(Blackhole blackhole)
+    {
+        coerce(blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void threads04(Blackhole blackhole)
+    {
+        coerce(blackhole);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void threads16(Blackhole blackhole)
+    {
+        coerce(blackhole);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void threads64(Blackhole blackhole)
+    {
+        coerce(blackhole);
+    }
+}
@@ -0,0 +1,72 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks.app.pages;
+
+/**
+ * A page with 10 event handler methods, for {@link org.apache.tapestry5.benchmarks.EventDispatchBenchmark}.
+ */
+public class Events10
+{
+    private int handled;
+
+    void onEvent0()
+    {
+        handled++;
+    }
+
+    void onEvent1()
+    {
+        handled++;
+    }
+
+    void onEvent2()
+    {
+        handled++;
+    }
+
+    void onEvent3()
+    {
+        handled++;
+    }
+
+    void onEvent4()
+    {
+        handled++;
+    }
+
+    void onEvent5()
+    {
+        handled++;
+    }
+
+    void onEvent6()
+    {
+        handled++;
+    }
+
+    void onEvent7()
+    {
+        handled++;
+    }
+
+    void onEvent8()
+    {
+        handled++;
+    }
+
+    void onEvent9()
+    {
+        handled++;
+    }
+}
@@ -0,0 +1,522 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks.app.pages;
+
+/**
+ * A page with 100 event handler methods, for {@link org.apache.tapestry5.benchmarks.EventDispatchBenchmark}.
+ */
+public class Events100
+{
+    private int handled;
+
+    void onEvent0()
+    {
+        handled++;
+    }
+
+    void onEvent1()
+    {
+        handled++;
+    }
+
+    void onEvent2()
+    {
+        handled++;
+    }
+
+    void onEvent3()
+    {
+        handled++;
+    }
+
+    void onEvent4()
+    {
+        handled++;
+    }
+
+    void onEvent5()
+    {
+        handled++;
+    }
+
+    void onEvent6()
+    {
+        handled++;
+    }
+
+    void onEvent7()
+    {
+        handled++;
+    }
+
+    void onEvent8()
+    {
+        handled++;
+    }
+
+    void onEvent9()
+    {
+        handled++;
+    }
+
+    void onEvent10()
+    {
+        handled++;
+    }
+
+    void onEvent11()
+    {
+        handled++;
+    }
+
+    void onEvent12()
+    {
+        handled++;
+    }
+
+    void onEvent13()
+    {
+        handled++;
+    }
+
+    void onEvent14()
+    {
+        handled++;
+    }
+
+    void onEvent15()
+    {
+        handled++;
+    }
+
+    void onEvent16()
+    {
+        handled++;
+    }
+
+    void onEvent17()
+    {
+        handled++;
+    }
+
+    void onEvent18()
+    {
+        handled++;
+    }
+
+    void onEvent19()
+    {
+        handled++;
+    }
+
+    void onEvent20()
+    {
+        handled++;
+    }
+
+    void onEvent21()
+    {
+        handled++;
+    }
+
+    void onEvent22()
+    {
+        handled++;
+    }
+
+    void onEvent23()
+    {
+        handled++;
+    }
+
+    void onEvent24()
+    {
+        handled++;
+    }
+
+    void onEvent25()
+    {
+        handled++;
+    }
+
+    void onEvent26()
+    {
+        handled++;
+    }
+
+    void onEvent27()
+    {
+        handled++;
+    }
+
+    void onEvent28()
+    {
+        handled++;
+    }
+
+    void onEvent29()
+    {
+        handled++;
+    }
+
+    void onEvent30()
+    {
+        handled++;
+    }
+
+    void onEvent31()
+    {
+        handled++;
+    }
+
+    void onEvent32()
+    {
+        handled++;
+    }
+
+    void onEvent33()
+    {
+        handled++;
+    }
+
+    void onEvent34()
+    {
+        handled++;
+    }
+
+    void onEvent35()
+    {
+        handled++;
+    }
+
+    void onEvent36()
+    {
+        handled++;
+    }
+
+    void onEvent37()
+    {
+        handled++;
+    }
+
+    void onEvent38()
+    {
+        handled++;
+    }
+
+    void onEvent39()
+    {
+        handled++;
+    }
+
+    void onEvent40()
+    {
+        handled++;
+    }
+
+    void onEvent41()
+    {
+        handled++;
+    }
+
+    void onEvent42()
+    {
+        handled++;
+    }
+
+    void onEvent43()
+    {
+        handled++;
+    }
+
+    void onEvent44()
+    {
+        handled++;
+    }
+
+    void onEvent45()
+    {
+        handled++;
+    }
+
+    void onEvent46()
+    {
+        handled++;
+    }
+
+    void onEvent47()
+    {
+        handled++;
+    }
+
+    void onEvent48()
+    {
+        handled++;
+    }
+
+    void onEvent49()
+    {
+        handled++;
+    }
+
+    void onEvent50()
+    {
+        handled++;
+    }
+
+    void onEvent51()
+    {
+        handled++;
+    }
+
+    void onEvent52()
+    {
+        handled++;
+    }
+
+    void onEvent53()
+    {
+        handled++;
+    }
+
+    void onEvent54()
+    {
+        handled++;
+    }
+
+    void onEvent55()
+    {
+        handled++;
+    }
+
+    void onEvent56()
+    {
+        handled++;
+    }
+
+    void onEvent57()
+    {
+        handled++;
+    }
+
+    void onEvent58()
+    {
+        handled++;
+    }
+
+    void onEvent59()
+    {
+        handled++;
+    }
+
+    void onEvent60()
+    {
+        handled++;
+    }
+
+    void onEvent61()
+    {
+        handled++;
+    }
+
+    void onEvent62()
+    {
+        handled++;
+    }
+
+    void onEvent63()
+    {
+        handled++;
+    }
+
+    void onEvent64()
+    {
+        handled++;
+    }
+
+    void onEvent65()
+    {
+        handled++;
+    }
+
+    void onEvent66()
+    {
+        handled++;
+    }
+
+    void onEvent67()
+    {
+        handled++;
+    }
+
+    void onEvent68()
+    {
+        handled++;
+    }
+
+    void onEvent69()
+    {
+        handled++;
+    }
+
+    void onEvent70()
+    {
+        handled++;
+    }
+
+    void onEvent71()
+    {
+        handled++;
+    }
+
+    void onEvent72()
+    {
+        handled++;
+    }
+
+    void onEvent73()
+    {
+        handled++;
+    }
+
+    void onEvent74()
+    {
+        handled++;
+    }
+
+    void onEvent75()
+    {
+        handled++;
+    }
+
+    void onEvent76()
+    {
+        handled++;
+    }
+
+    void onEvent77()
+    {
+        handled++;
+    }
+
+    void onEvent78()
+    {
+        handled++;
+    }
+
+    void onEvent79()
+    {
+        handled++;
+    }
+
+    void onEvent80()
+    {
+        handled++;
+    }
+
+    void onEvent81()
+    {
+        handled++;
+    }
+
+    void onEvent82()
+    {
+        handled++;
+    }
+
+    void onEvent83()
+    {
+        handled++;
+    }
+
+    void onEvent84()
+    {
+        handled++;
+    }
+
+    void onEvent85()
+    {
+        handled++;
+    }
+
+    void onEvent86()
+    {
+        handled++;
+    }
+
+    void onEvent87()
+    {
+        handled++;
+    }
+
+    void onEvent88()
+    {
+        handled++;
+    }
+
+    void onEvent89()
+    {
+        handled++;
+    }
+
+    void onEvent90()
+    {
+        handled++;
+    }
+
+    void onEvent91()
+    {
+        handled++;
+    }
+
+    void onEvent92()
+    {
+        handled++;
+    }
+
+    void onEvent93()
+    {
+        handled++;
+    }
+
+    void onEvent94()
+    {
+        handled++;
+    }
+
+    void onEvent95()
+    {
+        handled++;
+    }
+
+    void onEvent96()
+    {
+        handled++;
+    }
+
+    void onEvent97()
+    {
+        handled++;
+    }
+
+    void onEvent98()
+    {
+        handled++;
+    }
+
+    void onEvent99()
+    {
+        handled++;
+    }
+}
@@ -0,0 +1,54 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.benchmarks.app.pages;
+
+import org.apache.tapestry5.annotations.Property;
+
+/**
+ * A page representative of a typical listing: a loop over rows, with conditionals, expansions and links for each row.
+ */
+public class Index
+{
+    @Property
+    private int row;
+
+    @Property
+    private String query;
+
+    public int[] getRows()
+    {
+        int[] result = new int[100];
+
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = i + 1;
+        }
+
+        return result;
+    }
+
+    public boolean isOdd()
+    {
+        return row % 2 == 1;
+    }
+
+    public String getLabel()
+    {
+        return "Row #" + row;
+    }
+
+    void onAction(int row)
+    {
+    }
+}
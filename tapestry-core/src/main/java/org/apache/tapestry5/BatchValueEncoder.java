@@ -0,0 +1,39 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5;
+
+import java.util.Collection;
+
+/**
+ * A {@link ValueEncoder} that can convert many client-side values at once more efficiently than one at a time; for
+ * example, an entity encoder can load all the entities with a single query. Components that know in advance which
+ * client values they will convert (such as {@link org.apache.tapestry5.corelib.components.Loop} and
+ * {@link org.apache.tapestry5.corelib.components.Grid} inside a form submission) invoke {@link #prefetch(Collection)}
+ * first; each value is then still converted by {@link #toValue(String)}.
+ *
+ * @since 5.4
+ */
+public interface BatchValueEncoder<V> extends ValueEncoder<V>
+{
+    /**
+     * Informs the encoder of client values that will shortly be passed to {@link #toValue(String)}, so that it may
+     * prepare the corresponding values in bulk. This is only an optimization: values that could not be prepared
+     * (for example, because they are invalid) are reported by {@link #toValue(String)}.
+     *
+     * @param clientValues
+     *         non-blank client values, as previously returned by {@link #toClient(Object)}
+     */
+    void prefetch(Collection<String> clientValues);
+}
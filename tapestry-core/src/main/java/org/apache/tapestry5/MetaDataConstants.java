@@ -1,4 +1,4 @@
-// Copyright 2008, 2011 The Apache Software Foundation
+// Copyright 2008, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -50,4 +50,21 @@ public class MetaDataConstants
 	 * @since 5.4
 	 */
 	public static final String UNKNOWN_ACTIVATION_CONTEXT_CHECK = "tapestry.unknwon-activation-context-check";
+
+    /**
+     * Meta data key applied to pages that should be rendered in streaming mode: once the first child of the
+     * {@code <body>} has rendered, the start of the document (including the {@code <head>}) is written to the client,
+     * followed by each completed child of the {@code <body>}; flushed content is discarded from the DOM. This reduces
+     * memory use and time to first byte for very large pages. The factory default is "false".
+     * <p/>
+     * The response is identical to a normal render provided that stylesheets are imported before the first child of the
+     * {@code <body>} completes (stylesheets imported later are linked at the end of the {@code <body>}), and that no
+     * component or {@link org.apache.tapestry5.services.MarkupRendererFilter} modifies flushed content after it
+     * completes. Because output starts before rendering completes, an exception late in the render can not be replaced
+     * with the exception report page.
+     *
+     * @see org.apache.tapestry5.services.StreamingRenderSupport
+     * @since 5.4
+     */
+    public static final String STREAMING_RENDER = "tapestry.streaming-render";
 }
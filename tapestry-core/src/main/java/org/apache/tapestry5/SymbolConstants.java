@@ -69,6 +69,11 @@ public class SymbolConstants
      * Starting with 5.3, this is only used when not running in production mode. The default is "1 s"
      * (one second), which is appropriate for development. With Tapestry 5.2 and earlier this number
      * should be raised in a production environment.
+     * <p/>
+     * Starting with 5.4, when the {@link org.apache.tapestry5.ioc.services.FileWatcher} is enabled, the check runs in
+     * a background thread at this interval (rather than from within a request), and only needs to look at files in
+     * directories that have changed. With an interval of zero, every request checks all files itself, so that it sees
+     * any change made before it.
      */
     public static final String FILE_CHECK_INTERVAL = "tapestry.file-check-interval";
 
@@ -347,6 +352,53 @@ public class SymbolConstants
      */
     public static final String COMPRESSED_ASSET_PATH_PREFIX = "tapestry.compressed-asset-path-prefix";
 
+    /**
+     * The maximum size, in bytes, of the content held by each of the asset caches (one for uncompressed content,
+     * one for compressed content). When a cache is full, the least recently used assets are discarded; content
+     * that is larger than the entire budget is never cached. The default is 16 MB.
+     *
+     * @since 5.4
+     */
+    public static final String ASSET_CACHE_SIZE = "tapestry.asset-cache-size";
+
+    /**
+     * Where the content of cached assets (after minimization and compression) is stored: "heap" (the default) keeps
+     * it in byte arrays, "direct" in direct (off-heap) buffers, and "mapped" in memory-mapped files created under
+     * {@link #ASSET_STORAGE_DIR}. The latter two keep large amounts of JavaScript and CSS off the heap.
+     *
+     * @since 5.4
+     */
+    public static final String ASSET_STORAGE = "tapestry.asset-storage";
+
+    /**
+     * The directory in which files are created for "mapped" {@linkplain #ASSET_STORAGE asset storage}. Defaults to a
+     * "tapestry-assets" sub-directory of the {@code java.io.tmpdir} directory.
+     *
+     * @since 5.4
+     */
+    public static final String ASSET_STORAGE_DIR = "tapestry.asset-storage-dir";
+
+    /**
+     * A directory in which processed (transformed and minimized) asset content is stored, so that it is available,
+     * without being processed again, after a restart; the directory may be shared by all servers running the
+     * application. Stored content is keyed on a digest of the original content, and is discarded when the
+     * {@linkplain #APPLICATION_VERSION application version} or Tapestry version changes, or when the contributed
+     * transformers or minimizers (or the versions of the libraries providing them) change. Defaults to blank, which
+     * disables the disk cache.
+     *
+     * @since 5.4
+     */
+    public static final String ASSET_DISK_CACHE_DIR = "tapestry.asset-disk-cache-dir";
+
+    /**
+     * The GZip compression level, from 1 (fastest) to 9 (best compression), used for static assets. Assets are
+     * compressed just once, so the default is 9.
+     *
+     * @see org.apache.tapestry5.services.assets.ContentEncoderSource
+     * @since 5.4
+     */
+    public static final String ASSET_GZIP_COMPRESSION_LEVEL = "tapestry.asset-gzip-compression-level";
+
     /**
      * The Asset path to the copy of Require JS to include in rendered pages. Any page that makes use of any JavaScript will
      * automatically import this library (as well as the core JavaScript stack).
@@ -413,4 +465,55 @@ public class SymbolConstants
      */
     public static final String SESSION_LOCKING_ENABLED = "tapestry.session-locking-enabled";
 
+    /**
+     * The maximum number of page instances (a page may be loaded once for each locale, or other
+     * {@linkplain org.apache.tapestry5.services.pageload.ComponentResourceSelector selector}) pinned in memory; the
+     * least recently used pages beyond this are only softly referenced, and may be discarded by the garbage collector
+     * when memory is short. A value of zero pins no pages. The default is 100.
+     *
+     * @since 5.4
+     */
+    public static final String PAGE_CACHE_SIZE = "tapestry.page-cache-size";
+
+    /**
+     * A file in which the names of the pages loaded by the application are recorded, when the application shuts down.
+     * When the application next starts, those pages are loaded in the background, so that their component classes are
+     * already transformed, and their templates parsed, when the first requests for them arrive. The recorded names are
+     * discarded when the {@linkplain #APPLICATION_VERSION application version} or Tapestry version changes. Defaults
+     * to blank, which disables preloading.
+     *
+     * @since 5.4
+     */
+    public static final String PAGE_PRELOAD_FILE = "tapestry.page-preload-file";
+
+    /**
+     * Time interval after which a row count cached by the {@link org.apache.tapestry5.services.RowCountCache} is
+     * refreshed in the background. The default is "30 s".
+     *
+     * @since 5.4
+     */
+    public static final String ROW_COUNT_CACHE_MAX_AGE = "tapestry.row-count-cache-max-age";
+
+    /**
+     * If true (the default), data stored on the client by the {@link org.apache.tapestry5.services.ClientDataEncoder}
+     * (such as form component actions and client-persistent fields) is written in a compact binary format. If false,
+     * Java serialization and GZip compression are used, as in prior releases; this may be needed while servers running
+     * a prior release share the same clients. Data in either format is always accepted.
+     *
+     * @since 5.4
+     */
+    public static final String COMPACT_CLIENT_DATA = "tapestry.compact-client-data";
+
+    /**
+     * A directory in which parsed component templates are stored, in a compact binary form, so that they are
+     * available without XML parsing after a restart. Stored templates are keyed on a digest of the template's path
+     * and content; the directory may be shared by all servers running the application, or populated as part of the
+     * build (by starting the application and loading its pages). Stored templates are discarded when the
+     * {@linkplain #APPLICATION_VERSION application version} or Tapestry version changes. Defaults to blank, which
+     * disables the cache.
+     *
+     * @since 5.4
+     */
+    public static final String TEMPLATE_CACHE_DIR = "tapestry.template-cache-dir";
+
 }
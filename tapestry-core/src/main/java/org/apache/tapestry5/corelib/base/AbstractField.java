@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010, 2011, 2012 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -76,6 +76,14 @@ public abstract class AbstractField implements Field
             this.controlName = controlName;
         }
 
+        /**
+         * Used when reading compact client data, which sets the field directly.
+         */
+        Setup()
+        {
+            this(null);
+        }
+
         public void execute(AbstractField component)
         {
             component.setupControlName(controlName);
@@ -17,6 +17,7 @@ package org.apache.tapestry5.corelib.components;
 import org.apache.tapestry5.*;
 import org.apache.tapestry5.annotations.*;
 import org.apache.tapestry5.corelib.ClientValidation;
+import org.apache.tapestry5.corelib.internal.ClientValueAction;
 import org.apache.tapestry5.corelib.internal.ComponentActionSink;
 import org.apache.tapestry5.corelib.internal.FormSupportImpl;
 import org.apache.tapestry5.corelib.internal.InternalFormSupport;
@@ -28,6 +29,7 @@ import org.apache.tapestry5.ioc.Location;
 import org.apache.tapestry5.ioc.Messages;
 import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.ioc.internal.util.TapestryException;
 import org.apache.tapestry5.ioc.services.PropertyAccess;
@@ -45,6 +47,8 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.util.List;
+import java.util.Map;
 
 /**
  * An HTML form, which will enclose other components to render out the various
@@ -620,7 +624,9 @@ public class Form implements ClientElement, FormValidationControl
     /**
      * Pulls the stored actions out of the request, converts them from MIME
      * stream back to object stream and then
-     * objects, and executes them.
+     * objects, and executes them. Before executing the first {@link ClientValueAction} stored by a render of a
+     * component, the client values stored by that render are passed to the component, so that they may be
+     * prefetched together.
      */
     private void executeStoredActions()
     {
@@ -643,26 +649,46 @@ public class Form implements ClientElement, FormValidationControl
 
             Component component = null;
 
+            List<String> componentIds = CollectionFactory.newList();
+            List<ComponentAction> actions = CollectionFactory.newList();
+
             try
             {
                 ois = clientDataEncoder.decodeClientData(clientEncodedActions);
 
-                while (!eventCallback.isAborted())
+                try
+                {
+                    while (true)
+                    {
+                        String componentId = ois.readUTF();
+                        ComponentAction action = (ComponentAction) ois.readObject();
+
+                        componentIds.add(componentId);
+                        actions.add(action);
+                    }
+                } catch (EOFException ex)
+                {
+                    // Expected
+                }
+
+                for (int i = 0; i < actions.size() && !eventCallback.isAborted(); i++)
                 {
-                    String componentId = ois.readUTF();
-                    ComponentAction action = (ComponentAction) ois.readObject();
+                    String componentId = componentIds.get(i);
+                    ComponentAction action = actions.get(i);
 
                     component = source.getComponent(componentId);
 
                     logger.debug("Processing: {} {}", componentId, action);
 
+                    if (action instanceof ClientValueAction && ((ClientValueAction) action).isFirstValue())
+                    {
+                        prefetchClientValues(component, componentIds, actions, i);
+                    }
+
                     action.execute(component);
 
                     component = null;
                 }
-            } catch (EOFException ex)
-            {
-                // Expected
             } catch (Exception ex)
             {
                 Location location = component == null ? null : component.getComponentResources().getLocation();
@@ -675,6 +701,45 @@ public class Form implements ClientElement, FormValidationControl
         }
     }
 
+    /**
+     * Passes the client values stored by a render of a component, starting with the first value (at index start), to
+     * the component. This is done only as the first value is about to be executed, as the component's encoder may
+     * depend on the actions executed before it (for example, those of an enclosing Loop).
+     */
+    @SuppressWarnings("unchecked")
+    private void prefetchClientValues(Component component, List<String> componentIds, List<ComponentAction> actions,
+                                      int start)
+    {
+        String componentId = componentIds.get(start);
+
+        List<String> clientValues = CollectionFactory.newList();
+
+        for (int i = start; i < actions.size(); i++)
+        {
+            if (!(actions.get(i) instanceof ClientValueAction) || !componentIds.get(i).equals(componentId))
+                continue;
+
+            ClientValueAction action = (ClientValueAction) actions.get(i);
+
+            // The next render of the same component (for example, a Loop nested inside another Loop).
+
+            if (i > start && action.isFirstValue())
+                break;
+
+            if (InternalUtils.isNonBlank(action.getClientValue()))
+            {
+                clientValues.add(action.getClientValue());
+            }
+        }
+
+        // A single value gains nothing from being prefetched.
+
+        if (clientValues.size() > 1)
+        {
+            ((ClientValueAction) actions.get(start)).prefetch(component, clientValues);
+        }
+    }
+
     public void recordError(String errorMessage)
     {
         tracker.recordError(errorMessage);
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2009, 2010, 2011, 2012 The Apache Software Foundation
+// Copyright 2007, 2008, 2009, 2010, 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import org.apache.tapestry5.corelib.data.GridPagerPosition;
 import org.apache.tapestry5.grid.*;
 import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.internal.beaneditor.BeanModelUtils;
+import org.apache.tapestry5.internal.grid.PageBoundary;
+import org.apache.tapestry5.internal.services.RequestConstants;
 import org.apache.tapestry5.internal.bindings.AbstractBinding;
 import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
@@ -62,6 +64,10 @@ import java.util.List;
 @SupportsInformalParameters
 public class Grid implements GridModel, ClientElement
 {
+    private static final String WINDOW_EVENT = "window";
+
+    private static final String WINDOW_PAGE_PARAMETER = "t:page";
+
     /**
      * The source of data for the Grid to display. This will usually be a List or array but can also be an explicit
      * {@link GridDataSource}. For Lists and object arrays, a GridDataSource is created automatically as a wrapper
@@ -194,6 +200,21 @@ public class Grid implements GridModel, ClientElement
     @Parameter
     private boolean inPlace;
 
+    /**
+     * If true, then the Grid renders only the first page of rows, and no pager. As the user scrolls towards the end of
+     * the rendered rows, the client requests each following page of rows in turn, via an Ajax request, and appends it
+     * to the table. The client reserves space for the rows not yet rendered, so that the scroll bar reflects the full
+     * result set. This is useful for very large result sets, as only the rows the user actually scrolls to are ever
+     * queried and rendered.
+     * <p/>
+     * Inside a {@link Form}, each page of rows records its state into its own hidden field, rendered with it, so
+     * the form only submits state for the pages the user has actually scrolled to.
+     *
+     * @since 5.4
+     */
+    @Parameter
+    private boolean virtual;
+
     /**
      * The name of the psuedo-zone that encloses the Grid. Starting in 5.4, this is always either
      * null or "^" and is not really used the way it was in 5.3; instead it triggerers the addition
@@ -205,6 +226,13 @@ public class Grid implements GridModel, ClientElement
 
     private boolean didRenderZoneDiv;
 
+    private boolean didRenderWindowDiv;
+
+    /**
+     * The page being rendered in response to a {@linkplain #onWindow(int) window request}, or zero.
+     */
+    private int windowPage;
+
     @Persist
     private Integer currentPage;
 
@@ -214,6 +242,12 @@ public class Grid implements GridModel, ClientElement
     @Persist
     private Boolean sortAscending;
 
+    /**
+     * Only used with a {@link SeekableGridDataSource}, to locate the next or previous page from the current page.
+     */
+    @Persist
+    private PageBoundary pageBoundary;
+
     @Inject
     private ComponentResources resources;
 
@@ -469,7 +503,52 @@ public class Grid implements GridModel, ClientElement
 
         dataModel = null;
 
-        cachingSource.prepare(startIndex, endIndex, sortModel.getSortConstraints());
+        List<SortConstraint> sortConstraints = sortModel.getSortConstraints();
+
+        if (source instanceof SeekableGridDataSource)
+        {
+            prepareSeekable((SeekableGridDataSource) source, effectiveCurrentPage, startIndex, endIndex,
+                    sortConstraints);
+
+            return;
+        }
+
+        cachingSource.prepare(startIndex, endIndex, sortConstraints);
+    }
+
+    /**
+     * When moving to the next or previous page, locates the rows using the key of the last or first row of
+     * the current page, rather than by index. Afterwards, records the keys of the first and last rows of the new page.
+     */
+    private void prepareSeekable(SeekableGridDataSource seekable, int page, int startIndex, int endIndex,
+                                 List<SortConstraint> sortConstraints)
+    {
+        Object[] rowKeyBefore = pageBoundary == null ? null
+                : pageBoundary.getRowKeyBefore(page, rowsPerPage, sortConstraints);
+        Object[] rowKeyAfter = pageBoundary == null ? null
+                : pageBoundary.getRowKeyAfter(page, rowsPerPage, sortConstraints);
+
+        if (rowKeyBefore != null)
+        {
+            seekable.prepareAfter(startIndex, endIndex, sortConstraints, rowKeyBefore);
+        } else if (rowKeyAfter != null)
+        {
+            seekable.prepareBefore(startIndex, endIndex, sortConstraints, rowKeyAfter);
+        } else
+        {
+            seekable.prepare(startIndex, endIndex, sortConstraints);
+        }
+
+        Object firstRow = seekable.getRowValue(startIndex);
+        Object lastRow = seekable.getRowValue(endIndex);
+
+        // There may be fewer rows than expected, if rows have been deleted since they were counted.
+
+        pageBoundary = firstRow == null || lastRow == null
+                ? null
+                : new PageBoundary(page, rowsPerPage, sortConstraints,
+                seekable.getRowKey(firstRow, sortConstraints),
+                seekable.getRowKey(lastRow, sortConstraints));
     }
 
     Object beginRender(MarkupWriter writer)
@@ -495,11 +574,41 @@ public class Grid implements GridModel, ClientElement
             zone = "^";
         }
 
+        if (virtual)
+        {
+            javaScriptSupport.require("t5/core/grid");
+
+            Link windowLink = resources.createEventLink(WINDOW_EVENT);
+
+            if (formSupport != null)
+            {
+                // Identifies the form, so that the state of each page of rows is recorded (into a hidden field
+                // rendered with the rows) when the page is rendered.
+
+                windowLink.addParameter(RequestConstants.FORM_CLIENTID_PARAMETER, formSupport.getClientId());
+                windowLink.addParameter(RequestConstants.FORM_COMPONENTID_PARAMETER, formSupport.getFormComponentId());
+            }
+
+            writer.element("div",
+                    "data-grid-window-url", windowLink.toURI(),
+                    "data-grid-window-page", 1,
+                    "data-grid-rows-per-page", rowsPerPage,
+                    "data-grid-available-rows", cachingSource.getAvailableRows());
+
+            didRenderWindowDiv = true;
+        }
+
         return null;
     }
 
     void afterRender(MarkupWriter writer)
     {
+        if (didRenderWindowDiv)
+        {
+            writer.end(); // div
+            didRenderWindowDiv = false;
+        }
+
         if (didRenderZoneDiv)
         {
             writer.end(); // div
@@ -531,21 +640,35 @@ public class Grid implements GridModel, ClientElement
 
     public Object getPagerTop()
     {
-        return pagerPosition.isMatchTop() ? pager : null;
+        return !virtual && pagerPosition.isMatchTop() ? pager : null;
     }
 
     public Object getPagerBottom()
     {
-        return pagerPosition.isMatchBottom() ? pager : null;
+        return !virtual && pagerPosition.isMatchBottom() ? pager : null;
     }
 
     public int getCurrentPage()
     {
+        if (windowPage > 0)
+            return windowPage;
+
+        // A virtual Grid always renders from the first page; later pages are requested by the client.
+
+        if (virtual)
+            return 1;
+
         return currentPage == null ? 1 : currentPage;
     }
 
     public void setCurrentPage(int currentPage)
     {
+        if (windowPage > 0)
+        {
+            windowPage = currentPage;
+            return;
+        }
+
         this.currentPage = currentPage;
     }
 
@@ -598,6 +721,30 @@ public class Grid implements GridModel, ClientElement
         componentEventResultProcessor.processResultValue(this);
     }
 
+    /**
+     * Event handler for the window event, triggered by the client to obtain a further page of rows for a
+     * {@linkplain #virtual virtual} Grid. Renders just the rows of the page, which the client adds to the table.
+     * When using a {@link SeekableGridDataSource}, pages are requested in order, so each page is located from the
+     * last row of the page before. Each window replaces the persisted boundary of the current page. A window
+     * requested out of order, or a later render of the first page once the third window has been loaded, is
+     * therefore located by index.
+     *
+     * @param page
+     *         the page to render, numbered from 1
+     * @return the rows to render, or null if there are no rows on the page
+     */
+    Object onWindow(@RequestParameter(WINDOW_PAGE_PARAMETER) int page)
+    {
+        if (page < 1)
+            return null;
+
+        windowPage = page;
+
+        setupDataSource();
+
+        return (page - 1) * rowsPerPage < cachingSource.getAvailableRows() ? rows : null;
+    }
+
     public String getClientId()
     {
         return table.getClientId();
@@ -27,6 +27,7 @@
 
 package org.apache.tapestry5.corelib.components;
 
+import org.apache.tapestry5.BatchValueEncoder;
 import org.apache.tapestry5.ComponentAction;
 import org.apache.tapestry5.MarkupWriter;
 import org.apache.tapestry5.PropertyOverrides;
@@ -35,10 +36,12 @@ import org.apache.tapestry5.annotations.Environmental;
 import org.apache.tapestry5.annotations.Parameter;
 import org.apache.tapestry5.annotations.Property;
 import org.apache.tapestry5.beaneditor.PropertyModel;
+import org.apache.tapestry5.corelib.internal.ClientValueAction;
 import org.apache.tapestry5.grid.GridDataSource;
 import org.apache.tapestry5.grid.GridModel;
 import org.apache.tapestry5.services.FormSupport;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -81,6 +84,14 @@ public class GridRows
             this.rowIndex = rowIndex;
         }
 
+        /**
+         * Used when reading compact client data, which sets the field directly.
+         */
+        SetupForRowByIndex()
+        {
+            this(0);
+        }
+
         public void execute(GridRows component)
         {
             component.setupForRow(rowIndex);
@@ -96,13 +107,24 @@ public class GridRows
     /**
      * This action is used when a {@link org.apache.tapestry5.ValueEncoder} is provided.
      */
-    static class SetupForRowWithClientValue implements ComponentAction<GridRows>
+    static class SetupForRowWithClientValue implements ClientValueAction<GridRows>
     {
         private final String clientValue;
 
-        SetupForRowWithClientValue(String clientValue)
+        private final boolean firstValue;
+
+        SetupForRowWithClientValue(String clientValue, boolean firstValue)
         {
             this.clientValue = clientValue;
+            this.firstValue = firstValue;
+        }
+
+        /**
+         * Used when reading compact client data, which sets the fields directly.
+         */
+        SetupForRowWithClientValue()
+        {
+            this(null, false);
         }
 
         public void execute(GridRows component)
@@ -110,6 +132,21 @@ public class GridRows
             component.setupForRowWithClientValue(clientValue);
         }
 
+        public String getClientValue()
+        {
+            return clientValue;
+        }
+
+        public boolean isFirstValue()
+        {
+            return firstValue;
+        }
+
+        public void prefetch(GridRows component, Collection<String> clientValues)
+        {
+            component.prefetchClientValues(clientValues);
+        }
+
         @Override
         public String toString()
         {
@@ -311,6 +348,15 @@ public class GridRows
     }
 
 
+    @SuppressWarnings("unchecked")
+    void prefetchClientValues(Collection<String> clientValues)
+    {
+        if (encoder instanceof BatchValueEncoder)
+        {
+            ((BatchValueEncoder) encoder).prefetch(clientValues);
+        }
+    }
+
     boolean beginRender()
     {
         // Setup for this row.
@@ -331,7 +377,7 @@ public class GridRows
             if (recordStateByEncoder)
             {
                 String key = encoder.toClient(row);
-                formSupport.store(this, new SetupForRowWithClientValue(key));
+                formSupport.store(this, new SetupForRowWithClientValue(key, dataRowIndex == startRow));
             }
         }
 
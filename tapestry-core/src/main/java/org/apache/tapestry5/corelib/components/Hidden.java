@@ -1,4 +1,4 @@
-// Copyright 2009, 2010, 2011 The Apache Software Foundation
+// Copyright 2009, 2010, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -101,6 +101,14 @@ public class Hidden implements ClientElement
             this.controlName = controlName;
         }
 
+        /**
+         * Used when reading compact client data, which sets the field directly.
+         */
+        ProcessSubmission()
+        {
+            this(null);
+        }
+
         public void execute(Hidden component)
         {
             component.processSubmission(controlName);
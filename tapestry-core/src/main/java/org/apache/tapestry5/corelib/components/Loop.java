@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2009, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2009, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,14 +14,17 @@
 
 package org.apache.tapestry5.corelib.components;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
+import org.apache.tapestry5.BatchValueEncoder;
 import org.apache.tapestry5.BindingConstants;
 import org.apache.tapestry5.Block;
 import org.apache.tapestry5.ComponentAction;
 import org.apache.tapestry5.ComponentResources;
 import org.apache.tapestry5.EventConstants;
+import org.apache.tapestry5.Link;
 import org.apache.tapestry5.MarkupWriter;
 import org.apache.tapestry5.ValueEncoder;
 import org.apache.tapestry5.annotations.AfterRender;
@@ -29,14 +32,18 @@ import org.apache.tapestry5.annotations.BeginRender;
 import org.apache.tapestry5.annotations.Environmental;
 import org.apache.tapestry5.annotations.Events;
 import org.apache.tapestry5.annotations.Parameter;
+import org.apache.tapestry5.annotations.RequestParameter;
 import org.apache.tapestry5.annotations.SetupRender;
 import org.apache.tapestry5.annotations.SupportsInformalParameters;
 import org.apache.tapestry5.corelib.LoopFormState;
+import org.apache.tapestry5.corelib.internal.ClientValueAction;
+import org.apache.tapestry5.internal.services.RequestConstants;
 import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.services.ComponentDefaultProvider;
 import org.apache.tapestry5.services.FormSupport;
 import org.apache.tapestry5.services.Heartbeat;
+import org.apache.tapestry5.services.javascript.JavaScriptSupport;
 
 /**
  * A basic looping component; loops over a number of items (provided by its source parameter), rendering its body for each
@@ -56,13 +63,24 @@ import org.apache.tapestry5.services.Heartbeat;
  * {@link org.apache.tapestry5.EventConstants#SYNCHRONIZE_VALUES} event to inform its container what values were
  * submitted and in what order; this can allow the container to pre-load the values in a single batch form external
  * storage, if that is appropriate.
+ * <p/>
+ * When the windowSize parameter is bound, the Loop renders only a window of values at a time, for very large sources.
+ * After the first window, it renders a placeholder element recording where the next window starts; the client
+ * requests each following window, via an Ajax request, as the user scrolls the placeholder into view. Inside a Form,
+ * each window records its state into its own hidden field, rendered with it, so windows that are never rendered
+ * store nothing into the form, and the {@link org.apache.tapestry5.EventConstants#SYNCHRONIZE_VALUES} event is
+ * triggered separately for each window.
  * 
  * @tapestrydoc
  */
 @SupportsInformalParameters
-@Events(EventConstants.SYNCHRONIZE_VALUES)
+@Events({EventConstants.SYNCHRONIZE_VALUES, "window"})
 public class Loop<T>
 {
+    private static final String WINDOW_EVENT = "window";
+
+    private static final String WINDOW_START_PARAMETER = "t:start";
+
     /**
      * Setup command for non-volatile rendering.
      */
@@ -142,6 +160,36 @@ public class Loop<T>
         }
     };
 
+    /**
+     * Setup command for a window, other than the first, rendered in response to the window event. Sets the index to the
+     * start of the window and, for volatile rendering, advances a new Iterator to it.
+     */
+    static class SetupForWindow implements ComponentAction<Loop>
+    {
+        private static final long serialVersionUID = 2960581264398416372L;
+
+        private final int start;
+
+        private final boolean forVolatile;
+
+        SetupForWindow(int start, boolean forVolatile)
+        {
+            this.start = start;
+            this.forVolatile = forVolatile;
+        }
+
+        public void execute(Loop component)
+        {
+            component.setupForWindow(start, forVolatile);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Loop.SetupForWindow[%d, %s]", start, forVolatile);
+        }
+    }
+
     /**
      * Restores a state value (this is the case when there is no encoder and the complete value is stored).
      */
@@ -156,6 +204,14 @@ public class Loop<T>
             this.storedValue = storedValue;
         }
 
+        /**
+         * Used when reading compact client data, which sets the field directly.
+         */
+        RestoreState()
+        {
+            this(null);
+        }
+
         public void execute(Loop component)
         {
             component.restoreState(storedValue);
@@ -171,13 +227,24 @@ public class Loop<T>
     /**
      * Restores the value using a stored primary key via {@link ValueEncoder#toValue(String)}.
      */
-    static class RestoreStateFromStoredClientValue implements ComponentAction<Loop>
+    static class RestoreStateFromStoredClientValue implements ClientValueAction<Loop>
     {
         private final String clientValue;
 
-        public RestoreStateFromStoredClientValue(final String clientValue)
+        private final boolean firstValue;
+
+        public RestoreStateFromStoredClientValue(final String clientValue, final boolean firstValue)
         {
             this.clientValue = clientValue;
+            this.firstValue = firstValue;
+        }
+
+        /**
+         * Used when reading compact client data, which sets the fields directly.
+         */
+        RestoreStateFromStoredClientValue()
+        {
+            this(null, false);
         }
 
         public void execute(Loop component)
@@ -185,6 +252,21 @@ public class Loop<T>
             component.restoreStateFromStoredClientValue(clientValue);
         }
 
+        public String getClientValue()
+        {
+            return clientValue;
+        }
+
+        public boolean isFirstValue()
+        {
+            return firstValue;
+        }
+
+        public void prefetch(Loop component, Collection<String> clientValues)
+        {
+            component.prefetchClientValues(clientValues);
+        }
+
         @Override
         public String toString()
         {
@@ -280,6 +362,22 @@ public class Loop<T>
     @Parameter(defaultPrefix = BindingConstants.LITERAL)
     private Block empty;
 
+    /**
+     * If positive, the Loop renders at most this many values at a time. The remaining values are rendered, a window
+     * at a time, as the client requests them. Each window, after the first, is located by skipping the values before
+     * it, so sources that are expensive to iterate should be paged before being passed to the Loop.
+     *
+     * @since 5.4
+     */
+    @Parameter
+    private int windowSize;
+
+    /**
+     * The index of the first value to render; non-zero when rendering a window in response to the
+     * {@linkplain #onWindow(int) window event}.
+     */
+    private int windowStart;
+
     private Iterator<T> iterator;
 
     @Environmental
@@ -293,6 +391,9 @@ public class Loop<T>
     @Inject
     private ComponentDefaultProvider defaultProvider;
 
+    @Environmental
+    private JavaScriptSupport javaScriptSupport;
+
     private Block cleanupBlock;
 
     /**
@@ -319,9 +420,9 @@ public class Loop<T>
     @SetupRender
     boolean setup()
     {
-        index = 0;
+        index = windowStart;
 
-        iterator = source == null ? null : source.iterator();
+        iterator = source == null ? null : skip(source.iterator(), windowStart);
 
         boolean insideForm = formSupport != null;
 
@@ -340,12 +441,14 @@ public class Loop<T>
         if (insideForm && hasContent)
         {
             if (storeValuesInForm)
-                formSupport.store(this, RESET_INDEX);
+                formSupport.store(this, windowStart == 0 ? RESET_INDEX : new SetupForWindow(windowStart, false));
             if (storeIncrementsInForm)
-                formSupport.store(this, SETUP_FOR_VOLATILE);
+                formSupport.store(this, windowStart == 0 ? SETUP_FOR_VOLATILE : new SetupForWindow(windowStart, true));
         }
 
-        cleanupBlock = hasContent ? null : empty;
+        // A window beyond the last value (perhaps because values were removed since the prior window) renders nothing.
+
+        cleanupBlock = hasContent || windowStart > 0 ? null : empty;
 
         // Jump directly to cleanupRender if there is no content
 
@@ -354,22 +457,98 @@ public class Loop<T>
 
     /**
      * Returns the empty block, or null, after the render has finished. It will only be the empty block (which itself
-     * may be null) if the source was null or empty.
+     * may be null) if the source was null or empty. When rendering windows, and there are further values, renders the
+     * placeholder for the next window.
      */
-    Block cleanupRender()
+    Block cleanupRender(MarkupWriter writer)
     {
         if (storeValuesInForm)
             formSupport.store(this, NOTIFY_CONTAINER);
 
+        if (windowSize > 0 && iterator != null && iterator.hasNext())
+        {
+            writeWindowPlaceholder(writer);
+        }
+
         return cleanupBlock;
     }
 
+    /**
+     * Writes an empty element, of the same type as the element rendered for each value, that the client replaces
+     * with the next window. It records where the next window starts and, when the source is a Collection, the total
+     * number of values, so that the client can reserve space for the values not yet rendered.
+     */
+    private void writeWindowPlaceholder(MarkupWriter writer)
+    {
+        javaScriptSupport.require("t5/core/loop");
+
+        Link link = resources.createEventLink(WINDOW_EVENT);
+
+        if (formSupport != null)
+        {
+            // Identifies the form, so that the state of the window is recorded (into a hidden field rendered with the
+            // window) when the window is rendered.
+
+            link.addParameter(RequestConstants.FORM_CLIENTID_PARAMETER, formSupport.getClientId());
+            link.addParameter(RequestConstants.FORM_COMPONENTID_PARAMETER, formSupport.getFormComponentId());
+        }
+
+        writer.element(element == null ? "div" : element,
+                "data-loop-window-url", link.toURI(),
+                "data-loop-window-start", index);
+
+        if (source instanceof Collection)
+        {
+            writer.attributes("data-loop-window-rows", ((Collection) source).size());
+        }
+
+        writer.end();
+    }
+
+    /**
+     * Event handler for the window event, triggered by the client to obtain the window of values starting at the
+     * provided index. Renders the Loop from that value, including the placeholder for the following window.
+     *
+     * @param start
+     *         the index of the first value of the window
+     * @return this component, or null if the Loop isn't rendering windows
+     */
+    Object onWindow(@RequestParameter(WINDOW_START_PARAMETER) int start)
+    {
+        if (windowSize <= 0 || start < 0)
+            return null;
+
+        windowStart = start;
+
+        return this;
+    }
+
+    private Iterator<T> skip(Iterator<T> iterator, int count)
+    {
+        for (int i = 0; i < count && iterator.hasNext(); i++)
+        {
+            iterator.next();
+        }
+
+        return iterator;
+    }
+
     private void setupForVolatile()
     {
         index = 0;
         iterator = source.iterator();
     }
 
+    private void setupForWindow(int start, boolean forVolatile)
+    {
+        index = start;
+
+        if (forVolatile)
+        {
+            iterator = skip(source.iterator(), start);
+        }
+    }
+
     private void advanceVolatile()
     {
         value = iterator.next();
@@ -395,7 +574,7 @@ public class Loop<T>
             {
                 String clientValue = encoder.toClient(value);
 
-                formSupport.store(this, new RestoreStateFromStoredClientValue(clientValue));
+                formSupport.store(this, new RestoreStateFromStoredClientValue(clientValue, index == windowStart));
             }
         }
 
@@ -434,7 +613,12 @@ public class Loop<T>
             formSupport.store(this, END_HEARTBEAT);
         }
 
-        return iterator.hasNext() ? false : null;
+        return iterator.hasNext() && !isWindowComplete() ? false : null;
+    }
+
+    private boolean isWindowComplete()
+    {
+        return windowSize > 0 && index >= windowStart + windowSize;
     }
 
     private void endHeartbeat()
@@ -474,6 +658,15 @@ public class Loop<T>
         synchonizedValues.add(restoredValue);
     }
 
+    @SuppressWarnings("unchecked")
+    private void prefetchClientValues(Collection<String> clientValues)
+    {
+        if (encoder instanceof BatchValueEncoder)
+        {
+            ((BatchValueEncoder<T>) encoder).prefetch(clientValues);
+        }
+    }
+
     private void prepareForSubmission()
     {
         synchonizedValues = CollectionFactory.newList();
@@ -507,4 +700,9 @@ public class Loop<T>
     {
         this.heartbeat = heartbeat;
     }
+
+    void setWindowSize(int windowSize)
+    {
+        this.windowSize = windowSize;
+    }
 }
@@ -0,0 +1,44 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.corelib.internal;
+
+import org.apache.tapestry5.ComponentAction;
+
+import java.util.Collection;
+
+/**
+ * A {@link ComponentAction} that converts a stored client value back into a server-side value, using a
+ * {@link org.apache.tapestry5.ValueEncoder}. When the form is about to execute the first such action stored by a render
+ * of the component, it collects the client values stored by that render, so that a
+ * {@link org.apache.tapestry5.BatchValueEncoder} can prefetch them together. This is deferred until then, as the
+ * encoder may depend on state restored by earlier actions (for example, the value of an enclosing Loop).
+ *
+ * @since 5.4
+ */
+public interface ClientValueAction<T> extends ComponentAction<T>
+{
+    String getClientValue();
+
+    /**
+     * Returns true for the first value stored by a render of the component; the values stored by the render run from
+     * this one up to the next first value of the same component.
+     */
+    boolean isFirstValue();
+
+    /**
+     * Passes the client values stored by a render of the component to its encoder, if it supports prefetching.
+     */
+    void prefetch(T component, Collection<String> clientValues);
+}
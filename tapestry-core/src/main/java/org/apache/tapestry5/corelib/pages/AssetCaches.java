@@ -0,0 +1,77 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.corelib.pages;
+
+import org.apache.tapestry5.annotations.InjectComponent;
+import org.apache.tapestry5.annotations.Property;
+import org.apache.tapestry5.annotations.WhitelistAccessOnly;
+import org.apache.tapestry5.beaneditor.BeanModel;
+import org.apache.tapestry5.corelib.components.Zone;
+import org.apache.tapestry5.internal.services.assets.AssetCacheManager;
+import org.apache.tapestry5.internal.services.assets.StreamableResourceCache;
+import org.apache.tapestry5.ioc.Messages;
+import org.apache.tapestry5.ioc.annotations.Inject;
+import org.apache.tapestry5.services.BeanModelSource;
+
+import java.util.List;
+
+/**
+ * Reports the statistics of the asset caches: how many entries and bytes each holds, and hit, miss and eviction counts.
+ *
+ * @see org.apache.tapestry5.SymbolConstants#ASSET_CACHE_SIZE
+ * @since 5.4
+ */
+@WhitelistAccessOnly
+public class AssetCaches
+{
+    @Inject
+    private AssetCacheManager cacheManager;
+
+    @Inject
+    private BeanModelSource beanModelSource;
+
+    @Inject
+    private Messages messages;
+
+    @Property
+    private StreamableResourceCache cache;
+
+    @InjectComponent
+    private Zone cachesZone;
+
+    @Property
+    public static BeanModel<StreamableResourceCache> model;
+
+    void pageLoaded()
+    {
+        model = beanModelSource.createDisplayModel(StreamableResourceCache.class, messages);
+
+        model.include("name", "entryCount", "size", "maxSize", "hitCount", "missCount", "evictionCount");
+    }
+
+    public List<StreamableResourceCache> getCaches()
+    {
+        return cacheManager.getCaches();
+    }
+
+    Object onActionFromClearCaches()
+    {
+        for (StreamableResourceCache cache : cacheManager.getCaches())
+        {
+            cache.clear();
+        }
+
+        return cachesZone.getBody();
+    }
+}
@@ -144,6 +144,11 @@ public class PageCatalog
         }).toSet();
 
         totals.selectors = InternalUtils.joinSorted(selectorIds);
+
+        totals.pageLoads = pageSource.getLoadCount();
+        totals.pageLoadTime = pageSource.getLoadTime();
+        totals.evictions = pageSource.getEvictionCount();
+        totals.reclaimed = pageSource.getReclaimedCount();
     }
 
     public List<String> getPageNames()
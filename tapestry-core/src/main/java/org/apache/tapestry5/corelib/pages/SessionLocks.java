@@ -0,0 +1,76 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.corelib.pages;
+
+import org.apache.tapestry5.annotations.InjectComponent;
+import org.apache.tapestry5.annotations.Property;
+import org.apache.tapestry5.annotations.WhitelistAccessOnly;
+import org.apache.tapestry5.beaneditor.BeanModel;
+import org.apache.tapestry5.corelib.components.Zone;
+import org.apache.tapestry5.internal.services.SessionLockMonitor;
+import org.apache.tapestry5.internal.services.SessionLockStatistics;
+import org.apache.tapestry5.ioc.Messages;
+import org.apache.tapestry5.ioc.annotations.Inject;
+import org.apache.tapestry5.services.BeanModelSource;
+
+import java.util.List;
+
+/**
+ * Reports, for each page, how often requests acquired the session lock, how often they had to wait for it, and for how
+ * long; pages with high wait times are serializing requests on the session.
+ *
+ * @see org.apache.tapestry5.SymbolConstants#SESSION_LOCKING_ENABLED
+ * @since 5.4
+ */
+@WhitelistAccessOnly
+public class SessionLocks
+{
+    @Inject
+    private SessionLockMonitor monitor;
+
+    @Inject
+    private BeanModelSource beanModelSource;
+
+    @Inject
+    private Messages messages;
+
+    @Property
+    private SessionLockStatistics statistics;
+
+    @InjectComponent
+    private Zone statisticsZone;
+
+    @Property
+    public static BeanModel<SessionLockStatistics> model;
+
+    void pageLoaded()
+    {
+        model = beanModelSource.createDisplayModel(SessionLockStatistics.class, messages);
+
+        model.include("pageName", "readLockCount", "writeLockCount", "upgradeCount", "waitCount", "waitTime",
+                "maxWaitTime");
+    }
+
+    public List<SessionLockStatistics> getAllStatistics()
+    {
+        return monitor.getStatistics();
+    }
+
+    Object onActionFromReset()
+    {
+        monitor.reset();
+
+        return statisticsZone.getBody();
+    }
+}
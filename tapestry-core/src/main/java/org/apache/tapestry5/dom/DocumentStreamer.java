@@ -0,0 +1,216 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.dom;
+
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link Document} to a {@link PrintWriter} in stages, while the document is still being built. Once
+ * {@linkplain #commit(Element) committed}, everything up to and including the start tag of a <em>streaming
+ * container</em> element (typically, the {@code <body>}) has been written; completed children of the container may
+ * then be {@linkplain #flush() flushed} (written and removed from the DOM), and the remainder of the document is
+ * written by {@link #finish()}.
+ * <p/>
+ * The output is identical to {@link Document#toMarkup(PrintWriter)} provided that nothing that has already been written
+ * (the start tags of the container and its ancestors, the siblings that precede them, and flushed children) is
+ * modified after it is written.
+ *
+ * @since 5.4
+ */
+public final class DocumentStreamer
+{
+    private final Document document;
+
+    private final PrintWriter writer;
+
+    /**
+     * From the root element down to the streaming container; each element's start tag has been written.
+     */
+    private final List<Element> openElements = CollectionFactory.newList();
+
+    /**
+     * Namespace mappings for each element in {@link #openElements}.
+     */
+    private final List<Map<String, String>> namespaceMaps = CollectionFactory.newList();
+
+    public DocumentStreamer(Document document, PrintWriter writer)
+    {
+        assert document != null;
+        assert writer != null;
+
+        this.document = document;
+        this.writer = writer;
+    }
+
+    /**
+     * Returns true once {@link #commit(Element)} has been invoked.
+     */
+    public boolean isCommitted()
+    {
+        return !openElements.isEmpty();
+    }
+
+    /**
+     * Writes the start of the document, up to and including the start tag of the container; this includes the
+     * start tag of each ancestor of the container, and the complete markup of every sibling that precedes the
+     * container or one of its ancestors.
+     *
+     * @param container
+     *         the element whose children will be flushed; it must have at least one child
+     */
+    public void commit(Element container)
+    {
+        assert container != null;
+
+        if (isCommitted())
+            throw new IllegalStateException("The document has already been committed.");
+
+        if (!container.hasChildren())
+            throw new IllegalArgumentException(String.format("Element <%s> may not be used as a streaming container as it has no children.", container.getName()));
+
+        List<Element> path = CollectionFactory.newList();
+
+        for (Element cursor = container; cursor != null; cursor = cursor.getContainer())
+        {
+            path.add(cursor);
+        }
+
+        Collections.reverse(path);
+
+        if (path.get(0) != document.getRootElement())
+            throw new IllegalArgumentException(String.format("Element <%s> is not attached to the document.", container.getName()));
+
+        document.writePrologue(writer, document.getNamespaceURIToPrefix());
+
+        Map<String, String> containerNamespaceMap = document.createInitialNamespaceMap();
+
+        for (int i = 0; i < path.size(); i++)
+        {
+            Element element = path.get(i);
+
+            Map<String, String> namespaceMap = element.createNamespaceURIToPrefix(containerNamespaceMap);
+
+            element.writeStartTag(document, writer, namespaceMap, true);
+
+            openElements.add(element);
+            namespaceMaps.add(namespaceMap);
+
+            Element next = i + 1 < path.size() ? path.get(i + 1) : null;
+
+            if (next != null)
+            {
+                for (Node child : element.getChildren())
+                {
+                    if (child == next)
+                        break;
+
+                    child.toMarkup(document, writer, namespaceMap);
+                }
+            }
+
+            containerNamespaceMap = namespaceMap;
+        }
+    }
+
+    /**
+     * Writes and removes all children of the container.
+     */
+    public void flush()
+    {
+        flush(null);
+    }
+
+    /**
+     * Writes the children of the container, removing each from the DOM once written.
+     *
+     * @param openChild
+     *         a child of the container that is still being rendered; it, and any children after it, are neither
+     *         written nor removed. If null, all children are written.
+     */
+    public void flush(Node openChild)
+    {
+        Element container = getContainer();
+
+        Map<String, String> namespaceMap = namespaceMaps.get(namespaceMaps.size() - 1);
+
+        for (Node child : container.getChildren())
+        {
+            if (child == openChild)
+                break;
+
+            child.toMarkup(document, writer, namespaceMap);
+
+            child.remove();
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Writes the remainder of the document: the container's remaining children, and for the container and each of
+     * its ancestors, the end tag and any following siblings. If the document was never committed, the entire document
+     * is written.
+     */
+    public void finish()
+    {
+        if (!isCommitted())
+        {
+            document.toMarkup(writer);
+            return;
+        }
+
+        flush();
+
+        Element written = null;
+
+        for (int i = openElements.size() - 1; i >= 0; i--)
+        {
+            Element element = openElements.get(i);
+            Map<String, String> namespaceMap = namespaceMaps.get(i);
+
+            if (written != null)
+            {
+                boolean following = false;
+
+                for (Node child : element.getChildren())
+                {
+                    if (following)
+                        child.toMarkup(document, writer, namespaceMap);
+
+                    following |= child == written;
+                }
+            }
+
+            element.writeEndTag(document, writer, namespaceMap, true);
+
+            written = element;
+        }
+
+        writer.flush();
+    }
+
+    private Element getContainer()
+    {
+        if (!isCommitted())
+            throw new IllegalStateException("The document has not yet been committed.");
+
+        return openElements.get(openElements.size() - 1);
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2009, 2010, 2011, 2012 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2009, 2010, 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -378,6 +378,25 @@ public final class Element extends Node
     {
         Map<String, String> localNamespacePrefixToURI = createNamespaceURIToPrefix(containerNamespacePrefixToURI);
 
+        boolean hasChildren = hasChildren();
+
+        writeStartTag(document, writer, localNamespacePrefixToURI, hasChildren);
+
+        if (hasChildren)
+            writeChildMarkup(document, writer, localNamespacePrefixToURI);
+
+        writeEndTag(document, writer, localNamespacePrefixToURI, hasChildren);
+    }
+
+    /**
+     * Writes the start tag of the element, including attributes and namespace declarations.
+     *
+     * @param hasChildren
+     *         if false, the start tag may be abbreviated (depending on the markup model)
+     * @since 5.4
+     */
+    void writeStartTag(Document document, PrintWriter writer, Map<String, String> localNamespacePrefixToURI, boolean hasChildren)
+    {
         MarkupModel markupModel = document.getMarkupModel();
 
         StringBuilder builder = new StringBuilder();
@@ -422,22 +441,29 @@ public final class Element extends Node
 
         EndTagStyle style = markupModel.getEndTagStyle(name);
 
-        boolean hasChildren = hasChildren();
-
         String close = (!hasChildren && style == EndTagStyle.ABBREVIATE) ? "/>" : ">";
 
         builder.append(close);
 
         writer.print(builder.toString());
+    }
 
-        if (hasChildren)
-            writeChildMarkup(document, writer, localNamespacePrefixToURI);
+    /**
+     * Writes the end tag of the element, if one is needed.
+     *
+     * @param hasChildren
+     *         the same value passed to {@link #writeStartTag(Document, PrintWriter, Map, boolean)}
+     * @since 5.4
+     */
+    void writeEndTag(Document document, PrintWriter writer, Map<String, String> localNamespacePrefixToURI, boolean hasChildren)
+    {
+        EndTagStyle style = document.getMarkupModel().getEndTagStyle(name);
 
         if (hasChildren || style == EndTagStyle.REQUIRE)
         {
             // TAP5-471: Avoid use of printf().
             writer.print("</");
-            writer.print(prefixedElementName);
+            writer.print(toPrefixedName(localNamespacePrefixToURI, namespace, name));
             writer.print(">");
         }
     }
@@ -726,7 +752,7 @@ public final class Element extends Node
      *
      * @return a mapping from namespace URI to namespace prefix
      */
-    private Map<String, String> createNamespaceURIToPrefix(Map<String, String> containerNamespaceURIToPrefix)
+    Map<String, String> createNamespaceURIToPrefix(Map<String, String> containerNamespaceURIToPrefix)
     {
         MapHolder holder = new MapHolder(containerNamespaceURIToPrefix);
 
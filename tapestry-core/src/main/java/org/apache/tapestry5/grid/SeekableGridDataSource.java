@@ -0,0 +1,77 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.grid;
+
+import java.util.List;
+
+/**
+ * An optional extension of {@link GridDataSource} for sources that can locate a range of rows from the
+ * <em>row key</em> of an adjacent row (known as keyset, or seek, pagination), rather than by skipping over all the
+ * rows before the range. For a database, this means a deep page costs the same to query as the first page.
+ * <p/>
+ * A row key consists of the row's values for each of the sort constraints, followed by a unique identifier for the
+ * row, which is used to order rows with equal sort values. Row keys are stored between requests (by the
+ * {@link org.apache.tapestry5.corelib.components.Grid}, as persistent fields), so their values should be
+ * serializable.
+ * <p/>
+ * The Grid seeks when moving to the next or previous page, under the same sort constraints; for other navigation,
+ * it uses {@link #prepare(int, int, java.util.List)}. For the rows seen by seeking and by index to be consistent,
+ * {@link #prepare(int, int, java.util.List)} must order rows with equal sort values by their unique identifier.
+ *
+ * @since 5.4
+ */
+public interface SeekableGridDataSource extends GridDataSource
+{
+    /**
+     * Returns the row key for a row value obtained from this data source.
+     *
+     * @param row
+     *         a value previously returned from {@link #getRowValue(int)}
+     * @param sortConstraints
+     *         the constraints used when the row was prepared
+     * @return the row key
+     */
+    Object[] getRowKey(Object row, List<SortConstraint> sortConstraints);
+
+    /**
+     * As with {@link #prepare(int, int, java.util.List)}, but the rows are those immediately following the row
+     * identified by the key.
+     *
+     * @param startIndex
+     *         the starting index to be retrieved
+     * @param endIndex
+     *         the ending index to be retrieved
+     * @param sortConstraints
+     *         identify how data is to be sorted
+     * @param precedingRowKey
+     *         the key of the row at startIndex - 1
+     */
+    void prepareAfter(int startIndex, int endIndex, List<SortConstraint> sortConstraints, Object[] precedingRowKey);
+
+    /**
+     * As with {@link #prepare(int, int, java.util.List)}, but the rows are those immediately preceding the row
+     * identified by the key.
+     *
+     * @param startIndex
+     *         the starting index to be retrieved
+     * @param endIndex
+     *         the ending index to be retrieved
+     * @param sortConstraints
+     *         identify how data is to be sorted
+     * @param followingRowKey
+     *         the key of the row at endIndex + 1
+     */
+    void prepareBefore(int startIndex, int endIndex, List<SortConstraint> sortConstraints, Object[] followingRowKey);
+}
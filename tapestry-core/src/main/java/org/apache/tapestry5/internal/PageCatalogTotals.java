@@ -19,7 +19,7 @@ import org.apache.tapestry5.beaneditor.ReorderProperties;
 /**
  * @see org.apache.tapestry5.corelib.pages.PageCatalog
  */
-@ReorderProperties("definedPages,loadedPages,uniquePageNames,selectors,components")
+@ReorderProperties("definedPages,loadedPages,uniquePageNames,selectors,components,pageLoads,pageLoadTime,evictions,reclaimed")
 public class PageCatalogTotals
 {
     /**
@@ -44,4 +44,24 @@ public class PageCatalogTotals
      * All selectors represented in the pool, often just 'en'.
      */
     public String selectors;
+
+    /**
+     * Number of times a page has been loaded since startup.
+     */
+    public int pageLoads;
+
+    /**
+     * Total time, in milliseconds, spent loading pages.
+     */
+    public long pageLoadTime;
+
+    /**
+     * Number of pages unpinned to keep within the page cache size.
+     */
+    public int evictions;
+
+    /**
+     * Number of cached pages reclaimed by the garbage collector.
+     */
+    public int reclaimed;
 }
@@ -237,7 +237,18 @@ public class TapestryAppInitializer
 
         for (ServiceActivity activity : serviceActivity)
         {
-            f.format(formatString, activity.getServiceId(), activity.getStatus().name());
+            String status = activity.getStatus().name();
+
+            long realizationTime = activity.getRealizationTime();
+
+            // Identify services that were slow to realize.
+
+            if (realizationTime > 0)
+            {
+                status = String.format("%s (%,d ms)", status, realizationTime);
+            }
+
+            f.format(formatString, activity.getServiceId(), status);
         }
 
         f.format("\n%4.2f%% unrealized services (%d/%d)\n", 100. * unrealized / serviceActivity.size(), unrealized,
@@ -23,6 +23,7 @@ import org.apache.tapestry5.ioc.Orderable;
 import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.services.FileWatcher;
 import org.apache.tapestry5.services.ComponentEventRequestParameters;
 import org.apache.tapestry5.services.LinkCreationListener;
 import org.apache.tapestry5.services.LinkCreationListener2;
@@ -577,5 +578,17 @@ public class TapestryInternalUtils
 
         return ref == null ? null : ref.get();
     }
-}
 
+    /**
+     * Returns the file watcher to be used by a change tracker: none in production mode (where files are not checked
+     * for changes), and none when the {@linkplain SymbolConstants#FILE_CHECK_INTERVAL file check interval} is zero,
+     * since every request must then see changes made before it, whereas the watcher reports changes asynchronously.
+     *
+     * @since 5.4
+     */
+    public static FileWatcher toTrackingFileWatcher(boolean productionMode, long checkInterval,
+                                                    FileWatcher fileWatcher)
+    {
+        return productionMode || checkInterval == 0 ? null : fileWatcher;
+    }
+}
@@ -0,0 +1,86 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.grid;
+
+import org.apache.tapestry5.grid.SortConstraint;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Records the {@linkplain org.apache.tapestry5.grid.SeekableGridDataSource row keys} of the first and last rows of
+ * the page most recently displayed by a {@link org.apache.tapestry5.corelib.components.Grid}, so that the next or
+ * previous page can be located from them.
+ *
+ * @since 5.4
+ */
+public final class PageBoundary implements Serializable
+{
+    private static final long serialVersionUID = 2209417307318640233L;
+
+    private final int page;
+
+    private final int rowsPerPage;
+
+    private final String sort;
+
+    private final Object[] firstRowKey, lastRowKey;
+
+    public PageBoundary(int page, int rowsPerPage, List<SortConstraint> sortConstraints, Object[] firstRowKey,
+                        Object[] lastRowKey)
+    {
+        this.page = page;
+        this.rowsPerPage = rowsPerPage;
+        this.sort = toSort(sortConstraints);
+        this.firstRowKey = firstRowKey;
+        this.lastRowKey = lastRowKey;
+    }
+
+    private static String toSort(List<SortConstraint> sortConstraints)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        for (SortConstraint constraint : sortConstraints)
+        {
+            builder.append(constraint.getPropertyModel().getId()).append(' ').append(constraint.getColumnSort())
+                    .append(',');
+        }
+
+        return builder.toString();
+    }
+
+    private boolean matches(int rowsPerPage, List<SortConstraint> sortConstraints)
+    {
+        return rowsPerPage == this.rowsPerPage && sort.equals(toSort(sortConstraints));
+    }
+
+    /**
+     * Returns the key of the last row of the preceding page, if the page is the one after this page, with the same
+     * number of rows per page and under the same sort constraints, or null otherwise.
+     */
+    public Object[] getRowKeyBefore(int page, int rowsPerPage, List<SortConstraint> sortConstraints)
+    {
+        return page == this.page + 1 && matches(rowsPerPage, sortConstraints) ? lastRowKey : null;
+    }
+
+    /**
+     * Returns the key of the first row of the following page, if the page is the one before this page, with the
+     * same number of rows per page and under the same sort constraints, or null otherwise.
+     */
+    public Object[] getRowKeyAfter(int page, int rowsPerPage, List<SortConstraint> sortConstraints)
+    {
+        return page == this.page - 1 && matches(rowsPerPage, sortConstraints) ? firstRowKey : null;
+    }
+}
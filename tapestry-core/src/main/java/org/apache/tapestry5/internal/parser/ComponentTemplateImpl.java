@@ -1,4 +1,4 @@
-// Copyright 2006, 2008, 2009 The Apache Software Foundation
+// Copyright 2006, 2008, 2009, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -85,4 +85,15 @@ public class ComponentTemplateImpl implements ComponentTemplate
     {
         return extension;
     }
+
+    /**
+     * Returns the map from extension point id to the tokens for that extension point, or null if the template neither
+     * defines nor overrides any extension points.
+     *
+     * @since 5.4
+     */
+    public Map<String, List<TemplateToken>> getOverrides()
+    {
+        return overrides;
+    }
 }
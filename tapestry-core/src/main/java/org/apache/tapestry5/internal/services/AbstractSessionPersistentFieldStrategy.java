@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2010 The Apache Software Foundation
+// Copyright 2007, 2008, 2010, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -52,20 +52,31 @@ public abstract class AbstractSessionPersistentFieldStrategy implements Persiste
 
         String fullPrefix = prefix + pageName + ":";
 
-        for (String name : session.getAttributeNames(fullPrefix))
-        {
-            Object persistedValue = session.getAttribute(name);
+        List<String> names = session.getAttributeNames(fullPrefix);
 
-            Object applicationValue = persistedValue == null ? null : convertPersistedToApplicationValue(
-                    persistedValue);
+        if (names.isEmpty()) return result;
 
-            PersistentFieldChange change = buildChange(name, applicationValue);
+        List<Object> persistedValues = newList();
 
-            result.add(change);
+        for (String name : names)
+        {
+            persistedValues.add(session.getAttribute(name));
 
             didReadChange(session, name);
         }
 
+        willConvertPersistedValues(persistedValues);
+
+        for (int i = 0; i < names.size(); i++)
+        {
+            Object persistedValue = persistedValues.get(i);
+
+            Object applicationValue = persistedValue == null ? null : convertPersistedToApplicationValue(
+                    persistedValue);
+
+            result.add(buildChange(names.get(i), applicationValue));
+        }
+
         return result;
     }
 
@@ -94,6 +105,18 @@ public abstract class AbstractSessionPersistentFieldStrategy implements Persiste
     {
     }
 
+    /**
+     * Called by {@link #gatherFieldChanges(String)} with all the values read for a page, before any is
+     * {@linkplain #convertPersistedToApplicationValue(Object) converted}; for example, to load several persisted
+     * entities with a single query. This implementation does nothing, subclasses may override.
+     *
+     * @param persistedValues the values read from the session (some may be null)
+     * @since 5.4
+     */
+    protected void willConvertPersistedValues(List<Object> persistedValues)
+    {
+    }
+
     private PersistentFieldChange buildChange(String name, Object newValue)
     {
         String[] chunks = name.split(":");
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2009, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2009, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -20,6 +20,9 @@ import org.apache.tapestry5.ioc.Invokable;
 import org.apache.tapestry5.ioc.annotations.IntermediateType;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.ConcurrentBarrier;
+import org.apache.tapestry5.ioc.services.FileWatcher;
+import org.apache.tapestry5.ioc.services.cron.IntervalSchedule;
+import org.apache.tapestry5.ioc.services.cron.PeriodicExecutor;
 import org.apache.tapestry5.ioc.util.TimeInterval;
 import org.apache.tapestry5.services.*;
 
@@ -30,6 +33,10 @@ import java.util.concurrent.TimeUnit;
  * Implements a barrier that periodically asks the {@link org.apache.tapestry5.services.UpdateListenerHub} to check for
  * updates to files. The UpdateListenerHub is invoked from a write method, meaning that when it is called, all other
  * threads will be blocked.
+ * <p/>
+ * When the {@link FileWatcher} is enabled, the checks are instead made from a background job (so that request
+ * threads never check files themselves); only files in directories with changes need to be checked, so the write lock
+ * is held only briefly.
  */
 public class CheckForUpdatesFilter implements RequestFilter
 {
@@ -41,6 +48,8 @@ public class CheckForUpdatesFilter implements RequestFilter
 
     private final ConcurrentBarrier barrier = new ConcurrentBarrier();
 
+    private final boolean checkInBackground;
+
     private final Runnable checker = new Runnable()
     {
         public void run()
@@ -61,6 +70,22 @@ public class CheckForUpdatesFilter implements RequestFilter
         }
     };
 
+    private final Runnable fireCheckForUpdates = new Runnable()
+    {
+        public void run()
+        {
+            updateListenerHub.fireCheckForUpdates();
+        }
+    };
+
+    private final Runnable backgroundChecker = new Runnable()
+    {
+        public void run()
+        {
+            barrier.tryWithWrite(fireCheckForUpdates, updateTimeout, TimeUnit.MILLISECONDS);
+        }
+    };
+
     private long lastCheck = 0;
 
     /**
@@ -70,6 +95,10 @@ public class CheckForUpdatesFilter implements RequestFilter
      *            interval, in milliseconds, between checks
      * @param updateTimeout
      *            time, in milliseconds, to wait to obtain update lock.
+     * @param fileWatcher
+     *            if enabled, checks are made from a background job, rather than within requests
+     * @param periodicExecutor
+     *            used to schedule the background job
      */
     public CheckForUpdatesFilter(UpdateListenerHub updateListenerHub,
 
@@ -79,11 +108,22 @@ public class CheckForUpdatesFilter implements RequestFilter
 
     @Symbol(SymbolConstants.FILE_CHECK_UPDATE_TIMEOUT)
     @IntermediateType(TimeInterval.class)
-    long updateTimeout)
+    long updateTimeout,
+
+    FileWatcher fileWatcher,
+
+    PeriodicExecutor periodicExecutor)
     {
         this.updateListenerHub = updateListenerHub;
         this.checkInterval = checkInterval;
         this.updateTimeout = updateTimeout;
+
+        checkInBackground = fileWatcher.isEnabled() && checkInterval > 0;
+
+        if (checkInBackground)
+        {
+            periodicExecutor.addJob(new IntervalSchedule(checkInterval), "Check for file updates", backgroundChecker);
+        }
     }
 
     public boolean service(final Request request, final Response response, final RequestHandler handler)
@@ -95,7 +135,7 @@ public class CheckForUpdatesFilter implements RequestFilter
         {
             public Boolean invoke()
             {
-                if (System.currentTimeMillis() - lastCheck >= checkInterval)
+                if (!checkInBackground && System.currentTimeMillis() - lastCheck >= checkInterval)
                     barrier.tryWithWrite(checker, updateTimeout, TimeUnit.MILLISECONDS);
 
                 // And, now, back to code within the read lock.
@@ -1,4 +1,4 @@
-// Copyright 2009, 2012 The Apache Software Foundation
+// Copyright 2009, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -20,32 +20,53 @@ import org.apache.tapestry5.internal.InternalConstants;
 import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.internal.util.Base64InputStream;
 import org.apache.tapestry5.internal.util.MacOutputStream;
+import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.services.ClientDataCodec;
 import org.apache.tapestry5.services.ClientDataEncoder;
 import org.apache.tapestry5.services.ClientDataSink;
+import org.apache.tapestry5.services.ComponentClasses;
+import org.apache.tapestry5.services.InvalidationEventHub;
 import org.apache.tapestry5.services.URLEncoder;
 import org.slf4j.Logger;
 
 import javax.crypto.spec.SecretKeySpec;
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
 import java.io.UnsupportedEncodingException;
 import java.security.Key;
+import java.util.Map;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 public class ClientDataEncoderImpl implements ClientDataEncoder
 {
+    private static final int GZIP_MAGIC = 0x1f;
+
     private final URLEncoder urlEncoder;
 
     private final Key hmacKey;
 
+    private final boolean compact;
+
+    private final ClientDataTypes types;
+
     public ClientDataEncoderImpl(URLEncoder urlEncoder, @Symbol(SymbolConstants.HMAC_PASSPHRASE) String passphrase,
                                  Logger logger,
                                  @Symbol(InternalConstants.TAPESTRY_APP_PACKAGE_PARAM)
-                                 String applicationPackageName, AlertManager alertManager) throws UnsupportedEncodingException
+                                 String applicationPackageName, AlertManager alertManager,
+                                 @Symbol(SymbolConstants.COMPACT_CLIENT_DATA)
+                                 boolean compact,
+                                 ComponentClassCache classCache,
+                                 Map<Class, ClientDataCodec> codecs) throws UnsupportedEncodingException
     {
         this.urlEncoder = urlEncoder;
+        this.compact = compact;
+
+        types = new ClientDataTypes(classCache, codecs);
 
         if (passphrase.equals(""))
         {
@@ -68,11 +89,25 @@ public class ClientDataEncoderImpl implements ClientDataEncoder
         hmacKey = new SecretKeySpec(passphrase.getBytes("UTF8"), "HmacSHA1");
     }
 
+    @PostInjection
+    public void setupInvalidation(@ComponentClasses InvalidationEventHub hub)
+    {
+        hub.addInvalidationCallback(new Runnable()
+        {
+            public void run()
+            {
+                types.clear();
+            }
+        });
+    }
+
     public ClientDataSink createSink()
     {
         try
         {
-            return new ClientDataSinkImpl(urlEncoder, hmacKey);
+            return compact
+                    ? new CompactClientDataSink(urlEncoder, hmacKey, types)
+                    : new ClientDataSinkImpl(urlEncoder, hmacKey);
         } catch (IOException ex)
         {
             throw new RuntimeException(ex);
@@ -81,8 +116,8 @@ public class ClientDataEncoderImpl implements ClientDataEncoder
 
     public ObjectInputStream decodeClientData(String clientData)
     {
-        // The clientData is Base64 that's been gzip'ed (i.e., this matches
-        // what ClientDataSinkImpl does).
+        // The clientData is Base64, either of the compact format (see CompactClientDataSink) or
+        // of a gzip'ed object stream (see ClientDataSinkImpl).
 
         int colonx = clientData.indexOf(':');
 
@@ -103,19 +138,42 @@ public class ClientDataEncoderImpl implements ClientDataEncoder
 
             validateHMAC(storedHmacResult, b64in);
 
-            // After reading it once to validate, reset it for the actual read (which includes the GZip decompression).
+            // After reading it once to validate, reset it for the actual read (which includes any decompression).
 
             b64in.reset();
 
-            BufferedInputStream buffered = new BufferedInputStream(new GZIPInputStream(b64in));
-
-            return new ObjectInputStream(buffered);
+            return openStream(b64in);
         } catch (IOException ex)
         {
             throw new RuntimeException(ex);
         }
     }
 
+    private ObjectInputStream openStream(InputStream input) throws IOException
+    {
+        int format = input.read();
+
+        switch (format)
+        {
+            case CompactClientDataSink.COMPACT:
+                return new CompactObjectInputStream(input, types);
+
+            case CompactClientDataSink.COMPACT_DEFLATED:
+                return new CompactObjectInputStream(new BufferedInputStream(new InflaterInputStream(input)), types);
+
+            case GZIP_MAGIC:
+
+                // The first byte of the GZip header, written by ClientDataSinkImpl.
+
+                input.reset();
+
+                return new ObjectInputStream(new BufferedInputStream(new GZIPInputStream(input)));
+
+            default:
+                throw new StreamCorruptedException("Client data is not in a recognized format.");
+        }
+    }
+
     private void validateHMAC(String storedHmacResult, Base64InputStream b64in) throws IOException
     {
         MacOutputStream macOs = MacOutputStream.streamFor(hmacKey);
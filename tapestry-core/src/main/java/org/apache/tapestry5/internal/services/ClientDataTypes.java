@@ -0,0 +1,223 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.ComponentAction;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.ClientDataCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type information shared by {@link CompactObjectOutputStream} and {@link CompactObjectInputStream}: the contributed
+ * {@link ClientDataCodec}s, the resolution of class names (including component classes), and the fields of
+ * {@link ComponentAction} classes.
+ *
+ * @since 5.4
+ */
+public class ClientDataTypes
+{
+    /**
+     * The constructor and fields of a {@link ComponentAction} class that is written field by field.
+     */
+    static final class ActionType
+    {
+        final Constructor constructor;
+
+        final Field[] fields;
+
+        ActionType(Constructor constructor, Field[] fields)
+        {
+            this.constructor = constructor;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Placeholder for classes that are not written field by field (the map can not store null).
+     */
+    private static final ActionType NOT_AN_ACTION_TYPE = new ActionType(null, null);
+
+    private static final List<String> SERIALIZATION_METHOD_NAMES = Arrays.asList("writeObject", "readObject",
+            "readObjectNoData", "writeReplace", "readResolve");
+
+    private static final Comparator<Field> BY_NAME = new Comparator<Field>()
+    {
+        public int compare(Field o1, Field o2)
+        {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private final ComponentClassCache classCache;
+
+    private final Map<Class, ClientDataCodec> codecs;
+
+    private final Map<String, ClientDataCodec> codecsByName = CollectionFactory.newMap();
+
+    private final Map<Class, ActionType> actionTypes = CollectionFactory.newConcurrentMap();
+
+    public ClientDataTypes(ComponentClassCache classCache, Map<Class, ClientDataCodec> codecs)
+    {
+        this.classCache = classCache;
+        this.codecs = codecs;
+
+        for (Map.Entry<Class, ClientDataCodec> e : codecs.entrySet())
+        {
+            codecsByName.put(e.getKey().getName(), e.getValue());
+        }
+    }
+
+    /**
+     * Discards information about component action classes; invoked when component classes are invalidated.
+     */
+    public void clear()
+    {
+        actionTypes.clear();
+    }
+
+    ClientDataCodec getCodec(Class type)
+    {
+        return codecs.get(type);
+    }
+
+    ClientDataCodec getCodec(String typeName)
+    {
+        return codecsByName.get(typeName);
+    }
+
+    /**
+     * Resolves a class name, which may be the name of a component class, or of a class nested inside a component
+     * class.
+     */
+    Class forName(String className) throws ClassNotFoundException
+    {
+        try
+        {
+            return classCache.forName(className);
+        } catch (RuntimeException ex)
+        {
+            throw new ClassNotFoundException(className, ex);
+        }
+    }
+
+    /**
+     * Deserializes an object written by Java serialization, resolving classes with {@link #forName(String)}.
+     */
+    Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes))
+        {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException
+            {
+                return forName(desc.getName());
+            }
+        };
+
+        try
+        {
+            return stream.readObject();
+        } finally
+        {
+            stream.close();
+        }
+    }
+
+    /**
+     * Returns the constructor and fields of a {@link ComponentAction} class, or null if the class can not be written
+     * field by field. That requires a class that directly extends Object, has a no-arguments constructor, does not
+     * customize its serialization, and is not a non-static inner class. Tapestry's own component actions all qualify.
+     */
+    ActionType getActionType(Class type)
+    {
+        ActionType result = actionTypes.get(type);
+
+        if (result == null)
+        {
+            result = createActionType(type);
+
+            actionTypes.put(type, result);
+        }
+
+        return result == NOT_AN_ACTION_TYPE ? null : result;
+    }
+
+    private static ActionType createActionType(Class type)
+    {
+        if (!ComponentAction.class.isAssignableFrom(type) || type.getSuperclass() != Object.class)
+        {
+            return NOT_AN_ACTION_TYPE;
+        }
+
+        for (Method method : type.getDeclaredMethods())
+        {
+            if (SERIALIZATION_METHOD_NAMES.contains(method.getName()))
+            {
+                return NOT_AN_ACTION_TYPE;
+            }
+        }
+
+        List<Field> fields = CollectionFactory.newList();
+
+        for (Field field : type.getDeclaredFields())
+        {
+            int modifiers = field.getModifiers();
+
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers))
+            {
+                continue;
+            }
+
+            // A synthetic field is typically the reference to the outer instance of an inner class.
+
+            if (field.isSynthetic())
+            {
+                return NOT_AN_ACTION_TYPE;
+            }
+
+            field.setAccessible(true);
+
+            fields.add(field);
+        }
+
+        Field[] fieldArray = fields.toArray(new Field[fields.size()]);
+
+        Arrays.sort(fieldArray, BY_NAME);
+
+        try
+        {
+            Constructor constructor = type.getDeclaredConstructor();
+
+            constructor.setAccessible(true);
+
+            return new ActionType(constructor, fieldArray);
+        } catch (NoSuchMethodException ex)
+        {
+            return NOT_AN_ACTION_TYPE;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.util.Base64OutputStream;
+import org.apache.tapestry5.internal.util.MacOutputStream;
+import org.apache.tapestry5.internal.util.TeeOutputStream;
+import org.apache.tapestry5.services.ClientDataSink;
+import org.apache.tapestry5.services.URLEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.security.Key;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A {@link ClientDataSink} that writes data using a {@link CompactObjectOutputStream}. The data is prefixed with a
+ * format byte, and is compressed only when it is large enough to benefit.
+ *
+ * @since 5.4
+ */
+public class CompactClientDataSink implements ClientDataSink
+{
+    /**
+     * Format byte for uncompressed data. Legacy (Java serialization) data starts with the GZip magic number, 0x1f.
+     */
+    static final int COMPACT = 1;
+
+    /**
+     * Format byte for data compressed using the ZLIB format.
+     */
+    static final int COMPACT_DEFLATED = 2;
+
+    /**
+     * Smaller data is not compressed; the compressed form is rarely smaller.
+     */
+    private static final int COMPRESSION_THRESHOLD = 128;
+
+    private final URLEncoder urlEncoder;
+
+    private final Key hmacKey;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private final CompactObjectOutputStream objectOutputStream;
+
+    private String clientData;
+
+    public CompactClientDataSink(URLEncoder urlEncoder, Key hmacKey, ClientDataTypes types) throws IOException
+    {
+        this.urlEncoder = urlEncoder;
+        this.hmacKey = hmacKey;
+
+        objectOutputStream = new CompactObjectOutputStream(bytes, types);
+    }
+
+    public ObjectOutputStream getObjectOutputStream()
+    {
+        return objectOutputStream;
+    }
+
+    public String getClientData()
+    {
+        if (clientData == null)
+        {
+            try
+            {
+                clientData = encode();
+            } catch (IOException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        return clientData;
+    }
+
+    private String encode() throws IOException
+    {
+        objectOutputStream.close();
+
+        MacOutputStream macOutputStream = MacOutputStream.streamFor(hmacKey);
+        Base64OutputStream base64OutputStream = new Base64OutputStream();
+
+        OutputStream output = new TeeOutputStream(macOutputStream, base64OutputStream);
+
+        if (bytes.size() < COMPRESSION_THRESHOLD)
+        {
+            output.write(COMPACT);
+            bytes.writeTo(output);
+        } else
+        {
+            output.write(COMPACT_DEFLATED);
+
+            DeflaterOutputStream deflater = new DeflaterOutputStream(output);
+
+            bytes.writeTo(deflater);
+
+            deflater.finish();
+        }
+
+        output.close();
+
+        return macOutputStream.getResult() + ":" + base64OutputStream.toBase64();
+    }
+
+    public String getEncodedClientData()
+    {
+        return urlEncoder.encode(getClientData());
+    }
+}
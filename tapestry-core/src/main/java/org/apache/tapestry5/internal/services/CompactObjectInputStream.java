@@ -0,0 +1,372 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.ClientDataCodec;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.apache.tapestry5.internal.services.CompactObjectOutputStream.*;
+
+/**
+ * Reads objects written by a {@link CompactObjectOutputStream}.
+ *
+ * @since 5.4
+ */
+public class CompactObjectInputStream extends ObjectInputStream
+{
+    private final DataInputStream in;
+
+    private final ClientDataTypes types;
+
+    /**
+     * Strings already read, in order; back references are indexes into this list.
+     */
+    private final List<String> strings = CollectionFactory.newList();
+
+    public CompactObjectInputStream(InputStream in, ClientDataTypes types) throws IOException
+    {
+        this.in = new DataInputStream(in);
+        this.types = types;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Object readObjectOverride() throws IOException, ClassNotFoundException
+    {
+        int tag = in.read();
+
+        switch (tag)
+        {
+            case -1:
+                throw new EOFException();
+
+            case NULL:
+                return null;
+
+            case STRING:
+                return readString();
+
+            case TRUE:
+                return Boolean.TRUE;
+
+            case FALSE:
+                return Boolean.FALSE;
+
+            case BYTE:
+                return in.readByte();
+
+            case SHORT:
+                return in.readShort();
+
+            case CHARACTER:
+                return in.readChar();
+
+            case INTEGER:
+
+                int i = readVarInt();
+
+                return (i >>> 1) ^ -(i & 1);
+
+            case LONG:
+
+                long l = readVarLong();
+
+                return (l >>> 1) ^ -(l & 1);
+
+            case FLOAT:
+                return in.readFloat();
+
+            case DOUBLE:
+                return in.readDouble();
+
+            case ENUM:
+
+                Class enumType = types.forName(readString());
+
+                return Enum.valueOf(enumType, readString());
+
+            case CODEC:
+
+                String typeName = readString();
+
+                ClientDataCodec codec = types.getCodec(typeName);
+
+                if (codec == null)
+                {
+                    throw new InvalidClassException(typeName, "No ClientDataCodec has been contributed for the type.");
+                }
+
+                return codec.read(this);
+
+            case ACTION:
+                return readAction(types.forName(readString()));
+
+            case SERIALIZED:
+
+                byte[] bytes = new byte[readVarInt()];
+
+                in.readFully(bytes);
+
+                return types.deserialize(bytes);
+
+            default:
+                throw new StreamCorruptedException(String.format("Unexpected type code %d in client data.", tag));
+        }
+    }
+
+    private Object readAction(Class type) throws IOException, ClassNotFoundException
+    {
+        ClientDataTypes.ActionType actionType = types.getActionType(type);
+
+        if (actionType == null)
+        {
+            throw new InvalidClassException(type.getName(), "The class is not a component action that can be read field by field.");
+        }
+
+        try
+        {
+            Object result = actionType.constructor.newInstance();
+
+            for (Field field : actionType.fields)
+            {
+                String fieldName = readString();
+
+                if (!fieldName.equals(field.getName()))
+                {
+                    throw new InvalidClassException(type.getName(),
+                            String.format("Expected field '%s' but found field '%s'; the class has changed.",
+                                    field.getName(), fieldName));
+                }
+
+                field.set(result, readObject());
+            }
+
+            return result;
+        } catch (IOException ex)
+        {
+            throw ex;
+        } catch (ClassNotFoundException ex)
+        {
+            throw ex;
+        } catch (Exception ex)
+        {
+            InvalidClassException exception = new InvalidClassException(type.getName(), ex.toString());
+
+            exception.initCause(ex);
+
+            throw exception;
+        }
+    }
+
+    private String readString() throws IOException
+    {
+        int index = readVarInt();
+
+        if (index > 0)
+        {
+            if (index > strings.size())
+            {
+                throw new StreamCorruptedException(String.format("Invalid string reference %d in client data.", index));
+            }
+
+            return strings.get(index - 1);
+        }
+
+        byte[] bytes = new byte[readVarInt()];
+
+        in.readFully(bytes);
+
+        String result = new String(bytes, "UTF-8");
+
+        strings.add(result);
+
+        return result;
+    }
+
+    private int readVarInt() throws IOException
+    {
+        int result = 0;
+
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+
+            result |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+
+        throw new StreamCorruptedException("Invalid variable length integer in client data.");
+    }
+
+    private long readVarLong() throws IOException
+    {
+        long result = 0;
+
+        for (int shift = 0; shift < 70; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+
+            result |= (long) (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+
+        throw new StreamCorruptedException("Invalid variable length integer in client data.");
+    }
+
+    @Override
+    public Object readUnshared() throws IOException, ClassNotFoundException
+    {
+        return readObject();
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        return in.read();
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException
+    {
+        return in.read(buf, off, len);
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return in.available();
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException
+    {
+        return in.readBoolean();
+    }
+
+    @Override
+    public byte readByte() throws IOException
+    {
+        return in.readByte();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException
+    {
+        return in.readUnsignedByte();
+    }
+
+    @Override
+    public char readChar() throws IOException
+    {
+        return in.readChar();
+    }
+
+    @Override
+    public short readShort() throws IOException
+    {
+        return in.readShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException
+    {
+        return in.readUnsignedShort();
+    }
+
+    @Override
+    public int readInt() throws IOException
+    {
+        return in.readInt();
+    }
+
+    @Override
+    public long readLong() throws IOException
+    {
+        return in.readLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException
+    {
+        return in.readFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException
+    {
+        return in.readDouble();
+    }
+
+    @Override
+    public void readFully(byte[] buf) throws IOException
+    {
+        in.readFully(buf);
+    }
+
+    @Override
+    public void readFully(byte[] buf, int off, int len) throws IOException
+    {
+        in.readFully(buf, off, len);
+    }
+
+    @Override
+    public int skipBytes(int len) throws IOException
+    {
+        return in.skipBytes(len);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String readLine() throws IOException
+    {
+        return in.readLine();
+    }
+
+    /**
+     * Reads a string written by {@link CompactObjectOutputStream#writeUTF(String)}.
+     *
+     * @throws EOFException
+     *         at the end of the stream
+     */
+    @Override
+    public String readUTF() throws IOException
+    {
+        return readString();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+}
@@ -0,0 +1,379 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.ClientDataCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * An ObjectOutputStream that writes a compact binary format, rather than using Java serialization, for the objects
+ * typically stored on the client: strings, primitive wrappers, enums, {@link org.apache.tapestry5.ComponentAction}s
+ * and objects with a {@link ClientDataCodec}. Each object is preceded by a single byte type code. Strings (including
+ * those written with {@link #writeUTF(String)}) are written once; repeats are written as a back reference. Other
+ * objects are written using Java serialization, each in isolation.
+ * <p/>
+ * Unlike Java serialization, shared references to the same object are not preserved; the object is written again
+ * each time.
+ *
+ * @see CompactObjectInputStream
+ * @since 5.4
+ */
+public class CompactObjectOutputStream extends ObjectOutputStream
+{
+    static final int NULL = 0;
+
+    static final int STRING = 1;
+
+    static final int TRUE = 2;
+
+    static final int FALSE = 3;
+
+    static final int BYTE = 4;
+
+    static final int SHORT = 5;
+
+    static final int CHARACTER = 6;
+
+    static final int INTEGER = 7;
+
+    static final int LONG = 8;
+
+    static final int FLOAT = 9;
+
+    static final int DOUBLE = 10;
+
+    static final int ENUM = 11;
+
+    static final int CODEC = 12;
+
+    static final int ACTION = 13;
+
+    static final int SERIALIZED = 14;
+
+    private final DataOutputStream out;
+
+    private final ClientDataTypes types;
+
+    /**
+     * Strings already written, mapped to their index.
+     */
+    private final Map<String, Integer> strings = CollectionFactory.newMap();
+
+    public CompactObjectOutputStream(OutputStream out, ClientDataTypes types) throws IOException
+    {
+        this.out = new DataOutputStream(out);
+        this.types = types;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeObjectOverride(Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.write(NULL);
+            return;
+        }
+
+        Class type = value.getClass();
+
+        if (type == String.class)
+        {
+            out.write(STRING);
+            writeString((String) value);
+            return;
+        }
+
+        if (type == Integer.class)
+        {
+            int i = (Integer) value;
+
+            out.write(INTEGER);
+            writeVarInt((i << 1) ^ (i >> 31));
+            return;
+        }
+
+        if (type == Long.class)
+        {
+            long l = (Long) value;
+
+            out.write(LONG);
+            writeVarLong((l << 1) ^ (l >> 63));
+            return;
+        }
+
+        if (type == Boolean.class)
+        {
+            out.write((Boolean) value ? TRUE : FALSE);
+            return;
+        }
+
+        if (type == Byte.class)
+        {
+            out.write(BYTE);
+            out.writeByte((Byte) value);
+            return;
+        }
+
+        if (type == Short.class)
+        {
+            out.write(SHORT);
+            out.writeShort((Short) value);
+            return;
+        }
+
+        if (type == Character.class)
+        {
+            out.write(CHARACTER);
+            out.writeChar((Character) value);
+            return;
+        }
+
+        if (type == Float.class)
+        {
+            out.write(FLOAT);
+            out.writeFloat((Float) value);
+            return;
+        }
+
+        if (type == Double.class)
+        {
+            out.write(DOUBLE);
+            out.writeDouble((Double) value);
+            return;
+        }
+
+        if (value instanceof Enum)
+        {
+            Enum e = (Enum) value;
+
+            out.write(ENUM);
+            writeString(e.getDeclaringClass().getName());
+            writeString(e.name());
+            return;
+        }
+
+        ClientDataCodec codec = types.getCodec(type);
+
+        if (codec != null)
+        {
+            out.write(CODEC);
+            writeString(type.getName());
+            codec.write(value, this);
+            return;
+        }
+
+        ClientDataTypes.ActionType actionType = types.getActionType(type);
+
+        if (actionType != null)
+        {
+            out.write(ACTION);
+            writeString(type.getName());
+            writeFields(actionType, value);
+            return;
+        }
+
+        writeSerialized(value);
+    }
+
+    /**
+     * Writes the name and value of each field; the name allows a change to the class to be detected.
+     */
+    private void writeFields(ClientDataTypes.ActionType actionType, Object action) throws IOException
+    {
+        try
+        {
+            for (Field field : actionType.fields)
+            {
+                writeString(field.getName());
+                writeObject(field.get(action));
+            }
+        } catch (IllegalAccessException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void writeSerialized(Object value) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ObjectOutputStream stream = new ObjectOutputStream(bytes);
+
+        stream.writeObject(value);
+        stream.close();
+
+        out.write(SERIALIZED);
+        writeVarInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private void writeString(String value) throws IOException
+    {
+        Integer index = strings.get(value);
+
+        if (index != null)
+        {
+            writeVarInt(index + 1);
+            return;
+        }
+
+        strings.put(value, strings.size());
+
+        byte[] bytes = value.getBytes("UTF-8");
+
+        writeVarInt(0);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException
+    {
+        while ((value & ~0x7f) != 0)
+        {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        out.write(value);
+    }
+
+    private void writeVarLong(long value) throws IOException
+    {
+        while ((value & ~0x7fL) != 0)
+        {
+            out.write(((int) value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        out.write((int) value);
+    }
+
+    @Override
+    public void writeUnshared(Object obj) throws IOException
+    {
+        writeObject(obj);
+    }
+
+    @Override
+    public void write(int val) throws IOException
+    {
+        out.write(val);
+    }
+
+    @Override
+    public void write(byte[] buf) throws IOException
+    {
+        out.write(buf);
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) throws IOException
+    {
+        out.write(buf, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean val) throws IOException
+    {
+        out.writeBoolean(val);
+    }
+
+    @Override
+    public void writeByte(int val) throws IOException
+    {
+        out.writeByte(val);
+    }
+
+    @Override
+    public void writeShort(int val) throws IOException
+    {
+        out.writeShort(val);
+    }
+
+    @Override
+    public void writeChar(int val) throws IOException
+    {
+        out.writeChar(val);
+    }
+
+    @Override
+    public void writeInt(int val) throws IOException
+    {
+        out.writeInt(val);
+    }
+
+    @Override
+    public void writeLong(long val) throws IOException
+    {
+        out.writeLong(val);
+    }
+
+    @Override
+    public void writeFloat(float val) throws IOException
+    {
+        out.writeFloat(val);
+    }
+
+    @Override
+    public void writeDouble(double val) throws IOException
+    {
+        out.writeDouble(val);
+    }
+
+    @Override
+    public void writeBytes(String str) throws IOException
+    {
+        out.writeBytes(str);
+    }
+
+    @Override
+    public void writeChars(String str) throws IOException
+    {
+        out.writeChars(str);
+    }
+
+    @Override
+    public void writeUTF(String str) throws IOException
+    {
+        writeString(str);
+    }
+
+    @Override
+    public void reset() throws IOException
+    {
+        throw new UnsupportedOperationException("CompactObjectOutputStream does not support reset().");
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        out.close();
+    }
+}
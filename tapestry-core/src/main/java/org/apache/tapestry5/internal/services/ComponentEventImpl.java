@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import org.apache.tapestry5.model.ComponentModel;
 import org.apache.tapestry5.runtime.ComponentEvent;
 import org.slf4j.Logger;
 
+import java.util.Locale;
+
 public class ComponentEventImpl extends EventImpl implements ComponentEvent
 {
     private final String eventType;
@@ -33,6 +35,11 @@ public class ComponentEventImpl extends EventImpl implements ComponentEvent
 
 	private final boolean exactParameterCountMatch;
 
+    /**
+     * Lower case versions of the event type and originating component id, computed on first use.
+     */
+    private String eventTypeKey, originatingComponentIdKey;
+
     /**
      * @param eventType
      *            non blank string used to identify the type of event that was triggered
@@ -84,6 +91,34 @@ public class ComponentEventImpl extends EventImpl implements ComponentEvent
                  && (originatingComponentId.equalsIgnoreCase(componentId) || componentId.equals(""));
     }
 
+    public String getEventTypeKey()
+    {
+        if (eventTypeKey == null)
+        {
+            eventTypeKey = eventType.toLowerCase(Locale.ENGLISH);
+        }
+
+        return eventTypeKey;
+    }
+
+    public String getComponentIdKey()
+    {
+        if (originatingComponentIdKey == null)
+        {
+            originatingComponentIdKey = originatingComponentId.toLowerCase(Locale.ENGLISH);
+        }
+
+        return originatingComponentIdKey;
+    }
+
+    public boolean matchesParameterCount(int parameterCount)
+    {
+        if (isAborted())
+            return false;
+
+        return exactParameterCountMatch ? context.getCount() == parameterCount : context.getCount() >= parameterCount;
+    }
+
     @SuppressWarnings("unchecked")
     public Object coerceContext(int index, String desiredTypeName)
     {
@@ -18,12 +18,14 @@ import org.apache.tapestry5.ComponentResources;
 import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.internal.InternalComponentResources;
 import org.apache.tapestry5.internal.InternalConstants;
+import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.internal.model.MutableComponentModelImpl;
 import org.apache.tapestry5.internal.plastic.PlasticInternalUtils;
 import org.apache.tapestry5.ioc.Invokable;
 import org.apache.tapestry5.ioc.LoggerSource;
 import org.apache.tapestry5.ioc.OperationTracker;
 import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.annotations.IntermediateType;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Primary;
 import org.apache.tapestry5.ioc.annotations.Symbol;
@@ -34,8 +36,10 @@ import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.Builtin;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
+import org.apache.tapestry5.ioc.services.FileWatcher;
 import org.apache.tapestry5.ioc.services.PlasticProxyFactory;
 import org.apache.tapestry5.ioc.util.ExceptionUtils;
+import org.apache.tapestry5.ioc.util.TimeInterval;
 import org.apache.tapestry5.model.ComponentModel;
 import org.apache.tapestry5.model.MutableComponentModel;
 import org.apache.tapestry5.plastic.*;
@@ -86,9 +90,9 @@ public final class ComponentInstantiatorSourceImpl implements ComponentInstantia
     /**
      * Map from class name to Instantiator.
      */
-    private final Map<String, Instantiator> classToInstantiator = CollectionFactory.newMap();
+    private final Map<String, Instantiator> classToInstantiator = CollectionFactory.newConcurrentMap();
 
-    private final Map<String, ComponentModel> classToModel = CollectionFactory.newMap();
+    private final Map<String, ComponentModel> classToModel = CollectionFactory.newConcurrentMap();
 
     private final MethodDescription GET_COMPONENT_RESOURCES = PlasticUtils.getMethodDescription(
             ComponentResourcesAware.class, "getComponentResources");
@@ -115,6 +119,12 @@ public final class ComponentInstantiatorSourceImpl implements ComponentInstantia
 
                                            ClasspathURLConverter classpathURLConverter,
 
+                                           FileWatcher fileWatcher,
+
+                                           @Symbol(SymbolConstants.FILE_CHECK_INTERVAL)
+                                           @IntermediateType(TimeInterval.class)
+                                           long checkInterval,
+
                                            OperationTracker tracker,
 
                                            Map<String, ControlledPackageType> configuration,
@@ -130,7 +140,8 @@ public final class ComponentInstantiatorSourceImpl implements ComponentInstantia
         this.transformerChain = transformerChain;
         this.logger = logger;
         this.loggerSource = loggerSource;
-        this.changeTracker = new URLChangeTracker(classpathURLConverter);
+        this.changeTracker = new URLChangeTracker(classpathURLConverter, false, true,
+                TapestryInternalUtils.toTrackingFileWatcher(productionMode, checkInterval, fileWatcher));
         this.tracker = tracker;
         this.invalidationHub = invalidationHub;
         this.productionMode = productionMode;
@@ -201,7 +212,12 @@ public final class ComponentInstantiatorSourceImpl implements ComponentInstantia
         classToModel.clear();
     }
 
-    public synchronized Instantiator getInstantiator(final String className)
+    /**
+     * Not synchronized: the class loader locks each class as it is transformed, so unrelated component classes
+     * may be transformed in parallel. Two threads may occasionally both create an Instantiator for the same class,
+     * which is harmless.
+     */
+    public Instantiator getInstantiator(final String className)
     {
         Instantiator result = classToInstantiator.get(className);
 
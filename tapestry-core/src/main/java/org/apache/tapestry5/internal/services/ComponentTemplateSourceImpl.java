@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2009, 2010, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2009, 2010, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.Map;
 
 import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.TapestryConstants;
+import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.internal.event.InvalidationEventHubImpl;
 import org.apache.tapestry5.internal.parser.ComponentTemplate;
 import org.apache.tapestry5.internal.parser.TemplateToken;
@@ -28,11 +29,14 @@ import org.apache.tapestry5.internal.util.MultiKey;
 import org.apache.tapestry5.ioc.Location;
 import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.ioc.annotations.Inject;
+import org.apache.tapestry5.ioc.annotations.IntermediateType;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
+import org.apache.tapestry5.ioc.services.FileWatcher;
+import org.apache.tapestry5.ioc.util.TimeInterval;
 import org.apache.tapestry5.model.ComponentModel;
 import org.apache.tapestry5.services.InvalidationEventHub;
 import org.apache.tapestry5.services.UpdateListener;
@@ -101,9 +105,13 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
     public ComponentTemplateSourceImpl(@Inject
     @Symbol(SymbolConstants.PRODUCTION_MODE)
     boolean productionMode, TemplateParser parser, ComponentResourceLocator locator,
-            ClasspathURLConverter classpathURLConverter)
+            ClasspathURLConverter classpathURLConverter, FileWatcher fileWatcher,
+            @Symbol(SymbolConstants.FILE_CHECK_INTERVAL)
+            @IntermediateType(TimeInterval.class)
+            long checkInterval)
     {
-        this(productionMode, parser, locator, new URLChangeTracker(classpathURLConverter));
+        this(productionMode, parser, locator, new URLChangeTracker(classpathURLConverter, false, true,
+                TapestryInternalUtils.toTrackingFileWatcher(productionMode, checkInterval, fileWatcher)));
     }
 
     ComponentTemplateSourceImpl(boolean productionMode, TemplateParser parser, ComponentResourceLocator locator,
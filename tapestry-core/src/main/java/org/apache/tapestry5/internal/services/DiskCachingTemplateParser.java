@@ -0,0 +1,80 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.parser.ComponentTemplate;
+import org.apache.tapestry5.ioc.Resource;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * A decorator for the {@link TemplateParser} service that reads templates from the {@link TemplateDiskCache} when
+ * possible, and stores templates there after they are parsed. The {@link ComponentTemplateSource} still keeps parsed
+ * templates in memory; this only saves the XML parsing after a restart, or after the in-memory cache is cleared.
+ *
+ * @since 5.4
+ */
+public class DiskCachingTemplateParser implements TemplateParser
+{
+    private final TemplateParser delegate;
+
+    private final TemplateDiskCache diskCache;
+
+    public DiskCachingTemplateParser(TemplateParser delegate, TemplateDiskCache diskCache)
+    {
+        this.delegate = delegate;
+        this.diskCache = diskCache;
+    }
+
+    public ComponentTemplate parseTemplate(Resource templateResource)
+    {
+        if (!templateResource.exists())
+        {
+            return delegate.parseTemplate(templateResource);
+        }
+
+        String key;
+
+        try
+        {
+            key = diskCache.computeKey(templateResource);
+        } catch (IOException ex)
+        {
+            // Let the parser report the problem reading the template.
+
+            return delegate.parseTemplate(templateResource);
+        }
+
+        ComponentTemplate stored = diskCache.read(key, templateResource);
+
+        if (stored != null)
+        {
+            return stored;
+        }
+
+        ComponentTemplate result = delegate.parseTemplate(templateResource);
+
+        diskCache.write(key, result);
+
+        return result;
+    }
+
+    public Map<String, URL> getDTDURLMappings()
+    {
+        return delegate.getDTDURLMappings();
+    }
+}
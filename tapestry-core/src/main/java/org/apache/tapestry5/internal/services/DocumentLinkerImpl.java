@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2009, 2010, 2011, 2012 The Apache Software Foundation
+// Copyright 2007, 2008, 2009, 2010, 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -41,6 +41,9 @@ public class DocumentLinkerImpl implements DocumentLinker
     // Initially false; set to true when a scriptURL or any kind of initialization is added.
     private boolean hasScriptsOrInitializations;
 
+    // Initially false; set to true once stylesheets have been added to the <head>.
+    private boolean headUpdated;
+
     /**
      * @param moduleManager
      *         used to identify the root folder for dynamically loaded modules
@@ -89,6 +92,22 @@ public class DocumentLinkerImpl implements DocumentLinker
      *         to be updated
      */
     public void updateDocument(Document document)
+    {
+        updateHead(document);
+
+        updateBody(document);
+    }
+
+    /**
+     * Updates the &lt;head&gt; of the supplied Document (possibly adding it), adding stylesheet links and the generator
+     * meta tag. During a {@linkplain org.apache.tapestry5.services.StreamingRenderSupport streaming render}, this
+     * occurs just before the start of the document is written.
+     *
+     * @param document
+     *         to be updated
+     * @since 5.4
+     */
+    public void updateHead(Document document)
     {
         Element root = document.getRootElement();
 
@@ -101,6 +120,10 @@ public class DocumentLinkerImpl implements DocumentLinker
 
         addStylesheetsToHead(root, includedStylesheets);
 
+        includedStylesheets.clear();
+
+        headUpdated = true;
+
         // only add the generator meta only to html documents
 
         boolean isHtmlRoot = root.getName().equals("html");
@@ -113,6 +136,32 @@ public class DocumentLinkerImpl implements DocumentLinker
 
             addElementBefore(head, existingMeta, "meta", "name", "generator", "content", tapestryBanner);
         }
+    }
+
+    /**
+     * Updates the &lt;body&gt; of the supplied Document (possibly adding it), adding the script elements. Stylesheets
+     * linked after {@link #updateHead(org.apache.tapestry5.dom.Document)} (which can only occur during a streaming
+     * render) are added to the end of the &lt;body&gt;, just before the scripts.
+     *
+     * @param document
+     *         to be updated
+     * @since 5.4
+     */
+    public void updateBody(Document document)
+    {
+        Element root = document.getRootElement();
+
+        if (root == null)
+        {
+            return;
+        }
+
+        if (headUpdated)
+        {
+            addStylesheetsToBody(root, includedStylesheets);
+
+            includedStylesheets.clear();
+        }
 
         addScriptElements(root);
     }
@@ -243,4 +292,28 @@ public class DocumentLinkerImpl implements DocumentLinker
 
         container.pop();
     }
+
+    /**
+     * Adds stylesheets to the end of the &lt;body&gt; element; used for stylesheets that were linked after the
+     * &lt;head&gt; was written to the client.
+     *
+     * @param root
+     *         element of document
+     * @param stylesheets
+     *         to add to the document
+     */
+    private void addStylesheetsToBody(Element root, List<StylesheetLink> stylesheets)
+    {
+        if (stylesheets.isEmpty() || !root.getName().equals("html"))
+        {
+            return;
+        }
+
+        Element body = findOrCreateElement(root, "body", false);
+
+        for (StylesheetLink sheet : stylesheets)
+        {
+            sheet.add(body);
+        }
+    }
 }
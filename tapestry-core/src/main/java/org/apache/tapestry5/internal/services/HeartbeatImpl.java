@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2010 The Apache Software Foundation
+// Copyright 2006, 2007, 2010, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -26,6 +26,8 @@ public class HeartbeatImpl implements Heartbeat
 {
     private final Stack<List<Runnable>> stack = newStack();
 
+    private int deferredCount;
+
     public void begin()
     {
         List<Runnable> beat = CollectionFactory.newList();
@@ -39,14 +41,27 @@ public class HeartbeatImpl implements Heartbeat
 
         stack.peek().add(command);
 
+        deferredCount++;
     }
 
     public void end()
     {
         List<Runnable> beat = stack.pop();
 
+        deferredCount -= beat.size();
+
         for (Runnable r : beat)
             r.run();
     }
 
+    /**
+     * Returns true if any command has been deferred, at any level of nesting, that has not yet executed.
+     *
+     * @since 5.4
+     */
+    public boolean hasDeferredCommands()
+    {
+        return deferredCount > 0;
+    }
+
 }
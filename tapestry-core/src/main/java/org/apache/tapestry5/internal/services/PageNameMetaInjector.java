@@ -1,4 +1,4 @@
-// Copyright 2012 The Apache Software Foundation
+// Copyright 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -17,9 +17,11 @@ package org.apache.tapestry5.internal.services;
 import org.apache.tapestry5.MarkupWriter;
 import org.apache.tapestry5.dom.Document;
 import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.services.Environment;
 import org.apache.tapestry5.services.MarkupRenderer;
 import org.apache.tapestry5.services.MarkupRendererFilter;
 import org.apache.tapestry5.services.RequestGlobals;
+import org.apache.tapestry5.services.StreamingRenderSupport;
 
 /**
  * Injects a {@code <meta/>} element into the {@code <head/>} to identify the Tapestry page name.
@@ -31,18 +33,41 @@ public class PageNameMetaInjector implements MarkupRendererFilter
 {
     private final RequestGlobals globals;
 
-    public PageNameMetaInjector(RequestGlobals globals)
+    private final Environment environment;
+
+    public PageNameMetaInjector(RequestGlobals globals, Environment environment)
     {
         this.globals = globals;
+        this.environment = environment;
     }
 
-    public void renderMarkup(MarkupWriter writer, MarkupRenderer delegate)
+    public void renderMarkup(final MarkupWriter writer, MarkupRenderer delegate)
     {
+        StreamingRenderSupport streaming = environment.peek(StreamingRenderSupport.class);
+
+        if (streaming != null)
+        {
+            streaming.beforeCommit(new Runnable()
+            {
+                public void run()
+                {
+                    injectPageNameMeta(writer.getDocument());
+                }
+            });
+
+            delegate.renderMarkup(writer);
+
+            return;
+        }
+
         delegate.renderMarkup(writer);
 
-        String pageName = globals.getActivePageName();
+        injectPageNameMeta(writer.getDocument());
+    }
 
-        Document document = writer.getDocument();
+    private void injectPageNameMeta(Document document)
+    {
+        String pageName = globals.getActivePageName();
 
         Element element = document.find("html/head");
 
@@ -0,0 +1,38 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+/**
+ * Records the names of the pages loaded by the application, and loads the same pages, in the background, when the
+ * application next starts, so that their component classes are already transformed (and their templates parsed) when
+ * the first requests for them arrive.
+ *
+ * @see org.apache.tapestry5.SymbolConstants#PAGE_PRELOAD_FILE
+ * @since 5.4
+ */
+public interface PagePreloader
+{
+    /**
+     * Starts loading the pages recorded by a prior execution of the application, if any; the pages are loaded by a
+     * {@link org.apache.tapestry5.ioc.services.ParallelExecutor} thread.
+     */
+    void preload();
+
+    /**
+     * Records the names of the currently loaded pages (and of the preloaded pages), replacing any prior record. This
+     * occurs automatically when the registry shuts down.
+     */
+    void recordLoadedPages();
+}
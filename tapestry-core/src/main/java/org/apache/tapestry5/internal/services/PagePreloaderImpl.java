@@ -0,0 +1,286 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.internal.structure.Page;
+import org.apache.tapestry5.ioc.Invokable;
+import org.apache.tapestry5.ioc.annotations.PostInjection;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.services.ParallelExecutor;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+import org.apache.tapestry5.ioc.services.SymbolSource;
+import org.apache.tapestry5.ioc.services.ThreadLocale;
+import org.apache.tapestry5.services.ComponentClassResolver;
+import org.apache.tapestry5.services.LocalizationSetter;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+public class PagePreloaderImpl implements PagePreloader
+{
+    /**
+     * Recorded page names are discarded when this changes, as pages may have been added, removed or renamed.
+     */
+    private static final String FINGERPRINT_TEMPLATE = String.format("${%s} ${%s}",
+            SymbolConstants.TAPESTRY_VERSION,
+            SymbolConstants.APPLICATION_VERSION);
+
+    private final Logger logger;
+
+    private final File file;
+
+    private final String fingerprint;
+
+    private final PageSource pageSource;
+
+    private final ComponentClassResolver resolver;
+
+    private final ParallelExecutor executor;
+
+    private final ThreadLocale threadLocale;
+
+    private final LocalizationSetter localizationSetter;
+
+    /**
+     * Names of pages successfully preloaded; these are recorded again even if the pages have since been reclaimed
+     * from the {@link PageSource}'s cache.
+     */
+    private final Set<String> preloaded = Collections.synchronizedSet(CollectionFactory.<String>newSet());
+
+    public PagePreloaderImpl(Logger logger,
+
+                             @Symbol(SymbolConstants.PAGE_PRELOAD_FILE)
+                             String file,
+
+                             SymbolSource symbolSource,
+
+                             PageSource pageSource,
+
+                             ComponentClassResolver resolver,
+
+                             ParallelExecutor executor,
+
+                             ThreadLocale threadLocale,
+
+                             LocalizationSetter localizationSetter)
+    {
+        this.logger = logger;
+        this.file = InternalUtils.isBlank(file) ? null : new File(file);
+        this.fingerprint = symbolSource.expandSymbols(FINGERPRINT_TEMPLATE);
+        this.pageSource = pageSource;
+        this.resolver = resolver;
+        this.executor = executor;
+        this.threadLocale = threadLocale;
+        this.localizationSetter = localizationSetter;
+    }
+
+    @PostInjection
+    public void listenForShutdown(RegistryShutdownHub hub)
+    {
+        if (file == null)
+        {
+            return;
+        }
+
+        hub.addRegistryWillShutdownListener(new Runnable()
+        {
+            public void run()
+            {
+                recordLoadedPages();
+            }
+        });
+    }
+
+    public void preload()
+    {
+        if (file == null)
+        {
+            return;
+        }
+
+        final List<String> pageNames = readPageNames();
+
+        if (pageNames.isEmpty())
+        {
+            return;
+        }
+
+        executor.invoke(new Invokable<Void>()
+        {
+            public Void invoke()
+            {
+                preload(pageNames);
+
+                return null;
+            }
+        });
+    }
+
+    private void preload(List<String> pageNames)
+    {
+        long startNanos = System.nanoTime();
+
+        // Pages are cached by locale; this is likely a thread of the executor, whose locale is the JVM default,
+        // rather than one set from a request. Preload the pages for the application's default locale.
+
+        Locale previousLocale = threadLocale.getLocale();
+
+        threadLocale.setLocale(localizationSetter.getSupportedLocales().get(0));
+
+        try
+        {
+            for (String pageName : pageNames)
+            {
+                if (!resolver.isPageName(pageName))
+                {
+                    continue;
+                }
+
+                try
+                {
+                    pageSource.getPage(pageName);
+
+                    preloaded.add(pageName);
+                } catch (RuntimeException ex)
+                {
+                    logger.warn(String.format("Unable to preload page %s: %s", pageName, InternalUtils.toMessage(ex)),
+                            ex);
+                }
+            }
+        } finally
+        {
+            threadLocale.setLocale(previousLocale);
+        }
+
+        logger.info(String.format("Preloaded %,d pages in %,d ms.", preloaded.size(),
+                (System.nanoTime() - startNanos) / 1000000));
+    }
+
+    private List<String> readPageNames()
+    {
+        List<String> result = CollectionFactory.newList();
+
+        if (!file.exists())
+        {
+            return result;
+        }
+
+        try
+        {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+
+            try
+            {
+                if (!fingerprint.equals(reader.readLine()))
+                {
+                    return result;
+                }
+
+                while (true)
+                {
+                    String line = reader.readLine();
+
+                    if (line == null)
+                    {
+                        break;
+                    }
+
+                    if (line.length() > 0)
+                    {
+                        result.add(line);
+                    }
+                }
+            } finally
+            {
+                reader.close();
+            }
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to read page names from %s: %s", file, ex), ex);
+        }
+
+        return result;
+    }
+
+    public void recordLoadedPages()
+    {
+        if (file == null)
+        {
+            return;
+        }
+
+        SortedSet<String> pageNames = new TreeSet<String>();
+
+        synchronized (preloaded)
+        {
+            pageNames.addAll(preloaded);
+        }
+
+        for (Page page : pageSource.getAllPages())
+        {
+            pageNames.add(page.getName());
+        }
+
+        try
+        {
+            File dir = file.getAbsoluteFile().getParentFile();
+
+            dir.mkdirs();
+
+            // Write to a temporary file, then rename it, so that a concurrent reader never sees partial content.
+
+            File temp = File.createTempFile(file.getName(), ".tmp", dir);
+
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+
+            try
+            {
+                writer.println(fingerprint);
+
+                for (String pageName : pageNames)
+                {
+                    writer.println(pageName);
+                }
+            } finally
+            {
+                writer.close();
+            }
+
+            if (!temp.renameTo(file))
+            {
+                // On some platforms, renaming over an existing file fails.
+
+                file.delete();
+
+                if (!temp.renameTo(file))
+                {
+                    temp.delete();
+                }
+            }
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to record page names to %s: %s", file, ex), ex);
+        }
+    }
+}
@@ -19,10 +19,9 @@ import java.io.PrintWriter;
 
 import org.apache.tapestry5.ContentType;
 import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.MetaDataConstants;
 import org.apache.tapestry5.internal.structure.Page;
-import org.apache.tapestry5.services.MarkupWriterFactory;
-import org.apache.tapestry5.services.RequestGlobals;
-import org.apache.tapestry5.services.Response;
+import org.apache.tapestry5.services.*;
 import org.slf4j.Logger;
 
 public class PageResponseRendererImpl implements PageResponseRenderer
@@ -37,17 +36,23 @@ public class PageResponseRendererImpl implements PageResponseRenderer
 
     private final Response response;
 
+    private final MetaDataLocator metaDataLocator;
+
+    private final Environment environment;
+
     private final Logger logger;
 
     public PageResponseRendererImpl(RequestGlobals requestGlobals, MarkupWriterFactory markupWriterFactory,
             PageMarkupRenderer markupRenderer, PageContentTypeAnalyzer pageContentTypeAnalyzer, Response response,
-            Logger logger)
+            MetaDataLocator metaDataLocator, Environment environment, Logger logger)
     {
         this.requestGlobals = requestGlobals;
         this.markupWriterFactory = markupWriterFactory;
         this.markupRenderer = markupRenderer;
         this.pageContentTypeAnalyzer = pageContentTypeAnalyzer;
         this.response = response;
+        this.metaDataLocator = metaDataLocator;
+        this.environment = environment;
         this.logger = logger;
     }
 
@@ -61,6 +66,12 @@ public class PageResponseRendererImpl implements PageResponseRenderer
         
         MarkupWriter writer = markupWriterFactory.newMarkupWriter(page);
 
+        if (metaDataLocator.findMeta(MetaDataConstants.STREAMING_RENDER, page.getName(), Boolean.class))
+        {
+            renderStreamingPageResponse(page, contentType, writer);
+            return;
+        }
+
         markupRenderer.renderPageMarkup(page, writer);
 
         PrintWriter pw = response.getPrintWriter(contentType.toString());
@@ -81,4 +92,38 @@ public class PageResponseRendererImpl implements PageResponseRenderer
 
         pw.close();
     }
+
+    private void renderStreamingPageResponse(Page page, final ContentType contentType, MarkupWriter writer) throws IOException
+    {
+        StreamingRenderSupportImpl support = new StreamingRenderSupportImpl(writer.getDocument(),
+                new StreamingRenderSupportImpl.PrintWriterSource()
+                {
+                    public PrintWriter getPrintWriter() throws IOException
+                    {
+                        return response.getPrintWriter(contentType.toString());
+                    }
+                }, environment);
+
+        writer.addListener(support);
+
+        environment.push(StreamingRenderSupport.class, support);
+
+        try
+        {
+            markupRenderer.renderPageMarkup(page, writer);
+        } finally
+        {
+            environment.pop(StreamingRenderSupport.class);
+
+            writer.removeListener(support);
+        }
+
+        support.finish();
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("Response for page %s streamed (%s)", page.getName(),
+                    support.isCommitted() ? "incrementally" : "after rendering completed"));
+        }
+    }
 }
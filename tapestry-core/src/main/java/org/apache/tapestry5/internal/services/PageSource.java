@@ -57,4 +57,34 @@ public interface PageSource
      * @since 5.3
      */
     Set<Page> getAllPages();
+
+    /**
+     * Returns the number of pages loaded (that is, assembled by the {@link PageLoader}) since startup.
+     *
+     * @since 5.4
+     */
+    int getLoadCount();
+
+    /**
+     * Returns the total time, in milliseconds, spent loading pages since startup.
+     *
+     * @since 5.4
+     */
+    long getLoadTime();
+
+    /**
+     * Returns the number of times a page was unpinned (leaving it only softly referenced) to keep the number of
+     * pinned pages within {@link org.apache.tapestry5.SymbolConstants#PAGE_CACHE_SIZE}.
+     *
+     * @since 5.4
+     */
+    int getEvictionCount();
+
+    /**
+     * Returns the number of times a cached page was found to have been reclaimed by the garbage collector, forcing
+     * it to be loaded again.
+     *
+     * @since 5.4
+     */
+    int getReclaimedCount();
 }
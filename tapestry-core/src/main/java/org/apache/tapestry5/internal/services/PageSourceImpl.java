@@ -1,4 +1,4 @@
-// Copyright 2010, 2011, 2012 The Apache Software Foundation
+// Copyright 2010, 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,11 +14,13 @@
 
 package org.apache.tapestry5.internal.services;
 
+import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.func.F;
 import org.apache.tapestry5.func.Mapper;
 import org.apache.tapestry5.internal.services.assets.ResourceChangeTracker;
 import org.apache.tapestry5.internal.structure.Page;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
+import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.services.ComponentClasses;
 import org.apache.tapestry5.services.ComponentMessages;
@@ -28,15 +30,34 @@ import org.apache.tapestry5.services.pageload.ComponentRequestSelectorAnalyzer;
 import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
 
 import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Caches loaded pages. The most recently used pages (up to {@link SymbolConstants#PAGE_CACHE_SIZE}) are pinned in
+ * memory; less recently used pages are only softly referenced, and may be reclaimed by the garbage collector.
+ * <p/>
+ * Loading is single-flight: when several threads request the same page (for the same selector) that is not yet
+ * loaded, only one of them loads it; the others wait for, and share, the result.
+ */
 public class PageSourceImpl implements PageSource
 {
     private final ComponentRequestSelectorAnalyzer selectorAnalyzer;
 
     private final PageLoader pageLoader;
 
+    private final int maxPinnedPages;
+
     private static final class CachedPageKey
     {
         final String pageName;
@@ -70,10 +91,50 @@ public class PageSourceImpl implements PageSource
 
     private final Map<CachedPageKey, SoftReference<Page>> pageCache = CollectionFactory.newConcurrentMap();
 
-    public PageSourceImpl(PageLoader pageLoader, ComponentRequestSelectorAnalyzer selectorAnalyzer)
+    private final ConcurrentMap<CachedPageKey, FutureTask<Page>> loads = CollectionFactory.newConcurrentMap();
+
+    /**
+     * Guards {@link #pinned} and changes to {@link #generation}.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Strong references to the most recently used pages, in access order.
+     */
+    private final LinkedHashMap<CachedPageKey, Page> pinned = new LinkedHashMap<CachedPageKey, Page>(16, .75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CachedPageKey, Page> eldest)
+        {
+            boolean evict = size() > maxPinnedPages;
+
+            if (evict)
+            {
+                evictions.incrementAndGet();
+            }
+
+            return evict;
+        }
+    };
+
+    /**
+     * Incremented each time the cache is cleared, so that a page load that started before the cache was cleared
+     * does not store its (possibly out of date) page.
+     */
+    private volatile int generation;
+
+    private final AtomicInteger loadCount = new AtomicInteger(), evictions = new AtomicInteger(),
+            reclaimed = new AtomicInteger();
+
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    public PageSourceImpl(PageLoader pageLoader, ComponentRequestSelectorAnalyzer selectorAnalyzer,
+                          @Symbol(SymbolConstants.PAGE_CACHE_SIZE)
+                          int maxPinnedPages)
     {
         this.pageLoader = pageLoader;
         this.selectorAnalyzer = selectorAnalyzer;
+        this.maxPinnedPages = maxPinnedPages;
     }
 
     public Page getPage(String canonicalPageName)
@@ -82,30 +143,127 @@ public class PageSourceImpl implements PageSource
 
         CachedPageKey key = new CachedPageKey(canonicalPageName, selector);
 
-        // The while loop looks superfluous, but it helps to ensure that the Page instance,
-        // with all of its mutable construction-time state, is properly published to other
-        // threads (at least, as I understand Brian Goetz's explanation, it should be).
+        SoftReference<Page> ref = pageCache.get(key);
 
-        while (true)
+        if (ref != null)
         {
-            SoftReference<Page> ref = pageCache.get(key);
-
-            Page page = ref == null ? null : ref.get();
+            Page page = ref.get();
 
             if (page != null)
             {
+                recordAccess(key, page);
+
                 return page;
             }
 
-            // In rare race conditions, we may see the same page loaded multiple times across
-            // different threads. The last built one will "evict" the others from the page cache,
-            // and the earlier ones will be GCed.
+            reclaimed.incrementAndGet();
+        }
 
-            page = pageLoader.loadPage(canonicalPageName, selector);
+        return load(key);
+    }
+
+    private Page load(final CachedPageKey key)
+    {
+        final int startGeneration = generation;
+
+        FutureTask<Page> task = new FutureTask<Page>(new Callable<Page>()
+        {
+            public Page call()
+            {
+                long startNanos = System.nanoTime();
 
-            ref = new SoftReference<Page>(page);
+                Page page = pageLoader.loadPage(key.pageName, key.selector);
 
-            pageCache.put(key, ref);
+                loadNanos.addAndGet(System.nanoTime() - startNanos);
+                loadCount.incrementAndGet();
+
+                store(key, page, startGeneration);
+
+                return page;
+            }
+        });
+
+        FutureTask<Page> existing = loads.putIfAbsent(key, task);
+
+        if (existing == null)
+        {
+            try
+            {
+                task.run();
+            } finally
+            {
+                loads.remove(key);
+            }
+        } else
+        {
+            task = existing;
+        }
+
+        try
+        {
+            return task.get();
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException(String.format("Interrupted while waiting for page %s to be loaded.",
+                    key.pageName), ex);
+        } catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void store(CachedPageKey key, Page page, int startGeneration)
+    {
+        lock.lock();
+
+        try
+        {
+            if (generation != startGeneration)
+            {
+                return;
+            }
+
+            pageCache.put(key, new SoftReference<Page>(page));
+
+            if (maxPinnedPages > 0)
+            {
+                pinned.put(key, page);
+            }
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void recordAccess(CachedPageKey key, Page page)
+    {
+        // Re-pinning the page (or just moving it to the most recently used position) is skipped when another
+        // thread holds the lock; the ordering is approximate, but the cache hit never blocks.
+
+        if (maxPinnedPages <= 0 || !lock.tryLock())
+        {
+            return;
+        }
+
+        try
+        {
+            if (pinned.get(key) == null && pageCache.containsKey(key))
+            {
+                pinned.put(key, page);
+            }
+        } finally
+        {
+            lock.unlock();
         }
     }
 
@@ -115,20 +273,39 @@ public class PageSourceImpl implements PageSource
                                   @ComponentMessages InvalidationEventHub messagesHub,
                                   ResourceChangeTracker resourceChangeTracker)
     {
-        classesHub.clearOnInvalidation(pageCache);
-        templatesHub.clearOnInvalidation(pageCache);
-        messagesHub.clearOnInvalidation(pageCache);
+        Runnable callback = new Runnable()
+        {
+            public void run()
+            {
+                clearCache();
+            }
+        };
+
+        classesHub.addInvalidationCallback(callback);
+        templatesHub.addInvalidationCallback(callback);
+        messagesHub.addInvalidationCallback(callback);
 
         // Because Assets can be injected into pages, and Assets are invalidated when
         // an Asset's value is changed (partly due to the change, in 5.4, to include the asset's
         // checksum as part of the asset URL), then when we notice a change to
         // any Resource, it is necessary to discard all page instances.
-        resourceChangeTracker.clearOnInvalidation(pageCache);
+        resourceChangeTracker.addInvalidationCallback(callback);
     }
 
     public void clearCache()
     {
-        pageCache.clear();
+        lock.lock();
+
+        try
+        {
+            generation++;
+
+            pageCache.clear();
+            pinned.clear();
+        } finally
+        {
+            lock.unlock();
+        }
     }
 
     public Set<Page> getAllPages()
@@ -141,4 +318,24 @@ public class PageSourceImpl implements PageSource
             }
         }).removeNulls().toSet();
     }
+
+    public int getLoadCount()
+    {
+        return loadCount.get();
+    }
+
+    public long getLoadTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(loadNanos.get());
+    }
+
+    public int getEvictionCount()
+    {
+        return evictions.get();
+    }
+
+    public int getReclaimedCount()
+    {
+        return reclaimed.get();
+    }
 }
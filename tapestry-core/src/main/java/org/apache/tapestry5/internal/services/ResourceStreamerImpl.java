@@ -17,6 +17,8 @@ package org.apache.tapestry5.internal.services;
 import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.TapestryConstants;
 import org.apache.tapestry5.internal.InternalConstants;
+import org.apache.tapestry5.internal.services.assets.BytestreamCache;
+import org.apache.tapestry5.internal.services.assets.CompressedStreamableResource;
 import org.apache.tapestry5.internal.services.assets.ResourceChangeTracker;
 import org.apache.tapestry5.ioc.IOOperation;
 import org.apache.tapestry5.ioc.OperationTracker;
@@ -25,6 +27,7 @@ import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.services.Request;
 import org.apache.tapestry5.services.Response;
 import org.apache.tapestry5.services.assets.CompressionStatus;
+import org.apache.tapestry5.services.assets.ContentEncoderSource;
 import org.apache.tapestry5.services.assets.StreamableResource;
 import org.apache.tapestry5.services.assets.StreamableResourceProcessing;
 import org.apache.tapestry5.services.assets.StreamableResourceSource;
@@ -52,6 +55,8 @@ public class ResourceStreamerImpl implements ResourceStreamer
 
     private final ResourceChangeTracker resourceChangeTracker;
 
+    private final ContentEncoderSource contentEncoderSource;
+
     public ResourceStreamerImpl(Request request,
 
                                 Response response,
@@ -63,7 +68,9 @@ public class ResourceStreamerImpl implements ResourceStreamer
                                 @Symbol(SymbolConstants.PRODUCTION_MODE)
                                 boolean productionMode,
 
-                                ResourceChangeTracker resourceChangeTracker)
+                                ResourceChangeTracker resourceChangeTracker,
+
+                                ContentEncoderSource contentEncoderSource)
     {
         this.request = request;
         this.response = response;
@@ -72,6 +79,7 @@ public class ResourceStreamerImpl implements ResourceStreamer
         this.tracker = tracker;
         this.productionMode = productionMode;
         this.resourceChangeTracker = resourceChangeTracker;
+        this.contentEncoderSource = contentEncoderSource;
     }
 
     public boolean streamResource(final Resource resource, final String providedChecksum, final Set<Options> options) throws IOException
@@ -136,8 +144,34 @@ public class ResourceStreamerImpl implements ResourceStreamer
             return true;
         }
 
+        // Compressed content may be available in several encodings; pick the one best matching the request. Each
+        // encoding is a distinct representation, so needs a distinct ETag.
+
+        String encoding = null;
+        BytestreamCache variant = null;
+
+        if (streamable instanceof CompressedStreamableResource)
+        {
+            CompressedStreamableResource compressed = (CompressedStreamableResource) streamable;
+
+            encoding = compressed.getPrimaryEncoding();
+
+            if (compressed.getEncodings().size() > 1)
+            {
+                response.setHeader("Vary", "Accept-Encoding");
+
+                String selected = contentEncoderSource.selectEncoding(request.getHeader("Accept-Encoding"), compressed.getEncodings());
+
+                if (selected != null && !selected.equals(encoding))
+                {
+                    encoding = selected;
+                    variant = compressed.getVariant(selected);
+                }
+            }
+        }
+
         // ETag should be surrounded with quotes.
-        String token = QUOTE + actualChecksum + QUOTE;
+        String token = QUOTE + actualChecksum + (variant == null ? "" : "-" + encoding) + QUOTE;
 
         // Even when sending a 304, we want the ETag associated with the request.
         // In most cases (except JavaScript modules), the checksum is also embedded into the URL.
@@ -176,16 +210,22 @@ public class ResourceStreamerImpl implements ResourceStreamer
             response.setHeader("Cache-Control", "max-age=0, must-revalidate");
         }
 
-        response.setContentLength(streamable.getSize());
+        response.setContentLength(variant == null ? streamable.getSize() : variant.size());
 
         if (streamable.getCompression() == CompressionStatus.COMPRESSED)
         {
-            response.setHeader(InternalConstants.CONTENT_ENCODING_HEADER, InternalConstants.GZIP_CONTENT_ENCODING);
+            response.setHeader(InternalConstants.CONTENT_ENCODING_HEADER, encoding == null ? InternalConstants.GZIP_CONTENT_ENCODING : encoding);
         }
 
         OutputStream os = response.getOutputStream(streamable.getContentType());
 
-        streamable.streamTo(os);
+        if (variant == null)
+        {
+            streamable.streamTo(os);
+        } else
+        {
+            variant.writeTo(os);
+        }
 
         os.close();
 
@@ -0,0 +1,130 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.Invokable;
+import org.apache.tapestry5.ioc.annotations.IntermediateType;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.services.ParallelExecutor;
+import org.apache.tapestry5.ioc.util.TimeInterval;
+import org.apache.tapestry5.services.RowCountCache;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RowCountCacheImpl implements RowCountCache
+{
+    private static class CachedCount
+    {
+        final int count;
+
+        final long computedAt;
+
+        /**
+         * Set while a background refresh is pending, so that only one is scheduled at a time.
+         */
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CachedCount(int count, long computedAt)
+        {
+            this.count = count;
+            this.computedAt = computedAt;
+        }
+    }
+
+    private final Logger logger;
+
+    private final ParallelExecutor executor;
+
+    private final long maxAge;
+
+    private final ConcurrentMap<String, CachedCount> counts = CollectionFactory.newConcurrentMap();
+
+    public RowCountCacheImpl(Logger logger,
+
+                             ParallelExecutor executor,
+
+                             @Symbol(SymbolConstants.ROW_COUNT_CACHE_MAX_AGE)
+                             @IntermediateType(TimeInterval.class)
+                             long maxAge)
+    {
+        this.logger = logger;
+        this.executor = executor;
+        this.maxAge = maxAge;
+    }
+
+    public int getRowCount(final String key, final Invokable<Integer> counter)
+    {
+        assert key != null;
+        assert counter != null;
+
+        final CachedCount cached = counts.get(key);
+
+        if (cached == null)
+        {
+            return compute(key, counter);
+        }
+
+        if (currentTimeMillis() - cached.computedAt >= maxAge && cached.refreshing.compareAndSet(false, true))
+        {
+            executor.invoke(new Invokable<Void>()
+            {
+                public Void invoke()
+                {
+                    try
+                    {
+                        compute(key, counter);
+                    } catch (RuntimeException ex)
+                    {
+                        logger.error(String.format("Unable to refresh row count for '%s': %s", key, ex), ex);
+
+                        // Allow a later request to try again.
+
+                        cached.refreshing.set(false);
+                    }
+
+                    return null;
+                }
+            });
+        }
+
+        return cached.count;
+    }
+
+    public void invalidate(String key)
+    {
+        counts.remove(key);
+    }
+
+    private int compute(String key, Invokable<Integer> counter)
+    {
+        int count = counter.invoke();
+
+        counts.put(key, new CachedCount(count, currentTimeMillis()));
+
+        return count;
+    }
+
+    /**
+     * Overridden in tests.
+     */
+    long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,47 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services;
+
+import java.util.List;
+
+/**
+ * Collects statistics about {@link SessionLock}s, organized by the active page of the request, so that it is possible
+ * to see which pages serialize requests on the session.
+ *
+ * @since 5.4
+ */
+public interface SessionLockMonitor
+{
+    /**
+     * Records that a session lock was acquired for the current request.
+     *
+     * @param write
+     *         true for the write lock, false for the read lock
+     * @param upgrade
+     *         true if a read lock held by the request was released in order to acquire the write lock
+     * @param waitNanos
+     *         time spent blocked waiting for the lock, in nanoseconds
+     */
+    void lockAcquired(boolean write, boolean upgrade, long waitNanos);
+
+    /**
+     * Returns the statistics, sorted by page name.
+     */
+    List<SessionLockStatistics> getStatistics();
+
+    /**
+     * Discards all statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,78 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.RequestGlobals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+public class SessionLockMonitorImpl implements SessionLockMonitor
+{
+    /**
+     * Used when the lock is acquired before the active page is known, or outside of a page request.
+     */
+    static final String NO_PAGE = "(no page)";
+
+    private final RequestGlobals requestGlobals;
+
+    private final ConcurrentMap<String, SessionLockStatistics> statistics = CollectionFactory.newConcurrentMap();
+
+    public SessionLockMonitorImpl(RequestGlobals requestGlobals)
+    {
+        this.requestGlobals = requestGlobals;
+    }
+
+    public void lockAcquired(boolean write, boolean upgrade, long waitNanos)
+    {
+        String pageName = requestGlobals.getActivePageName();
+
+        if (pageName == null)
+        {
+            pageName = NO_PAGE;
+        }
+
+        SessionLockStatistics pageStatistics = statistics.get(pageName);
+
+        if (pageStatistics == null)
+        {
+            SessionLockStatistics created = new SessionLockStatistics(pageName);
+
+            pageStatistics = statistics.putIfAbsent(pageName, created);
+
+            if (pageStatistics == null)
+            {
+                pageStatistics = created;
+            }
+        }
+
+        pageStatistics.record(write, upgrade, waitNanos);
+    }
+
+    public List<SessionLockStatistics> getStatistics()
+    {
+        List<SessionLockStatistics> result = CollectionFactory.newList(statistics.values());
+
+        Collections.sort(result);
+
+        return result;
+    }
+
+    public void reset()
+    {
+        statistics.clear();
+    }
+}
@@ -0,0 +1,114 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session lock statistics for a single page.
+ *
+ * @since 5.4
+ * @see SessionLockMonitor
+ */
+public class SessionLockStatistics implements Comparable<SessionLockStatistics>
+{
+    private final String pageName;
+
+    private final AtomicLong readLocks = new AtomicLong(), writeLocks = new AtomicLong(), upgrades = new AtomicLong(),
+            waits = new AtomicLong(), waitNanos = new AtomicLong(), maxWaitNanos = new AtomicLong();
+
+    public SessionLockStatistics(String pageName)
+    {
+        this.pageName = pageName;
+    }
+
+    void record(boolean write, boolean upgrade, long waitTime)
+    {
+        (write ? writeLocks : readLocks).incrementAndGet();
+
+        if (upgrade)
+        {
+            upgrades.incrementAndGet();
+        }
+
+        if (waitTime > 0)
+        {
+            waits.incrementAndGet();
+            waitNanos.addAndGet(waitTime);
+
+            while (true)
+            {
+                long max = maxWaitNanos.get();
+
+                if (waitTime <= max || maxWaitNanos.compareAndSet(max, waitTime))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    public String getPageName()
+    {
+        return pageName;
+    }
+
+    public long getReadLockCount()
+    {
+        return readLocks.get();
+    }
+
+    public long getWriteLockCount()
+    {
+        return writeLocks.get();
+    }
+
+    /**
+     * Number of times a read lock was released in order to acquire the write lock.
+     */
+    public long getUpgradeCount()
+    {
+        return upgrades.get();
+    }
+
+    /**
+     * Number of lock acquisitions that had to wait for another request to release the lock.
+     */
+    public long getWaitCount()
+    {
+        return waits.get();
+    }
+
+    /**
+     * Total time, in milliseconds, spent waiting for the lock.
+     */
+    public long getWaitTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    /**
+     * Longest single wait, in milliseconds, for the lock.
+     */
+    public long getMaxWaitTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    public int compareTo(SessionLockStatistics o)
+    {
+        return pageName.compareTo(o.pageName);
+    }
+}
@@ -0,0 +1,231 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.MarkupWriterListener;
+import org.apache.tapestry5.dom.Document;
+import org.apache.tapestry5.dom.DocumentStreamer;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.Environment;
+import org.apache.tapestry5.services.Heartbeat;
+import org.apache.tapestry5.services.StreamingRenderSupport;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Listens to the {@link MarkupWriter} during a streaming page render, writing the start of the document, and then each
+ * completed child of the {@code <body>}, as rendering proceeds.
+ *
+ * @since 5.4
+ */
+public class StreamingRenderSupportImpl implements StreamingRenderSupport, MarkupWriterListener
+{
+    /**
+     * Provides the PrintWriter for the response, which is only obtained once output starts.
+     */
+    public interface PrintWriterSource
+    {
+        PrintWriter getPrintWriter() throws IOException;
+    }
+
+    private final Document document;
+
+    private final PrintWriterSource printWriterSource;
+
+    private final Environment environment;
+
+    private final List<Runnable> commands = CollectionFactory.newList();
+
+    private PrintWriter printWriter;
+
+    private DocumentStreamer streamer;
+
+    private boolean commandsExecuted;
+
+    /**
+     * Set when a child of the {@code <body>} completes, cleared when it is written.
+     */
+    private boolean childCompleted;
+
+    public StreamingRenderSupportImpl(Document document, PrintWriterSource printWriterSource, Environment environment)
+    {
+        this.document = document;
+        this.printWriterSource = printWriterSource;
+        this.environment = environment;
+    }
+
+    public void beforeCommit(Runnable command)
+    {
+        assert command != null;
+
+        if (commandsExecuted)
+            throw new IllegalStateException("The start of the document has already been written to the client.");
+
+        commands.add(command);
+    }
+
+    public boolean isCommitted()
+    {
+        return streamer != null && streamer.isCommitted();
+    }
+
+    public void elementDidStart(Element element)
+    {
+        flushCompletedChildren(element);
+    }
+
+    public void elementDidEnd(Element element)
+    {
+        Element container = element.getContainer();
+
+        if (container != null && isBody(container))
+        {
+            // A component may still touch up an element it has just ended (a Form adds its hidden
+            // fields, for example), so the element is not written until the next element starts or ends.
+            // Earlier children are safe to write now.
+
+            flushCompletedChildren(element);
+
+            childCompleted = true;
+            return;
+        }
+
+        flushCompletedChildren(element);
+    }
+
+    /**
+     * Writes the completed children of the {@code <body>} (committing the start of the document first, if necessary).
+     *
+     * @param element
+     *         the element that just started or ended; if inside the {@code <body>}, the child of the body containing
+     *         it is still being rendered, and is not written
+     */
+    private void flushCompletedChildren(Element element)
+    {
+        if (!childCompleted || hasDeferredCommands())
+        {
+            return;
+        }
+
+        Element openChild = null;
+        Element body = null;
+
+        for (Element cursor = element; cursor != null; cursor = cursor.getContainer())
+        {
+            if (isBody(cursor))
+            {
+                body = cursor;
+                break;
+            }
+
+            openChild = cursor;
+        }
+
+        if (body == null)
+        {
+            return;
+        }
+
+        if (streamer == null)
+        {
+            executeCommands();
+
+            streamer = new DocumentStreamer(document, openPrintWriter());
+
+            streamer.commit(body);
+        }
+
+        streamer.flush(openChild);
+
+        childCompleted = false;
+    }
+
+    /**
+     * Invoked once rendering completes, to write the remainder of the document and close the response.
+     */
+    public void finish() throws IOException
+    {
+        executeCommands();
+
+        if (streamer == null)
+        {
+            printWriter = printWriterSource.getPrintWriter();
+
+            streamer = new DocumentStreamer(document, printWriter);
+        }
+
+        streamer.finish();
+
+        printWriter.close();
+    }
+
+    private PrintWriter openPrintWriter()
+    {
+        try
+        {
+            printWriter = printWriterSource.getPrintWriter();
+
+            return printWriter;
+        } catch (IOException ex)
+        {
+            throw new RuntimeException(String.format("Unable to open the response for streaming: %s", ex.getMessage()), ex);
+        }
+    }
+
+    private void executeCommands()
+    {
+        if (commandsExecuted)
+        {
+            return;
+        }
+
+        commandsExecuted = true;
+
+        // Reverse order, to match the order in which nested filters complete.
+
+        for (int i = commands.size() - 1; i >= 0; i--)
+        {
+            commands.get(i).run();
+        }
+    }
+
+    private static boolean isBody(Element element)
+    {
+        Element root = element.getContainer();
+
+        return root != null && root.getContainer() == null &&
+                element.getName().equals("body") && root.getName().equals("html");
+    }
+
+    /**
+     * A deferred Heartbeat command (from a {@link org.apache.tapestry5.corelib.components.Label}, for example) may
+     * modify markup that has already rendered, so nothing is flushed while such commands are pending.
+     */
+    private boolean hasDeferredCommands()
+    {
+        Heartbeat heartbeat = environment.peek(Heartbeat.class);
+
+        if (heartbeat == null)
+        {
+            return false;
+        }
+
+        return !(heartbeat instanceof HeartbeatImpl) || ((HeartbeatImpl) heartbeat).hasDeferredCommands();
+    }
+}
@@ -40,9 +40,26 @@ public class TapestrySessionFactoryImpl implements TapestrySessionFactory
 
     private final boolean sessionLockingEnabled;
 
-    private final Lock mapLock = new ReentrantLock();
+    private final SessionLockMonitor monitor;
+
+    /**
+     * Number of stripes; must be a power of two.
+     */
+    private static final int STRIPE_COUNT = 32;
+
+    /**
+     * Sessions are distributed across a number of stripes, each a weak map guarded by its own lock, so that requests
+     * for different sessions seldom contend. The weak keys ensure that locks for invalidated or expired sessions
+     * are discarded.
+     */
+    private static class Stripe
+    {
+        final Lock lock = new ReentrantLock();
+
+        final Map<HttpSession, SessionLock> sessionToLock = new WeakHashMap<HttpSession, SessionLock>();
+    }
 
-    private final Map<HttpSession, SessionLock> sessionToLock = new WeakHashMap<HttpSession, SessionLock>();
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
 
     private final SessionLock NO_OP_LOCK = new SessionLock()
     {
@@ -77,7 +94,18 @@ public class TapestrySessionFactoryImpl implements TapestrySessionFactory
                 return;
             }
 
-            lock.readLock().lock();
+            long waitNanos = 0;
+
+            if (!lock.readLock().tryLock())
+            {
+                long start = System.nanoTime();
+
+                lock.readLock().lock();
+
+                waitNanos = System.nanoTime() - start;
+            }
+
+            monitor.lockAcquired(false, false, waitNanos);
 
             perthreadManager.addThreadCleanupCallback(new Runnable()
             {
@@ -99,14 +127,27 @@ public class TapestrySessionFactoryImpl implements TapestrySessionFactory
                 return;
             }
 
-            if (isReadLocked())
+            boolean upgrade = isReadLocked();
+
+            if (upgrade)
             {
                 lock.readLock().unlock();
             }
 
             // During this window, no lock is held, and the next call may block.
 
-            lock.writeLock().lock();
+            long waitNanos = 0;
+
+            if (!lock.writeLock().tryLock())
+            {
+                long start = System.nanoTime();
+
+                lock.writeLock().lock();
+
+                waitNanos = System.nanoTime() - start;
+            }
+
+            monitor.lockAcquired(true, upgrade, waitNanos);
 
             perthreadManager.addThreadCleanupCallback(new Runnable()
             {
@@ -126,13 +167,20 @@ public class TapestrySessionFactoryImpl implements TapestrySessionFactory
             HttpServletRequest request,
             PerthreadManager perthreadManager,
             @Symbol(SymbolConstants.SESSION_LOCKING_ENABLED)
-            boolean sessionLockingEnabled)
+            boolean sessionLockingEnabled,
+            SessionLockMonitor monitor)
     {
         this.clustered = clustered;
         this.analyzer = analyzer;
         this.request = request;
         this.perthreadManager = perthreadManager;
         this.sessionLockingEnabled = sessionLockingEnabled;
+        this.monitor = monitor;
+
+        for (int i = 0; i < STRIPE_COUNT; i++)
+        {
+            stripes[i] = new Stripe();
+        }
     }
 
     public Session getSession(boolean create)
@@ -161,24 +209,38 @@ public class TapestrySessionFactoryImpl implements TapestrySessionFactory
             return NO_OP_LOCK;
         }
 
-        // Because WeakHashMap does not look thread safe to me, we use an exclusive
-        // lock.
-        mapLock.lock();
+        Stripe stripe = stripeFor(session);
+
+        // WeakHashMap is not thread safe, so each stripe has its own exclusive lock.
+        stripe.lock.lock();
 
         try
         {
-            SessionLock result = sessionToLock.get(session);
+            SessionLock result = stripe.sessionToLock.get(session);
 
             if (result == null)
             {
                 result = new SessionLockImpl();
-                sessionToLock.put(session, result);
+                stripe.sessionToLock.put(session, result);
             }
 
             return result;
         } finally
         {
-            mapLock.unlock();
+            stripe.lock.unlock();
         }
     }
+
+    private Stripe stripeFor(HttpSession session)
+    {
+        // Must be consistent with the WeakHashMap, which uses the session's own hashCode() and equals().
+
+        int h = session.hashCode();
+
+        // Spread the higher bits downward, as hash codes are not always well distributed in the low bits.
+
+        h ^= (h >>> 16);
+
+        return stripes[h & (STRIPE_COUNT - 1)];
+    }
 }
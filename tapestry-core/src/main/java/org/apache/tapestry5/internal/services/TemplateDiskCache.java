@@ -0,0 +1,50 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.parser.ComponentTemplate;
+import org.apache.tapestry5.ioc.Resource;
+
+import java.io.IOException;
+
+/**
+ * A persistent cache of parsed component templates, stored in a compact binary form in the directory identified by
+ * the {@link org.apache.tapestry5.SymbolConstants#TEMPLATE_CACHE_DIR} symbol. Templates are keyed on a digest of the
+ * template resource's path (which identifies its locale) and content, so a stored template survives restarts (and may
+ * be shared between nodes running the same application, or prepared in advance) but is never used once the template
+ * changes. Reading a stored template involves no XML parsing.
+ *
+ * @since 5.4
+ * @see DiskCachingTemplateParser
+ */
+public interface TemplateDiskCache
+{
+    /**
+     * Computes the key for the template resource, from its path and content.
+     */
+    String computeKey(Resource templateResource) throws IOException;
+
+    /**
+     * Reads a previously stored template.
+     *
+     * @return the template, or null if not stored, or stored by a different version of the application
+     */
+    ComponentTemplate read(String key, Resource templateResource);
+
+    /**
+     * Stores a parsed template; failures are logged, not thrown.
+     */
+    void write(String key, ComponentTemplate template);
+}
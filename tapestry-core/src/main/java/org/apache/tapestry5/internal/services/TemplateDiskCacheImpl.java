@@ -0,0 +1,659 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.internal.parser.*;
+import org.apache.tapestry5.ioc.Location;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.LocationImpl;
+import org.apache.tapestry5.ioc.services.SymbolSource;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+
+public class TemplateDiskCacheImpl implements TemplateDiskCache
+{
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String SUFFIX = ".template";
+
+    /**
+     * Anything that may change the parsed template, other than the content of the resource itself; stored templates
+     * with a different fingerprint are discarded.
+     */
+    private static final String FINGERPRINT_TEMPLATE = String.format("${%s} ${%s} ${%s}",
+            SymbolConstants.TAPESTRY_VERSION,
+            SymbolConstants.APPLICATION_VERSION,
+            SymbolConstants.COMPRESS_WHITESPACE);
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final Logger logger;
+
+    private final File dir;
+
+    private final String fingerprint;
+
+    public TemplateDiskCacheImpl(Logger logger,
+
+                                 @Symbol(SymbolConstants.TEMPLATE_CACHE_DIR)
+                                 String dir,
+
+                                 SymbolSource symbolSource)
+    {
+        this.logger = logger;
+        this.dir = new File(dir);
+        this.fingerprint = symbolSource.expandSymbols(FINGERPRINT_TEMPLATE);
+
+        this.dir.mkdirs();
+
+        removeObsoleteFiles();
+    }
+
+    /**
+     * Deletes any stored templates written with a different fingerprint (or format), typically by a prior version of
+     * the application.
+     */
+    private void removeObsoleteFiles()
+    {
+        File[] files = dir.listFiles();
+
+        if (files == null)
+        {
+            return;
+        }
+
+        int count = 0;
+
+        for (File file : files)
+        {
+            if (file.getName().endsWith(SUFFIX) && !isCurrent(file))
+            {
+                file.delete();
+                count++;
+            }
+        }
+
+        if (count > 0)
+        {
+            logger.info(String.format("Removed %,d obsolete templates from %s.", count, dir));
+        }
+    }
+
+    private boolean isCurrent(File file)
+    {
+        try
+        {
+            DataInputStream in = open(file);
+
+            try
+            {
+                return readHeader(in);
+            } finally
+            {
+                in.close();
+            }
+        } catch (IOException ex)
+        {
+            return false;
+        }
+    }
+
+    private static DataInputStream open(File file) throws IOException
+    {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    private boolean readHeader(DataInputStream in) throws IOException
+    {
+        return in.readInt() == FORMAT_VERSION && in.readUTF().equals(fingerprint);
+    }
+
+    public String computeKey(Resource templateResource) throws IOException
+    {
+        MessageDigest digest = newDigest();
+
+        digest.update(String.format("%s\n%s\n", fingerprint, templateResource).getBytes("UTF-8"));
+
+        InputStream is = new BufferedInputStream(templateResource.openStream());
+
+        try
+        {
+            byte[] buffer = new byte[8192];
+
+            while (true)
+            {
+                int length = is.read(buffer);
+
+                if (length < 0)
+                {
+                    break;
+                }
+
+                digest.update(buffer, 0, length);
+            }
+        } finally
+        {
+            is.close();
+        }
+
+        return toHex(digest.digest());
+    }
+
+    public ComponentTemplate read(String key, Resource templateResource)
+    {
+        File file = new File(dir, key + SUFFIX);
+
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        boolean stale = true;
+
+        try
+        {
+            DataInputStream in = open(file);
+
+            try
+            {
+                if (!readHeader(in))
+                {
+                    return null;
+                }
+
+                ComponentTemplate result = new TemplateReader(in, templateResource).read();
+
+                stale = false;
+
+                return result;
+            } finally
+            {
+                in.close();
+            }
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to read cached template for %s from %s: %s", templateResource, file, ex), ex);
+
+            return null;
+        } finally
+        {
+            // Out of date or damaged content is deleted, so that it may be replaced.
+
+            if (stale)
+            {
+                file.delete();
+            }
+        }
+    }
+
+    public void write(String key, ComponentTemplate template)
+    {
+        // Only templates produced by the parser expose their overrides.
+
+        if (!(template instanceof ComponentTemplateImpl))
+        {
+            return;
+        }
+
+        File file = new File(dir, key + SUFFIX);
+
+        try
+        {
+            // Write to a temporary file, then rename it, so that a concurrent reader (perhaps on another node)
+            // never sees partial content.
+
+            File temp = File.createTempFile(key, ".tmp", dir);
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+            try
+            {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(fingerprint);
+
+                new TemplateWriter(out).write((ComponentTemplateImpl) template);
+            } finally
+            {
+                out.close();
+            }
+
+            if (!temp.renameTo(file))
+            {
+                // Most likely, another thread (or node) stored the same template first.
+
+                temp.delete();
+            }
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to store template %s to %s: %s", template.getResource(), file, ex), ex);
+        }
+    }
+
+    /**
+     * Writes the tokens of a template. Strings are written once, then referenced by index. Each token is written as
+     * its type, its location, then the values specific to the type. All locations are assumed to be within the
+     * template resource, which is always the case for a parsed template.
+     */
+    private static class TemplateWriter
+    {
+        private final DataOutputStream out;
+
+        private final Map<String, Integer> strings = CollectionFactory.newMap();
+
+        TemplateWriter(DataOutputStream out)
+        {
+            this.out = out;
+        }
+
+        void write(ComponentTemplateImpl template) throws IOException
+        {
+            out.writeBoolean(template.isExtension());
+
+            Map<String, Location> componentIds = template.getComponentIds();
+
+            out.writeInt(componentIds.size());
+
+            for (Map.Entry<String, Location> e : componentIds.entrySet())
+            {
+                writeString(e.getKey());
+                writeLocation(e.getValue());
+            }
+
+            writeTokens(template.getTokens());
+
+            Map<String, List<TemplateToken>> overrides = template.getOverrides();
+
+            if (overrides == null)
+            {
+                out.writeInt(-1);
+                return;
+            }
+
+            out.writeInt(overrides.size());
+
+            for (Map.Entry<String, List<TemplateToken>> e : overrides.entrySet())
+            {
+                writeString(e.getKey());
+                writeTokens(e.getValue());
+            }
+        }
+
+        private void writeTokens(List<TemplateToken> tokens) throws IOException
+        {
+            out.writeInt(tokens.size());
+
+            for (TemplateToken token : tokens)
+            {
+                writeToken(token);
+            }
+        }
+
+        private void writeToken(TemplateToken token) throws IOException
+        {
+            TokenType type = token.getTokenType();
+
+            out.writeByte(type.ordinal());
+
+            writeLocation(token.getLocation());
+
+            switch (type)
+            {
+                case ATTRIBUTE:
+
+                    AttributeToken attribute = (AttributeToken) token;
+
+                    writeString(attribute.namespaceURI);
+                    writeString(attribute.name);
+                    writeString(attribute.value);
+                    break;
+
+                case CDATA:
+
+                    writeString(((CDATAToken) token).content);
+                    break;
+
+                case COMMENT:
+
+                    writeString(((CommentToken) token).comment);
+                    break;
+
+                case START_COMPONENT:
+
+                    StartComponentToken startComponent = (StartComponentToken) token;
+
+                    writeString(startComponent.getElementName());
+                    writeString(startComponent.getId());
+                    writeString(startComponent.getComponentType());
+                    writeString(startComponent.getMixins());
+                    break;
+
+                case START_ELEMENT:
+
+                    StartElementToken startElement = (StartElementToken) token;
+
+                    writeString(startElement.namespaceURI);
+                    writeString(startElement.name);
+                    break;
+
+                case TEXT:
+
+                    writeString(((TextToken) token).text);
+                    break;
+
+                case EXPANSION:
+
+                    writeString(((ExpansionToken) token).getExpression());
+                    break;
+
+                case PARAMETER:
+
+                    writeString(((ParameterToken) token).name);
+                    break;
+
+                case BLOCK:
+
+                    writeString(((BlockToken) token).getId());
+                    break;
+
+                case DTD:
+
+                    DTDToken dtd = (DTDToken) token;
+
+                    writeString(dtd.name);
+                    writeString(dtd.publicId);
+                    writeString(dtd.systemId);
+                    break;
+
+                case DEFINE_NAMESPACE_PREFIX:
+
+                    DefineNamespacePrefixToken define = (DefineNamespacePrefixToken) token;
+
+                    writeString(define.namespaceURI);
+                    writeString(define.namespacePrefix);
+                    break;
+
+                case EXTENSION_POINT:
+
+                    writeString(((ExtensionPointToken) token).getExtensionPointId());
+                    break;
+
+                default:
+
+                    // END_ELEMENT and BODY have no values.
+                    break;
+            }
+        }
+
+        private void writeLocation(Location location) throws IOException
+        {
+            out.writeInt(location == null ? Integer.MIN_VALUE : location.getLine());
+
+            if (location != null)
+            {
+                out.writeInt(location.getColumn());
+            }
+        }
+
+        /**
+         * Writes -1 for null, the index of a string already written, or the next index followed by the string's UTF-8
+         * bytes (text may exceed the limit of {@link DataOutputStream#writeUTF(String)}).
+         */
+        private void writeString(String value) throws IOException
+        {
+            if (value == null)
+            {
+                out.writeInt(-1);
+                return;
+            }
+
+            Integer index = strings.get(value);
+
+            if (index != null)
+            {
+                out.writeInt(index);
+                return;
+            }
+
+            int next = strings.size();
+
+            strings.put(value, next);
+
+            byte[] bytes = value.getBytes("UTF-8");
+
+            out.writeInt(next);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a template written by {@link TemplateWriter}.
+     */
+    private static class TemplateReader
+    {
+        private final DataInputStream in;
+
+        private final Resource resource;
+
+        private final List<String> strings = CollectionFactory.newList();
+
+        /**
+         * As with the parser, tokens on the same line share a Location.
+         */
+        private final Map<Long, Location> locations = CollectionFactory.newMap();
+
+        TemplateReader(DataInputStream in, Resource resource)
+        {
+            this.in = in;
+            this.resource = resource;
+        }
+
+        ComponentTemplate read() throws IOException
+        {
+            boolean extension = in.readBoolean();
+
+            Map<String, Location> componentIds = CollectionFactory.newCaseInsensitiveMap();
+
+            int count = in.readInt();
+
+            for (int i = 0; i < count; i++)
+            {
+                String id = readString();
+
+                componentIds.put(id, readLocation());
+            }
+
+            List<TemplateToken> tokens = readTokens();
+
+            Map<String, List<TemplateToken>> overrides = null;
+
+            count = in.readInt();
+
+            if (count >= 0)
+            {
+                overrides = CollectionFactory.newCaseInsensitiveMap();
+
+                for (int i = 0; i < count; i++)
+                {
+                    String id = readString();
+
+                    overrides.put(id, readTokens());
+                }
+            }
+
+            return new ComponentTemplateImpl(resource, tokens, componentIds, extension, overrides);
+        }
+
+        private List<TemplateToken> readTokens() throws IOException
+        {
+            int count = in.readInt();
+
+            List<TemplateToken> result = CollectionFactory.newList();
+
+            for (int i = 0; i < count; i++)
+            {
+                result.add(readToken());
+            }
+
+            return result;
+        }
+
+        private TemplateToken readToken() throws IOException
+        {
+            int ordinal = in.readUnsignedByte();
+
+            if (ordinal >= TOKEN_TYPES.length)
+            {
+                throw new StreamCorruptedException(String.format("Unexpected token type %d.", ordinal));
+            }
+
+            Location location = readLocation();
+
+            switch (TOKEN_TYPES[ordinal])
+            {
+                case ATTRIBUTE:
+                    return new AttributeToken(readString(), readString(), readString(), location);
+
+                case CDATA:
+                    return new CDATAToken(readString(), location);
+
+                case COMMENT:
+                    return new CommentToken(readString(), location);
+
+                case END_ELEMENT:
+                    return new EndElementToken(location);
+
+                case START_COMPONENT:
+                    return new StartComponentToken(readString(), readString(), readString(), readString(), location);
+
+                case START_ELEMENT:
+                    return new StartElementToken(readString(), readString(), location);
+
+                case TEXT:
+                    return new TextToken(readString(), location);
+
+                case BODY:
+                    return new BodyToken(location);
+
+                case EXPANSION:
+                    return new ExpansionToken(readString(), location);
+
+                case PARAMETER:
+                    return new ParameterToken(readString(), location);
+
+                case BLOCK:
+                    return new BlockToken(readString(), location);
+
+                case DTD:
+                    return new DTDToken(readString(), readString(), readString(), location);
+
+                case DEFINE_NAMESPACE_PREFIX:
+                    return new DefineNamespacePrefixToken(readString(), readString(), location);
+
+                case EXTENSION_POINT:
+                    return new ExtensionPointToken(readString(), location);
+
+                default:
+                    throw new StreamCorruptedException(String.format("Unexpected token type %s.", TOKEN_TYPES[ordinal]));
+            }
+        }
+
+        private Location readLocation() throws IOException
+        {
+            int line = in.readInt();
+
+            if (line == Integer.MIN_VALUE)
+            {
+                return null;
+            }
+
+            int column = in.readInt();
+
+            Long key = ((long) line << 32) | (column & 0xffffffffL);
+
+            Location result = locations.get(key);
+
+            if (result == null)
+            {
+                result = new LocationImpl(resource, line, column);
+
+                locations.put(key, result);
+            }
+
+            return result;
+        }
+
+        private String readString() throws IOException
+        {
+            int index = in.readInt();
+
+            if (index < 0)
+            {
+                return null;
+            }
+
+            if (index < strings.size())
+            {
+                return strings.get(index);
+            }
+
+            if (index != strings.size())
+            {
+                throw new StreamCorruptedException(String.format("Invalid string reference %d.", index));
+            }
+
+            byte[] bytes = new byte[in.readInt()];
+
+            in.readFully(bytes);
+
+            String result = new String(bytes, "UTF-8");
+
+            strings.add(result);
+
+            return result;
+        }
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes)
+        {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return builder.toString();
+    }
+}
@@ -152,13 +152,7 @@ public class JavaScriptSupportImpl implements JavaScriptSupport
             require("t5/core/pageinit").invoke("focus").with(focusFieldId);
         }
 
-        F.flow(stylesheetLinks).each(new Worker<StylesheetLink>()
-        {
-            public void work(StylesheetLink value)
-            {
-                linker.addStylesheetLink(value);
-            }
-        });
+        commitStylesheets();
 
         F.flow(inits).sort(new Comparator<InitializationImpl>()
         {
@@ -175,6 +169,26 @@ public class JavaScriptSupportImpl implements JavaScriptSupport
         });
     }
 
+    /**
+     * Passes the stylesheets imported so far to the {@link DocumentLinker}. This is normally done as part of
+     * {@link #commit()}, but is invoked earlier during a {@linkplain org.apache.tapestry5.services.StreamingRenderSupport
+     * streaming render}, just before the document's {@code <head>} is written.
+     *
+     * @since 5.4
+     */
+    public void commitStylesheets()
+    {
+        F.flow(stylesheetLinks).each(new Worker<StylesheetLink>()
+        {
+            public void work(StylesheetLink value)
+            {
+                linker.addStylesheetLink(value);
+            }
+        });
+
+        stylesheetLinks.clear();
+    }
+
     public void addInitializerCall(InitializationPriority priority, String functionName, JSONObject parameter)
     {
         storeInitializerCall(priority, functionName, parameter);
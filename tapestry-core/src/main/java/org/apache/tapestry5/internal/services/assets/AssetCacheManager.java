@@ -0,0 +1,39 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import java.util.List;
+
+/**
+ * Creates the {@link StreamableResourceCache}s used by the {@link org.apache.tapestry5.services.assets.StreamableResourceSource}
+ * interceptors, and keeps track of them so that their statistics can be reported.
+ *
+ * @since 5.4
+ */
+public interface AssetCacheManager
+{
+    /**
+     * Creates a new cache, with a budget defined by the {@link org.apache.tapestry5.SymbolConstants#ASSET_CACHE_SIZE}
+     * symbol.
+     *
+     * @param name
+     *         identifies the cache in reports
+     */
+    StreamableResourceCache createCache(String name);
+
+    /**
+     * Returns all caches created so far, in creation order.
+     */
+    List<StreamableResourceCache> getCaches();
+}
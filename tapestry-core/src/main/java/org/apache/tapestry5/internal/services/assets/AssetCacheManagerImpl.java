@@ -0,0 +1,47 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class AssetCacheManagerImpl implements AssetCacheManager
+{
+    private final long maxSize;
+
+    private final List<StreamableResourceCache> caches = new CopyOnWriteArrayList<StreamableResourceCache>();
+
+    public AssetCacheManagerImpl(@Symbol(SymbolConstants.ASSET_CACHE_SIZE)
+                                 long maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    public StreamableResourceCache createCache(String name)
+    {
+        StreamableResourceCache cache = new StreamableResourceCache(name, maxSize);
+
+        caches.add(cache);
+
+        return cache;
+    }
+
+    public List<StreamableResourceCache> getCaches()
+    {
+        return caches;
+    }
+}
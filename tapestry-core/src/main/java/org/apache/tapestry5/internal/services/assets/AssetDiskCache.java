@@ -0,0 +1,52 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.services.assets.ResourceDependencies;
+import org.apache.tapestry5.services.assets.StreamableResource;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * A persistent cache of processed (transformed, minimized, but not compressed) asset content, stored in the directory
+ * identified by the {@link org.apache.tapestry5.SymbolConstants#ASSET_DISK_CACHE_DIR} symbol. Content is keyed
+ * on a digest of the unprocessed content of the resource, so that it survives restarts (and is shared between nodes
+ * running the same application) but is never served once the resource changes.
+ *
+ * @since 5.4
+ * @see SRSDiskCachingInterceptor
+ */
+public interface AssetDiskCache
+{
+    /**
+     * Computes the key for the resource's content, as processed.
+     */
+    String computeKey(Resource baseResource) throws IOException;
+
+    /**
+     * Reads previously stored content, first checking that the content of any dependencies recorded with it are also
+     * unchanged; the dependencies are added to the provided dependencies.
+     *
+     * @return the content, or null if not stored, or out of date
+     */
+    StreamableResource read(String key, Resource baseResource, ResourceDependencies dependencies) throws IOException;
+
+    /**
+     * Stores content, along with digests of its dependencies. Content with a dependency that can not be located
+     * relative to the base resource is not stored; failures are logged, not thrown.
+     */
+    void write(String key, Resource baseResource, StreamableResource resource, Collection<Resource> dependencies);
+}
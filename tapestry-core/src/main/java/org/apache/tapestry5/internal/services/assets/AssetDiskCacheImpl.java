@@ -0,0 +1,419 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.services.SymbolSource;
+import org.apache.tapestry5.services.assets.*;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Created by the DiskCache decorator of the {@link StreamableResourceSource} service, rather than bound as a service,
+ * as its fingerprint includes a description of the processors of the pipeline stages it stores content for. The fingerprint
+ * (and the removal of obsolete files) is deferred until first use, so that it reflects the pipeline as decorated.
+ */
+public class AssetDiskCacheImpl implements AssetDiskCache
+{
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String SUFFIX = ".asset";
+
+    /**
+     * Anything that may change the processed content, other than the content of the resource itself (and the
+     * contributed transformers and minimizers); stored content with a different fingerprint is discarded.
+     */
+    private static final String FINGERPRINT_TEMPLATE = String.format("${%s} ${%s} ${%s} ${%s} ${%s} ${%s} ${%s}",
+            SymbolConstants.TAPESTRY_VERSION,
+            SymbolConstants.APPLICATION_VERSION,
+            SymbolConstants.MINIFICATION_ENABLED,
+            SymbolConstants.CONTEXT_PATH,
+            SymbolConstants.APPLICATION_FOLDER,
+            SymbolConstants.ASSET_PATH_PREFIX,
+            SymbolConstants.COMPRESSED_ASSET_PATH_PREFIX);
+
+    private final Logger logger;
+
+    private final File dir;
+
+    private final String settings;
+
+    private final StreamableResourceSource processors;
+
+    private String fingerprint;
+
+    private final ResourceChangeTracker resourceChangeTracker;
+
+    private final AssetChecksumGenerator checksumGenerator;
+
+    /**
+     * @param logger
+     *         used to report removed and unreadable content
+     * @param dir
+     *         directory in which to store content
+     * @param symbolSource
+     *         used to expand the symbols that affect the processed content
+     * @param resourceChangeTracker
+     *         tracks the resources whose content is read from the cache
+     * @param checksumGenerator
+     *         passed to the read content
+     * @param processors
+     *         the stages of the pipeline that produce the content; described via {@link ProcessorDescriber}, where
+     *         implemented
+     */
+    public AssetDiskCacheImpl(Logger logger, String dir, SymbolSource symbolSource,
+                              ResourceChangeTracker resourceChangeTracker, AssetChecksumGenerator checksumGenerator,
+                              StreamableResourceSource processors)
+    {
+        this.logger = logger;
+        this.dir = new File(dir);
+        this.settings = symbolSource.expandSymbols(FINGERPRINT_TEMPLATE);
+        this.resourceChangeTracker = resourceChangeTracker;
+        this.checksumGenerator = checksumGenerator;
+        this.processors = processors;
+    }
+
+    /**
+     * Computes the fingerprint on first use, then removes any content stored with a different fingerprint.
+     */
+    private synchronized String getFingerprint()
+    {
+        if (fingerprint == null)
+        {
+            List<String> descriptions = CollectionFactory.newList();
+
+            ProcessorDescriptions.describe(processors, descriptions);
+
+            descriptions.add(0, settings);
+
+            fingerprint = InternalUtils.join(descriptions, "\n");
+
+            dir.mkdirs();
+
+            removeObsoleteFiles();
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Deletes any stored content written with a different fingerprint (or format), typically by a prior version of
+     * the application.
+     */
+    private void removeObsoleteFiles()
+    {
+        File[] files = dir.listFiles();
+
+        if (files == null)
+        {
+            return;
+        }
+
+        int count = 0;
+
+        for (File file : files)
+        {
+            if (file.getName().endsWith(SUFFIX) && !isCurrent(file))
+            {
+                file.delete();
+                count++;
+            }
+        }
+
+        if (count > 0)
+        {
+            logger.info(String.format("Removed %,d obsolete assets from %s.", count, dir));
+        }
+    }
+
+    private boolean isCurrent(File file)
+    {
+        try
+        {
+            DataInputStream in = open(file);
+
+            try
+            {
+                return readHeader(in);
+            } finally
+            {
+                in.close();
+            }
+        } catch (IOException ex)
+        {
+            return false;
+        }
+    }
+
+    private static DataInputStream open(File file) throws IOException
+    {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    private boolean readHeader(DataInputStream in) throws IOException
+    {
+        return in.readInt() == FORMAT_VERSION && in.readUTF().equals(getFingerprint());
+    }
+
+    public String computeKey(Resource baseResource) throws IOException
+    {
+        MessageDigest digest = newDigest();
+
+        digest.update(String.format("%s\n%s\n", getFingerprint(), baseResource).getBytes("UTF-8"));
+
+        update(digest, baseResource);
+
+        return toHex(digest.digest());
+    }
+
+    public StreamableResource read(String key, Resource baseResource, ResourceDependencies dependencies) throws IOException
+    {
+        File file = new File(dir, key + SUFFIX);
+
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        DataInputStream in = open(file);
+
+        boolean stale = true;
+
+        try
+        {
+            if (!readHeader(in))
+            {
+                return null;
+            }
+
+            String description = in.readUTF();
+            String contentType = in.readUTF();
+            CompressionStatus compression = CompressionStatus.valueOf(in.readUTF());
+
+            int dependencyCount = in.readInt();
+
+            List<Resource> dependencyResources = CollectionFactory.newList();
+
+            for (int i = 0; i < dependencyCount; i++)
+            {
+                Resource dependency = baseResource.forFile(in.readUTF());
+
+                if (!dependency.exists() || !digest(dependency).equals(in.readUTF()))
+                {
+                    return null;
+                }
+
+                dependencyResources.add(dependency);
+            }
+
+            byte[] content = new byte[in.readInt()];
+
+            in.readFully(content);
+
+            for (Resource dependency : dependencyResources)
+            {
+                dependencies.addDependency(dependency);
+            }
+
+            long lastModified = resourceChangeTracker.trackResource(baseResource);
+
+            stale = false;
+
+            return new StreamableResourceImpl(description, contentType, compression, lastModified,
+                    new BytestreamCache(content), checksumGenerator);
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to read cached content for %s from %s: %s", baseResource, file, ex), ex);
+
+            return null;
+        } finally
+        {
+            in.close();
+
+            // Out of date content is deleted, so that it may be replaced.
+
+            if (stale)
+            {
+                file.delete();
+            }
+        }
+    }
+
+    public void write(String key, Resource baseResource, StreamableResource resource, Collection<Resource> dependencies)
+    {
+        File file = new File(dir, key + SUFFIX);
+
+        try
+        {
+            List<String> relativePaths = CollectionFactory.newList();
+
+            for (Resource dependency : dependencies)
+            {
+                if (dependency.equals(baseResource))
+                {
+                    continue;
+                }
+
+                if (dependency.getClass() != baseResource.getClass())
+                {
+                    return;
+                }
+
+                relativePaths.add(toRelativePath(baseResource, dependency));
+            }
+
+            // Write to a temporary file, then rename it, so that a concurrent reader (perhaps on another node)
+            // never sees partial content.
+
+            File temp = File.createTempFile(key, ".tmp", dir);
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+            try
+            {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(getFingerprint());
+                out.writeUTF(resource.getDescription());
+                out.writeUTF(resource.getContentType());
+                out.writeUTF(resource.getCompression().name());
+
+                out.writeInt(relativePaths.size());
+
+                for (String path : relativePaths)
+                {
+                    out.writeUTF(path);
+                    out.writeUTF(digest(baseResource.forFile(path)));
+                }
+
+                out.writeInt(resource.getSize());
+
+                resource.streamTo(out);
+            } finally
+            {
+                out.close();
+            }
+
+            if (!temp.renameTo(file))
+            {
+                // Most likely, another thread (or node) stored the same content first.
+
+                temp.delete();
+            }
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to store content for %s to %s: %s", baseResource, file, ex), ex);
+        }
+    }
+
+    /**
+     * Expresses the path to the dependency as relative to the base resource, for use with
+     * {@link Resource#forFile(String)}.
+     */
+    static String toRelativePath(Resource baseResource, Resource dependency)
+    {
+        String[] from = baseResource.getFolder().length() == 0 ? new String[0] : baseResource.getFolder().split("/");
+        String[] to = dependency.getPath().split("/");
+
+        int common = 0;
+
+        while (common < from.length && common < to.length - 1 && from[common].equals(to[common]))
+        {
+            common++;
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = common; i < from.length; i++)
+        {
+            builder.append("../");
+        }
+
+        for (int i = common; i < to.length; i++)
+        {
+            builder.append(to[i]);
+
+            if (i < to.length - 1)
+            {
+                builder.append('/');
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private String digest(Resource resource) throws IOException
+    {
+        MessageDigest digest = newDigest();
+
+        update(digest, resource);
+
+        return toHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, Resource resource) throws IOException
+    {
+        InputStream is = new BufferedInputStream(resource.openStream());
+
+        try
+        {
+            byte[] buffer = new byte[8192];
+
+            while (true)
+            {
+                int length = is.read(buffer);
+
+                if (length < 0)
+                {
+                    break;
+                }
+
+                digest.update(buffer, 0, length);
+            }
+        } finally
+        {
+            is.close();
+        }
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes)
+        {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,34 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.services.assets.StreamableResource;
+
+import java.io.IOException;
+
+/**
+ * Decides where the content of cached, processed (minimized, compressed) assets is stored, as configured by the
+ * {@link org.apache.tapestry5.SymbolConstants#ASSET_STORAGE} symbol: on the heap, in direct buffers, or in
+ * memory-mapped files.
+ *
+ * @since 5.4
+ */
+public interface AssetStorage
+{
+    /**
+     * Returns a resource equivalent to the provided resource, with its content moved to the configured storage. For
+     * heap storage, the resource itself is returned.
+     */
+    StreamableResource store(StreamableResource resource) throws IOException;
+}
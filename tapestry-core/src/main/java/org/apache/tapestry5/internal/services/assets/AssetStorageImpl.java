@@ -0,0 +1,163 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.internal.TapestryInternalUtils;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.services.assets.AssetChecksumGenerator;
+import org.apache.tapestry5.services.assets.StreamableResource;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class AssetStorageImpl implements AssetStorage
+{
+    static final String HEAP = "heap", DIRECT = "direct", MAPPED = "mapped";
+
+    private final String mode;
+
+    private final File storageDir;
+
+    private final AssetChecksumGenerator checksumGenerator;
+
+    public AssetStorageImpl(@Symbol(SymbolConstants.ASSET_STORAGE)
+                            String mode,
+
+                            @Symbol(SymbolConstants.ASSET_STORAGE_DIR)
+                            String storageDir,
+
+                            AssetChecksumGenerator checksumGenerator)
+    {
+        if (!(mode.equals(HEAP) || mode.equals(DIRECT) || mode.equals(MAPPED)))
+        {
+            throw new IllegalArgumentException(String.format("Asset storage '%s' is not valid; it should be '%s', '%s', or '%s'.",
+                    mode, HEAP, DIRECT, MAPPED));
+        }
+
+        this.mode = mode;
+        this.storageDir = new File(storageDir);
+        this.checksumGenerator = checksumGenerator;
+    }
+
+    public StreamableResource store(StreamableResource resource) throws IOException
+    {
+        if (mode.equals(HEAP))
+        {
+            return resource;
+        }
+
+        if (resource instanceof CompressedStreamableResource)
+        {
+            Map<String, BytestreamCache> variants = new LinkedHashMap<String, BytestreamCache>();
+
+            for (Map.Entry<String, BytestreamCache> e : ((CompressedStreamableResource) resource).getVariants().entrySet())
+            {
+                variants.put(e.getKey(), move(e.getValue().openStream(), e.getValue().size()));
+            }
+
+            return new CompressedStreamableResource(resource, variants, checksumGenerator);
+        }
+
+        return new StreamableResourceImpl(resource.getDescription(), resource.getContentType(), resource.getCompression(),
+                resource.getLastModified(), move(resource.openStream(), resource.getSize()), checksumGenerator);
+    }
+
+    private BytestreamCache move(InputStream content, int size) throws IOException
+    {
+        try
+        {
+            ByteBuffer buffer = mode.equals(DIRECT)
+                    ? toDirectBuffer(content, size)
+                    : toMappedBuffer(content);
+
+            return new BytestreamCache(buffer);
+        } finally
+        {
+            content.close();
+        }
+    }
+
+    private ByteBuffer toDirectBuffer(InputStream content, int size) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+
+        byte[] chunk = new byte[8192];
+
+        while (buffer.hasRemaining())
+        {
+            int length = content.read(chunk, 0, Math.min(chunk.length, buffer.remaining()));
+
+            if (length < 0)
+            {
+                break;
+            }
+
+            buffer.put(chunk, 0, length);
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    private ByteBuffer toMappedBuffer(InputStream content) throws IOException
+    {
+        storageDir.mkdirs();
+
+        File file = File.createTempFile("asset", ".bin", storageDir);
+
+        try
+        {
+            OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+
+            try
+            {
+                TapestryInternalUtils.copy(content, os);
+            } finally
+            {
+                os.close();
+            }
+
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+            try
+            {
+                // The mapping remains valid after the channel is closed.
+
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+
+                buffer.load();
+
+                return buffer;
+            } finally
+            {
+                raf.close();
+            }
+        } finally
+        {
+            // On most operating systems, the file can be deleted while mapped; the space is reclaimed once the
+            // buffer is garbage collected. Where it can't be (Windows), it is deleted when the JVM exits.
+
+            if (!file.delete())
+            {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
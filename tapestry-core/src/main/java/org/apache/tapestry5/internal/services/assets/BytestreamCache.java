@@ -1,4 +1,4 @@
-// Copyright 2010 The Apache Software Foundation
+// Copyright 2010, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -19,21 +19,41 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A wrapper around a byte-stream, represented internally as a byte array. Part of the fix
  * to TAP5-1116, avoiding a live lock due to ByteArrayOutputStream.writeTo() being a synchronized
  * method.
- * 
+ * <p/>
+ * Starting in 5.4, the content may instead be stored in a {@link ByteBuffer} (typically, a direct or memory-mapped
+ * buffer), keeping it off the heap; see {@link AssetStorage}.
+ *
  * @since 5.2.0
  */
 public class BytestreamCache
 {
     private final byte[] streamData;
 
+    private final ByteBuffer buffer;
+
     public BytestreamCache(byte[] streamData)
     {
         this.streamData = streamData;
+        this.buffer = null;
+    }
+
+    /**
+     * @param buffer
+     *         the content, from its position to its limit; the buffer is not modified
+     * @since 5.4
+     */
+    public BytestreamCache(ByteBuffer buffer)
+    {
+        this.streamData = null;
+        this.buffer = buffer.asReadOnlyBuffer();
     }
 
     public BytestreamCache(ByteArrayOutputStream os)
@@ -43,16 +63,83 @@ public class BytestreamCache
 
     public void writeTo(OutputStream os) throws IOException
     {
-        os.write(streamData, 0, streamData.length);
+        if (streamData != null)
+        {
+            os.write(streamData, 0, streamData.length);
+            return;
+        }
+
+        // Each write works from its own view of the buffer, so concurrent writes do not interfere.
+
+        ByteBuffer content = buffer.duplicate();
+
+        WritableByteChannel channel = Channels.newChannel(os);
+
+        while (content.hasRemaining())
+        {
+            channel.write(content);
+        }
     }
 
     public int size()
     {
-        return streamData.length;
+        return streamData != null ? streamData.length : buffer.remaining();
     }
 
     public InputStream openStream()
     {
-        return new ByteArrayInputStream(streamData);
+        return streamData != null ? new ByteArrayInputStream(streamData) : new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    private static class ByteBufferInputStream extends InputStream
+    {
+        private final ByteBuffer content;
+
+        ByteBufferInputStream(ByteBuffer content)
+        {
+            this.content = content;
+        }
+
+        @Override
+        public int read()
+        {
+            return content.hasRemaining() ? content.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+
+            if (!content.hasRemaining())
+            {
+                return -1;
+            }
+
+            int count = Math.min(len, content.remaining());
+
+            content.get(b, off, count);
+
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return content.remaining();
+        }
+
+        @Override
+        public long skip(long n)
+        {
+            int count = (int) Math.max(0, Math.min(n, content.remaining()));
+
+            content.position(content.position() + count);
+
+            return count;
+        }
     }
 }
@@ -80,13 +80,13 @@ public class CSSURLRewriter extends DelegatingSRS
 
         if (base.getContentType().equals("text/css"))
         {
-            return filter(base, baseResource);
+            return filter(base, baseResource, dependencies);
         }
 
         return base;
     }
 
-    private StreamableResource filter(final StreamableResource base, final Resource baseResource) throws IOException
+    private StreamableResource filter(final StreamableResource base, final Resource baseResource, final ResourceDependencies dependencies) throws IOException
     {
         return tracker.perform("Rewriting relative URLs in " + baseResource,
                 new IOOperation<StreamableResource>()
@@ -95,7 +95,7 @@ public class CSSURLRewriter extends DelegatingSRS
                     {
                         String baseString = readAsString(base);
 
-                        String filtered = replaceURLs(baseString, baseResource);
+                        String filtered = replaceURLs(baseString, baseResource, dependencies);
 
                         if (filtered == null)
                         {
@@ -121,9 +121,12 @@ public class CSSURLRewriter extends DelegatingSRS
      *         content of the resource
      * @param baseResource
      *         resource used to resolve relative URLs
+     * @param dependencies
+     *         the referenced resources are added as dependencies, since their checksums are part of the replacement
+     *         URLs
      * @return replacement content, or null if no relative URLs in the content
      */
-    private String replaceURLs(String input, Resource baseResource)
+    private String replaceURLs(String input, Resource baseResource, ResourceDependencies dependencies)
     {
         boolean didReplace = false;
 
@@ -154,6 +157,8 @@ public class CSSURLRewriter extends DelegatingSRS
 
             Asset asset = assetSource.getAsset(baseResource, url, null);
 
+            dependencies.addDependency(asset.getResource());
+
             String assetURL = asset.toClientURL();
 
             String queryParameters = matcher.group(3);
@@ -14,39 +14,121 @@
 
 package org.apache.tapestry5.internal.services.assets;
 
+import org.apache.tapestry5.internal.InternalConstants;
 import org.apache.tapestry5.services.assets.AssetChecksumGenerator;
 import org.apache.tapestry5.services.assets.CompressionStatus;
+import org.apache.tapestry5.services.assets.ContentEncoder;
 import org.apache.tapestry5.services.assets.StreamableResource;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * GZip compressed representation of a {@link StreamableResource}.
+ * Compressed representation of a {@link StreamableResource}. Starting in 5.4, the content is encoded by each of the
+ * {@link ContentEncoder}s; the primary content (returned by {@link #streamTo(OutputStream)} and
+ * {@link #openStream()}) is the "gzip" variant, when available, as that is the one encoding universally supported
+ * by clients that accept compressed content.
  *
  * @since 5.4
  */
 public class CompressedStreamableResource extends StreamableResourceImpl
 {
-    public CompressedStreamableResource(StreamableResource base, AssetChecksumGenerator assetChecksumGenerator) throws IOException
+    private final Map<String, BytestreamCache> variants;
+
+    private final String primaryEncoding;
+
+    /**
+     * @param base
+     *         the uncompressed content
+     * @param encoders
+     *         encoders to apply to the content, in order of preference; must not be empty
+     * @param assetChecksumGenerator
+     */
+    public CompressedStreamableResource(StreamableResource base, List<ContentEncoder> encoders, AssetChecksumGenerator assetChecksumGenerator) throws IOException
     {
-        super(base.getDescription(), base.getContentType(), CompressionStatus.COMPRESSED, base.getLastModified(), compressContent(base), assetChecksumGenerator);
+        this(base, encodeContent(base, encoders), assetChecksumGenerator);
 
         assert base.getCompression() == CompressionStatus.COMPRESSABLE;
     }
 
-    private static BytestreamCache compressContent(StreamableResource resource) throws IOException
+    /**
+     * Creates a resource from previously encoded content.
+     *
+     * @param base
+     *         provides the description, content type and last modified time
+     * @param variants
+     *         maps content encoding to encoded content, in order of preference
+     * @param assetChecksumGenerator
+     */
+    CompressedStreamableResource(StreamableResource base, Map<String, BytestreamCache> variants, AssetChecksumGenerator assetChecksumGenerator)
+    {
+        super(base.getDescription(), base.getContentType(), CompressionStatus.COMPRESSED, base.getLastModified(), variants.get(primaryEncoding(variants)), assetChecksumGenerator);
+
+        this.variants = Collections.unmodifiableMap(variants);
+        this.primaryEncoding = primaryEncoding(variants);
+    }
+
+    private static String primaryEncoding(Map<String, BytestreamCache> variants)
+    {
+        assert !variants.isEmpty();
+
+        return variants.containsKey(InternalConstants.GZIP_CONTENT_ENCODING)
+                ? InternalConstants.GZIP_CONTENT_ENCODING
+                : variants.keySet().iterator().next();
+    }
+
+    private static Map<String, BytestreamCache> encodeContent(StreamableResource resource, List<ContentEncoder> encoders) throws IOException
+    {
+        Map<String, BytestreamCache> result = new LinkedHashMap<String, BytestreamCache>();
+
+        for (ContentEncoder encoder : encoders)
+        {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream(resource.getSize());
+            OutputStream os = new BufferedOutputStream(encoder.encode(encoded));
+
+            resource.streamTo(os);
+
+            os.close();
+
+            result.put(encoder.getContentEncoding(), new BytestreamCache(encoded));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the content encoding of the primary content.
+     */
+    public String getPrimaryEncoding()
     {
-        ByteArrayOutputStream compressed = new ByteArrayOutputStream(resource.getSize());
-        OutputStream compressor = new BufferedOutputStream(new GZIPOutputStream(compressed));
+        return primaryEncoding;
+    }
 
-        resource.streamTo(compressor);
+    /**
+     * Returns the encodings available, in order of preference.
+     */
+    public Set<String> getEncodings()
+    {
+        return variants.keySet();
+    }
 
-        compressor.close();
+    /**
+     * Returns the content for a particular encoding.
+     */
+    public BytestreamCache getVariant(String encoding)
+    {
+        return variants.get(encoding);
+    }
 
-        return new BytestreamCache(compressed);
+    Map<String, BytestreamCache> getVariants()
+    {
+        return variants;
     }
 }
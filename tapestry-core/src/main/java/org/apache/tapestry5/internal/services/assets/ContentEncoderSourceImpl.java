@@ -0,0 +1,123 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.internal.TapestryInternalUtils;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.assets.ContentEncoder;
+import org.apache.tapestry5.services.assets.ContentEncoderSource;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class ContentEncoderSourceImpl implements ContentEncoderSource
+{
+    private final List<ContentEncoder> encoders;
+
+    public ContentEncoderSourceImpl(List<ContentEncoder> configuration)
+    {
+        encoders = Collections.unmodifiableList(configuration);
+    }
+
+    public List<ContentEncoder> getEncoders()
+    {
+        return encoders;
+    }
+
+    public String selectEncoding(String acceptEncoding, Collection<String> available)
+    {
+        if (acceptEncoding == null)
+        {
+            return null;
+        }
+
+        Map<String, Float> qualities = parseAcceptEncoding(acceptEncoding);
+
+        Float wildcard = qualities.get("*");
+
+        String result = null;
+        float best = 0;
+
+        // Iterating in order of server preference means that ties are broken in favor of the preferred encoding.
+
+        for (ContentEncoder encoder : encoders)
+        {
+            String encoding = encoder.getContentEncoding();
+
+            if (!available.contains(encoding))
+            {
+                continue;
+            }
+
+            Float quality = qualities.get(encoding);
+
+            if (quality == null)
+            {
+                quality = wildcard;
+            }
+
+            if (quality != null && quality > best)
+            {
+                result = encoding;
+                best = quality;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses a header such as "gzip;q=1.0, br, *;q=0" into a map from (lower case) coding to quality.
+     */
+    private static Map<String, Float> parseAcceptEncoding(String acceptEncoding)
+    {
+        Map<String, Float> result = CollectionFactory.newMap();
+
+        for (String term : TapestryInternalUtils.splitAtCommas(acceptEncoding))
+        {
+            String[] parts = term.split(";");
+
+            String coding = parts[0].trim().toLowerCase();
+
+            if (coding.length() == 0)
+            {
+                continue;
+            }
+
+            float quality = 1;
+
+            for (int i = 1; i < parts.length; i++)
+            {
+                String parameter = parts[i].trim();
+
+                if (parameter.startsWith("q="))
+                {
+                    try
+                    {
+                        quality = Float.parseFloat(parameter.substring(2));
+                    } catch (NumberFormatException ex)
+                    {
+                        quality = 0;
+                    }
+                }
+            }
+
+            result.put(coding, quality);
+        }
+
+        return result;
+    }
+}
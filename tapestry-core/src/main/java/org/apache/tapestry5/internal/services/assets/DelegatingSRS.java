@@ -1,4 +1,4 @@
-// Copyright 2012 The Apache Software Foundation
+// Copyright 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import org.apache.tapestry5.services.assets.StreamableResourceProcessing;
 import org.apache.tapestry5.services.assets.StreamableResourceSource;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Set;
 
 /**
@@ -28,7 +29,7 @@ import java.util.Set;
  *
  * @since 5.4
  */
-public abstract class DelegatingSRS implements StreamableResourceSource
+public abstract class DelegatingSRS implements StreamableResourceSource, ProcessorDescriber
 {
     protected final StreamableResourceSource delegate;
 
@@ -37,6 +38,11 @@ public abstract class DelegatingSRS implements StreamableResourceSource
         this.delegate = delegate;
     }
 
+    public void describeProcessors(Collection<String> descriptions)
+    {
+        ProcessorDescriptions.describe(delegate, descriptions);
+    }
+
     public Set<String> fileExtensionsForContentType(String contentType)
     {
         return delegate.fileExtensionsForContentType(contentType);
@@ -0,0 +1,55 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.internal.InternalConstants;
+import org.apache.tapestry5.services.assets.ContentEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes content using GZip, at a configurable compression level.
+ *
+ * @since 5.4
+ */
+public class GZipContentEncoder implements ContentEncoder
+{
+    private final int level;
+
+    /**
+     * @param level
+     *         compression level, from 1 (fastest) to 9 (best compression)
+     */
+    public GZipContentEncoder(int level)
+    {
+        this.level = level;
+    }
+
+    public String getContentEncoding()
+    {
+        return InternalConstants.GZIP_CONTENT_ENCODING;
+    }
+
+    public OutputStream encode(OutputStream os) throws IOException
+    {
+        return new GZIPOutputStream(os)
+        {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+}
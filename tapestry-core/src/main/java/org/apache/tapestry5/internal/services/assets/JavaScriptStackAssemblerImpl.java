@@ -29,6 +29,8 @@ import org.apache.tapestry5.ioc.services.ThreadLocale;
 import org.apache.tapestry5.json.JSONArray;
 import org.apache.tapestry5.services.assets.AssetChecksumGenerator;
 import org.apache.tapestry5.services.assets.CompressionStatus;
+import org.apache.tapestry5.services.assets.ContentEncoder;
+import org.apache.tapestry5.services.assets.ContentEncoderSource;
 import org.apache.tapestry5.services.assets.StreamableResource;
 import org.apache.tapestry5.services.assets.StreamableResourceProcessing;
 import org.apache.tapestry5.services.assets.StreamableResourceSource;
@@ -49,18 +51,21 @@ public class JavaScriptStackAssemblerImpl implements JavaScriptStackAssembler
 
     private final AssetChecksumGenerator checksumGenerator;
 
+    private final ContentEncoderSource contentEncoderSource;
+
     private final Map<String, StreamableResource> cache = CollectionFactory.newCaseInsensitiveMap();
 
     // TODO: Support for minimization
     // TODO: Support for aggregated CSS as well as aggregated JavaScript
 
-    public JavaScriptStackAssemblerImpl(ThreadLocale threadLocale, ResourceChangeTracker resourceChangeTracker, StreamableResourceSource streamableResourceSource, JavaScriptStackSource stackSource, AssetChecksumGenerator checksumGenerator)
+    public JavaScriptStackAssemblerImpl(ThreadLocale threadLocale, ResourceChangeTracker resourceChangeTracker, StreamableResourceSource streamableResourceSource, JavaScriptStackSource stackSource, AssetChecksumGenerator checksumGenerator, ContentEncoderSource contentEncoderSource)
     {
         this.threadLocale = threadLocale;
         this.resourceChangeTracker = resourceChangeTracker;
         this.streamableResourceSource = streamableResourceSource;
         this.stackSource = stackSource;
         this.checksumGenerator = checksumGenerator;
+        this.contentEncoderSource = contentEncoderSource;
 
         resourceChangeTracker.clearOnInvalidation(cache);
     }
@@ -97,7 +102,13 @@ public class JavaScriptStackAssemblerImpl implements JavaScriptStackAssembler
         {
             StreamableResource uncompressed = assembleJavascriptResourceForStack(locale, stackName, false);
 
-            return new CompressedStreamableResource(uncompressed, checksumGenerator);
+            List<ContentEncoder> encoders = contentEncoderSource.getEncoders();
+
+            // Without any contributed encoders, there's no way to compress the content.
+
+            return encoders.isEmpty()
+                    ? uncompressed
+                    : new CompressedStreamableResource(uncompressed, encoders, checksumGenerator);
         }
 
         JavaScriptStack stack = stackSource.getStack(stackName);
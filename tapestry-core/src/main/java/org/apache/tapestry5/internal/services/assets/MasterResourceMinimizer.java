@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,10 +15,12 @@
 package org.apache.tapestry5.internal.services.assets;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 
 import org.apache.tapestry5.ioc.annotations.Marker;
 import org.apache.tapestry5.ioc.annotations.Primary;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.services.assets.ResourceMinimizer;
 import org.apache.tapestry5.services.assets.StreamableResource;
 
@@ -27,7 +29,7 @@ import org.apache.tapestry5.services.assets.StreamableResource;
  * resource.
  */
 @Marker(Primary.class)
-public class MasterResourceMinimizer implements ResourceMinimizer
+public class MasterResourceMinimizer implements ResourceMinimizer, ProcessorDescriber
 {
     private final Map<String, ResourceMinimizer> configuration;
 
@@ -36,6 +38,21 @@ public class MasterResourceMinimizer implements ResourceMinimizer
         this.configuration = configuration;
     }
 
+    public void describeProcessors(Collection<String> descriptions)
+    {
+        descriptions.addAll(ProcessorDescriptions.describe("minimizer", configuration));
+    }
+
+    /**
+     * Returns the descriptions of the contributed minimizers, one per line. This is how the
+     * {@link SRSMinimizingInterceptor} describes the minimizers, as it only sees the service proxy.
+     */
+    @Override
+    public String toString()
+    {
+        return InternalUtils.join(ProcessorDescriptions.describe("minimizer", configuration), "\n");
+    }
+
     /** Does nothing; an override of this service can be installed to provide minimization. */
     public StreamableResource minimize(StreamableResource resource) throws IOException
     {
@@ -0,0 +1,34 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import java.util.Collection;
+
+/**
+ * Implemented by the stages of the {@link org.apache.tapestry5.services.assets.StreamableResourceSource} pipeline,
+ * so that the {@link AssetDiskCache} can discard content processed by different
+ * {@link org.apache.tapestry5.services.assets.ResourceTransformer}s or
+ * {@link org.apache.tapestry5.services.assets.ResourceMinimizer}s.
+ *
+ * @since 5.4
+ */
+public interface ProcessorDescriber
+{
+    /**
+     * Adds a description of each processor used by this stage (and the stages it delegates to): typically, its key,
+     * implementation class, and the version of the library containing the class. The same processors must always
+     * produce the same descriptions, in the same order.
+     */
+    void describeProcessors(Collection<String> descriptions);
+}
@@ -0,0 +1,100 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Utilities for implementations of {@link ProcessorDescriber}.
+ *
+ * @since 5.4
+ */
+class ProcessorDescriptions
+{
+    /**
+     * Describes each contributed processor, in order by key.
+     *
+     * @param kind
+     *         identifies the kind of processor, i.e., "transformer" or "minimizer"
+     * @param processors
+     *         the contributed processors, keyed on file extension or content type
+     */
+    static List<String> describe(String kind, Map<String, ?> processors)
+    {
+        List<String> result = CollectionFactory.newList();
+
+        for (Map.Entry<String, ?> e : new TreeMap<String, Object>(processors).entrySet())
+        {
+            result.add(String.format("%s %s: %s", kind, e.getKey(), describeClass(e.getValue())));
+        }
+
+        return result;
+    }
+
+    /**
+     * Describes the processor using its own descriptions if it is a {@link ProcessorDescriber}, or else by its class.
+     */
+    static void describe(Object processor, Collection<String> descriptions)
+    {
+        if (processor instanceof ProcessorDescriber)
+        {
+            ((ProcessorDescriber) processor).describeProcessors(descriptions);
+        } else
+        {
+            descriptions.add(describeClass(processor));
+        }
+    }
+
+    /**
+     * Describes the object's class by name and the version of its library: the implementation version from the JAR
+     * manifest, or else the name of the JAR (which usually includes the version). Only the name is used (not the full
+     * path), as each node sharing a disk cache may have the JAR in a different location.
+     */
+    static String describeClass(Object processor)
+    {
+        Class clazz = processor.getClass();
+
+        Package p = clazz.getPackage();
+
+        String version = p == null ? null : p.getImplementationVersion();
+
+        if (version == null)
+        {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+
+            URL location = codeSource == null ? null : codeSource.getLocation();
+
+            if (location != null)
+            {
+                String path = location.getPath();
+
+                if (path.endsWith("/"))
+                {
+                    path = path.substring(0, path.length() - 1);
+                }
+
+                version = path.substring(path.lastIndexOf('/') + 1);
+            }
+        }
+
+        return version == null ? clazz.getName() : clazz.getName() + " " + version;
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2011, 2012 The Apache Software Foundation
+// Copyright 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,12 +15,16 @@
 package org.apache.tapestry5.internal.services.assets;
 
 import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.internal.event.InvalidationEventHubImpl;
 import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.annotations.IntermediateType;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
+import org.apache.tapestry5.ioc.services.FileWatcher;
+import org.apache.tapestry5.ioc.util.TimeInterval;
 import org.apache.tapestry5.services.UpdateListener;
 import org.apache.tapestry5.services.UpdateListenerHub;
 
@@ -37,6 +41,10 @@ public class ResourceChangeTrackerImpl extends InvalidationEventHubImpl implemen
     private final long fixedLastModifiedTime = Math.round(System.currentTimeMillis() / 1000d) * 1000L;
 
     public ResourceChangeTrackerImpl(ClasspathURLConverter classpathURLConverter,
+                                     FileWatcher fileWatcher,
+                                     @Symbol(SymbolConstants.FILE_CHECK_INTERVAL)
+                                     @IntermediateType(TimeInterval.class)
+                                     long checkInterval,
                                      @Symbol(SymbolConstants.PRODUCTION_MODE)
                                      boolean productionMode)
     {
@@ -45,7 +53,8 @@ public class ResourceChangeTrackerImpl extends InvalidationEventHubImpl implemen
         // Use granularity of seconds (not milliseconds) since that works properly
         // with response headers for identifying last modified. Don't track
         // folder changes, just changes to actual files.
-        tracker = productionMode ? null : new URLChangeTracker(classpathURLConverter, true, false);
+        tracker = productionMode ? null : new URLChangeTracker(classpathURLConverter, true, false,
+                TapestryInternalUtils.toTrackingFileWatcher(productionMode, checkInterval, fileWatcher));
     }
 
     @PostInjection
@@ -1,4 +1,4 @@
-// Copyright 2011, 2012 The Apache Software Foundation
+// Copyright 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,33 +14,44 @@
 
 package org.apache.tapestry5.internal.services.assets;
 
-import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.ioc.Resource;
-import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.services.assets.ResourceDependencies;
 import org.apache.tapestry5.services.assets.StreamableResource;
 import org.apache.tapestry5.services.assets.StreamableResourceProcessing;
 import org.apache.tapestry5.services.assets.StreamableResourceSource;
 
 import java.io.IOException;
-import java.lang.ref.SoftReference;
-import java.util.Map;
 
 /**
- * An interceptor for the {@link StreamableResourceSource} service that handles caching of content.
+ * An interceptor for the {@link StreamableResourceSource} service that handles caching of content, in a
+ * {@link StreamableResourceCache}.
  */
 public class SRSCachingInterceptor extends DelegatingSRS
 {
-    private final Map<Resource, SoftReference<StreamableResource>> cache = CollectionFactory.newConcurrentMap();
+    private final StreamableResourceCache cache;
 
-    public SRSCachingInterceptor(StreamableResourceSource delegate, ResourceChangeTracker tracker)
+    private final AssetStorage storage;
+
+    public SRSCachingInterceptor(StreamableResourceSource delegate, StreamableResourceCache cache,
+                                 AssetStorage storage, ResourceChangeTracker tracker)
     {
         super(delegate);
 
-        tracker.clearOnInvalidation(cache);
+        this.cache = cache;
+        this.storage = storage;
+
+        tracker.addInvalidationCallback(new Runnable()
+        {
+            public void run()
+            {
+                SRSCachingInterceptor.this.cache.clear();
+            }
+        });
     }
 
-    public StreamableResource getStreamableResource(Resource baseResource, StreamableResourceProcessing processing, ResourceDependencies dependencies)
+    public StreamableResource getStreamableResource(final Resource baseResource,
+                                                    final StreamableResourceProcessing processing,
+                                                    final ResourceDependencies dependencies)
             throws IOException
     {
         if (!enableCache(processing))
@@ -48,21 +59,29 @@ public class SRSCachingInterceptor extends DelegatingSRS
             return delegate.getStreamableResource(baseResource, processing, dependencies);
         }
 
-        StreamableResource result = TapestryInternalUtils.getAndDeref(cache, baseResource);
-
-        if (result == null)
+        return cache.get(baseResource, new StreamableResourceCache.Loader()
         {
-            result = delegate.getStreamableResource(baseResource, processing, dependencies);
+            public StreamableResource load() throws IOException
+            {
+                StreamableResource resource = delegate.getStreamableResource(baseResource, processing, dependencies);
 
-            if (isCacheable(result))
+                // Only content that will be cached is worth moving to the configured storage.
+
+                return SRSCachingInterceptor.this.isCacheable(resource) ? storage.store(resource) : resource;
+            }
+
+            public boolean isCacheable(StreamableResource resource)
             {
+                if (!SRSCachingInterceptor.this.isCacheable(resource))
+                {
+                    return false;
+                }
+
                 dependencies.addDependency(baseResource);
 
-                cache.put(baseResource, new SoftReference<StreamableResource>(result));
+                return true;
             }
-        }
-
-        return result;
+        });
     }
 
     /**
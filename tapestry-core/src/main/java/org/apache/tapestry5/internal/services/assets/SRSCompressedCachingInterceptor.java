@@ -1,4 +1,4 @@
-// Copyright 2011, 2012 The Apache Software Foundation
+// Copyright 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -25,9 +25,10 @@ import org.apache.tapestry5.services.assets.StreamableResourceSource;
  */
 public class SRSCompressedCachingInterceptor extends SRSCachingInterceptor
 {
-    public SRSCompressedCachingInterceptor(StreamableResourceSource delegate, ResourceChangeTracker tracker)
+    public SRSCompressedCachingInterceptor(StreamableResourceSource delegate, StreamableResourceCache cache,
+                                           AssetStorage storage, ResourceChangeTracker tracker)
     {
-        super(delegate, tracker);
+        super(delegate, cache, storage, tracker);
     }
 
     /**
@@ -18,6 +18,7 @@ import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.services.assets.*;
 
 import java.io.IOException;
+import java.util.List;
 
 public class SRSCompressingInterceptor extends DelegatingSRS
 {
@@ -25,11 +26,15 @@ public class SRSCompressingInterceptor extends DelegatingSRS
 
     private final AssetChecksumGenerator checksumGenerator;
 
-    public SRSCompressingInterceptor(StreamableResourceSource delegate, int compressionCutoff, AssetChecksumGenerator checksumGenerator)
+    private final ContentEncoderSource contentEncoderSource;
+
+    public SRSCompressingInterceptor(StreamableResourceSource delegate, int compressionCutoff, AssetChecksumGenerator checksumGenerator,
+                                     ContentEncoderSource contentEncoderSource)
     {
         super(delegate);
         this.compressionCutoff = compressionCutoff;
         this.checksumGenerator = checksumGenerator;
+        this.contentEncoderSource = contentEncoderSource;
     }
 
     public StreamableResource getStreamableResource(Resource baseResource, StreamableResourceProcessing processing, ResourceDependencies dependencies)
@@ -57,6 +62,15 @@ public class SRSCompressingInterceptor extends DelegatingSRS
             return uncompressed;
         }
 
-        return new CompressedStreamableResource(uncompressed, checksumGenerator);
+        List<ContentEncoder> encoders = contentEncoderSource.getEncoders();
+
+        // Without any contributed encoders, there's no way to compress the content.
+
+        if (encoders.isEmpty())
+        {
+            return uncompressed;
+        }
+
+        return new CompressedStreamableResource(uncompressed, encoders, checksumGenerator);
     }
 }
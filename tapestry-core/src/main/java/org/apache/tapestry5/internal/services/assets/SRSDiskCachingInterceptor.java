@@ -0,0 +1,112 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.assets.CompressionStatus;
+import org.apache.tapestry5.services.assets.ResourceDependencies;
+import org.apache.tapestry5.services.assets.StreamableResource;
+import org.apache.tapestry5.services.assets.StreamableResourceProcessing;
+import org.apache.tapestry5.services.assets.StreamableResourceSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An interceptor for the {@link StreamableResourceSource} service that stores processed content in the
+ * {@link AssetDiskCache}, so that it is available, without being transformed or minimized again, after a restart.
+ * It is positioned just inside the in-memory cache of uncompressed content ({@link SRSCachingInterceptor}), so it is
+ * only consulted on a miss; compressed content is derived from it, as needed.
+ *
+ * @since 5.4
+ */
+public class SRSDiskCachingInterceptor extends DelegatingSRS
+{
+    private final AssetDiskCache diskCache;
+
+    /**
+     * Resources whose content turned out not to be cacheable, so there's no point computing their keys again.
+     */
+    private final Map<Resource, Boolean> uncacheable = CollectionFactory.newConcurrentMap();
+
+    public SRSDiskCachingInterceptor(StreamableResourceSource delegate, AssetDiskCache diskCache,
+                                     ResourceChangeTracker tracker)
+    {
+        super(delegate);
+
+        this.diskCache = diskCache;
+
+        tracker.clearOnInvalidation(uncacheable);
+    }
+
+    public StreamableResource getStreamableResource(Resource baseResource, StreamableResourceProcessing processing,
+                                                    final ResourceDependencies dependencies) throws IOException
+    {
+        if (!enableCache(processing) || uncacheable.containsKey(baseResource))
+        {
+            return delegate.getStreamableResource(baseResource, processing, dependencies);
+        }
+
+        String key = diskCache.computeKey(baseResource);
+
+        StreamableResource stored = diskCache.read(key, baseResource, dependencies);
+
+        if (stored != null)
+        {
+            return stored;
+        }
+
+        final List<Resource> recorded = CollectionFactory.newList();
+
+        StreamableResource result = delegate.getStreamableResource(baseResource, processing, new ResourceDependencies()
+        {
+            public void addDependency(Resource dependency)
+            {
+                recorded.add(dependency);
+
+                dependencies.addDependency(dependency);
+            }
+        });
+
+        if (isCacheable(result))
+        {
+            diskCache.write(key, baseResource, result, recorded);
+        } else
+        {
+            uncacheable.put(baseResource, true);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns true if the resource is compressable; other content (such as images) is not transformed or minimized,
+     * so there's nothing to be gained by storing it. Subclasses may override.
+     */
+    protected boolean isCacheable(StreamableResource resource)
+    {
+        return resource.getCompression() != CompressionStatus.NOT_COMPRESSABLE;
+    }
+
+    /**
+     * Returns true unless the processing is {@link StreamableResourceProcessing#FOR_AGGREGATION}. Subclasses may
+     * override.
+     */
+    protected boolean enableCache(StreamableResourceProcessing processing)
+    {
+        return processing != StreamableResourceProcessing.FOR_AGGREGATION;
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2011, 2012 The Apache Software Foundation
+// Copyright 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.services.assets.*;
 
 import java.io.IOException;
+import java.util.Collection;
 
 /**
  * Loops the result through the {@link ResourceMinimizer} service.
@@ -26,10 +27,36 @@ public class SRSMinimizingInterceptor extends DelegatingSRS
 {
     private final ResourceMinimizer minimizer;
 
-    public SRSMinimizingInterceptor(StreamableResourceSource delegate, ResourceMinimizer minimizer)
+    private final boolean master;
+
+    /**
+     * @param delegate
+     *         provides the content to minimize
+     * @param minimizer
+     *         the minimizer to use
+     * @param master
+     *         if true, the minimizer is the proxy for the master {@link ResourceMinimizer} service (rather than an
+     *         override), which describes its contributed minimizers via {@link Object#toString()}
+     */
+    public SRSMinimizingInterceptor(StreamableResourceSource delegate, ResourceMinimizer minimizer, boolean master)
     {
         super(delegate);
         this.minimizer = minimizer;
+        this.master = master;
+    }
+
+    @Override
+    public void describeProcessors(Collection<String> descriptions)
+    {
+        super.describeProcessors(descriptions);
+
+        if (master)
+        {
+            descriptions.add(minimizer.toString());
+        } else
+        {
+            descriptions.add("minimizer: " + ProcessorDescriptions.describeClass(minimizer));
+        }
     }
 
     public StreamableResource getStreamableResource(Resource baseResource, StreamableResourceProcessing processing, ResourceDependencies dependencies)
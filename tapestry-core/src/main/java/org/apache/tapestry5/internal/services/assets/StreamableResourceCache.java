@@ -0,0 +1,406 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.assets.StreamableResource;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache of {@link StreamableResource}s, bounded by the total {@linkplain StreamableResource#getSize() size} of the
+ * cached content. Eviction is segmented LRU: new entries go into a <em>probationary</em> segment, and are promoted to a
+ * <em>protected</em> segment (limited to 80% of the budget) when accessed again; entries are evicted from the
+ * probationary segment first, so a burst of one-off resources can not flush out the frequently used ones.
+ * <p/>
+ * Loading is single-flight: when several threads miss on the same resource at the same time, only one of them
+ * loads it (that is, reads, minimizes and compresses it); the others wait for, and share, the result.
+ * <p/>
+ * Lookups of cached entries are lock-free; recording an access (for the LRU ordering) is skipped when another thread
+ * is updating the ordering, so the ordering is approximate under heavy load.
+ *
+ * @since 5.4
+ */
+public class StreamableResourceCache
+{
+    /**
+     * Loads a resource on a cache miss.
+     */
+    public interface Loader
+    {
+        StreamableResource load() throws IOException;
+
+        /**
+         * Returns true if the loaded resource should be stored in the cache.
+         */
+        boolean isCacheable(StreamableResource resource);
+    }
+
+    private static class Entry
+    {
+        final Resource key;
+
+        final StreamableResource value;
+
+        final int size;
+
+        boolean protectedSegment;
+
+        Entry(Resource key, StreamableResource value)
+        {
+            this.key = key;
+            this.value = value;
+            this.size = value.getSize();
+        }
+    }
+
+    private final String name;
+
+    private final long maxSize;
+
+    private final long maxProtectedSize;
+
+    private final Map<Resource, Entry> entries = CollectionFactory.newConcurrentMap();
+
+    private final ConcurrentMap<Resource, FutureTask<StreamableResource>> loads = CollectionFactory.newConcurrentMap();
+
+    /**
+     * Guards the segments, the sizes, and changes to {@link #generation}.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    // Both segments are in LRU order: least recently used first.
+
+    private final LinkedHashMap<Resource, Entry> probationary = new LinkedHashMap<Resource, Entry>();
+
+    private final LinkedHashMap<Resource, Entry> protectedEntries = new LinkedHashMap<Resource, Entry>();
+
+    private long size, protectedSize;
+
+    /**
+     * Incremented on each {@link #clear()}, so that a load that started before the clear does not store its (possibly
+     * out of date) result.
+     */
+    private volatile int generation;
+
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+
+    /**
+     * @param name
+     *         identifies the cache in reports
+     * @param maxSize
+     *         maximum total size, in bytes, of cached content
+     */
+    public StreamableResourceCache(String name, long maxSize)
+    {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.maxProtectedSize = maxSize * 4 / 5;
+    }
+
+    /**
+     * Returns the cached resource, or obtains it from the loader (storing it in the cache, if cacheable).
+     */
+    public StreamableResource get(Resource key, Loader loader) throws IOException
+    {
+        Entry entry = entries.get(key);
+
+        if (entry != null)
+        {
+            hits.incrementAndGet();
+
+            recordAccess(entry);
+
+            return entry.value;
+        }
+
+        misses.incrementAndGet();
+
+        return load(key, loader);
+    }
+
+    private StreamableResource load(final Resource key, final Loader loader) throws IOException
+    {
+        final int startGeneration = generation;
+
+        FutureTask<StreamableResource> task = new FutureTask<StreamableResource>(new Callable<StreamableResource>()
+        {
+            public StreamableResource call() throws Exception
+            {
+                StreamableResource result = loader.load();
+
+                if (loader.isCacheable(result))
+                {
+                    store(key, result, startGeneration);
+                }
+
+                return result;
+            }
+        });
+
+        FutureTask<StreamableResource> existing = loads.putIfAbsent(key, task);
+
+        if (existing == null)
+        {
+            try
+            {
+                task.run();
+            } finally
+            {
+                loads.remove(key);
+            }
+        } else
+        {
+            task = existing;
+        }
+
+        try
+        {
+            return task.get();
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IOException(String.format("Interrupted while waiting for %s to be loaded.", key));
+        } catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void store(Resource key, StreamableResource value, int startGeneration)
+    {
+        Entry entry = new Entry(key, value);
+
+        // Content that would consume the entire budget is not worth caching.
+
+        if (entry.size > maxSize)
+        {
+            return;
+        }
+
+        lock.lock();
+
+        try
+        {
+            if (generation != startGeneration)
+            {
+                return;
+            }
+
+            Entry replaced = probationary.remove(key);
+
+            if (replaced == null)
+            {
+                replaced = protectedEntries.remove(key);
+            }
+
+            if (replaced != null)
+            {
+                removed(replaced);
+            }
+
+            probationary.put(key, entry);
+            size += entry.size;
+            entries.put(key, entry);
+
+            evict();
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void recordAccess(Entry entry)
+    {
+        if (!lock.tryLock())
+        {
+            return;
+        }
+
+        try
+        {
+            if (entry.protectedSegment)
+            {
+                // Move to the most-recently-used end.
+
+                if (protectedEntries.remove(entry.key) == entry)
+                {
+                    protectedEntries.put(entry.key, entry);
+                }
+
+                return;
+            }
+
+            if (probationary.remove(entry.key) != entry)
+            {
+                // Evicted or replaced by another thread.
+
+                return;
+            }
+
+            entry.protectedSegment = true;
+            protectedEntries.put(entry.key, entry);
+            protectedSize += entry.size;
+
+            // Demote the least recently used protected entries back to probation, to make room.
+
+            Iterator<Entry> iterator = protectedEntries.values().iterator();
+
+            while (protectedSize > maxProtectedSize && iterator.hasNext())
+            {
+                Entry demoted = iterator.next();
+
+                iterator.remove();
+
+                demoted.protectedSegment = false;
+                protectedSize -= demoted.size;
+
+                probationary.put(demoted.key, demoted);
+            }
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts entries, least recently used probationary entries first, until the cache is within budget.
+     */
+    private void evict()
+    {
+        evict(probationary);
+        evict(protectedEntries);
+    }
+
+    private void evict(LinkedHashMap<Resource, Entry> segment)
+    {
+        Iterator<Entry> iterator = segment.values().iterator();
+
+        while (size > maxSize && iterator.hasNext())
+        {
+            Entry victim = iterator.next();
+
+            iterator.remove();
+
+            removed(victim);
+
+            entries.remove(victim.key);
+
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void removed(Entry entry)
+    {
+        size -= entry.size;
+
+        if (entry.protectedSegment)
+        {
+            protectedSize -= entry.size;
+        }
+    }
+
+    /**
+     * Discards all cached content (but not the statistics).
+     */
+    public void clear()
+    {
+        lock.lock();
+
+        try
+        {
+            generation++;
+
+            entries.clear();
+            probationary.clear();
+            protectedEntries.clear();
+
+            size = 0;
+            protectedSize = 0;
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Total size, in bytes, of the cached content.
+     */
+    public long getSize()
+    {
+        lock.lock();
+
+        try
+        {
+            return size;
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int getEntryCount()
+    {
+        return entries.size();
+    }
+
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    public long getEvictionCount()
+    {
+        return evictions.get();
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2011, 2012 The Apache Software Foundation
+// Copyright 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -22,10 +22,11 @@ import org.apache.tapestry5.services.assets.*;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
-public class StreamableResourceSourceImpl implements StreamableResourceSource
+public class StreamableResourceSourceImpl implements StreamableResourceSource, ProcessorDescriber
 {
     private final Map<String, ResourceTransformer> configuration;
 
@@ -48,6 +49,11 @@ public class StreamableResourceSourceImpl implements StreamableResourceSource
         this.checksumGenerator = checksumGenerator;
     }
 
+    public void describeProcessors(Collection<String> descriptions)
+    {
+        descriptions.addAll(ProcessorDescriptions.describe("transformer", configuration));
+    }
+
     public Set<String> fileExtensionsForContentType(String contentType)
     {
         Set<String> result = CollectionFactory.newSet();
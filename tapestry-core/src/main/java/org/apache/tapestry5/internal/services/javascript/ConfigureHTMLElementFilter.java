@@ -1,4 +1,4 @@
-// Copyright 2012 The Apache Software Foundation
+// Copyright 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,11 +16,14 @@ package org.apache.tapestry5.internal.services.javascript;
 
 import org.apache.tapestry5.MarkupWriter;
 import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.dom.Document;
 import org.apache.tapestry5.dom.Element;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.services.ThreadLocale;
+import org.apache.tapestry5.services.Environment;
 import org.apache.tapestry5.services.MarkupRenderer;
 import org.apache.tapestry5.services.MarkupRendererFilter;
+import org.apache.tapestry5.services.StreamingRenderSupport;
 
 /**
  * Responsible for writing attributes needed to configure the client, into the
@@ -32,21 +35,48 @@ public class ConfigureHTMLElementFilter implements MarkupRendererFilter
 {
     private final ThreadLocale threadLocale;
 
+    private final Environment environment;
+
     private final boolean debugEnabled;
 
-    public ConfigureHTMLElementFilter(ThreadLocale threadLocale, @Symbol(SymbolConstants.PRODUCTION_MODE) boolean productionMode)
+    public ConfigureHTMLElementFilter(ThreadLocale threadLocale, Environment environment, @Symbol(SymbolConstants.PRODUCTION_MODE) boolean productionMode)
     {
         this.threadLocale = threadLocale;
+        this.environment = environment;
         this.debugEnabled = !productionMode;
     }
 
-    public void renderMarkup(MarkupWriter writer, MarkupRenderer renderer)
+    public void renderMarkup(final MarkupWriter writer, MarkupRenderer renderer)
     {
+        StreamingRenderSupport streaming = environment.peek(StreamingRenderSupport.class);
+
+        if (streaming != null)
+        {
+            // The <html> start tag will be written before rendering completes.
+
+            streaming.beforeCommit(new Runnable()
+            {
+                public void run()
+                {
+                    configureHTMLElement(writer.getDocument());
+                }
+            });
+
+            renderer.renderMarkup(writer);
+
+            return;
+        }
+
         renderer.renderMarkup(writer);
 
         // After that's done (i.e., pretty much all rendering), touch it up a little.
 
-        Element html = writer.getDocument().find("html");
+        configureHTMLElement(writer.getDocument());
+    }
+
+    private void configureHTMLElement(Document document)
+    {
+        Element html = document.find("html");
 
         // If it is an HTML document, with a root HTML node, add attributes
         // to describe locale, and if debug is enabled.
@@ -0,0 +1,91 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.transform;
+
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.runtime.ComponentEvent;
+
+import java.util.Map;
+
+/**
+ * Maps the event types and component ids handled by a single component class to consecutive indexes. The
+ * {@link org.apache.tapestry5.runtime.Component#dispatchComponentEvent(ComponentEvent)} implementation provided by
+ * {@link OnEventWorker} looks up the index for the event, then switches directly to the event handler methods for
+ * that combination of event type and component id. The table is populated as the class is transformed, and only read
+ * afterwards.
+ *
+ * @since 5.4
+ */
+public class EventDispatchTable
+{
+    /**
+     * Event type to component id to index; the empty component id is for events from any other component (or from the
+     * component itself).
+     */
+    private final Map<String, Map<String, Integer>> indexes = CollectionFactory.newMap();
+
+    private int size;
+
+    /**
+     * Adds a combination of event type and component id (both already in lower case), returning its index.
+     */
+    int add(String eventTypeKey, String componentIdKey)
+    {
+        Map<String, Integer> componentIdToIndex = indexes.get(eventTypeKey);
+
+        if (componentIdToIndex == null)
+        {
+            componentIdToIndex = CollectionFactory.newMap();
+
+            indexes.put(eventTypeKey, componentIdToIndex);
+        }
+
+        int index = size++;
+
+        componentIdToIndex.put(componentIdKey, index);
+
+        return index;
+    }
+
+    /**
+     * Returns the number of indexes.
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the index for the event, or -1 if the class has no event handler methods for the event.
+     */
+    public int indexOf(ComponentEvent event)
+    {
+        Map<String, Integer> componentIdToIndex = indexes.get(event.getEventTypeKey());
+
+        if (componentIdToIndex == null)
+        {
+            return -1;
+        }
+
+        Integer index = componentIdToIndex.get(event.getComponentIdKey());
+
+        if (index == null)
+        {
+            index = componentIdToIndex.get("");
+        }
+
+        return index == null ? -1 : index;
+    }
+}
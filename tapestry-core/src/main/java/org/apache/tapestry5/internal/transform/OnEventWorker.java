@@ -42,7 +42,9 @@ import org.apache.tapestry5.services.transform.TransformationSupport;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Provides implementations of the
@@ -128,6 +130,16 @@ public class OnEventWorker implements ComponentClassTransformWorker2
 
         final String eventType, componentId;
 
+        /**
+         * Event type and component id converted to lower case, for the {@link EventDispatchTable}.
+         */
+        final String eventTypeKey, componentIdKey;
+
+        /**
+         * Introduced on first use; the invocation may be generated more than once.
+         */
+        private PlasticField sourceField;
+
         final EventHandlerMethodParameterSource parameterSource;
 
         int minContextValues = 0;
@@ -147,16 +159,21 @@ public class OnEventWorker implements ComponentClassTransformWorker2
 
             eventType = extractEventType(methodName, onEvent);
             componentId = extractComponentId(methodName, onEvent);
+            eventTypeKey = eventType.toLowerCase(Locale.ENGLISH);
+            componentIdKey = componentId.toLowerCase(Locale.ENGLISH);
         }
 
         void buildMatchAndInvocation(InstructionBuilder builder, final LocalVariable resultVariable)
         {
-            final PlasticField sourceField =
-                    parameterSource == null ? null
-                            : method.getPlasticClass().introduceField(EventHandlerMethodParameterSource.class, description.methodName + "$parameterSource").inject(parameterSource);
+            if (sourceField == null && parameterSource != null)
+            {
+                sourceField = method.getPlasticClass().introduceField(EventHandlerMethodParameterSource.class, description.methodName + "$parameterSource").inject(parameterSource);
+            }
+
+            // The event type and component id have already been matched, by the dispatch table.
 
-            builder.loadArgument(0).loadConstant(eventType).loadConstant(componentId).loadConstant(minContextValues);
-            builder.invoke(ComponentEvent.class, boolean.class, "matches", String.class, String.class, int.class);
+            builder.loadArgument(0).loadConstant(minContextValues);
+            builder.invoke(ComponentEvent.class, boolean.class, "matchesParameterCount", int.class);
 
             builder.when(Condition.NON_ZERO, new InstructionBuilderCallback()
             {
@@ -356,13 +373,68 @@ public class OnEventWorker implements ComponentClassTransformWorker2
 
     private void implementDispatchMethod(final PlasticClass plasticClass, final boolean isRoot, final MutableComponentModel model, final Flow<EventHandlerMethod> eventHandlerMethods)
     {
+        // Each case of the dispatch switch is the methods, in order, for an event type and a specific component id
+        // (which includes the methods for any component), or for an event type from any other component.
+
+        EventDispatchTable table = new EventDispatchTable();
+
+        final List<List<EventHandlerMethod>> cases = CollectionFactory.newList();
+
+        Map<String, List<EventHandlerMethod>> eventTypeToMethods = CollectionFactory.newMap();
+
+        for (EventHandlerMethod method : eventHandlerMethods)
+        {
+            List<EventHandlerMethod> methods = eventTypeToMethods.get(method.eventTypeKey);
+
+            if (methods == null)
+            {
+                methods = CollectionFactory.newList();
+                eventTypeToMethods.put(method.eventTypeKey, methods);
+            }
+
+            methods.add(method);
+
+            model.addEventHandler(method.eventType);
+
+            if (method.handleActivationEventContext)
+                model.doHandleActivationEventContext();
+        }
+
+        for (Map.Entry<String, List<EventHandlerMethod>> e : eventTypeToMethods.entrySet())
+        {
+            Set<String> componentIdKeys = CollectionFactory.newSet();
+
+            for (EventHandlerMethod method : e.getValue())
+            {
+                componentIdKeys.add(method.componentIdKey);
+            }
+
+            for (String componentIdKey : componentIdKeys)
+            {
+                List<EventHandlerMethod> methods = CollectionFactory.newList();
+
+                for (EventHandlerMethod method : e.getValue())
+                {
+                    if (method.componentIdKey.equals(componentIdKey) || method.componentIdKey.equals(""))
+                    {
+                        methods.add(method);
+                    }
+                }
+
+                table.add(e.getKey(), componentIdKey);
+                cases.add(methods);
+            }
+        }
+
+        final PlasticField tableField = plasticClass.introduceField(EventDispatchTable.class, "eventDispatchTable").inject(table);
+
         plasticClass.introduceMethod(TransformConstants.DISPATCH_COMPONENT_EVENT_DESCRIPTION).changeImplementation(new InstructionBuilderCallback()
         {
             public void doBuild(InstructionBuilder builder)
             {
                 builder.startVariable("boolean", new LocalVariableCallback()
                 {
-                    public void doBuild(LocalVariable resultVariable, InstructionBuilder builder)
+                    public void doBuild(final LocalVariable resultVariable, InstructionBuilder builder)
                     {
                         if (!isRoot)
                         {
@@ -380,15 +452,41 @@ public class OnEventWorker implements ComponentClassTransformWorker2
                             builder.loadConstant(false).storeVariable(resultVariable);
                         }
 
-                        for (EventHandlerMethod method : eventHandlerMethods)
-                        {
-                            method.buildMatchAndInvocation(builder, resultVariable);
+                        // Jump straight to the methods for the event's type and component id, if any.
 
-                            model.addEventHandler(method.eventType);
+                        builder.loadThis().getField(tableField).loadArgument(0);
+                        builder.invoke(EventDispatchTable.class, int.class, "indexOf", ComponentEvent.class);
 
-							if (method.handleActivationEventContext)
-								model.doHandleActivationEventContext();
-                        }
+                        builder.startSwitch(0, cases.size() - 1, new SwitchCallback()
+                        {
+                            public void doSwitch(SwitchBlock block)
+                            {
+                                for (int i = 0; i < cases.size(); i++)
+                                {
+                                    final List<EventHandlerMethod> methods = cases.get(i);
+
+                                    block.addCase(i, true, new InstructionBuilderCallback()
+                                    {
+                                        public void doBuild(InstructionBuilder builder)
+                                        {
+                                            for (EventHandlerMethod method : methods)
+                                            {
+                                                method.buildMatchAndInvocation(builder, resultVariable);
+                                            }
+                                        }
+                                    });
+                                }
+
+                                // -1: no methods for the event.
+
+                                block.addDefault(new InstructionBuilderCallback()
+                                {
+                                    public void doBuild(InstructionBuilder builder)
+                                    {
+                                    }
+                                });
+                            }
+                        });
 
                         builder.loadVariable(resultVariable).returnResult();
                     }
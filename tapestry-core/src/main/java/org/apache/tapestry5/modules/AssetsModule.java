@@ -22,13 +22,16 @@ import org.apache.tapestry5.internal.services.assets.*;
 import org.apache.tapestry5.internal.services.messages.ClientLocalizationMessageResource;
 import org.apache.tapestry5.ioc.*;
 import org.apache.tapestry5.ioc.annotations.*;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.ioc.services.FactoryDefaults;
+import org.apache.tapestry5.ioc.services.SymbolSource;
 import org.apache.tapestry5.ioc.services.SymbolProvider;
 import org.apache.tapestry5.services.*;
 import org.apache.tapestry5.services.assets.*;
 import org.apache.tapestry5.services.messages.ComponentMessagesSource;
 
 import java.util.Map;
+import java.util.zip.Deflater;
 
 /**
  * @since 5.3
@@ -50,6 +53,9 @@ public class AssetsModule
         binder.bind(ResourceMinimizer.class, MasterResourceMinimizer.class);
         binder.bind(AssetChecksumGenerator.class, AssetChecksumGeneratorImpl.class);
         binder.bind(JavaScriptStackAssembler.class, JavaScriptStackAssemblerImpl.class);
+        binder.bind(AssetCacheManager.class, AssetCacheManagerImpl.class);
+        binder.bind(AssetStorage.class, AssetStorageImpl.class);
+        binder.bind(ContentEncoderSource.class, ContentEncoderSourceImpl.class);
     }
 
     @Contribute(AssetSource.class)
@@ -75,11 +81,30 @@ public class AssetsModule
         configuration.add(SymbolConstants.GZIP_COMPRESSION_ENABLED, true);
         configuration.add(SymbolConstants.COMBINE_SCRIPTS, SymbolConstants.PRODUCTION_MODE_VALUE);
         configuration.add(SymbolConstants.ASSET_URL_FULL_QUALIFIED, false);
+        configuration.add(SymbolConstants.ASSET_CACHE_SIZE, 16 * 1024 * 1024);
+        configuration.add(SymbolConstants.ASSET_STORAGE, "heap");
+        configuration.add(SymbolConstants.ASSET_STORAGE_DIR, "${java.io.tmpdir}/tapestry-assets");
+        configuration.add(SymbolConstants.ASSET_DISK_CACHE_DIR, "");
+        configuration.add(SymbolConstants.ASSET_GZIP_COMPRESSION_LEVEL, Deflater.BEST_COMPRESSION);
 
         configuration.add(SymbolConstants.ASSET_PATH_PREFIX, "asset");
         configuration.add(SymbolConstants.COMPRESSED_ASSET_PATH_PREFIX, "${tapestry.asset-path-prefix}.gz");
     }
 
+    /**
+     * Contributes the "GZip" {@link ContentEncoder}, which compresses at the level defined by the
+     * {@link SymbolConstants#ASSET_GZIP_COMPRESSION_LEVEL} symbol.
+     *
+     * @since 5.4
+     */
+    @Contribute(ContentEncoderSource.class)
+    public static void provideGZipContentEncoder(OrderedConfiguration<ContentEncoder> configuration,
+                                                 @Symbol(SymbolConstants.ASSET_GZIP_COMPRESSION_LEVEL)
+                                                 int level)
+    {
+        configuration.add("GZip", new GZipContentEncoder(level));
+    }
+
     // The use of decorators is to allow third-parties to get their own extensions
     // into the pipeline.
 
@@ -88,10 +113,11 @@ public class AssetsModule
                                                       @Symbol(SymbolConstants.GZIP_COMPRESSION_ENABLED)
                                                       boolean gzipEnabled, @Symbol(SymbolConstants.MIN_GZIP_SIZE)
                                                       int compressionCutoff,
-                                                      AssetChecksumGenerator checksumGenerator)
+                                                      AssetChecksumGenerator checksumGenerator,
+                                                      ContentEncoderSource contentEncoderSource)
     {
         return gzipEnabled
-                ? new SRSCompressingInterceptor(delegate, compressionCutoff, checksumGenerator)
+                ? new SRSCompressingInterceptor(delegate, compressionCutoff, checksumGenerator, contentEncoderSource)
                 : null;
     }
 
@@ -99,30 +125,58 @@ public class AssetsModule
     @Order("before:GZIpCompression")
     public StreamableResourceSource enableCompressedCaching(StreamableResourceSource delegate,
                                                             @Symbol(SymbolConstants.GZIP_COMPRESSION_ENABLED)
-                                                            boolean gzipEnabled, ResourceChangeTracker tracker)
+                                                            boolean gzipEnabled, ResourceChangeTracker tracker,
+                                                            AssetCacheManager cacheManager, AssetStorage storage)
     {
         return gzipEnabled
-                ? new SRSCompressedCachingInterceptor(delegate, tracker)
+                ? new SRSCompressedCachingInterceptor(delegate, cacheManager.createCache("Compressed"), storage, tracker)
                 : null;
     }
 
     @Decorate(id = "Cache", serviceInterface = StreamableResourceSource.class)
     @Order("after:GZipCompression")
     public StreamableResourceSource enableUncompressedCaching(StreamableResourceSource delegate,
-                                                              ResourceChangeTracker tracker)
+                                                              ResourceChangeTracker tracker,
+                                                              AssetCacheManager cacheManager, AssetStorage storage)
     {
-        return new SRSCachingInterceptor(delegate, tracker);
+        return new SRSCachingInterceptor(delegate, cacheManager.createCache("Uncompressed"), storage, tracker);
+    }
+
+    // Between the uncompressed cache and minification, so that it is only consulted on a cache miss, and
+    // stores the minified version.
+    @Decorate(id = "DiskCache", serviceInterface = StreamableResourceSource.class)
+    @Order({"after:Cache", "before:Minification"})
+    public StreamableResourceSource enableDiskCaching(StreamableResourceSource delegate,
+                                                      @Symbol(SymbolConstants.ASSET_DISK_CACHE_DIR)
+                                                      String diskCacheDir,
+                                                      LoggerSource loggerSource, SymbolSource symbolSource,
+                                                      ResourceChangeTracker tracker,
+                                                      AssetChecksumGenerator checksumGenerator)
+    {
+        if (InternalUtils.isBlank(diskCacheDir))
+        {
+            return null;
+        }
+
+        // The delegate describes the transformers and minimizers, so that content they would process differently
+        // is discarded.
+        AssetDiskCache diskCache = new AssetDiskCacheImpl(loggerSource.getLogger(AssetDiskCache.class), diskCacheDir,
+                symbolSource, tracker, checksumGenerator, delegate);
+
+        return new SRSDiskCachingInterceptor(delegate, diskCache, tracker);
     }
 
     // Goes after cache, to ensure that what we are caching is the minified version.
     @Decorate(id = "Minification", serviceInterface = StreamableResourceSource.class)
     @Order("after:Cache")
     public StreamableResourceSource enableMinification(StreamableResourceSource delegate, ResourceMinimizer minimizer,
+                                                       @InjectService("ResourceMinimizer")
+                                                       ResourceMinimizer masterMinimizer,
                                                        @Symbol(SymbolConstants.MINIFICATION_ENABLED)
                                                        boolean enabled)
     {
         return enabled
-                ? new SRSMinimizingInterceptor(delegate, minimizer)
+                ? new SRSMinimizingInterceptor(delegate, minimizer, minimizer == masterMinimizer)
                 : null;
     }
 
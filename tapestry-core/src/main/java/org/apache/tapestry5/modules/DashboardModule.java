@@ -33,5 +33,7 @@ public class DashboardModule
     {
         configuration.add("Pages", new DashboardTab("Pages", "core/PageCatalog"));
         configuration.add("Services", new DashboardTab("Services", "core/ServiceStatus"));
+        configuration.add("Assets", new DashboardTab("Assets", "core/AssetCaches"));
+        configuration.add("Sessions", new DashboardTab("Sessions", "core/SessionLocks"));
     }
 }
@@ -14,6 +14,7 @@
 
 package org.apache.tapestry5.modules;
 
+import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.internal.pageload.PageLoaderImpl;
 import org.apache.tapestry5.internal.services.*;
 import org.apache.tapestry5.internal.services.ajax.AjaxFormUpdateController;
@@ -24,7 +25,10 @@ import org.apache.tapestry5.ioc.MappedConfiguration;
 import org.apache.tapestry5.ioc.OrderedConfiguration;
 import org.apache.tapestry5.ioc.ServiceBinder;
 import org.apache.tapestry5.ioc.annotations.Contribute;
+import org.apache.tapestry5.ioc.annotations.Decorate;
 import org.apache.tapestry5.ioc.annotations.Marker;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.services.*;
 import org.apache.tapestry5.services.transform.ControlledPackageType;
 
@@ -70,6 +74,23 @@ public class InternalModule
         binder.bind(PageSource.class, PageSourceImpl.class);
         binder.bind(PageLoader.class, PageLoaderImpl.class).preventReloading();
 		binder.bind(UnknownActivationContextHandler.class, UnknownActivationContextHandlerImpl.class);
+        binder.bind(TemplateDiskCache.class, TemplateDiskCacheImpl.class);
+    }
+
+    /**
+     * Stores parsed templates on disk, when {@link SymbolConstants#TEMPLATE_CACHE_DIR} is set.
+     *
+     * @since 5.4
+     */
+    @Decorate(id = "DiskCache", serviceInterface = TemplateParser.class)
+    public static TemplateParser enableTemplateDiskCaching(TemplateParser delegate,
+                                                          @Symbol(SymbolConstants.TEMPLATE_CACHE_DIR)
+                                                          String templateCacheDir,
+                                                          TemplateDiskCache diskCache)
+    {
+        return InternalUtils.isNonBlank(templateCacheDir)
+                ? new DiskCachingTemplateParser(delegate, diskCache)
+                : null;
     }
 
     public static CookieSource buildCookieSource(final RequestGlobals requestGlobals)
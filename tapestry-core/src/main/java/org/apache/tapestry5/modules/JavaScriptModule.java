@@ -160,9 +160,24 @@ public class JavaScriptModule
             {
                 DocumentLinker linker = environment.peekRequired(DocumentLinker.class);
 
-                JavaScriptSupportImpl support = new JavaScriptSupportImpl(linker, javascriptStackSource,
+                final JavaScriptSupportImpl support = new JavaScriptSupportImpl(linker, javascriptStackSource,
                         javascriptStackPathConstructor);
 
+                StreamingRenderSupport streaming = environment.peek(StreamingRenderSupport.class);
+
+                if (streaming != null)
+                {
+                    // Stylesheets imported before the <head> is written end up inside it, as usual.
+
+                    streaming.beforeCommit(new Runnable()
+                    {
+                        public void run()
+                        {
+                            support.commitStylesheets();
+                        }
+                    });
+                }
+
                 environment.push(JavaScriptSupport.class, support);
 
                 renderer.renderMarkup(writer);
@@ -65,6 +65,7 @@ import org.apache.tapestry5.ioc.util.AvailableValues;
 import org.apache.tapestry5.ioc.util.StrategyRegistry;
 import org.apache.tapestry5.json.JSONArray;
 import org.apache.tapestry5.json.JSONObject;
+import org.apache.tapestry5.json.JSONStreamable;
 import org.apache.tapestry5.plastic.MethodDescription;
 import org.apache.tapestry5.runtime.Component;
 import org.apache.tapestry5.runtime.ComponentResourcesAware;
@@ -95,6 +96,8 @@ import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.lang.annotation.Annotation;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -344,6 +347,9 @@ public final class TapestryModule
         binder.bind(ContextPathEncoder.class, ContextPathEncoderImpl.class);
         binder.bind(ApplicationStatePersistenceStrategy.class, SessionApplicationStatePersistenceStrategy.class).withSimpleId();
         binder.bind(TapestrySessionFactory.class, TapestrySessionFactoryImpl.class);
+        binder.bind(SessionLockMonitor.class, SessionLockMonitorImpl.class);
+        binder.bind(PagePreloader.class, PagePreloaderImpl.class);
+        binder.bind(RowCountCache.class, RowCountCacheImpl.class);
         binder.bind(NumericTranslatorSupport.class);
         binder.bind(ClientDataEncoder.class, ClientDataEncoderImpl.class);
         binder.bind(ComponentEventLinkEncoder.class, ComponentEventLinkEncoderImpl.class);
@@ -1582,6 +1588,8 @@ public final class TapestryModule
      * <dd>Renders the component and its body (unless its a page, in which case a redirect JSON response is sent)</dd>
      * <dt>{@link org.apache.tapestry5.json.JSONObject} or {@link org.apache.tapestry5.json.JSONArray}</dt>
      * <dd>The JSONObject is returned as a text/javascript response</dd>
+     * <dt>{@link org.apache.tapestry5.json.JSONStreamable}</dt>
+     * <dd>The JSON content is written directly to the response, as it is generated</dd>
      * <dt>{@link org.apache.tapestry5.StreamResponse}</dt>
      * <dd>The stream response is sent as the actual response</dd>
      * <dt>String</dt>
@@ -1607,6 +1615,7 @@ public final class TapestryModule
         configuration.addInstance(Component.class, AjaxComponentInstanceEventResultProcessor.class);
         configuration.addInstance(JSONObject.class, JSONObjectEventResultProcessor.class);
         configuration.addInstance(JSONArray.class, JSONArrayEventResultProcessor.class);
+        configuration.addInstance(JSONStreamable.class, JSONStreamableEventResultProcessor.class);
         configuration.addInstance(StreamResponse.class, StreamResponseResultProcessor.class);
         configuration.addInstance(String.class, AjaxPageNameComponentEventResultProcessor.class);
         configuration.addInstance(Link.class, AjaxLinkComponentEventResultProcessor.class);
@@ -1729,9 +1738,25 @@ public final class TapestryModule
     {
         MarkupRendererFilter documentLinker = new MarkupRendererFilter()
         {
-            public void renderMarkup(MarkupWriter writer, MarkupRenderer renderer)
+            public void renderMarkup(final MarkupWriter writer, MarkupRenderer renderer)
             {
-                DocumentLinkerImpl linker = new DocumentLinkerImpl(moduleManager, omitGeneratorMeta, tapestryVersion);
+                final DocumentLinkerImpl linker = new DocumentLinkerImpl(moduleManager, omitGeneratorMeta, tapestryVersion);
+
+                StreamingRenderSupport streaming = environment.peek(StreamingRenderSupport.class);
+
+                if (streaming != null)
+                {
+                    // The <head> is written to the client before rendering completes, so it must be
+                    // updated first.
+
+                    streaming.beforeCommit(new Runnable()
+                    {
+                        public void run()
+                        {
+                            linker.updateHead(writer.getDocument());
+                        }
+                    });
+                }
 
                 environment.push(DocumentLinker.class, linker);
 
@@ -1739,7 +1764,13 @@ public final class TapestryModule
 
                 environment.pop(DocumentLinker.class);
 
-                linker.updateDocument(writer.getDocument());
+                if (streaming == null)
+                {
+                    linker.updateDocument(writer.getDocument());
+                } else
+                {
+                    linker.updateBody(writer.getDocument());
+                }
             }
         };
 
@@ -1931,6 +1962,58 @@ public final class TapestryModule
         configuration.addInstance(Enum.class, EnumValueEncoderFactory.class);
     }
 
+    /**
+     * Contributes {@link ClientDataCodec}s for types:
+     * <ul>
+     * <li>Date
+     * <li>BigDecimal
+     * <li>BigInteger
+     * </ul>
+     *
+     * @since 5.4
+     */
+    public static void contributeClientDataEncoder(MappedConfiguration<Class, ClientDataCodec> configuration)
+    {
+        configuration.add(Date.class, new ClientDataCodec<Date>()
+        {
+            public void write(Date value, ObjectOutput output) throws IOException
+            {
+                output.writeLong(value.getTime());
+            }
+
+            public Date read(ObjectInput input) throws IOException
+            {
+                return new Date(input.readLong());
+            }
+        });
+
+        configuration.add(BigDecimal.class, new ClientDataCodec<BigDecimal>()
+        {
+            public void write(BigDecimal value, ObjectOutput output) throws IOException
+            {
+                output.writeUTF(value.toString());
+            }
+
+            public BigDecimal read(ObjectInput input) throws IOException
+            {
+                return new BigDecimal(input.readUTF());
+            }
+        });
+
+        configuration.add(BigInteger.class, new ClientDataCodec<BigInteger>()
+        {
+            public void write(BigInteger value, ObjectOutput output) throws IOException
+            {
+                output.writeUTF(value.toString());
+            }
+
+            public BigInteger read(ObjectInput input) throws IOException
+            {
+                return new BigInteger(input.readUTF());
+            }
+        });
+    }
+
     /**
      * Contributes a single filter, "Secure", which checks for non-secure
      * requests that access secure pages.
@@ -2094,9 +2177,20 @@ public final class TapestryModule
 
         configuration.add(SymbolConstants.SESSION_LOCKING_ENABLED, true);
 
+        configuration.add(SymbolConstants.PAGE_CACHE_SIZE, 100);
+        configuration.add(SymbolConstants.PAGE_PRELOAD_FILE, "");
+
+        configuration.add(SymbolConstants.ROW_COUNT_CACHE_MAX_AGE, "30 s");
+
+        configuration.add(SymbolConstants.COMPACT_CLIENT_DATA, true);
+
+        configuration.add(SymbolConstants.TEMPLATE_CACHE_DIR, "");
+
         // TAP5-2070 keep the old behavior, defaults to false
         configuration.add(MetaDataConstants.UNKNOWN_ACTIVATION_CONTEXT_CHECK, false);
 
+        configuration.add(MetaDataConstants.STREAMING_RENDER, false);
+
     }
 
     /**
@@ -2602,6 +2696,18 @@ public final class TapestryModule
         });
     }
 
+    /**
+     * Loads, in the background, the pages recorded by a prior execution of the application.
+     *
+     * @see SymbolConstants#PAGE_PRELOAD_FILE
+     * @since 5.4
+     */
+    @Startup
+    public static void preloadPages(PagePreloader preloader)
+    {
+        preloader.preload();
+    }
+
     /**
      * @since 5.4
      */
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -39,6 +39,35 @@ public interface ComponentEvent extends Event
      */
     boolean matches(String eventType, String componentId, int parameterCount);
 
+    /**
+     * Returns the type of event, converted to lower case. Together with {@link #getComponentIdKey()}, this is used
+     * by event handler dispatch code to select the matching event handler methods directly, rather than checking
+     * each method with {@link #matches(String, String, int)}.
+     *
+     * @since 5.4
+     */
+    String getEventTypeKey();
+
+    /**
+     * Returns the id of the component from which the event originated (relative to the component handling the
+     * event), converted to lower case; this is the empty string when the event was triggered on the component
+     * itself.
+     *
+     * @since 5.4
+     */
+    String getComponentIdKey();
+
+    /**
+     * Returns true if the event has not yet been aborted and has enough context values for an event handler method;
+     * the event type and component id are presumed to already match.
+     *
+     * @param parameterCount
+     *         minimum number of context values
+     * @return true if the event matches (and has not yet been aborted)
+     * @since 5.4
+     */
+    boolean matchesParameterCount(int parameterCount);
+
     /**
      * Coerces a context value to a particular type. The context is an array of objects; typically it is an array of
      * strings of extra path information encoded into the action URL.
@@ -0,0 +1,54 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.services;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Writes and reads objects of a particular type as part of the compact client data format used by the
+ * {@link ClientDataEncoder} (see {@link org.apache.tapestry5.SymbolConstants#COMPACT_CLIENT_DATA}). Codecs are
+ * contributed to the ClientDataEncoder service, mapped by type; a codec is only used for objects of exactly that
+ * type, not for subclasses. Objects of types without a codec are stored using Java serialization.
+ * <p/>
+ * The codec is identified in the client data by the name of its type, so the same codec must be contributed on
+ * every server that decodes the data.
+ *
+ * @param <T>
+ *         the type of object written and read by the codec
+ * @since 5.4
+ */
+public interface ClientDataCodec<T>
+{
+    /**
+     * Writes the object. Nested objects may be written using {@link ObjectOutput#writeObject(Object)}.
+     *
+     * @param value
+     *         object to write, never null
+     * @param output
+     *         to which the object is written
+     */
+    void write(T value, ObjectOutput output) throws IOException;
+
+    /**
+     * Reads an object previously written by {@link #write(Object, ObjectOutput)}.
+     *
+     * @param input
+     *         from which the object is read
+     * @return the object
+     */
+    T read(ObjectInput input) throws IOException, ClassNotFoundException;
+}
@@ -1,4 +1,4 @@
-// Copyright 2009, 2012 The Apache Software Foundation
+// Copyright 2009, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,6 +14,8 @@
 
 package org.apache.tapestry5.services;
 
+import org.apache.tapestry5.ioc.annotations.UsesMappedConfiguration;
+
 import java.io.IOException;
 import java.io.ObjectInputStream;
 
@@ -25,9 +27,14 @@ import java.io.ObjectInputStream;
  * Starting in release 5.3.6, the encoded data incorporates an HMAC (hash based message authentication code) signature,
  * as a prefix. HMAC requires a secret key, configured using the
  * {@link org.apache.tapestry5.SymbolConstants#HMAC_PASSPHRASE} symbol.
+ * <p/>
+ * Starting in release 5.4, the data is written in a compact binary format, rather than using Java serialization,
+ * unless {@link org.apache.tapestry5.SymbolConstants#COMPACT_CLIENT_DATA} is false. The contributed
+ * {@link ClientDataCodec}s extend the compact format to further types. Data in either format can be decoded.
  *
  * @since 5.1.0.1
  */
+@UsesMappedConfiguration(key = Class.class, value = ClientDataCodec.class)
 public interface ClientDataEncoder
 {
     /**
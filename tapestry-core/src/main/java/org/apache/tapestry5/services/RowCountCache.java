@@ -0,0 +1,51 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.services;
+
+import org.apache.tapestry5.ioc.Invokable;
+
+/**
+ * Caches the number of rows available from {@linkplain org.apache.tapestry5.grid.GridDataSource data sources} whose
+ * row count is expensive to compute (typically, a COUNT query against a large table). Counts are shared between
+ * requests and users. Once a cached count is older than the
+ * {@linkplain org.apache.tapestry5.SymbolConstants#ROW_COUNT_CACHE_MAX_AGE maximum age}, it continues to be used
+ * while a new count is computed in the background, using the
+ * {@link org.apache.tapestry5.ioc.services.ParallelExecutor}; a count is only computed in the request thread the
+ * first time it is needed.
+ * <p/>
+ * Row counts obtained this way are approximate: rows added or removed are not reflected until the count is next
+ * refreshed. The {@link org.apache.tapestry5.corelib.components.Grid} tolerates this.
+ *
+ * @since 5.4
+ */
+public interface RowCountCache
+{
+    /**
+     * Returns the cached row count for the key, computing it if necessary.
+     *
+     * @param key
+     *         identifies the query that is counted; all counters for the same key must compute the same value
+     * @param counter
+     *         computes the count; it may be invoked in a different thread, after the current request has completed
+     * @return the (possibly stale) row count
+     */
+    int getRowCount(String key, Invokable<Integer> counter);
+
+    /**
+     * Discards the cached row count for the key, if any; the next request for it will compute it immediately.
+     * This is useful after the application adds or removes rows.
+     */
+    void invalidate(String key);
+}
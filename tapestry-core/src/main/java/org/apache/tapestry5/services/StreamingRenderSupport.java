@@ -0,0 +1,48 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.services;
+
+/**
+ * Available as an {@link org.apache.tapestry5.annotations.Environmental} during the full page render of a page that
+ * has {@linkplain org.apache.tapestry5.MetaDataConstants#STREAMING_RENDER streaming render} enabled (and absent
+ * otherwise).
+ * <p/>
+ * During a streaming render, the start of the document (everything up to and including the {@code <body>} start tag,
+ * including the entire {@code <head>}) is written to the client as soon as the first child of the {@code <body>}
+ * completes; completed children of the {@code <body>} are then written as rendering proceeds. A
+ * {@link MarkupRendererFilter} that normally touches up the {@code <html>} element or the {@code <head>} after
+ * rendering completes must instead do so from a {@linkplain #beforeCommit(Runnable) commit command}.
+ *
+ * @since 5.4
+ */
+public interface StreamingRenderSupport
+{
+    /**
+     * Adds a command to be executed just before the start of the document is written to the client. Commands execute in
+     * the reverse of the order in which they were added, matching the order in which nested filters complete
+     * after rendering. If the document is never committed early (for example, because the {@code <body>} never has
+     * a completed child), the commands execute once rendering completes.
+     *
+     * @param command
+     *         to execute
+     */
+    void beforeCommit(Runnable command);
+
+    /**
+     * Returns true once the start of the document has been written to the client; after this point, changes to the
+     * {@code <html>} element and to the {@code <head>} have no effect on the response.
+     */
+    boolean isCommitted();
+}
@@ -0,0 +1,40 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.services.assets;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Produces one encoding (that is, a compressed variant) of an asset's content. Encoders are contributed to the
+ * {@link ContentEncoderSource} service; each compressed asset is encoded once by each encoder, and the variant best
+ * matching the request's {@code Accept-Encoding} header is sent to the client. Since assets are encoded just once,
+ * encoders should favor the best compression ratio over speed.
+ *
+ * @since 5.4
+ */
+public interface ContentEncoder
+{
+    /**
+     * Returns the content coding token, as used in the {@code Accept-Encoding} and {@code Content-Encoding} headers,
+     * for example, "gzip".
+     */
+    String getContentEncoding();
+
+    /**
+     * Returns a stream that encodes content written to it into the provided stream; closing the returned stream
+     * completes the encoding and closes the provided stream.
+     */
+    OutputStream encode(OutputStream os) throws IOException;
+}
@@ -0,0 +1,47 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.services.assets;
+
+import org.apache.tapestry5.ioc.annotations.UsesOrderedConfiguration;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Provides the {@link ContentEncoder}s used to compress assets. The configuration is ordered by server preference,
+ * which is used to choose between encodings the client accepts equally. Tapestry contributes a "gzip" encoder, using
+ * the {@link org.apache.tapestry5.SymbolConstants#ASSET_GZIP_COMPRESSION_LEVEL} compression level; other encoders
+ * (such as "br", for Brotli) may be contributed by libraries.
+ *
+ * @since 5.4
+ */
+@UsesOrderedConfiguration(ContentEncoder.class)
+public interface ContentEncoderSource
+{
+    /**
+     * Returns the encoders, in order of preference.
+     */
+    List<ContentEncoder> getEncoders();
+
+    /**
+     * Selects the encoding to send to a client.
+     *
+     * @param acceptEncoding
+     *         the value of the request's {@code Accept-Encoding} header, which may be null
+     * @param available
+     *         the encodings of the content that are available
+     * @return the selected encoding, or null if the client accepts none of the available encodings
+     */
+    String selectEncoding(String acceptEncoding, Collection<String> available);
+}
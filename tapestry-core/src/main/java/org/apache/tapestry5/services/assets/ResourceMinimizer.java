@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -41,4 +41,13 @@ public interface ResourceMinimizer
      * @throws IOException
      */
     StreamableResource minimize(StreamableResource resource) throws IOException;
+
+    /**
+     * Declared so that the service proxy delegates to the service implementation; the master service describes its
+     * contributed minimizers (and the versions of their libraries), so that the disk cache of processed assets can
+     * discard content minimized differently.
+     *
+     * @since 5.4
+     */
+    String toString();
 }
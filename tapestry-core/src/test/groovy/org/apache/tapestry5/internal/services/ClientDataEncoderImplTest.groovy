@@ -1,14 +1,48 @@
 package org.apache.tapestry5.internal.services
 
+import org.apache.tapestry5.ComponentAction
 import org.apache.tapestry5.alerts.AlertManager
 import org.apache.tapestry5.ioc.test.TestBase
+import org.apache.tapestry5.services.ClientDataCodec
 import org.apache.tapestry5.services.ClientDataEncoder
 import org.easymock.EasyMock
 import org.slf4j.Logger
 import org.testng.annotations.Test
 
+import java.util.concurrent.TimeUnit
+
 class ClientDataEncoderImplTest extends TestBase {
 
+    static class SetupForRow implements ComponentAction<Object> {
+        private final int rowIndex
+        private final String clientValue
+
+        SetupForRow(int rowIndex, String clientValue) {
+            this.rowIndex = rowIndex
+            this.clientValue = clientValue
+        }
+
+        SetupForRow() {
+            this(0, null)
+        }
+
+        void execute(Object component) {}
+    }
+
+    static class Point implements Serializable {
+        int x, y
+    }
+
+    def classCache = [forName: { String name -> Class.forName(name) }] as ComponentClassCache
+
+    def codecs = [(Point): [
+            write: { Point value, ObjectOutput output -> output.writeInt value.x; output.writeInt value.y },
+            read: { ObjectInput input -> new Point(x: input.readInt(), y: input.readInt()) }] as ClientDataCodec]
+
+    def newEncoder(String passphrase, Logger logger = null, AlertManager alertManager = null, boolean compact = true) {
+        new ClientDataEncoderImpl(null, passphrase, logger, "foo.bar", alertManager, compact, classCache, codecs)
+    }
+
     def tryEncodeAndDecode(ClientDataEncoder cde) {
         def now = new Date()
         def input = "The current time is $now"
@@ -51,7 +85,7 @@ class ClientDataEncoderImplTest extends TestBase {
 
         replay()
 
-        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "", logger, "foo.bar", alertManager)
+        ClientDataEncoder cde = newEncoder("", logger, alertManager)
 
         tryEncodeAndDecode cde
 
@@ -60,15 +94,15 @@ class ClientDataEncoderImplTest extends TestBase {
 
     @Test
     void no_logged_error_with_non_blank_passphrase() {
-        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "Testing, Testing, 1.., 2.., 3...", null, "foo.bar", null)
+        ClientDataEncoder cde = newEncoder("Testing, Testing, 1.., 2.., 3...")
 
         tryEncodeAndDecode cde
     }
 
     @Test
     void passphrase_affects_encoded_output() {
-        ClientDataEncoder first = new ClientDataEncoderImpl(null, "first passphrase", null, "foo.bar", null)
-        ClientDataEncoder second = new ClientDataEncoderImpl(null, " different passphrase ", null, "foo.bar", null)
+        ClientDataEncoder first = newEncoder("first passphrase")
+        ClientDataEncoder second = newEncoder(" different passphrase ")
 
         def input = "current time millis is ${System.currentTimeMillis()} ms"
 
@@ -82,7 +116,7 @@ class ClientDataEncoderImplTest extends TestBase {
 
     @Test(expectedExceptions = IllegalArgumentException)
     void decode_with_missing_hmac_prefix_is_a_failure() {
-        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "a passphrase", null, "foo.bar", null)
+        ClientDataEncoder cde = newEncoder("a passphrase")
 
         cde.decodeClientData("so completely invalid")
     }
@@ -92,8 +126,8 @@ class ClientDataEncoderImplTest extends TestBase {
 
         // Simulate tampering by encoding with one passphrase and attempting to decode with a different
         // passphrase.
-        ClientDataEncoder first = new ClientDataEncoderImpl(null, "first passphrase", null, "foo.bar", null)
-        ClientDataEncoder second = new ClientDataEncoderImpl(null, " different passphrase ", null, "foo.bar", null)
+        ClientDataEncoder first = newEncoder("first passphrase")
+        ClientDataEncoder second = newEncoder(" different passphrase ")
 
         def input = "current time millis is ${System.currentTimeMillis()} ms"
 
@@ -110,7 +144,7 @@ class ClientDataEncoderImplTest extends TestBase {
 
     @Test(expectedExceptions = EOFException)
     void check_for_eof() {
-        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "hmac passphrase", null, "foo.bar", null)
+        ClientDataEncoder cde = newEncoder("hmac passphrase")
 
         def sink = cde.createSink()
 
@@ -133,4 +167,88 @@ class ClientDataEncoderImplTest extends TestBase {
         unreachable()
     }
 
+    def roundTrip(ClientDataEncoder cde, List values) {
+        def sink = cde.createSink()
+
+        sink.objectOutputStream.with { stream ->
+            values.each { stream.writeObject it }
+            stream.close()
+        }
+
+        def ois = cde.decodeClientData(sink.clientData)
+
+        values.collect { ois.readObject() }
+    }
+
+    @Test
+    void compact_format_round_trip() {
+        def values = [null, "fred", "fred", 97, -1L, true, 3.5d, TimeUnit.SECONDS, new Date(1000), new Point(x: 3, y: 4)]
+
+        def output = roundTrip newEncoder("compact"), values
+
+        assert output[0..8] == values[0..8]
+        assert output[9].x == 3 && output[9].y == 4
+    }
+
+    @Test
+    void component_actions_are_written_field_by_field() {
+        def output = roundTrip(newEncoder("compact"), [new SetupForRow(97, "barney")])
+
+        assert output[0].rowIndex == 97
+        assert output[0].clientValue == "barney"
+    }
+
+    @Test
+    void strings_written_with_writeUTF_are_shared() {
+        def cde = newEncoder("compact")
+
+        def sink = cde.createSink()
+
+        sink.objectOutputStream.with { stream ->
+            3.times { stream.writeUTF "form.loop.textfield" }
+            stream.close()
+        }
+
+        def ois = cde.decodeClientData(sink.clientData)
+
+        3.times { assert ois.readUTF() == "form.loop.textfield" }
+
+        try {
+            ois.readUTF()
+            unreachable()
+        }
+        catch (EOFException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    void legacy_format_can_be_decoded() {
+        def input = "current time millis is ${System.currentTimeMillis()} ms".toString()
+
+        def legacy = convertToClientData newEncoder("passphrase", null, null, false), input
+
+        assert newEncoder("passphrase").decodeClientData(legacy).readObject() == input
+    }
+
+    @Test
+    void compact_format_is_smaller() {
+        def actions = (0..<100).collect { new SetupForRow(it, "row$it".toString()) }
+
+        def encode = { ClientDataEncoder cde ->
+            def sink = cde.createSink()
+
+            sink.objectOutputStream.with { stream ->
+                actions.each {
+                    stream.writeUTF "index:grid.rows"
+                    stream.writeObject it
+                }
+                stream.close()
+            }
+
+            sink.clientData
+        }
+
+        assert encode(newEncoder("passphrase")).length() < encode(newEncoder("passphrase", null, null, false)).length()
+    }
 }
@@ -0,0 +1,224 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets
+
+import org.apache.tapestry5.ioc.internal.util.ClasspathResource
+import org.apache.tapestry5.ioc.services.SymbolSource
+import org.apache.tapestry5.services.assets.CompressionStatus
+import org.apache.tapestry5.services.assets.ResourceDependencies
+import org.apache.tapestry5.services.assets.ResourceMinimizer
+import org.apache.tapestry5.services.assets.ResourceTransformer
+import org.apache.tapestry5.services.assets.StreamableResource
+import org.apache.tapestry5.services.assets.StreamableResourceProcessing
+import org.apache.tapestry5.services.assets.StreamableResourceSource
+import org.slf4j.helpers.NOPLogger
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+
+class AssetDiskCacheImplTests {
+
+    File root, cacheDir
+
+    ClassLoader loader
+
+    @BeforeMethod
+    void setup() {
+        root = File.createTempFile("assets", "")
+        root.delete()
+
+        new File(root, "META-INF/assets/css").mkdirs()
+        new File(root, "META-INF/assets/images").mkdirs()
+
+        cacheDir = new File(root, "cache")
+
+        loader = new URLClassLoader([root.toURI().toURL()] as URL[], (ClassLoader) null)
+    }
+
+    void file(String path, String content) {
+        def file = new File(root, path)
+
+        file.text = content
+
+        // Bump the modification time, so that the class loader's URL connection sees the change
+
+        file.lastModified = file.lastModified() + 1000
+    }
+
+    def resource(String path) {
+        new ClasspathResource(loader, path)
+    }
+
+    def newCache(String fingerprint = "5.4 1.0", Map minimizers = [:]) {
+        def pipeline = new SRSMinimizingInterceptor(new StubSource(), new MasterResourceMinimizer(minimizers), true)
+
+        new AssetDiskCacheImpl(NOPLogger.NOP_LOGGER, cacheDir.path,
+            [expandSymbols: { fingerprint }] as SymbolSource,
+            [trackResource: { 0L }] as ResourceChangeTracker, null, pipeline)
+    }
+
+    def processed(String content) {
+        new StreamableResourceImpl("processed", "text/css", CompressionStatus.COMPRESSABLE, 0,
+            new BytestreamCache(content.getBytes("UTF-8")), null)
+    }
+
+    @Test
+    void stored_content_survives_restart() {
+        file "META-INF/assets/css/app.css", "body { background: url(../images/back.png); }"
+        file "META-INF/assets/images/back.png", "PNG"
+
+        def css = resource("META-INF/assets/css/app.css")
+        def image = resource("META-INF/assets/images/back.png")
+
+        def cache = newCache()
+        def key = cache.computeKey(css)
+
+        assert cache.read(key, css, new RecordingDependencies()) == null
+
+        cache.write(key, css, processed("body{background:url(/assets/abc/back.png)}"), [css, image])
+
+        def restarted = newCache()
+
+        assert restarted.computeKey(css) == key
+
+        def dependencies = new RecordingDependencies()
+        def stored = restarted.read(key, css, dependencies)
+
+        assert stored.openStream().getText("UTF-8") == "body{background:url(/assets/abc/back.png)}"
+        assert stored.contentType == "text/css"
+        assert stored.compression == CompressionStatus.COMPRESSABLE
+        assert dependencies.resources == [image]
+    }
+
+    @Test
+    void key_changes_with_content() {
+        file "META-INF/assets/css/app.css", "body { color: red; }"
+
+        def css = resource("META-INF/assets/css/app.css")
+        def cache = newCache()
+        def key = cache.computeKey(css)
+
+        file "META-INF/assets/css/app.css", "body { color: blue; }"
+
+        assert cache.computeKey(css) != key
+    }
+
+    @Test
+    void changed_dependency_invalidates_content() {
+        file "META-INF/assets/css/app.css", "body { background: url(../images/back.png); }"
+        file "META-INF/assets/images/back.png", "PNG"
+
+        def css = resource("META-INF/assets/css/app.css")
+        def image = resource("META-INF/assets/images/back.png")
+
+        def cache = newCache()
+        def key = cache.computeKey(css)
+
+        cache.write(key, css, processed("body{}"), [image])
+
+        file "META-INF/assets/images/back.png", "PNG, changed"
+
+        assert newCache().read(key, css, new RecordingDependencies()) == null
+        assert !new File(cacheDir, key + ".asset").exists()
+    }
+
+    @Test
+    void content_from_another_version_is_removed_on_first_use() {
+        file "META-INF/assets/css/app.css", "body { color: red; }"
+
+        def css = resource("META-INF/assets/css/app.css")
+        def cache = newCache()
+        def key = cache.computeKey(css)
+
+        cache.write(key, css, processed("body{color:red}"), [])
+
+        assert new File(cacheDir, key + ".asset").exists()
+
+        newCache("5.4 2.0").computeKey(css)
+
+        assert !new File(cacheDir, key + ".asset").exists()
+    }
+
+    @Test
+    void content_from_other_processors_is_removed_on_first_use() {
+        file "META-INF/assets/css/app.css", "body { color: red; }"
+
+        def css = resource("META-INF/assets/css/app.css")
+        def minimizer = [minimize: { it }] as ResourceMinimizer
+        def cache = newCache("5.4 1.0", ["text/css": minimizer])
+        def key = cache.computeKey(css)
+
+        cache.write(key, css, processed("body{color:red}"), [])
+
+        assert newCache("5.4 1.0", ["text/css": minimizer]).read(key, css, new RecordingDependencies()) != null
+
+        def changed = newCache("5.4 1.0", ["text/css": minimizer, "text/javascript": minimizer])
+
+        assert changed.computeKey(css) != key
+        assert !new File(cacheDir, key + ".asset").exists()
+    }
+
+    @Test
+    void processors_described_in_sorted_order() {
+        def descriptions = ProcessorDescriptions.describe("transformer",
+            [less: new StubTransformer(), coffee: new StubTransformer()])
+
+        assert descriptions.size() == 2
+        assert descriptions[0].startsWith("transformer coffee: ${StubTransformer.name}")
+        assert descriptions[1].startsWith("transformer less: ${StubTransformer.name}")
+    }
+
+    @Test
+    void overridden_minimizer_described_by_class() {
+        def descriptions = []
+
+        new SRSMinimizingInterceptor(new StubSource(), new StubMinimizer(), false).describeProcessors(descriptions)
+
+        assert descriptions.size() == 2
+        assert descriptions[0].startsWith(StubSource.name)
+        assert descriptions[1].startsWith("minimizer: ${StubMinimizer.name}")
+    }
+
+    @Test
+    void relative_paths() {
+        def css = resource("META-INF/assets/css/app.css")
+
+        assert AssetDiskCacheImpl.toRelativePath(css, resource("META-INF/assets/css/other.css")) == "other.css"
+        assert AssetDiskCacheImpl.toRelativePath(css, resource("META-INF/assets/images/back.png")) == "../images/back.png"
+        assert AssetDiskCacheImpl.toRelativePath(css, resource("top.txt")) == "../../../top.txt"
+        assert AssetDiskCacheImpl.toRelativePath(resource("top.txt"), css) == "META-INF/assets/css/app.css"
+
+        assert css.forFile("../images/back.png") == resource("META-INF/assets/images/back.png")
+    }
+}
+
+class StubTransformer implements ResourceTransformer {
+
+    String getTransformedContentType() { "text/javascript" }
+
+    InputStream transform(org.apache.tapestry5.ioc.Resource source, ResourceDependencies dependencies) { null }
+}
+
+class StubMinimizer implements ResourceMinimizer {
+
+    StreamableResource minimize(StreamableResource resource) { resource }
+}
+
+class StubSource implements StreamableResourceSource {
+
+    Set<String> fileExtensionsForContentType(String contentType) { [] as Set }
+
+    StreamableResource getStreamableResource(org.apache.tapestry5.ioc.Resource baseResource,
+                                             StreamableResourceProcessing processing,
+                                             ResourceDependencies dependencies) { null }
+}
@@ -0,0 +1,80 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets
+
+import org.apache.tapestry5.services.assets.CompressionStatus
+import org.apache.tapestry5.services.assets.StreamableResource
+import org.testng.annotations.Test
+
+class AssetStorageImplTests {
+
+    def content = "alert('Hello, World!');".getBytes("UTF-8")
+
+    def dir = new File(System.getProperty("java.io.tmpdir"), "tapestry-asset-storage-tests")
+
+    StreamableResource resource() {
+        new StreamableResourceImpl("hello.js", "text/javascript", CompressionStatus.COMPRESSABLE, 1000L,
+            new BytestreamCache(content), null)
+    }
+
+    void assertSameContent(StreamableResource stored) {
+        assert stored.size == content.length
+        assert stored.contentType == "text/javascript"
+        assert stored.compression == CompressionStatus.COMPRESSABLE
+        assert stored.lastModified == 1000L
+
+        def bos = new ByteArrayOutputStream()
+
+        stored.streamTo bos
+
+        assert bos.toByteArray() == content
+
+        // Content may be read repeatedly
+
+        assert stored.openStream().bytes == content
+        assert stored.openStream().bytes == content
+    }
+
+    @Test
+    void heap_storage_returns_resource_unchanged() {
+        def resource = resource()
+
+        assert new AssetStorageImpl("heap", dir.path, null).store(resource).is(resource)
+    }
+
+    @Test
+    void direct_storage() {
+        assertSameContent new AssetStorageImpl("direct", dir.path, null).store(resource())
+    }
+
+    @Test
+    void mapped_storage() {
+        assertSameContent new AssetStorageImpl("mapped", dir.path, null).store(resource())
+
+        // The backing file is removed once mapped
+
+        assert dir.list().length == 0
+    }
+
+    @Test
+    void unknown_storage_mode() {
+        try {
+            new AssetStorageImpl("disk", dir.path, null)
+            assert false, "unreachable"
+        }
+        catch (IllegalArgumentException ex) {
+            assert ex.message == "Asset storage 'disk' is not valid; it should be 'heap', 'direct', or 'mapped'."
+        }
+    }
+}
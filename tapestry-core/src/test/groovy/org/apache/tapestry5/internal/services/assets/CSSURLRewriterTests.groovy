@@ -19,7 +19,7 @@ body {
 
         def rewriter = new CSSURLRewriter(null, null, null, null)
 
-        assertNull rewriter.replaceURLs(input, null)
+        assertNull rewriter.replaceURLs(input, null, null)
     }
 
     @Test
@@ -33,19 +33,22 @@ body {
         def assetSource = newMock AssetSource
         def resource = newMock Resource
         def asset = newMock Asset
+        def assetResource = newMock Resource
+        def dependencies = new RecordingDependencies()
 
         expect(
             assetSource.getAsset(resource, "images/back.png", null)
         ).andReturn asset
 
         expect(asset.toClientURL()).andReturn "/ctx/images/back.png"
+        expect(asset.resource).andReturn assetResource
 
         replay()
 
 
         def rewriter = new CSSURLRewriter(null, null, assetSource, null)
 
-        def output = rewriter.replaceURLs input, resource
+        def output = rewriter.replaceURLs input, resource, dependencies
 
         assertEquals output, '''
 body {
@@ -53,6 +56,10 @@ body {
 }
 '''
 
+        // The checksum of the referenced asset is part of its URL, so it is a dependency
+
+        assert dependencies.resources == [assetResource]
+
         verify()
 
     }
@@ -75,12 +82,13 @@ body {
         ).andReturn asset
 
         expect(asset.toClientURL()).andReturn "/ctx/images/back.png"
+        expect(asset.resource).andReturn newMock(Resource)
 
         replay()
 
         def rewriter = new CSSURLRewriter(null, null, assetSource, null)
 
-        def output = rewriter.replaceURLs input, resource
+        def output = rewriter.replaceURLs input, resource, new RecordingDependencies()
 
         assertEquals output, '''
 body {
@@ -108,13 +116,14 @@ body {
         ).andReturn asset
 
         expect(asset.toClientURL()).andReturn "/ctx/images/back.png"
+        expect(asset.resource).andReturn newMock(Resource)
 
         replay()
 
 
         def rewriter = new CSSURLRewriter(null, null, assetSource, null)
 
-        def output = rewriter.replaceURLs input, resource
+        def output = rewriter.replaceURLs input, resource, new RecordingDependencies()
 
         assertEquals output, '''
 body {
@@ -136,7 +145,7 @@ body {
 
         def rewriter = new CSSURLRewriter(null, null, null, null)
 
-        assertNull rewriter.replaceURLs(input, null)
+        assertNull rewriter.replaceURLs(input, null, null)
     }
 
     @Test
@@ -149,7 +158,7 @@ body {
 
         def rewriter = new CSSURLRewriter(null, null, null, null)
 
-        assertNull rewriter.replaceURLs(input, null)
+        assertNull rewriter.replaceURLs(input, null, null)
     }
 
     @Test
@@ -173,6 +182,7 @@ body {
             ).andReturn asset
 
             expect(asset.toClientURL()).andReturn "/ctx/font/$name".toString()
+            expect(asset.resource).andReturn newMock(Resource)
         }
 
         replay()
@@ -180,7 +190,7 @@ body {
 
         def rewriter = new CSSURLRewriter(null, null, assetSource, null)
 
-        def output = rewriter.replaceURLs input, resource
+        def output = rewriter.replaceURLs input, resource, new RecordingDependencies()
 
         assertEquals output, '''
 body {
@@ -201,7 +211,7 @@ span {
 
         def rewriter = new CSSURLRewriter(null, null, null, null)
 
-        assertNull rewriter.replaceURLs(input, null)
+        assertNull rewriter.replaceURLs(input, null, null)
     }
 
     @Test
@@ -226,12 +236,13 @@ div.busy {
         ).andReturn asset
 
         expect(asset.toClientURL()).andReturn "/ctx/images/ajax.gif"
+        expect(asset.resource).andReturn newMock(Resource)
 
         replay()
 
         def rewriter = new CSSURLRewriter(null, null, assetSource, null)
 
-        def output = rewriter.replaceURLs input, resource
+        def output = rewriter.replaceURLs input, resource, new RecordingDependencies()
 
         assertEquals output, '''
 body {
@@ -266,12 +277,13 @@ div.busy {
         ).andReturn asset
 
         expect(asset.toClientURL()).andReturn "/ctx/images/ajax.gif"
+        expect(asset.resource).andReturn newMock(Resource)
 
         replay()
 
         def rewriter = new CSSURLRewriter(null, null, assetSource, null)
 
-        def output = rewriter.replaceURLs input, resource
+        def output = rewriter.replaceURLs input, resource, new RecordingDependencies()
 
         assertEquals output, '''
 @import url("https://fonts.googleapis.com/css?family=Lato:400,700,400italic,700italic");
@@ -0,0 +1,92 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.assets
+
+import org.apache.tapestry5.services.assets.CompressionStatus
+import org.apache.tapestry5.services.assets.ContentEncoder
+import org.testng.annotations.Test
+
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.GZIPInputStream
+import java.util.zip.InflaterInputStream
+
+class ContentEncoderSourceImplTests {
+
+    static class DeflateEncoder implements ContentEncoder {
+
+        String getContentEncoding() { "deflate" }
+
+        OutputStream encode(OutputStream os) { new DeflaterOutputStream(os) }
+    }
+
+    // Server preference: deflate, then gzip
+
+    def source = new ContentEncoderSourceImpl([new DeflateEncoder(), new GZipContentEncoder(9)])
+
+    def both = ["gzip", "deflate"]
+
+    @Test
+    void no_header_selects_nothing() {
+        assert source.selectEncoding(null, both) == null
+    }
+
+    @Test
+    void equal_quality_uses_server_preference() {
+        assert source.selectEncoding("gzip, deflate", both) == "deflate"
+    }
+
+    @Test
+    void client_quality_values_are_respected() {
+        assert source.selectEncoding("gzip;q=1.0, deflate;q=0.5", both) == "gzip"
+        assert source.selectEncoding("gzip, deflate;q=0", both) == "gzip"
+        assert source.selectEncoding("GZIP", both) == "gzip"
+    }
+
+    @Test
+    void only_available_encodings_are_selected() {
+        assert source.selectEncoding("gzip, deflate", ["gzip"]) == "gzip"
+        assert source.selectEncoding("deflate", ["gzip"]) == null
+    }
+
+    @Test
+    void wildcard() {
+        assert source.selectEncoding("*", both) == "deflate"
+        assert source.selectEncoding("deflate;q=0, *", both) == "gzip"
+    }
+
+    @Test
+    void compressed_resource_contains_a_variant_per_encoder() {
+        def text = "Hello, World! " * 100
+        def base = new StreamableResourceImpl("hello.txt", "text/plain", CompressionStatus.COMPRESSABLE, 0,
+            new BytestreamCache(text.getBytes("UTF-8")), null)
+
+        def compressed = new CompressedStreamableResource(base, source.encoders, null)
+
+        assert compressed.encodings as List == ["deflate", "gzip"]
+
+        // gzip is primary, as universally supported
+
+        assert compressed.primaryEncoding == "gzip"
+        assert new GZIPInputStream(compressed.openStream()).getText("UTF-8") == text
+        assert new InflaterInputStream(compressed.getVariant("deflate").openStream()).getText("UTF-8") == text
+
+        // Storage preserves the variants
+
+        def stored = new AssetStorageImpl("direct", "unused", null).store(compressed)
+
+        assert stored.encodings as List == ["deflate", "gzip"]
+        assert new InflaterInputStream(stored.getVariant("deflate").openStream()).getText("UTF-8") == text
+        assert new GZIPInputStream(stored.openStream()).getText("UTF-8") == text
+    }
+}
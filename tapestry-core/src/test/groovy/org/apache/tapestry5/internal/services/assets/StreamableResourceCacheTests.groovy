@@ -0,0 +1,170 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.assets
+
+import org.apache.tapestry5.ioc.internal.util.ClasspathResource
+import org.apache.tapestry5.services.assets.CompressionStatus
+import org.apache.tapestry5.services.assets.StreamableResource
+import org.testng.annotations.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+class StreamableResourceCacheTests {
+
+    static StreamableResource content(String name, int size) {
+        new StreamableResourceImpl(name, "text/plain", CompressionStatus.COMPRESSABLE, 0,
+            new BytestreamCache(new byte[size]), null)
+    }
+
+    static StreamableResourceCache.Loader loader(StreamableResource resource, boolean cacheable = true) {
+        [load: { resource }, isCacheable: { cacheable }] as StreamableResourceCache.Loader
+    }
+
+    def a = new ClasspathResource("a.txt"), b = new ClasspathResource("b.txt"), c = new ClasspathResource("c.txt")
+
+    @Test
+    void hit_after_miss() {
+        def cache = new StreamableResourceCache("test", 1000)
+        def resource = content("a", 100)
+
+        assert cache.get(a, loader(resource)).is(resource)
+        assert cache.get(a, loader(content("other", 10))).is(resource)
+
+        assert cache.hitCount == 1
+        assert cache.missCount == 1
+        assert cache.entryCount == 1
+        assert cache.size == 100
+    }
+
+    @Test
+    void non_cacheable_content_is_not_stored() {
+        def cache = new StreamableResourceCache("test", 1000)
+
+        cache.get(a, loader(content("a", 100), false))
+
+        assert cache.entryCount == 0
+        assert cache.size == 0
+    }
+
+    @Test
+    void content_larger_than_the_budget_is_not_stored() {
+        def cache = new StreamableResourceCache("test", 1000)
+
+        cache.get(a, loader(content("a", 1001)))
+
+        assert cache.entryCount == 0
+    }
+
+    @Test
+    void least_recently_used_probationary_entry_is_evicted() {
+        def cache = new StreamableResourceCache("test", 250)
+
+        cache.get(a, loader(content("a", 100)))
+        cache.get(b, loader(content("b", 100)))
+
+        // Access a, which promotes it to the protected segment
+
+        cache.get(a, loader(null))
+
+        cache.get(c, loader(content("c", 100)))
+
+        assert cache.evictionCount == 1
+        assert cache.size == 200
+
+        // b was evicted, a and c remain
+
+        def hits = cache.hitCount
+
+        cache.get(a, loader(null))
+        cache.get(c, loader(null))
+
+        assert cache.hitCount == hits + 2
+
+        def reloaded = content("b2", 100)
+
+        assert cache.get(b, loader(reloaded)).is(reloaded)
+    }
+
+    @Test
+    void clear_discards_content_but_not_statistics() {
+        def cache = new StreamableResourceCache("test", 1000)
+
+        cache.get(a, loader(content("a", 100)))
+        cache.get(a, loader(null))
+
+        cache.clear()
+
+        assert cache.entryCount == 0
+        assert cache.size == 0
+        assert cache.hitCount == 1
+        assert cache.missCount == 1
+    }
+
+    @Test
+    void concurrent_misses_load_once() {
+        def cache = new StreamableResourceCache("test", 1000)
+        def loads = new AtomicInteger()
+        def loading = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def resource = content("a", 100)
+
+        def slowLoader = [
+            load: {
+                loads.incrementAndGet()
+                loading.countDown()
+                release.await()
+                resource
+            },
+            isCacheable: { true }] as StreamableResourceCache.Loader
+
+        def results = Collections.synchronizedList([])
+
+        def leader = Thread.start { results << cache.get(a, slowLoader) }
+
+        loading.await()
+
+        def followers = (1..4).collect { Thread.start { results << cache.get(a, slowLoader) } }
+
+        // Give the followers a moment to join the in-progress load.
+
+        Thread.sleep 100
+
+        release.countDown()
+
+        ([leader] + followers)*.join()
+
+        assert loads.get() == 1
+        assert results.size() == 5
+        assert results.every { it.is(resource) }
+    }
+
+    @Test
+    void load_failure_is_propagated() {
+        def cache = new StreamableResourceCache("test", 1000)
+
+        def failing = [load: { throw new IOException("Boom!") }, isCacheable: { true }] as StreamableResourceCache.Loader
+
+        try {
+            cache.get(a, failing)
+            assert false, "unreachable"
+        }
+        catch (IOException ex) {
+            assert ex.message == "Boom!"
+        }
+
+        assert cache.entryCount == 0
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007 The Apache Software Foundation
+// Copyright 2006, 2007, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -70,6 +70,60 @@ public class LoopTest extends InternalBaseTestCase
         verify();
     }
 
+    @Test
+    public void windows()
+    {
+        Heartbeat hb = mockHeartbeat();
+        MarkupWriter writer = mockMarkupWriter();
+
+        hb.begin();
+        EasyMock.expectLastCall().times(3);
+
+        hb.end();
+        EasyMock.expectLastCall().times(3);
+
+        replay();
+
+        Loop loop = new Loop();
+
+        loop.setHeartbeat(hb);
+
+        loop.setSource(Arrays.asList("alpha", "beta", "gamma"));
+        loop.setWindowSize(2);
+
+        assertTrue(loop.setup());
+
+        loop.begin(writer);
+        assertEquals(loop.getValue(), "alpha");
+
+        assertFalse(loop.after(writer));
+        loop.begin(writer);
+        assertEquals(loop.getValue(), "beta");
+
+        // The window is complete, though there are further values.
+
+        assertNull(loop.after(writer));
+
+        assertSame(loop.onWindow(2), loop);
+
+        assertTrue(loop.setup());
+        assertEquals(loop.getIndex(), 2);
+
+        loop.begin(writer);
+        assertEquals(loop.getValue(), "gamma");
+        assertEquals(loop.getIndex(), 2);
+
+        assertNull(loop.after(writer));
+
+        verify();
+    }
+
+    @Test
+    public void window_event_ignored_unless_rendering_windows()
+    {
+        assertNull(new Loop().onWindow(2));
+    }
+
     @Test
     public void iterator_is_null()
     {
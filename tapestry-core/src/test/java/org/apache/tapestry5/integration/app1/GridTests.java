@@ -265,6 +265,39 @@ public class GridTests extends TapestryCoreTestCase
                 "Timestamp should not have changed because updates are in-place.");
     }
 
+    /**
+     * A virtual Grid renders the first 100 of the 1722 tracks; the rest are loaded, 100 rows at a time, as the page
+     * is scrolled, ending with a partial window of 22 rows.
+     */
+    @Test
+    public void virtual_grid()
+    {
+        openLinks("Virtual Grid Demo");
+
+        waitForPageInitialized();
+
+        String rows = "//table/tbody/tr[not(@data-grid-window-placeholder)]";
+
+        assertFalse(isElementPresent("link=2"), "A virtual Grid should not have a pager.");
+        assertAttribute("//div[@data-grid-window-url]/@data-grid-available-rows", "1722");
+        assertEquals(getXpathCount(rows).intValue(), 100);
+        assertTrue(isElementPresent("//tr[@data-grid-window-placeholder]"));
+
+        for (int window = 2; window <= 18; window++)
+        {
+            runScript("window.scrollTo(0, document.body.scrollHeight)");
+
+            waitForCondition(String.format(
+                    "parseInt(selenium.browserbot.getCurrentWindow().document.querySelector('[data-grid-window-page]')" +
+                            ".getAttribute('data-grid-window-page'), 10) >= %d", window), PAGE_LOAD_TIMEOUT);
+        }
+
+        assertEquals(getXpathCount(rows).intValue(), 1722);
+        assertText(rows + "[1722]/td[1]", "radioioAmbient");
+        assertFalse(isElementPresent("//tr[@data-grid-window-placeholder]"),
+                "The placeholder should be removed once all rows are loaded.");
+    }
+
     /**
      * TAPESTRY-2502
      */
@@ -424,6 +424,9 @@ public class Index
 
                     new Item("inplacegriddemo", "In-Place Grid Demo", "Grid that updates in-place using Ajax"),
 
+                    new Item("virtualgriddemo", "Virtual Grid Demo",
+                            "Grid that loads further pages of rows as the user scrolls"),
+
                     new Item("methodadvicedemo", "Method Advice Demo", "Advising component methods."),
 
                     new Item("HasBodyDemo", "Has Body Demo", "Verify the hasBody() method of ComponentResources"),
@@ -0,0 +1,51 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.integration.app2;
+
+import org.apache.tapestry5.ValueEncoder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A named group of items, which provides the encoder for its own items.
+ */
+public class LoopGroup
+{
+    private final String name;
+
+    private final List<String> items;
+
+    public LoopGroup(String name, String... items)
+    {
+        this.name = name;
+        this.items = Arrays.asList(items);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public List<String> getItems()
+    {
+        return items;
+    }
+
+    public ValueEncoder<String> getChildEncoder()
+    {
+        return new RecordingValueEncoder(name);
+    }
+}
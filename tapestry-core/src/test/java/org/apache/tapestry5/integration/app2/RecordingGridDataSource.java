@@ -0,0 +1,97 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.integration.app2;
+
+import org.apache.tapestry5.grid.SeekableGridDataSource;
+import org.apache.tapestry5.grid.SortConstraint;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provides rows numbered from 1, and records how each page is prepared. A row's key is its number.
+ */
+public class RecordingGridDataSource implements SeekableGridDataSource
+{
+    public static final List<String> CALLS = Collections.synchronizedList(CollectionFactory.<String>newList());
+
+    private final int availableRows;
+
+    private int startIndex;
+
+    private int firstNumber;
+
+    private int count;
+
+    public RecordingGridDataSource(int availableRows)
+    {
+        this.availableRows = availableRows;
+    }
+
+    public int getAvailableRows()
+    {
+        return availableRows;
+    }
+
+    public void prepare(int startIndex, int endIndex, List<SortConstraint> sortConstraints)
+    {
+        CALLS.add(String.format("prepare %d-%d", startIndex, endIndex));
+
+        prepare(startIndex, startIndex + 1, endIndex - startIndex + 1);
+    }
+
+    public void prepareAfter(int startIndex, int endIndex, List<SortConstraint> sortConstraints,
+                             Object[] precedingRowKey)
+    {
+        CALLS.add(String.format("prepareAfter %d-%d after %s", startIndex, endIndex, precedingRowKey[0]));
+
+        prepare(startIndex, (Integer) precedingRowKey[0] + 1, endIndex - startIndex + 1);
+    }
+
+    public void prepareBefore(int startIndex, int endIndex, List<SortConstraint> sortConstraints,
+                              Object[] followingRowKey)
+    {
+        CALLS.add(String.format("prepareBefore %d-%d before %s", startIndex, endIndex, followingRowKey[0]));
+
+        int count = endIndex - startIndex + 1;
+
+        prepare(startIndex, Math.max(1, (Integer) followingRowKey[0] - count), count);
+    }
+
+    private void prepare(int startIndex, int firstNumber, int count)
+    {
+        this.startIndex = startIndex;
+        this.firstNumber = firstNumber;
+        this.count = Math.min(count, availableRows - firstNumber + 1);
+    }
+
+    public Object[] getRowKey(Object row, List<SortConstraint> sortConstraints)
+    {
+        return new Object[]{((NumberedRow) row).getNumber()};
+    }
+
+    public Object getRowValue(int index)
+    {
+        int offset = index - startIndex;
+
+        return offset < 0 || offset >= count ? null : new NumberedRow(firstNumber + offset);
+    }
+
+    public Class getRowType()
+    {
+        return NumberedRow.class;
+    }
+}
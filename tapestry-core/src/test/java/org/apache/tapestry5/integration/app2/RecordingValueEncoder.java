@@ -0,0 +1,54 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.integration.app2;
+
+import org.apache.tapestry5.BatchValueEncoder;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encodes strings as themselves, and records each prefetch and conversion, prefixed with the encoder's name.
+ */
+public class RecordingValueEncoder implements BatchValueEncoder<String>
+{
+    public static final List<String> CALLS = Collections.synchronizedList(CollectionFactory.<String>newList());
+
+    private final String name;
+
+    public RecordingValueEncoder(String name)
+    {
+        this.name = name;
+    }
+
+    public void prefetch(Collection<String> clientValues)
+    {
+        CALLS.add(name + ".prefetch " + clientValues);
+    }
+
+    public String toClient(String value)
+    {
+        return value;
+    }
+
+    public String toValue(String clientValue)
+    {
+        CALLS.add(name + ".toValue " + clientValue);
+
+        return clientValue;
+    }
+}
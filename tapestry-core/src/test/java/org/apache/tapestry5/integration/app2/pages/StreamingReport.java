@@ -0,0 +1,43 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.integration.app2.pages;
+
+import org.apache.tapestry5.annotations.Import;
+import org.apache.tapestry5.annotations.Property;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Import(stylesheet = "context:css/test.css")
+public class StreamingReport
+{
+    @Property
+    private int row;
+
+    @Property
+    private String query;
+
+    public List<Integer> getRows()
+    {
+        List<Integer> result = new ArrayList<Integer>();
+
+        for (int i = 1; i <= 50; i++)
+        {
+            result.add(i);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.integration.app2.pages;
+
+import org.apache.tapestry5.BatchValueEncoder;
+import org.apache.tapestry5.ValueEncoder;
+import org.apache.tapestry5.annotations.Property;
+import org.apache.tapestry5.integration.app2.LoopGroup;
+import org.apache.tapestry5.integration.app2.RecordingValueEncoder;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A form containing a loop nested inside another loop, where the inner loop's encoder depends on the outer loop's
+ * value.
+ */
+public class TestPageForNestedLoops
+{
+    private final List<LoopGroup> groups = CollectionFactory.newList(new LoopGroup("A", "a1", "a2"),
+            new LoopGroup("B", "b1", "b2", "b3"));
+
+    @Property
+    private LoopGroup group;
+
+    @Property
+    private String item;
+
+    public List<LoopGroup> getGroups()
+    {
+        return groups;
+    }
+
+    public ValueEncoder<LoopGroup> getGroupEncoder()
+    {
+        final RecordingValueEncoder names = new RecordingValueEncoder("groups");
+
+        return new BatchValueEncoder<LoopGroup>()
+        {
+            public void prefetch(Collection<String> clientValues)
+            {
+                names.prefetch(clientValues);
+            }
+
+            public String toClient(LoopGroup value)
+            {
+                return value.getName();
+            }
+
+            public LoopGroup toValue(String clientValue)
+            {
+                String name = names.toValue(clientValue);
+
+                for (LoopGroup candidate : groups)
+                {
+                    if (candidate.getName().equals(name))
+                        return candidate;
+                }
+
+                return null;
+            }
+        };
+    }
+}
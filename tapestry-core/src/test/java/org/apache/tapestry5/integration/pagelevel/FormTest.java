@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2009 The Apache Software Foundation
+// Copyright 2006, 2007, 2009, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,12 +16,15 @@ package org.apache.tapestry5.integration.pagelevel;
 
 import org.apache.tapestry5.dom.Document;
 import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.integration.app2.RecordingValueEncoder;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.test.PageTester;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 
 public class FormTest extends Assert
@@ -41,6 +44,34 @@ public class FormTest extends Assert
         assertTrue(doc.toString().contains("You entered: hello"));
     }
 
+    /**
+     * The inner loop's encoder comes from the outer loop's value, so it may only be asked to prefetch once the
+     * outer loop has restored that value, and only with the values of its own render.
+     */
+    @Test
+    public void nested_loops_prefetch_per_render()
+    {
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME);
+
+        Document doc = tester.renderPage("TestPageForNestedLoops");
+
+        RecordingValueEncoder.CALLS.clear();
+
+        tester.submitForm(doc.getElementById("form"), Collections.<String, String>emptyMap());
+
+        assertEquals(RecordingValueEncoder.CALLS, Arrays.asList(
+                "groups.prefetch [A, B]",
+                "groups.toValue A",
+                "A.prefetch [a1, a2]",
+                "A.toValue a1",
+                "A.toValue a2",
+                "groups.toValue B",
+                "B.prefetch [b1, b2, b3]",
+                "B.toValue b1",
+                "B.toValue b2",
+                "B.toValue b3"));
+    }
+
     @AfterMethod
     public void after()
     {
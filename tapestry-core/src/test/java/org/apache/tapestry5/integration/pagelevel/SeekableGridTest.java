@@ -0,0 +1,120 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.integration.pagelevel;
+
+import org.apache.tapestry5.dom.Document;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.dom.Visitor;
+import org.apache.tapestry5.integration.app2.RecordingGridDataSource;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.test.PageTester;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SeekableGridTest extends Assert
+{
+    private PageTester tester;
+
+    @BeforeMethod
+    public void before()
+    {
+        RecordingGridDataSource.CALLS.clear();
+
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME);
+    }
+
+    @Test
+    public void adjacent_pages_located_from_page_boundary()
+    {
+        Document doc = tester.renderPage("TestPageForSeekableGrid");
+
+        doc = clickPage(doc, 2);
+        doc = clickPage(doc, 1);
+        doc = clickPage(doc, 3);
+        doc = clickPage(doc, 2);
+        doc = clickPage(doc, 5);
+        doc = clickPage(doc, 4);
+
+        assertEquals(RecordingGridDataSource.CALLS, Arrays.asList(
+                "prepare 0-4",
+                "prepareAfter 5-9 after 5",
+                "prepareBefore 0-4 before 6",
+                "prepare 10-14",
+                "prepareBefore 5-9 before 11",
+                "prepare 20-22",
+                "prepareBefore 15-19 before 21"));
+
+        assertEquals(cells(doc), Arrays.asList("16", "17", "18", "19", "20"));
+    }
+
+    @Test
+    public void boundary_ignored_after_rows_per_page_changes()
+    {
+        Document doc = tester.renderPage("TestPageForSeekableGrid");
+
+        doc = clickPage(doc, 2);
+
+        doc = tester.clickLink(doc.getElementById("shrink"));
+
+        doc = clickPage(doc, 3);
+
+        assertEquals(RecordingGridDataSource.CALLS, Arrays.asList(
+                "prepare 0-4",
+                "prepareAfter 5-9 after 5",
+                "prepare 4-7",
+                "prepareAfter 8-11 after 8"));
+
+        assertEquals(cells(doc), Arrays.asList("9", "10", "11", "12"));
+    }
+
+    private Document clickPage(Document doc, int page)
+    {
+        Element link = doc.getRootElement().getElementByAttributeValue("title", "Go to page " + page);
+
+        return tester.clickLink(link);
+    }
+
+    private static List<String> cells(Document doc)
+    {
+        final List<String> result = CollectionFactory.newList();
+
+        doc.getRootElement().visit(new Visitor()
+        {
+            public void visit(Element element)
+            {
+                if (element.getName().equals("td"))
+                {
+                    result.add(element.getChildMarkup().trim());
+                }
+            }
+        });
+
+        return result;
+    }
+
+    @AfterMethod
+    public void after()
+    {
+        if (tester != null)
+        {
+            tester.shutdown();
+        }
+    }
+}
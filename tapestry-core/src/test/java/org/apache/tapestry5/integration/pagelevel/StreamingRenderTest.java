@@ -0,0 +1,109 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.integration.pagelevel;
+
+import org.apache.tapestry5.MetaDataConstants;
+import org.apache.tapestry5.dom.Document;
+import org.apache.tapestry5.internal.test.TestableResponse;
+import org.apache.tapestry5.ioc.MappedConfiguration;
+import org.apache.tapestry5.test.PageTester;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Compares the output of a {@linkplain MetaDataConstants#STREAMING_RENDER streaming render} against a normal render of
+ * the same page.
+ */
+public class StreamingRenderTest extends Assert
+{
+    public static class StreamingRenderModule
+    {
+        public static void contributeApplicationDefaults(MappedConfiguration<String, Object> configuration)
+        {
+            configuration.add(MetaDataConstants.STREAMING_RENDER, true);
+        }
+    }
+
+    private PageTester tester;
+
+    @DataProvider
+    public Object[][] pages()
+    {
+        return new Object[][]
+                {
+                        {"StreamingReport"},
+                        {"TestPageForForm"},
+                        {"TestPageForLoop"},
+                        {"TestPageForSubmit"},
+                        {"TestPageForHead"},
+                        {"DTDFromPage"},
+                        {"MultipleDTD"}
+                };
+    }
+
+    @Test(dataProvider = "pages")
+    public void streaming_output_matches_buffered_output(String pageName)
+    {
+        String buffered = render(pageName, false).getOutput();
+
+        String streamed = render(pageName, true).getOutput();
+
+        assertEquals(streamed, buffered);
+    }
+
+    @Test
+    public void streamed_content_is_discarded_from_the_document()
+    {
+        Document buffered = render("StreamingReport", false).getRenderedDocument();
+
+        assertNotNull(buffered.getElementById("report"));
+
+        Document streamed = render("StreamingReport", true).getRenderedDocument();
+
+        // The head is still present, but the report (and everything else that completed
+        // once the <head> was written) has been written to the client and removed.
+
+        assertNotNull(streamed.find("html/head/title"));
+        assertNull(streamed.getElementById("report"));
+        assertNull(streamed.getElementById("footer"));
+    }
+
+    private TestableResponse render(String pageName, boolean streaming)
+    {
+        if (tester != null)
+        {
+            tester.shutdown();
+        }
+
+        tester = streaming
+                ? new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME, "src/test/app2", StreamingRenderModule.class)
+                : new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME, "src/test/app2");
+
+        return tester.renderPageAndReturnResponse(pageName);
+    }
+
+    @AfterMethod
+    public void after()
+    {
+        if (tester != null)
+        {
+            tester.shutdown();
+
+            tester = null;
+        }
+    }
+}
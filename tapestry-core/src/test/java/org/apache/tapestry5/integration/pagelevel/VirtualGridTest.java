@@ -0,0 +1,223 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.integration.pagelevel;
+
+import org.apache.tapestry5.dom.Document;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.dom.Visitor;
+import org.apache.tapestry5.integration.app2.RecordingGridDataSource;
+import org.apache.tapestry5.internal.test.TestableResponse;
+import org.apache.tapestry5.ioc.OrderedConfiguration;
+import org.apache.tapestry5.ioc.annotations.Contribute;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.json.JSONObject;
+import org.apache.tapestry5.services.DelegatingRequest;
+import org.apache.tapestry5.services.Request;
+import org.apache.tapestry5.services.RequestFilter;
+import org.apache.tapestry5.services.RequestHandler;
+import org.apache.tapestry5.services.Response;
+import org.apache.tapestry5.test.PageTester;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tests the window event of a {@linkplain org.apache.tapestry5.corelib.components.Grid#virtual virtual} Grid, which the
+ * client triggers via Ajax to load each further page of rows.
+ */
+public class VirtualGridTest extends Assert
+{
+    /**
+     * The PageTester never makes Ajax requests; this treats window event requests as if they were.
+     */
+    public static class WindowRequestModule
+    {
+        @Contribute(RequestHandler.class)
+        public static void simulateXHR(OrderedConfiguration<RequestFilter> configuration)
+        {
+            configuration.add("SimulateXHR", new RequestFilter()
+            {
+                public boolean service(Request request, Response response, RequestHandler handler)
+                        throws IOException
+                {
+                    if (!request.getPath().endsWith(":window"))
+                    {
+                        return handler.service(request, response);
+                    }
+
+                    Request xhr = new DelegatingRequest(request)
+                    {
+                        @Override
+                        public boolean isXHR()
+                        {
+                            return true;
+                        }
+                    };
+
+                    return handler.service(xhr, response);
+                }
+            });
+        }
+    }
+
+    private static final Pattern CELL = Pattern.compile("<td[^>]*>\\s*(\\d+)\\s*</td>");
+
+    private PageTester tester;
+
+    @BeforeMethod
+    public void before()
+    {
+        RecordingGridDataSource.CALLS.clear();
+
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME, PageTester.DEFAULT_CONTEXT_PATH,
+                WindowRequestModule.class);
+    }
+
+    @Test
+    public void render_first_window()
+    {
+        Document doc = tester.renderPage("TestPageForVirtualGrid");
+
+        Element container = doc.getRootElement().getElementByAttributeValue("data-grid-window-page", "1");
+
+        assertNotNull(container);
+        assertEquals(container.getAttribute("data-grid-rows-per-page"), "5");
+        assertEquals(container.getAttribute("data-grid-available-rows"), "23");
+
+        assertNull(doc.getRootElement().getElementByAttributeValue("title", "Go to page 2"),
+                "A virtual Grid should not have a pager.");
+
+        assertEquals(cells(doc), Arrays.asList("1", "2", "3", "4", "5"));
+
+        assertEquals(RecordingGridDataSource.CALLS, Arrays.asList("prepare 0-4"));
+    }
+
+    @Test
+    public void windows_located_from_previous_window()
+    {
+        String url = windowURL(tester.renderPage("TestPageForVirtualGrid"));
+
+        assertEquals(window(url, 2), Arrays.asList("6", "7", "8", "9", "10"));
+        assertEquals(window(url, 3), Arrays.asList("11", "12", "13", "14", "15"));
+        assertEquals(window(url, 4), Arrays.asList("16", "17", "18", "19", "20"));
+
+        // The last window is partial.
+
+        assertEquals(window(url, 5), Arrays.asList("21", "22", "23"));
+
+        assertEquals(RecordingGridDataSource.CALLS, Arrays.asList(
+                "prepare 0-4",
+                "prepareAfter 5-9 after 5",
+                "prepareAfter 10-14 after 10",
+                "prepareAfter 15-19 after 15",
+                "prepareAfter 20-22 after 20"));
+    }
+
+    /**
+     * Each window replaces the Grid's persisted page boundary. Rendering the page again starts from the first page:
+     * located from the second window, if that was the last loaded, and otherwise by index.
+     */
+    @Test
+    public void render_after_windows()
+    {
+        String url = windowURL(tester.renderPage("TestPageForVirtualGrid"));
+
+        window(url, 2);
+
+        assertEquals(cells(tester.renderPage("TestPageForVirtualGrid")), Arrays.asList("1", "2", "3", "4", "5"));
+
+        window(url, 2);
+        window(url, 3);
+
+        assertEquals(cells(tester.renderPage("TestPageForVirtualGrid")), Arrays.asList("1", "2", "3", "4", "5"));
+
+        // Out of order windows are located by index.
+
+        window(url, 3);
+
+        assertEquals(RecordingGridDataSource.CALLS, Arrays.asList(
+                "prepare 0-4",
+                "prepareAfter 5-9 after 5",
+                "prepareBefore 0-4 before 6",
+                "prepareAfter 5-9 after 5",
+                "prepareAfter 10-14 after 10",
+                "prepare 0-4",
+                "prepare 10-14"));
+    }
+
+    private static String windowURL(Document doc)
+    {
+        Element container = doc.getRootElement().getElementByAttributeValue("data-grid-window-page", "1");
+
+        return container.getAttribute("data-grid-window-url");
+    }
+
+    /**
+     * Triggers the window event for the page, returning the first cell of each row rendered.
+     */
+    private List<String> window(String url, int page)
+    {
+        Element link = new Document().newRootElement("a").attribute("href", url + "?t:page=" + page);
+
+        TestableResponse response = tester.clickLinkAndReturnResponse(link);
+
+        String content = new JSONObject(response.getOutput()).getString("content");
+
+        List<String> result = CollectionFactory.newList();
+
+        Matcher matcher = CELL.matcher(content);
+
+        while (matcher.find())
+        {
+            result.add(matcher.group(1));
+        }
+
+        return result;
+    }
+
+    private static List<String> cells(Document doc)
+    {
+        final List<String> result = CollectionFactory.newList();
+
+        doc.getRootElement().visit(new Visitor()
+        {
+            public void visit(Element element)
+            {
+                if (element.getName().equals("td"))
+                {
+                    result.add(element.getChildMarkup().trim());
+                }
+            }
+        });
+
+        return result;
+    }
+
+    @AfterMethod
+    public void after()
+    {
+        if (tester != null)
+        {
+            tester.shutdown();
+        }
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -166,6 +166,50 @@ public class ComponentEventImplTest extends InternalBaseTestCase
         verify();
     }
 
+    @Test
+    public void event_type_key_is_lower_case()
+    {
+        ComponentEventCallback handler = mockComponentEventHandler();
+        EventContext context = mockEventContext();
+        Logger logger = mockLogger();
+        ComponentModel model = mockComponentModel();
+
+        train_isDebugEnabled(logger, false);
+
+        replay();
+
+        ComponentEvent event = new ComponentEventImpl("eventType", "someId", context, handler, null, false, model, logger);
+
+        assertEquals(event.getEventTypeKey(), "eventtype");
+
+        verify();
+    }
+
+    @Test
+    public void component_id_key_is_lower_case()
+    {
+        ComponentEventCallback handler = mockComponentEventHandler();
+        EventContext context = mockEventContext();
+        Logger logger = mockLogger();
+        ComponentModel model = mockComponentModel();
+
+        train_isDebugEnabled(logger, false);
+
+        train_getCount(context, 1);
+
+        replay();
+
+        ComponentEvent event = new ComponentEventImpl("eventType", "someId", context, handler, null, false, model, logger);
+
+        assertEquals(event.getComponentIdKey(), "someid");
+
+        assertTrue(event.matchesParameterCount(0));
+        assertTrue(event.matchesParameterCount(1));
+        assertFalse(event.matchesParameterCount(2));
+
+        verify();
+    }
+
     @Test
     public void coerce_context()
     {
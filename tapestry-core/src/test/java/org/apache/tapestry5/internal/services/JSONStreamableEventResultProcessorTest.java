@@ -0,0 +1,65 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.json.JSONObject;
+import org.apache.tapestry5.json.JSONStreamable;
+import org.apache.tapestry5.json.JSONWriter;
+import org.apache.tapestry5.services.Response;
+import org.testng.annotations.Test;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+public class JSONStreamableEventResultProcessorTest extends InternalBaseTestCase
+{
+    @Test
+    public void content_written_to_response() throws IOException
+    {
+        Response response = mockResponse();
+
+        CharArrayWriter writer = new CharArrayWriter();
+        PrintWriter pw = new PrintWriter(writer);
+
+        expect(response.getPrintWriter("application/json;charset=UTF-8")).andReturn(pw);
+
+        replay();
+
+        JSONStreamable streamable = new JSONStreamable()
+        {
+            public void write(JSONWriter writer)
+            {
+                writer.beginArray();
+
+                for (int i = 0; i < 3; i++)
+                {
+                    writer.value(new JSONObject("id", i));
+                }
+
+                writer.endArray();
+            }
+        };
+
+        JSONStreamableEventResultProcessor p = new JSONStreamableEventResultProcessor(response, "UTF-8", true);
+
+        p.processResultValue(streamable);
+
+        verify();
+
+        assertEquals(writer.toString(), "[{\"id\":0},{\"id\":1},{\"id\":2}]");
+    }
+}
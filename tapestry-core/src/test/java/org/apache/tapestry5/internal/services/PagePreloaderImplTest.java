@@ -0,0 +1,218 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.structure.Page;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.Invokable;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.services.ParallelExecutor;
+import org.apache.tapestry5.ioc.services.SymbolSource;
+import org.apache.tapestry5.ioc.services.ThreadLocale;
+import org.apache.tapestry5.services.ComponentClassResolver;
+import org.apache.tapestry5.services.LocalizationSetter;
+import org.easymock.EasyMock;
+import org.slf4j.Logger;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+public class PagePreloaderImplTest extends InternalBaseTestCase
+{
+    private static final String FINGERPRINT_TEMPLATE = "${tapestry.version} ${tapestry.application-version}";
+
+    /**
+     * Runs the invokable immediately, in the current thread.
+     */
+    private final ParallelExecutor executor = new ParallelExecutor()
+    {
+        public <T> Future<T> invoke(Invokable<T> invocable)
+        {
+            invocable.invoke();
+
+            return null;
+        }
+
+        public <T> T invoke(Class<T> proxyType, Invokable<T> invocable)
+        {
+            return invocable.invoke();
+        }
+    };
+
+    private File newFile() throws IOException
+    {
+        File file = File.createTempFile("pages", ".txt");
+
+        file.delete();
+        file.deleteOnExit();
+
+        return file;
+    }
+
+    private List<String> readLines(File file) throws IOException
+    {
+        List<String> result = CollectionFactory.newList();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+
+        try
+        {
+            while (true)
+            {
+                String line = reader.readLine();
+
+                if (line == null)
+                {
+                    return result;
+                }
+
+                result.add(line);
+            }
+        } finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void loaded_pages_are_recorded() throws IOException
+    {
+        File file = newFile();
+        SymbolSource symbolSource = mockSymbolSource();
+        PageSource pageSource = newMock(PageSource.class);
+        Page index = mockPage();
+        Page about = mockPage();
+        Logger logger = mockLogger();
+        ComponentClassResolver resolver = mockComponentClassResolver();
+
+        train_expandSymbols(symbolSource, FINGERPRINT_TEMPLATE, "5.4 1.0");
+
+        Set<Page> pages = CollectionFactory.newSet(index, about);
+
+        expect(pageSource.getAllPages()).andReturn(pages);
+        train_getName(index, "Index");
+        train_getName(about, "About");
+
+        replay();
+
+        PagePreloader preloader = new PagePreloaderImpl(logger, file.getPath(), symbolSource, pageSource, resolver,
+                executor, null, null);
+
+        preloader.recordLoadedPages();
+
+        verify();
+
+        assertListsEquals(readLines(file), "5.4 1.0", "About", "Index");
+    }
+
+    @Test
+    public void recorded_pages_are_preloaded() throws IOException
+    {
+        File file = newFile();
+        SymbolSource symbolSource = mockSymbolSource();
+        PageSource pageSource = newMock(PageSource.class);
+        ComponentClassResolver resolver = mockComponentClassResolver();
+        Logger logger = mockLogger();
+        Page about = mockPage();
+        ThreadLocale threadLocale = newMock(ThreadLocale.class);
+        LocalizationSetter localizationSetter = newMock(LocalizationSetter.class);
+
+        write(file, "5.4 1.0", "About", "Removed");
+
+        train_expandSymbols(symbolSource, FINGERPRINT_TEMPLATE, "5.4 1.0");
+
+        // Pages are loaded for the first supported locale, then the thread's locale is restored.
+
+        expect(threadLocale.getLocale()).andReturn(Locale.GERMAN);
+        expect(localizationSetter.getSupportedLocales()).andReturn(Arrays.asList(Locale.FRENCH, Locale.ENGLISH));
+        threadLocale.setLocale(Locale.FRENCH);
+        threadLocale.setLocale(Locale.GERMAN);
+
+        train_isPageName(resolver, "About", true);
+        expect(pageSource.getPage("About")).andReturn(about);
+
+        // Pages that no longer exist are skipped.
+
+        train_isPageName(resolver, "Removed", false);
+
+        logger.info(EasyMock.startsWith("Preloaded 1 pages in "));
+
+        replay();
+
+        new PagePreloaderImpl(logger, file.getPath(), symbolSource, pageSource, resolver, executor, threadLocale,
+                localizationSetter).preload();
+
+        verify();
+    }
+
+    @Test
+    public void pages_recorded_by_another_version_are_ignored() throws IOException
+    {
+        File file = newFile();
+        SymbolSource symbolSource = mockSymbolSource();
+        PageSource pageSource = newMock(PageSource.class);
+        Logger logger = mockLogger();
+        ComponentClassResolver resolver = mockComponentClassResolver();
+
+        write(file, "5.4 0.9", "About");
+
+        train_expandSymbols(symbolSource, FINGERPRINT_TEMPLATE, "5.4 1.0");
+
+        replay();
+
+        new PagePreloaderImpl(logger, file.getPath(), symbolSource, pageSource, resolver, executor, null,
+                null).preload();
+
+        verify();
+    }
+
+    @Test
+    public void disabled_when_no_file() throws IOException
+    {
+        SymbolSource symbolSource = mockSymbolSource();
+        PageSource pageSource = newMock(PageSource.class);
+        Logger logger = mockLogger();
+        ComponentClassResolver resolver = mockComponentClassResolver();
+
+        train_expandSymbols(symbolSource, FINGERPRINT_TEMPLATE, "5.4 1.0");
+
+        replay();
+
+        PagePreloader preloader = new PagePreloaderImpl(logger, "", symbolSource, pageSource, resolver, executor, null,
+                null);
+
+        preloader.preload();
+        preloader.recordLoadedPages();
+
+        verify();
+    }
+
+    private void write(File file, String... lines) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+
+        for (String line : lines)
+        {
+            writer.println(line);
+        }
+
+        writer.close();
+    }
+}
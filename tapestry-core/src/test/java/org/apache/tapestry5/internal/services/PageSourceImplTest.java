@@ -0,0 +1,191 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.structure.Page;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.pageload.ComponentRequestSelectorAnalyzer;
+import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PageSourceImplTest extends InternalBaseTestCase
+{
+    private final ComponentResourceSelector selector = new ComponentResourceSelector(Locale.ENGLISH);
+
+    private final ComponentRequestSelectorAnalyzer analyzer = new ComponentRequestSelectorAnalyzer()
+    {
+        public ComponentResourceSelector buildSelectorForRequest()
+        {
+            return selector;
+        }
+    };
+
+    @Test
+    public void page_is_loaded_once_and_cached()
+    {
+        PageLoader loader = newMock(PageLoader.class);
+        Page page = mockPage();
+
+        expect(loader.loadPage("Index", selector)).andReturn(page).once();
+
+        replay();
+
+        PageSource source = new PageSourceImpl(loader, analyzer, 10);
+
+        assertSame(source.getPage("Index"), page);
+        assertSame(source.getPage("Index"), page);
+
+        assertEquals(source.getLoadCount(), 1);
+        assertEquals(source.getAllPages().size(), 1);
+
+        verify();
+    }
+
+    @Test
+    public void clear_cache_forces_reload()
+    {
+        PageLoader loader = newMock(PageLoader.class);
+        Page page1 = mockPage();
+        Page page2 = mockPage();
+
+        expect(loader.loadPage("Index", selector)).andReturn(page1);
+        expect(loader.loadPage("Index", selector)).andReturn(page2);
+
+        replay();
+
+        PageSource source = new PageSourceImpl(loader, analyzer, 10);
+
+        assertSame(source.getPage("Index"), page1);
+
+        source.clearCache();
+
+        assertSame(source.getPage("Index"), page2);
+
+        assertEquals(source.getLoadCount(), 2);
+
+        verify();
+    }
+
+    @Test
+    public void least_recently_used_page_is_unpinned()
+    {
+        PageLoader loader = newMock(PageLoader.class);
+        Page index = mockPage();
+        Page start = mockPage();
+
+        expect(loader.loadPage("Index", selector)).andReturn(index);
+        expect(loader.loadPage("Start", selector)).andReturn(start);
+
+        replay();
+
+        PageSource source = new PageSourceImpl(loader, analyzer, 1);
+
+        source.getPage("Index");
+        source.getPage("Start");
+
+        assertEquals(source.getEvictionCount(), 1);
+
+        // The unpinned page is still softly referenced, and so remains available.
+
+        assertSame(source.getPage("Index"), index);
+
+        assertEquals(source.getLoadCount(), 2);
+
+        verify();
+    }
+
+    @Test
+    public void concurrent_requests_load_page_once() throws Exception
+    {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Page page = mockPage();
+
+        replay();
+
+        PageLoader loader = new PageLoader()
+        {
+            public Page loadPage(String pageName, ComponentResourceSelector selector)
+            {
+                loads.incrementAndGet();
+                loading.countDown();
+
+                try
+                {
+                    release.await();
+                } catch (InterruptedException ex)
+                {
+                    throw new RuntimeException(ex);
+                }
+
+                return page;
+            }
+        };
+
+        final PageSource source = new PageSourceImpl(loader, analyzer, 10);
+
+        final List<Page> results = CollectionFactory.newThreadSafeList();
+
+        Runnable request = new Runnable()
+        {
+            public void run()
+            {
+                results.add(source.getPage("Index"));
+            }
+        };
+
+        List<Thread> threads = CollectionFactory.newList();
+
+        Thread leader = new Thread(request);
+        leader.start();
+        threads.add(leader);
+
+        loading.await();
+
+        for (int i = 0; i < 4; i++)
+        {
+            Thread follower = new Thread(request);
+            follower.start();
+            threads.add(follower);
+        }
+
+        // Give the followers a moment to join the in-progress load.
+
+        Thread.sleep(100);
+
+        release.countDown();
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(loads.get(), 1);
+        assertEquals(results.size(), 5);
+
+        for (Page result : results)
+        {
+            assertSame(result, page);
+        }
+
+        verify();
+    }
+}
@@ -0,0 +1,210 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.Invokable;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.services.ParallelExecutor;
+import org.slf4j.Logger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.easymock.EasyMock.isA;
+
+public class RowCountCacheImplTest extends InternalBaseTestCase
+{
+    private static final long MAX_AGE = 1000;
+
+    private long now;
+
+    private int rows;
+
+    private int counted;
+
+    /**
+     * Holds invokables until {@link #runPending()}.
+     */
+    private final List<Invokable<?>> pending = CollectionFactory.newList();
+
+    private final ParallelExecutor executor = new ParallelExecutor()
+    {
+        public <T> Future<T> invoke(Invokable<T> invocable)
+        {
+            pending.add(invocable);
+
+            return null;
+        }
+
+        public <T> T invoke(Class<T> proxyType, Invokable<T> invocable)
+        {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private final Invokable<Integer> counter = new Invokable<Integer>()
+    {
+        public Integer invoke()
+        {
+            counted++;
+
+            return rows;
+        }
+    };
+
+    private RowCountCacheImpl cache;
+
+    @BeforeMethod
+    public void setup()
+    {
+        now = 0;
+        rows = 10;
+        counted = 0;
+        pending.clear();
+
+        cache = new RowCountCacheImpl(null, executor, MAX_AGE)
+        {
+            @Override
+            long currentTimeMillis()
+            {
+                return now;
+            }
+        };
+    }
+
+    private void runPending()
+    {
+        for (Invokable<?> invokable : pending)
+        {
+            invokable.invoke();
+        }
+
+        pending.clear();
+    }
+
+    @Test
+    public void first_count_is_computed_immediately()
+    {
+        assertEquals(cache.getRowCount("key", counter), 10);
+        assertEquals(counted, 1);
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void count_is_cached_until_max_age()
+    {
+        cache.getRowCount("key", counter);
+
+        rows = 20;
+        now = MAX_AGE - 1;
+
+        assertEquals(cache.getRowCount("key", counter), 10);
+        assertEquals(counted, 1);
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void stale_count_is_used_while_refreshed_in_background()
+    {
+        cache.getRowCount("key", counter);
+
+        rows = 20;
+        now = MAX_AGE;
+
+        assertEquals(cache.getRowCount("key", counter), 10);
+        assertEquals(cache.getRowCount("key", counter), 10);
+
+        // Only a single refresh is scheduled.
+
+        assertEquals(pending.size(), 1);
+        assertEquals(counted, 1);
+
+        runPending();
+
+        assertEquals(counted, 2);
+        assertEquals(cache.getRowCount("key", counter), 20);
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void failed_refresh_is_retried()
+    {
+        Logger logger = mockLogger();
+
+        logger.error(isA(String.class), isA(RuntimeException.class));
+
+        replay();
+
+        cache = new RowCountCacheImpl(logger, executor, MAX_AGE)
+        {
+            @Override
+            long currentTimeMillis()
+            {
+                return now;
+            }
+        };
+
+        cache.getRowCount("key", counter);
+
+        now = MAX_AGE;
+
+        cache.getRowCount("key", new Invokable<Integer>()
+        {
+            public Integer invoke()
+            {
+                throw new RuntimeException("Database unavailable.");
+            }
+        });
+
+        runPending();
+
+        rows = 30;
+
+        assertEquals(cache.getRowCount("key", counter), 10);
+
+        runPending();
+
+        assertEquals(cache.getRowCount("key", counter), 30);
+
+        verify();
+    }
+
+    @Test
+    public void invalidated_count_is_recomputed_immediately()
+    {
+        cache.getRowCount("key", counter);
+
+        rows = 20;
+
+        cache.invalidate("key");
+
+        assertEquals(cache.getRowCount("key", counter), 20);
+        assertEquals(counted, 2);
+    }
+
+    @Test
+    public void counts_are_cached_per_key()
+    {
+        cache.getRowCount("key", counter);
+
+        rows = 20;
+
+        assertEquals(cache.getRowCount("other", counter), 20);
+        assertEquals(cache.getRowCount("key", counter), 10);
+    }
+}
@@ -0,0 +1,133 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.internal.services.PerthreadManagerImpl;
+import org.apache.tapestry5.services.RequestGlobals;
+import org.apache.tapestry5.services.Session;
+import org.easymock.EasyMock;
+import org.slf4j.Logger;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.util.Collections;
+import java.util.List;
+
+public class TapestrySessionFactoryImplTest extends InternalBaseTestCase
+{
+    @Test
+    public void lock_acquisitions_are_recorded_by_page()
+    {
+        HttpServletRequest request = mockHttpServletRequest();
+        HttpSession hs = mockHttpSession();
+        Logger logger = mockLogger();
+
+        RequestGlobals globals = new RequestGlobalsImpl();
+        SessionLockMonitor monitor = new SessionLockMonitorImpl(globals);
+        PerthreadManagerImpl perthreadManager = new PerthreadManagerImpl(logger);
+
+        globals.storeActivePageName("Index");
+
+        expect(request.getSession(false)).andReturn(hs);
+        expect(hs.getAttributeNames()).andReturn(Collections.enumeration(Collections.emptyList()));
+        hs.setAttribute("fred", "barney");
+
+        replay();
+
+        TapestrySessionFactory factory = new TapestrySessionFactoryImpl(false, null, request, perthreadManager, true,
+                monitor);
+
+        Session session = factory.getSession(false);
+
+        session.getAttributeNames();
+
+        // Upgrades the read lock to the write lock.
+
+        session.setAttribute("fred", "barney");
+
+        perthreadManager.cleanup();
+
+        verify();
+
+        List<SessionLockStatistics> statistics = monitor.getStatistics();
+
+        assertEquals(statistics.size(), 1);
+
+        SessionLockStatistics stats = statistics.get(0);
+
+        assertEquals(stats.getPageName(), "Index");
+        assertEquals(stats.getReadLockCount(), 1L);
+        assertEquals(stats.getWriteLockCount(), 1L);
+        assertEquals(stats.getUpgradeCount(), 1L);
+        assertEquals(stats.getWaitCount(), 0L);
+
+        monitor.reset();
+
+        assertTrue(monitor.getStatistics().isEmpty());
+    }
+
+    @Test
+    public void same_lock_is_used_for_each_request_in_session() throws Exception
+    {
+        HttpServletRequest request = mockHttpServletRequest();
+        final HttpSession hs = mockHttpSession();
+        Logger logger = mockLogger();
+
+        RequestGlobals globals = new RequestGlobalsImpl();
+        SessionLockMonitor monitor = new SessionLockMonitorImpl(globals);
+        final PerthreadManagerImpl perthreadManager = new PerthreadManagerImpl(logger);
+
+        expect(request.getSession(false)).andReturn(hs).times(2);
+        hs.setAttribute("fred", "barney");
+        EasyMock.expectLastCall().times(2);
+
+        replay();
+
+        final TapestrySessionFactory factory = new TapestrySessionFactoryImpl(false, null, request,
+                perthreadManager, true, monitor);
+
+        factory.getSession(false).setAttribute("fred", "barney");
+
+        // The write lock is held until cleanup, so this other thread must wait for it.
+
+        Thread other = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                factory.getSession(false).setAttribute("fred", "barney");
+
+                perthreadManager.cleanup();
+            }
+        };
+
+        other.start();
+
+        Thread.sleep(100);
+
+        perthreadManager.cleanup();
+
+        other.join();
+
+        verify();
+
+        SessionLockStatistics stats = monitor.getStatistics().get(0);
+
+        assertEquals(stats.getPageName(), SessionLockMonitorImpl.NO_PAGE);
+        assertEquals(stats.getWriteLockCount(), 2L);
+        assertEquals(stats.getWaitCount(), 1L);
+    }
+}
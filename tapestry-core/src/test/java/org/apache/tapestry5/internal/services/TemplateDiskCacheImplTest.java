@@ -0,0 +1,188 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.parser.*;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.ClasspathResource;
+import org.apache.tapestry5.ioc.services.SymbolSource;
+import org.slf4j.helpers.NOPLogger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class TemplateDiskCacheImplTest extends InternalBaseTestCase
+{
+    private File dir;
+
+    @BeforeMethod
+    public void setup() throws IOException
+    {
+        dir = File.createTempFile("templates", "");
+        dir.delete();
+    }
+
+    @AfterMethod
+    public void cleanup()
+    {
+        File[] files = dir.listFiles();
+
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+
+        dir.delete();
+    }
+
+    private TemplateDiskCache newCache()
+    {
+        return new TemplateDiskCacheImpl(NOPLogger.NOP_LOGGER, dir.getPath(), getService(SymbolSource.class));
+    }
+
+    private Resource getResource(String file)
+    {
+        String path = getClass().getPackage().getName().replace('.', '/') + "/" + file;
+
+        return new ClasspathResource(getClass().getClassLoader(), path);
+    }
+
+    private static String describe(List<TemplateToken> tokens)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        for (TemplateToken token : tokens)
+        {
+            builder.append(token.getTokenType()).append(" ").append(token).append(" ").append(token.getLocation());
+
+            if (token instanceof ExtensionPointToken)
+            {
+                builder.append(" ").append(((ExtensionPointToken) token).getExtensionPointId());
+            }
+
+            builder.append("\n");
+        }
+
+        return builder.toString();
+    }
+
+    @DataProvider
+    public Object[][] templates()
+    {
+        return new Object[][]
+                {
+                        {"basic.tml"},
+                        {"chinese_utf-8.tml"},
+                        {"cdata.tml"},
+                        {"comment.tml"},
+                        {"component_with_mixins.tml"},
+                        {"expansions_in_normal_text.tml"},
+                        {"namespaced_element.tml"},
+                        {"xhtml1_strict_doctype.tml"},
+                        {"parameter_element.tml"},
+                        {"block_element.tml"},
+                        {"body_element.tml"},
+                        {"extension_point.tml"},
+                        {"overrides.tml"}
+                };
+    }
+
+    @Test(dataProvider = "templates")
+    public void stored_template_matches_parsed_template(String file) throws IOException
+    {
+        Resource resource = getResource(file);
+
+        ComponentTemplate parsed = getService(TemplateParser.class).parseTemplate(resource);
+
+        TemplateDiskCache cache = newCache();
+
+        String key = cache.computeKey(resource);
+
+        assertNull(cache.read(key, resource));
+
+        cache.write(key, parsed);
+
+        // A new instance, as after a restart.
+
+        ComponentTemplate stored = newCache().read(key, resource);
+
+        assertSame(stored.getResource(), resource);
+        assertEquals(stored.isExtension(), parsed.isExtension());
+        assertEquals(stored.getComponentIds(), parsed.getComponentIds());
+        assertEquals(describe(stored.getTokens()), describe(parsed.getTokens()));
+
+        for (String id : new String[]{"title", "alpha", "gamma"})
+        {
+            List<TemplateToken> parsedTokens = parsed.getExtensionPointTokens(id);
+
+            if (parsedTokens == null)
+            {
+                assertNull(stored.getExtensionPointTokens(id));
+            } else
+            {
+                assertEquals(describe(stored.getExtensionPointTokens(id)), describe(parsedTokens));
+            }
+        }
+    }
+
+    @Test
+    public void key_depends_on_content() throws IOException
+    {
+        TemplateDiskCache cache = newCache();
+
+        Resource resource = getResource("cdata.tml");
+
+        assertEquals(cache.computeKey(resource), cache.computeKey(resource));
+        assertFalse(cache.computeKey(resource).equals(cache.computeKey(getResource("comment.tml"))));
+    }
+
+    @Test
+    public void templates_stored_by_another_version_are_discarded() throws IOException
+    {
+        Resource resource = getResource("cdata.tml");
+
+        TemplateDiskCache cache = newCache();
+
+        String key = cache.computeKey(resource);
+
+        cache.write(key, getService(TemplateParser.class).parseTemplate(resource));
+
+        File file = new File(dir, key + ".template");
+
+        assertTrue(file.exists());
+
+        SymbolSource source = mockSymbolSource();
+
+        train_expandSymbols(source, "${tapestry.version} ${tapestry.application-version} ${tapestry.compress-whitespace}",
+                "0.0 0.0 true");
+
+        replay();
+
+        new TemplateDiskCacheImpl(NOPLogger.NOP_LOGGER, dir.getPath(), source);
+
+        verify();
+
+        assertFalse(file.exists());
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008 The Apache Software Foundation
+// Copyright 2007, 2008, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -27,12 +27,15 @@ import org.hibernate.Session;
  * instances).
  * <p/>
  * This implementation of this service is per-thread.
+ *
+ * @see HibernateSymbols#LAZY_TRANSACTIONS
  */
 public interface HibernateSessionManager
 {
     /**
      * Gets the active session for this request, creating it as necessary. When the session is first created, a
-     * transaction is started.
+     * transaction is started. In {@linkplain HibernateSymbols#LAZY_TRANSACTIONS lazy} mode, a transaction is also
+     * started if the previous one was committed or aborted.
      *
      * @return the request's session
      * @see HibernateSessionSource
@@ -41,12 +44,32 @@ public interface HibernateSessionManager
 
     /**
      * Commits the current transaction (which will cause a flush of data to the database), then starts a new transaction
-     * to replace it.
+     * to replace it (in lazy mode, the new transaction is started when the session is next used).
      */
     void commit();
 
     /**
-     * Aborts the current transaction, and starts a new transaction to replace it.
+     * Aborts the current transaction, and starts a new transaction to replace it (in lazy mode, the new transaction is
+     * started when the session is next used).
      */
     void abort();
+
+    /**
+     * Switches the session between read-only and writable. A read-only session loads entities as read-only (Hibernate
+     * keeps no snapshots of them for dirty checking) and is only flushed by an explicit {@link #commit()}; making it
+     * writable again makes the entities already loaded modifiable. If the session has not been created yet, the
+     * setting applies once it is. Committing a read-only session that holds entities loaded as read-only is an
+     * error, as any changes to them would be lost.
+     *
+     * @since 5.4
+     * @see HibernateSymbols#READ_ONLY_PAGE_RENDERS
+     */
+    void setReadOnly(boolean readOnly);
+
+    /**
+     * Returns true if the session is (or will be, once created) read-only.
+     *
+     * @since 5.4
+     */
+    boolean isReadOnly();
 }
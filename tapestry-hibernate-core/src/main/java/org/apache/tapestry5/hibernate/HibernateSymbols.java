@@ -1,4 +1,4 @@
-// Copyright 2009 The Apache Software Foundation
+// Copyright 2009, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -45,4 +45,39 @@ public class HibernateSymbols
      * @since 5.2.0.0
      */
     public static final String ENTITY_SESSION_STATE_PERSISTENCE_STRATEGY_ENABLED = "tapestry.hibernate.entity-session-state-persistence-strategy-enabled";
+
+    /**
+     * If true, the {@link HibernateSessionManager} only opens the session, and begins its transaction, when the session
+     * is first used (rather than as soon as the manager is created for the request), and after a commit or abort,
+     * only begins a new transaction when the session is next used. This keeps requests from holding a JDBC connection
+     * when they don't touch the database. Defaults to false.
+     *
+     * @since 5.4
+     */
+    public static final String LAZY_TRANSACTIONS = "tapestry.hibernate.lazy-transactions";
+
+    /**
+     * If true, the session is made {@linkplain HibernateSessionManager#setReadOnly(boolean) read-only} for page render
+     * requests: entities are loaded without snapshots for dirty checking, and the session is never flushed. Methods
+     * annotated with {@link org.apache.tapestry5.hibernate.annotations.CommitAfter} make the session writable again
+     * before they execute. Defaults to false.
+     * <p/>
+     * Changes to entities loaded during a page render are only saved if they are made within such a method; the
+     * entities are only modifiable (with a snapshot of their current state) once the method starts, so changes made
+     * earlier in the render are lost. Invoking {@link HibernateSessionManager#commit()} directly during a page render,
+     * while the session holds entities loaded as read-only, rolls back the transaction and throws an exception.
+     *
+     * @since 5.4
+     */
+    public static final String READ_ONLY_PAGE_RENDERS = "tapestry.hibernate.read-only-page-renders";
+
+    /**
+     * If true, entities loaded by the entity {@link org.apache.tapestry5.ValueEncoder}s and the "entity" persistence
+     * strategies are cached for the rest of the request, shared by all encoders, and ids found not to exist are not
+     * queried again. The session itself already returns the same instance for an id, so this mostly saves repeated
+     * lookups of missing entities. Defaults to false.
+     *
+     * @since 5.4
+     */
+    public static final String ENTITY_CACHE_ENABLED = "tapestry.hibernate.entity-cache-enabled";
 }
@@ -0,0 +1,119 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.hibernate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide statistics about the transactions started by the {@link HibernateSessionManager}. A transaction
+ * holds a JDBC connection from when it begins until it is committed or rolled back, so the transaction times are the
+ * times connections were held; together with the request rate, they give the number of pooled connections that are
+ * actually needed.
+ *
+ * @since 5.4
+ * @see HibernateSymbols#LAZY_TRANSACTIONS
+ */
+public class HibernateTransactionStatistics
+{
+    private final AtomicLong transactions = new AtomicLong(), readOnlyTransactions = new AtomicLong(),
+            unusedManagers = new AtomicLong(), holdNanos = new AtomicLong(), maxHoldNanos = new AtomicLong();
+
+    /**
+     * Records the end (by commit or rollback) of a transaction.
+     *
+     * @param readOnly
+     *         if the session was read-only when the transaction ended
+     * @param holdTime
+     *         time, in nanoseconds, since the transaction began
+     */
+    public void recordTransaction(boolean readOnly, long holdTime)
+    {
+        transactions.incrementAndGet();
+
+        if (readOnly)
+        {
+            readOnlyTransactions.incrementAndGet();
+        }
+
+        holdNanos.addAndGet(holdTime);
+
+        while (true)
+        {
+            long max = maxHoldNanos.get();
+
+            if (holdTime <= max || maxHoldNanos.compareAndSet(max, holdTime))
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Records a request that created the per-thread session manager, but never used the session (and so, in lazy mode,
+     * never obtained a connection).
+     */
+    public void recordUnused()
+    {
+        unusedManagers.incrementAndGet();
+    }
+
+    public long getTransactionCount()
+    {
+        return transactions.get();
+    }
+
+    /**
+     * Number of transactions that ended while the session was read-only; typically, page renders.
+     */
+    public long getReadOnlyTransactionCount()
+    {
+        return readOnlyTransactions.get();
+    }
+
+    /**
+     * Number of requests that never used the session they were given.
+     */
+    public long getUnusedCount()
+    {
+        return unusedManagers.get();
+    }
+
+    /**
+     * Total time, in milliseconds, that transactions (and so connections) were held.
+     */
+    public long getHoldTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(holdNanos.get());
+    }
+
+    /**
+     * Average time, in milliseconds, that a transaction was held.
+     */
+    public double getAverageHoldTime()
+    {
+        long count = transactions.get();
+
+        return count == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(holdNanos.get()) / 1000 / count;
+    }
+
+    /**
+     * Longest time, in milliseconds, that a single transaction was held.
+     */
+    public long getMaxHoldTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(maxHoldNanos.get());
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2008, 2009, 2011 The Apache Software Foundation
+// Copyright 2008, 2009, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -44,6 +44,7 @@ public class HibernateCoreModule
         binder.bind(HibernateTransactionAdvisor.class, HibernateTransactionAdvisorImpl.class);
         binder.bind(HibernateConfigurer.class, DefaultHibernateConfigurer.class).withSimpleId();
         binder.bind(HibernateSessionSource.class, HibernateSessionSourceImpl.class);
+        binder.bind(HibernateTransactionStatistics.class);
     }
 
 
@@ -51,6 +52,7 @@ public class HibernateCoreModule
     {
         configuration.add(HibernateSymbols.DEFAULT_CONFIGURATION, "true");
         configuration.add(HibernateSymbols.EARLY_START_UP, "false");
+        configuration.add(HibernateSymbols.LAZY_TRANSACTIONS, "false");
     }
 
     public static void contributeRegistryStartup(OrderedConfiguration<Runnable> configuration,
@@ -85,13 +87,19 @@ public class HibernateCoreModule
     /**
      * The session manager manages sessions on a per-thread/per-request basis. Any active transaction will be rolled
      * back at {@linkplain org.apache.tapestry5.ioc.Registry#cleanupThread() thread cleanup time}.  The thread is
-     * cleaned up automatically in a Tapestry web application.
+     * cleaned up automatically in a Tapestry web application. With {@link HibernateSymbols#LAZY_TRANSACTIONS}, the
+     * session is only opened when first used.
      */
     @Scope(ScopeConstants.PERTHREAD)
     public static HibernateSessionManager buildHibernateSessionManager(HibernateSessionSource sessionSource,
-                                                                       PerthreadManager perthreadManager)
+                                                                       PerthreadManager perthreadManager,
+
+                                                                       @Symbol(HibernateSymbols.LAZY_TRANSACTIONS)
+                                                                       boolean lazy,
+
+                                                                       HibernateTransactionStatistics statistics)
     {
-        HibernateSessionManagerImpl service = new HibernateSessionManagerImpl(sessionSource);
+        HibernateSessionManagerImpl service = new HibernateSessionManagerImpl(sessionSource, lazy, statistics);
 
         perthreadManager.addThreadCleanupListener(service);
 
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008 The Apache Software Foundation
+// Copyright 2007, 2008, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,45 +16,258 @@ package org.apache.tapestry5.internal.hibernate;
 
 import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.hibernate.HibernateSessionSource;
+import org.apache.tapestry5.hibernate.HibernateSymbols;
+import org.apache.tapestry5.hibernate.HibernateTransactionStatistics;
 import org.apache.tapestry5.ioc.services.ThreadCleanupListener;
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class HibernateSessionManagerImpl implements HibernateSessionManager, ThreadCleanupListener
 {
-    private final Session session;
+    private final HibernateSessionSource source;
+
+    private final boolean lazy;
+
+    private final HibernateTransactionStatistics statistics;
+
+    private Session session;
 
     private Transaction transaction;
 
+    private long transactionStart;
+
+    private boolean readOnly;
+
+    private FlushMode writableFlushMode;
+
     public HibernateSessionManagerImpl(HibernateSessionSource source)
+    {
+        this(source, false, null);
+    }
+
+    /**
+     * @param source
+     *         creates the session
+     * @param lazy
+     *         if true, the session is created, and transactions are begun, when the session is used; otherwise, the
+     *         session is created immediately, and a new transaction is begun after each commit or abort
+     * @param statistics
+     *         records transactions (may be null)
+     */
+    public HibernateSessionManagerImpl(HibernateSessionSource source, boolean lazy,
+                                       HibernateTransactionStatistics statistics)
+    {
+        this.source = source;
+        this.lazy = lazy;
+        this.statistics = statistics;
+
+        if (!lazy)
+        {
+            openSession();
+        }
+    }
+
+    private void openSession()
     {
         session = source.create();
 
+        if (readOnly)
+        {
+            makeReadOnly();
+        }
+
         startNewTransaction();
     }
 
     private void startNewTransaction()
     {
         transaction = session.beginTransaction();
+
+        transactionStart = System.nanoTime();
+    }
+
+    /**
+     * Ends the current transaction (if any), by committing or rolling it back.
+     */
+    private void endTransaction(boolean commit)
+    {
+        if (transaction == null)
+        {
+            return;
+        }
+
+        Transaction current = transaction;
+
+        transaction = null;
+
+        try
+        {
+            if (commit)
+            {
+                // A read-only session is never flushed automatically.
+
+                if (readOnly)
+                {
+                    session.flush();
+                }
+
+                current.commit();
+            } else
+            {
+                current.rollback();
+            }
+        } finally
+        {
+            if (statistics != null)
+            {
+                statistics.recordTransaction(readOnly, System.nanoTime() - transactionStart);
+            }
+        }
     }
 
     public void abort()
     {
-        transaction.rollback();
-        startNewTransaction();
+        endTransaction(false);
+
+        if (!lazy)
+        {
+            startNewTransaction();
+        }
     }
 
     public void commit()
     {
-        transaction.commit();
-        startNewTransaction();
+        if (readOnly)
+        {
+            checkNoReadOnlyEntities();
+        }
+
+        endTransaction(true);
+
+        if (!lazy)
+        {
+            startNewTransaction();
+        }
     }
 
     public Session getSession()
     {
+        if (session == null)
+        {
+            openSession();
+        } else if (transaction == null)
+        {
+            startNewTransaction();
+        }
+
         return session;
     }
 
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    public void setReadOnly(boolean readOnly)
+    {
+        if (this.readOnly == readOnly)
+        {
+            return;
+        }
+
+        this.readOnly = readOnly;
+
+        if (session == null)
+        {
+            return;
+        }
+
+        if (readOnly)
+        {
+            makeReadOnly();
+        } else
+        {
+            makeWritable();
+        }
+    }
+
+    private void makeReadOnly()
+    {
+        writableFlushMode = session.getFlushMode();
+
+        session.setFlushMode(FlushMode.MANUAL);
+        session.setDefaultReadOnly(true);
+    }
+
+    private void makeWritable()
+    {
+        session.setDefaultReadOnly(false);
+        session.setFlushMode(writableFlushMode);
+
+        // Entities loaded while the session was read-only have no snapshot, so changes to them would not be detected.
+        // Making them modifiable takes a snapshot of their current state.
+
+        for (Object entity : getEntities())
+        {
+            session.setReadOnly(entity, false);
+        }
+    }
+
+    /**
+     * Hibernate never detects changes to read-only entities, so committing while the session holds any would
+     * silently lose those changes. Rather than risk that, the transaction is rolled back and an exception thrown.
+     */
+    private void checkNoReadOnlyEntities()
+    {
+        if (session == null)
+        {
+            return;
+        }
+
+        int count = 0;
+
+        for (Object entity : getEntities())
+        {
+            if (session.isReadOnly(entity))
+            {
+                count++;
+            }
+        }
+
+        if (count == 0)
+        {
+            return;
+        }
+
+        abort();
+
+        throw new RuntimeException(String.format(
+                "Can not commit the read-only Hibernate session, as changes to the %d entities loaded while it was " +
+                        "read-only would not be saved. Load and change entities within a method annotated with " +
+                        "@CommitAfter, or set symbol %s to false.",
+                count, HibernateSymbols.READ_ONLY_PAGE_RENDERS));
+    }
+
+    /**
+     * Returns the entities in the session's persistence context.
+     */
+    private List<Object> getEntities()
+    {
+        if (!(session instanceof SessionImplementor))
+        {
+            return Collections.emptyList();
+        }
+
+        return new ArrayList<Object>(
+                ((SessionImplementor) session).getPersistenceContext().getEntitiesByKey().values());
+    }
+
     /**
      * Rollsback the transaction at the end of the request, then closes the session. This means that any uncommitted
      * changes are lost; code should inject the HSM and invoke {@link #commit()} after making any changes, if they
@@ -62,8 +275,22 @@ public class HibernateSessionManagerImpl implements HibernateSessionManager, Thr
      */
     public void threadDidCleanup()
     {
-        transaction.rollback();
+        if (session == null)
+        {
+            if (statistics != null)
+            {
+                statistics.recordUnused();
+            }
+
+            return;
+        }
 
-        session.close();
+        try
+        {
+            endTransaction(false);
+        } finally
+        {
+            session.close();
+        }
     }
 }
@@ -1,4 +1,4 @@
-// Copyright 2009, 2011 The Apache Software Foundation
+// Copyright 2009, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -18,8 +18,8 @@ import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.hibernate.HibernateTransactionAdvisor;
 import org.apache.tapestry5.hibernate.annotations.CommitAfter;
 import org.apache.tapestry5.ioc.MethodAdviceReceiver;
+import org.apache.tapestry5.plastic.AbstractInlineMethodAdvice;
 import org.apache.tapestry5.plastic.MethodAdvice;
-import org.apache.tapestry5.plastic.MethodInvocation;
 
 import java.lang.reflect.Method;
 
@@ -29,26 +29,40 @@ public class HibernateTransactionAdvisorImpl implements HibernateTransactionAdvi
 
     /**
      * The rules for advice are the same for any method: commit on success or checked exception, abort on thrown
-     * exception ... so we can use a single shared advice object.
+     * exception ... so we can use a single shared advice object. The advice is inline, so advised methods do not
+     * allocate a MethodInvocation per call.
      */
-    private final MethodAdvice advice = new MethodAdvice()
+    private final MethodAdvice advice = new AbstractInlineMethodAdvice()
     {
-        public void advise(MethodInvocation invocation)
+        public Object beforeInvocation(Object instance)
         {
-            try
-            {
-                invocation.proceed();
-            }
-            catch (RuntimeException ex)
+            // Changes must be tracked, even if the session was read-only up to now.
+
+            manager.setReadOnly(false);
+
+            return null;
+        }
+
+        public void afterSuccess(Object state)
+        {
+            manager.commit();
+        }
+
+        public void afterException(Object state, Throwable exception)
+        {
+            if (exception instanceof RuntimeException)
             {
                 manager.abort();
 
-                throw ex;
+                return;
             }
 
-            // For success or checked exception, commit the transaction.
+            // For a checked exception, commit the transaction.
 
-            manager.commit();
+            if (exception instanceof Exception)
+            {
+                manager.commit();
+            }
         }
     };
 
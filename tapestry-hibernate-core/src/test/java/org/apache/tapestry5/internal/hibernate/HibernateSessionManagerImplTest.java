@@ -0,0 +1,220 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.hibernate;
+
+import org.apache.tapestry5.hibernate.HibernateSessionSource;
+import org.apache.tapestry5.hibernate.HibernateSymbols;
+import org.apache.tapestry5.hibernate.HibernateTransactionStatistics;
+import org.apache.tapestry5.ioc.test.TestBase;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.event.spi.EventSource;
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Test
+public class HibernateSessionManagerImplTest extends TestBase
+{
+    public void eager_manager_opens_session_and_begins_transaction()
+    {
+        HibernateSessionSource source = newMock(HibernateSessionSource.class);
+        Session session = newMock(Session.class);
+        Transaction transaction = newMock(Transaction.class);
+
+        expect(source.create()).andReturn(session);
+        expect(session.beginTransaction()).andReturn(transaction);
+
+        transaction.rollback();
+        expect(session.close()).andReturn(null);
+
+        replay();
+
+        HibernateSessionManagerImpl manager = new HibernateSessionManagerImpl(source);
+
+        assertSame(manager.getSession(), session);
+
+        manager.threadDidCleanup();
+
+        verify();
+    }
+
+    public void lazy_manager_does_not_open_unused_session()
+    {
+        HibernateSessionSource source = newMock(HibernateSessionSource.class);
+        HibernateTransactionStatistics statistics = new HibernateTransactionStatistics();
+
+        replay();
+
+        HibernateSessionManagerImpl manager = new HibernateSessionManagerImpl(source, true, statistics);
+
+        manager.commit();
+        manager.abort();
+        manager.threadDidCleanup();
+
+        verify();
+
+        assertEquals(statistics.getUnusedCount(), 1L);
+        assertEquals(statistics.getTransactionCount(), 0L);
+    }
+
+    public void lazy_manager_begins_transaction_when_session_next_used()
+    {
+        HibernateSessionSource source = newMock(HibernateSessionSource.class);
+        Session session = newMock(Session.class);
+        Transaction first = newMock(Transaction.class);
+        HibernateTransactionStatistics statistics = new HibernateTransactionStatistics();
+
+        expect(source.create()).andReturn(session);
+        expect(session.beginTransaction()).andReturn(first);
+        first.commit();
+
+        replay();
+
+        HibernateSessionManagerImpl manager = new HibernateSessionManagerImpl(source, true, statistics);
+
+        assertSame(manager.getSession(), session);
+
+        manager.commit();
+
+        verify();
+
+        Transaction second = newMock(Transaction.class);
+
+        expect(session.beginTransaction()).andReturn(second);
+        second.rollback();
+        expect(session.close()).andReturn(null);
+
+        replay();
+
+        assertSame(manager.getSession(), session);
+
+        manager.threadDidCleanup();
+
+        verify();
+
+        assertEquals(statistics.getTransactionCount(), 2L);
+        assertEquals(statistics.getUnusedCount(), 0L);
+    }
+
+    public void read_only_session_is_flushed_on_commit()
+    {
+        HibernateSessionSource source = newMock(HibernateSessionSource.class);
+        Session session = newMock(Session.class);
+        Transaction transaction = newMock(Transaction.class);
+        HibernateTransactionStatistics statistics = new HibernateTransactionStatistics();
+
+        expect(source.create()).andReturn(session);
+        expect(session.getFlushMode()).andReturn(FlushMode.AUTO);
+        session.setFlushMode(FlushMode.MANUAL);
+        session.setDefaultReadOnly(true);
+        expect(session.beginTransaction()).andReturn(transaction);
+
+        session.flush();
+        transaction.commit();
+
+        replay();
+
+        HibernateSessionManagerImpl manager = new HibernateSessionManagerImpl(source, true, statistics);
+
+        manager.setReadOnly(true);
+
+        assertTrue(manager.isReadOnly());
+        assertSame(manager.getSession(), session);
+
+        manager.commit();
+
+        verify();
+
+        assertEquals(statistics.getReadOnlyTransactionCount(), 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void commit_of_read_only_session_holding_read_only_entities_is_rolled_back()
+    {
+        HibernateSessionSource source = newMock(HibernateSessionSource.class);
+        EventSource session = newMock(EventSource.class);
+        PersistenceContext context = newMock(PersistenceContext.class);
+        Transaction transaction = newMock(Transaction.class);
+        Object loaded = new Object();
+        Object saved = new Object();
+
+        Map entities = new LinkedHashMap();
+        entities.put("loaded", loaded);
+        entities.put("saved", saved);
+
+        expect(source.create()).andReturn(session);
+        expect(session.getFlushMode()).andReturn(FlushMode.AUTO);
+        session.setFlushMode(FlushMode.MANUAL);
+        session.setDefaultReadOnly(true);
+        expect(session.beginTransaction()).andReturn(transaction);
+
+        expect(session.getPersistenceContext()).andReturn(context);
+        expect(context.getEntitiesByKey()).andReturn(entities);
+        expect(session.isReadOnly(loaded)).andReturn(true);
+        expect(session.isReadOnly(saved)).andReturn(false);
+
+        transaction.rollback();
+
+        replay();
+
+        HibernateSessionManagerImpl manager = new HibernateSessionManagerImpl(source, true, null);
+
+        manager.setReadOnly(true);
+        manager.getSession();
+
+        try
+        {
+            manager.commit();
+            unreachable();
+        } catch (RuntimeException ex)
+        {
+            assertTrue(ex.getMessage().contains("changes to the 1 entities loaded while it was read-only"));
+            assertTrue(ex.getMessage().contains(HibernateSymbols.READ_ONLY_PAGE_RENDERS));
+        }
+
+        verify();
+    }
+
+    public void making_session_writable_restores_flush_mode()
+    {
+        HibernateSessionSource source = newMock(HibernateSessionSource.class);
+        Session session = newMock(Session.class);
+        Transaction transaction = newMock(Transaction.class);
+
+        expect(source.create()).andReturn(session);
+        expect(session.beginTransaction()).andReturn(transaction);
+        expect(session.getFlushMode()).andReturn(FlushMode.COMMIT);
+        session.setFlushMode(FlushMode.MANUAL);
+        session.setDefaultReadOnly(true);
+
+        session.setDefaultReadOnly(false);
+        session.setFlushMode(FlushMode.COMMIT);
+
+        replay();
+
+        HibernateSessionManagerImpl manager = new HibernateSessionManagerImpl(source, false, null);
+
+        manager.setReadOnly(true);
+        manager.setReadOnly(false);
+
+        assertFalse(manager.isReadOnly());
+
+        verify();
+    }
+}
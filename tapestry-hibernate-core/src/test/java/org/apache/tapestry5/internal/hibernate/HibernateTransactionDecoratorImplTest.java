@@ -1,4 +1,4 @@
-// Copyright 2008, 2009 The Apache Software Foundation
+// Copyright 2008, 2009, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -79,6 +79,7 @@ public class HibernateTransactionDecoratorImplTest extends IOCTestCase
         HibernateTransactionDecorator decorator = newHibernateSessionManagerDecorator(manager);
         VoidService interceptor = decorator.build(VoidService.class, delegate, "foo.Bar");
 
+        manager.setReadOnly(false);
         delegate.voidMethod();
         manager.commit();
 
@@ -97,6 +98,7 @@ public class HibernateTransactionDecoratorImplTest extends IOCTestCase
         HibernateTransactionDecorator decorator = newHibernateSessionManagerDecorator(manager);
         VoidService interceptor = decorator.build(VoidService.class, delegate, "foo.Bar");
 
+        manager.setReadOnly(false);
         delegate.voidMethodWithParam(777);
         manager.commit();
 
@@ -115,6 +117,7 @@ public class HibernateTransactionDecoratorImplTest extends IOCTestCase
         HibernateTransactionDecorator decorator = newHibernateSessionManagerDecorator(manager);
         RuntimeException re = new RuntimeException("Unexpected.");
 
+        manager.setReadOnly(false);
         delegate.perform();
         TestBase.setThrowable(re);
         manager.abort();
@@ -144,6 +147,7 @@ public class HibernateTransactionDecoratorImplTest extends IOCTestCase
         HibernateTransactionDecorator decorator = newHibernateSessionManagerDecorator(manager);
         SQLException se = new SQLException("Checked.");
 
+        manager.setReadOnly(false);
         delegate.perform();
         TestBase.setThrowable(se);
         manager.commit();
@@ -173,6 +177,7 @@ public class HibernateTransactionDecoratorImplTest extends IOCTestCase
         HibernateTransactionDecorator decorator = newHibernateSessionManagerDecorator(manager);
         ReturnTypeService interceptor = decorator.build(ReturnTypeService.class, delegate, "foo.Bar");
 
+        manager.setReadOnly(false);
         delegate.returnTypeMethod();
 
         manager.commit();
@@ -190,6 +195,7 @@ public class HibernateTransactionDecoratorImplTest extends IOCTestCase
         HibernateTransactionDecorator decorator = newHibernateSessionManagerDecorator(manager);
         ReturnTypeService interceptor = decorator.build(ReturnTypeService.class, delegate, "foo.Bar");
 
+        manager.setReadOnly(false);
         delegate.returnTypeMethodWithParam(5, 3);
 
         manager.commit();
@@ -17,6 +17,7 @@ package org.apache.tapestry5.corelib.pages;
 import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.annotations.Property;
 import org.apache.tapestry5.annotations.WhitelistAccessOnly;
+import org.apache.tapestry5.hibernate.HibernateTransactionStatistics;
 import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.hibernate.Session;
@@ -36,6 +37,10 @@ public class HibernateStatistics
     @Inject
     private Session session;
 
+    @Property
+    @Inject
+    private HibernateTransactionStatistics transactionStatistics;
+
     @Property
     @Inject
     @Symbol(SymbolConstants.PRODUCTION_MODE)
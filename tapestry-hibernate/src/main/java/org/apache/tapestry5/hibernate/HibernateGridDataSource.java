@@ -1,10 +1,10 @@
-// Copyright 2008, 2010 The Apache Software Foundation
+// Copyright 2008, 2010, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
 // You may obtain a copy of the License at
 //
-//     http://www.apache.org/licenses/LICENSE-2.0
+// http://www.apache.org/licenses/LICENSE-2.0
 //
 // Unless required by applicable law or agreed to in writing, software
 // distributed under the License is distributed on an "AS IS" BASIS,
@@ -14,46 +14,116 @@
 
 package org.apache.tapestry5.hibernate;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-import org.apache.tapestry5.grid.GridDataSource;
+import org.apache.tapestry5.grid.ColumnSort;
+import org.apache.tapestry5.grid.SeekableGridDataSource;
 import org.apache.tapestry5.grid.SortConstraint;
+import org.apache.tapestry5.ioc.Invokable;
+import org.apache.tapestry5.services.RowCountCache;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.Conjunction;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.metadata.ClassMetadata;
 
 /**
  * A simple implementation of {@link org.apache.tapestry5.grid.GridDataSource} based on a Hibernate Session and a known
  * entity class.  This implementation does support multiple {@link org.apache.tapestry5.grid.SortConstraint sort
  * constraints}; however it assumes a direct mapping from sort constraint property to Hibernate property.
  * <p/>
+ * Rows with equal sort values are ordered by the entity's identifier. As a {@link SeekableGridDataSource}, this
+ * allows the Grid to query the next or previous page by comparing the sort properties and identifier against those of
+ * the adjacent row, rather than using an offset. An offset is used instead for entities with a composite identifier,
+ * and when sorting on any property that may be null (according to the mapping, unless the property is of a primitive
+ * type): a comparison never matches a null value, and databases differ in whether nulls sort first or last.
+ * <p/>
+ * When constructed with a {@link RowCountCache} and a key, the row count is cached, and refreshed in the background,
+ * using a new session obtained from the session's factory. The key must identify everything that affects the count,
+ * including any constraints added by {@link #applyAdditionalConstraints(org.hibernate.Criteria)} (for example, the
+ * current user, if the rows are restricted to those visible to the user).
+ * <p/>
  * This class is <em>not</em> thread-safe; it maintains internal state.
  * <p/>
  * Typically, an instance of this object is created fresh as needed (that is, it is not stored between requests).
  */
-public class HibernateGridDataSource implements GridDataSource
+public class HibernateGridDataSource implements SeekableGridDataSource
 {
     private final Session session;
 
     private final Class entityType;
 
+    private final RowCountCache rowCountCache;
+
+    private final String rowCountCacheKey;
+
     private int startIndex;
 
     private List preparedResults;
 
     public HibernateGridDataSource(Session session, Class entityType)
+    {
+        this(session, entityType, null, null);
+    }
+
+    /**
+     * @param session
+     *         used to query the rows
+     * @param entityType
+     *         type of entity to query
+     * @param rowCountCache
+     *         used to cache the row count; if null, the rows are counted each time
+     * @param rowCountCacheKey
+     *         key under which the row count is cached, which must identify the entity type and any additional
+     *         constraints; required if rowCountCache is non-null
+     * @since 5.4
+     */
+    public HibernateGridDataSource(Session session, Class entityType, RowCountCache rowCountCache,
+                                   String rowCountCacheKey)
     {
         assert session != null;
         assert entityType != null;
+        assert rowCountCache == null || rowCountCacheKey != null;
         this.session = session;
         this.entityType = entityType;
+        this.rowCountCache = rowCountCache;
+        this.rowCountCacheKey = rowCountCacheKey;
     }
 
     /**
      * Returns the total number of rows for the configured entity type.
      */
     public int getAvailableRows()
+    {
+        if (rowCountCache == null)
+        {
+            return countRows(session);
+        }
+
+        return rowCountCache.getRowCount(rowCountCacheKey, new Invokable<Integer>()
+        {
+            public Integer invoke()
+            {
+                Session countSession = session.getSessionFactory().openSession();
+
+                try
+                {
+                    return countRows(countSession);
+                } finally
+                {
+                    countSession.close();
+                }
+            }
+        });
+    }
+
+    private int countRows(Session session)
     {
         Criteria criteria = session.createCriteria(entityType);
 
@@ -77,29 +147,109 @@ public class HibernateGridDataSource implements GridDataSource
     public void prepare(int startIndex, int endIndex, List<SortConstraint> sortConstraints)
     {
         assert sortConstraints != null;
-        Criteria crit = session.createCriteria(entityType);
 
-        crit.setFirstResult(startIndex).setMaxResults(endIndex - startIndex + 1);
+        prepare(startIndex, endIndex, sortConstraints, null, false);
+    }
+
+    public void prepareAfter(int startIndex, int endIndex, List<SortConstraint> sortConstraints,
+                             Object[] precedingRowKey)
+    {
+        prepare(startIndex, endIndex, sortConstraints, precedingRowKey, false);
+    }
+
+    public void prepareBefore(int startIndex, int endIndex, List<SortConstraint> sortConstraints,
+                              Object[] followingRowKey)
+    {
+        prepare(startIndex, endIndex, sortConstraints, followingRowKey, true);
+    }
+
+    /**
+     * Returns the values of the sorted properties of the row, followed by its identifier.
+     */
+    public Object[] getRowKey(Object row, List<SortConstraint> sortConstraints)
+    {
+        List<Object> result = new ArrayList<Object>();
 
         for (SortConstraint constraint : sortConstraints)
         {
+            if (constraint.getColumnSort() != ColumnSort.UNSORTED)
+            {
+                result.add(constraint.getPropertyModel().getConduit().get(row));
+            }
+        }
+
+        result.add(session.getIdentifier(row));
+
+        return result.toArray();
+    }
+
+    /**
+     * Queries the rows, either by index or, if the row key is usable, relative to the row key.
+     *
+     * @param rowKey  key of an adjacent row, or null
+     * @param reverse if true, the rows are those preceding the row key
+     */
+    private void prepare(int startIndex, int endIndex, List<SortConstraint> sortConstraints, Object[] rowKey,
+                         boolean reverse)
+    {
+        ClassMetadata metadata = session.getSessionFactory().getClassMetadata(entityType);
+
+        List<String> propertyNames = new ArrayList<String>();
+        List<Boolean> ascending = new ArrayList<Boolean>();
 
-            String propertyName = constraint.getPropertyModel().getPropertyName();
+        boolean nullable = false;
 
+        for (SortConstraint constraint : sortConstraints)
+        {
             switch (constraint.getColumnSort())
             {
-
                 case ASCENDING:
 
-                    crit.addOrder(Order.asc(propertyName));
+                    propertyNames.add(constraint.getPropertyModel().getPropertyName());
+                    ascending.add(true);
                     break;
 
                 case DESCENDING:
-                    crit.addOrder(Order.desc(propertyName));
+
+                    propertyNames.add(constraint.getPropertyModel().getPropertyName());
+                    ascending.add(false);
                     break;
 
                 default:
+
+                    continue;
             }
+
+            nullable |= isNullable(metadata, constraint);
+        }
+
+        String identifierName = metadata == null ? null : metadata.getIdentifierPropertyName();
+
+        if (identifierName != null)
+        {
+            propertyNames.add(identifierName);
+            ascending.add(true);
+        }
+
+        boolean seek = identifierName != null && !nullable && isUsable(rowKey, propertyNames.size());
+
+        Criteria crit = session.createCriteria(entityType);
+
+        if (seek)
+        {
+            crit.add(seek(propertyNames, ascending, rowKey, reverse)).setMaxResults(endIndex - startIndex + 1);
+        } else
+        {
+            crit.setFirstResult(startIndex).setMaxResults(endIndex - startIndex + 1);
+        }
+
+        boolean flip = seek && reverse;
+
+        for (int i = 0; i < propertyNames.size(); i++)
+        {
+            String propertyName = propertyNames.get(i);
+
+            crit.addOrder(ascending.get(i) != flip ? Order.asc(propertyName) : Order.desc(propertyName));
         }
 
         applyAdditionalConstraints(crit);
@@ -107,12 +257,100 @@ public class HibernateGridDataSource implements GridDataSource
         this.startIndex = startIndex;
 
         preparedResults = crit.list();
+
+        if (flip)
+        {
+            Collections.reverse(preparedResults);
+        }
+    }
+
+    /**
+     * Returns true if the sorted property may be null; that is, it is not a primitive, and is not mapped as
+     * not-null. Nested properties are treated as nullable.
+     */
+    private static boolean isNullable(ClassMetadata metadata, SortConstraint constraint)
+    {
+        if (constraint.getPropertyModel().getPropertyType().isPrimitive())
+        {
+            return false;
+        }
+
+        if (metadata == null)
+        {
+            return true;
+        }
+
+        String[] names = metadata.getPropertyNames();
+        boolean[] nullability = metadata.getPropertyNullability();
+
+        for (int i = 0; i < names.length; i++)
+        {
+            if (names[i].equals(constraint.getPropertyModel().getPropertyName()))
+            {
+                return nullability[i];
+            }
+        }
+
+        // Perhaps a nested property, or the identifier itself.
+
+        return !constraint.getPropertyModel().getPropertyName().equals(metadata.getIdentifierPropertyName());
+    }
+
+    private static boolean isUsable(Object[] rowKey, int length)
+    {
+        if (rowKey == null || rowKey.length != length)
+        {
+            return false;
+        }
+
+        for (Object value : rowKey)
+        {
+            if (value == null)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds the criterion that matches rows after (or before, if reverse) the row key, in sort order. For sort
+     * properties a, b and identifier id, all ascending, that is
+     * {@code a > ? or (a = ? and b > ?) or (a = ? and b = ? and id > ?)}.
+     */
+    private static Criterion seek(List<String> propertyNames, List<Boolean> ascending, Object[] rowKey,
+                                  boolean reverse)
+    {
+        Disjunction disjunction = Restrictions.disjunction();
+
+        for (int i = 0; i < propertyNames.size(); i++)
+        {
+            Conjunction conjunction = Restrictions.conjunction();
+
+            for (int j = 0; j < i; j++)
+            {
+                conjunction.add(Restrictions.eq(propertyNames.get(j), rowKey[j]));
+            }
+
+            String propertyName = propertyNames.get(i);
+
+            conjunction.add(ascending.get(i) != reverse
+                    ? Restrictions.gt(propertyName, rowKey[i])
+                    : Restrictions.lt(propertyName, rowKey[i]));
+
+            disjunction.add(conjunction);
+        }
+
+        return disjunction;
     }
 
     /**
      * Invoked after the main criteria has been set up (firstResult, maxResults and any sort contraints). This gives
      * subclasses a chance to apply additional constraints before the list of results is obtained from the criteria.
      * This implementation does nothing and may be overridden.
+     * <p/>
+     * When a {@link RowCountCache} is used, this may be invoked from a different thread, to count the rows.
      */
     protected void applyAdditionalConstraints(Criteria crit)
     {
@@ -123,11 +361,13 @@ public class HibernateGridDataSource implements GridDataSource
      * #prepare(int, int, java.util.List)} ).
      *
      * @param index of object
-     * @return object at that index
+     * @return object at that index, or null if there are fewer rows than expected
      */
     public Object getRowValue(int index)
     {
-        return preparedResults.get(index - startIndex);
+        int offset = index - startIndex;
+
+        return offset < preparedResults.size() ? preparedResults.get(offset) : null;
     }
 
     /**
@@ -17,25 +17,33 @@ package org.apache.tapestry5.hibernate.modules;
 import org.apache.tapestry5.ValueEncoder;
 import org.apache.tapestry5.hibernate.HibernateCore;
 import org.apache.tapestry5.hibernate.HibernatePersistenceConstants;
+import org.apache.tapestry5.hibernate.HibernateSessionManager;
 import org.apache.tapestry5.hibernate.HibernateSessionSource;
 import org.apache.tapestry5.hibernate.HibernateSymbols;
 import org.apache.tapestry5.internal.InternalConstants;
 import org.apache.tapestry5.internal.hibernate.CommitAfterWorker;
 import org.apache.tapestry5.internal.hibernate.EntityApplicationStatePersistenceStrategy;
+import org.apache.tapestry5.internal.hibernate.EntityLoader;
+import org.apache.tapestry5.internal.hibernate.EntityLoaderImpl;
 import org.apache.tapestry5.internal.hibernate.EntityPersistentFieldStrategy;
 import org.apache.tapestry5.internal.hibernate.HibernateEntityValueEncoder;
 import org.apache.tapestry5.ioc.Configuration;
 import org.apache.tapestry5.ioc.LoggerSource;
 import org.apache.tapestry5.ioc.MappedConfiguration;
 import org.apache.tapestry5.ioc.OrderedConfiguration;
+import org.apache.tapestry5.ioc.ScopeConstants;
 import org.apache.tapestry5.ioc.annotations.Contribute;
 import org.apache.tapestry5.ioc.annotations.Primary;
+import org.apache.tapestry5.ioc.annotations.Scope;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.services.PropertyAccess;
 import org.apache.tapestry5.ioc.services.ServiceOverride;
 import org.apache.tapestry5.ioc.services.TypeCoercer;
 import org.apache.tapestry5.services.ApplicationStateContribution;
 import org.apache.tapestry5.services.ApplicationStatePersistenceStrategy;
+import org.apache.tapestry5.services.PageRenderRequestFilter;
+import org.apache.tapestry5.services.PageRenderRequestHandler;
+import org.apache.tapestry5.services.PageRenderRequestParameters;
 import org.apache.tapestry5.services.PersistentFieldStrategy;
 import org.apache.tapestry5.services.ValueEncoderFactory;
 import org.apache.tapestry5.services.dashboard.DashboardManager;
@@ -44,6 +52,7 @@ import org.apache.tapestry5.services.transform.ComponentClassTransformWorker2;
 import org.hibernate.Session;
 import org.hibernate.mapping.PersistentClass;
 
+import java.io.IOException;
 import java.util.Iterator;
 
 /**
@@ -56,6 +65,24 @@ public class HibernateModule
     {
         configuration.add(HibernateSymbols.PROVIDE_ENTITY_VALUE_ENCODERS, "true");
         configuration.add(HibernateSymbols.ENTITY_SESSION_STATE_PERSISTENCE_STRATEGY_ENABLED, "false");
+        configuration.add(HibernateSymbols.READ_ONLY_PAGE_RENDERS, "false");
+        configuration.add(HibernateSymbols.ENTITY_CACHE_ENABLED, "false");
+    }
+
+    /**
+     * Loads entities for the entity value encoders and persistence strategies, prefetching batches of ids when they
+     * are known in advance. Per-thread, so that (with {@link HibernateSymbols#ENTITY_CACHE_ENABLED}) entities are
+     * cached for the request.
+     *
+     * @since 5.4
+     */
+    @Scope(ScopeConstants.PERTHREAD)
+    public static EntityLoader buildEntityLoader(Session session,
+
+                                                 @Symbol(HibernateSymbols.ENTITY_CACHE_ENABLED)
+                                                 boolean cacheEnabled)
+    {
+        return new EntityLoaderImpl(session, cacheEnabled);
     }
 
     /**
@@ -85,7 +112,7 @@ public class HibernateModule
     @SuppressWarnings("unchecked")
     public static void contributeValueEncoderSource(MappedConfiguration<Class, ValueEncoderFactory> configuration,
                                                     @Symbol(HibernateSymbols.PROVIDE_ENTITY_VALUE_ENCODERS)
-                                                    boolean provideEncoders, final HibernateSessionSource sessionSource, final Session session,
+                                                    boolean provideEncoders, final HibernateSessionSource sessionSource, final EntityLoader entityLoader,
                                                     final TypeCoercer typeCoercer, final PropertyAccess propertyAccess, final LoggerSource loggerSource)
     {
         if (!provideEncoders)
@@ -104,7 +131,7 @@ public class HibernateModule
                 {
                     public ValueEncoder create(Class type)
                     {
-                        return new HibernateEntityValueEncoder(entityClass, persistentClass, session, propertyAccess,
+                        return new HibernateEntityValueEncoder(entityClass, persistentClass, entityLoader, propertyAccess,
                                 typeCoercer, loggerSource.getLogger(entityClass));
                     }
                 };
@@ -187,6 +214,36 @@ public class HibernateModule
         configuration.addInstance("CommitAfter", CommitAfterWorker.class, "after:Log");
     }
 
+    /**
+     * Contributes a filter, "HibernateReadOnly", that makes the session read-only for page render requests, if
+     * {@link HibernateSymbols#READ_ONLY_PAGE_RENDERS} is enabled. Combined with
+     * {@link HibernateSymbols#LAZY_TRANSACTIONS}, renders that don't touch the database don't open a session at all.
+     *
+     * @since 5.4
+     */
+    @Contribute(PageRenderRequestHandler.class)
+    public static void provideReadOnlyPageRenderFilter(OrderedConfiguration<PageRenderRequestFilter> configuration,
+
+                                                       @Symbol(HibernateSymbols.READ_ONLY_PAGE_RENDERS)
+                                                       boolean readOnlyPageRenders,
+
+                                                       final HibernateSessionManager sessionManager)
+    {
+        if (!readOnlyPageRenders)
+            return;
+
+        configuration.add("HibernateReadOnly", new PageRenderRequestFilter()
+        {
+            public void handle(PageRenderRequestParameters parameters, PageRenderRequestHandler handler)
+                    throws IOException
+            {
+                sessionManager.setReadOnly(true);
+
+                handler.handle(parameters);
+            }
+        });
+    }
+
     @Contribute(DashboardManager.class)
     public static void provideHibernateDashboardTab(OrderedConfiguration<DashboardTab> configuration)
     {
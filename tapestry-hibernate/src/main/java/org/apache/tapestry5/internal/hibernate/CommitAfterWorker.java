@@ -1,4 +1,4 @@
-// Copyright 2008, 2011, 2012 The Apache Software Foundation
+// Copyright 2008, 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -48,6 +48,10 @@ public class CommitAfterWorker implements ComponentClassTransformWorker2
 
         public void advise(MethodInvocation invocation)
         {
+            // Changes must be tracked, even if the session was read-only up to now.
+
+            manager.setReadOnly(false);
+
             try
             {
                 invocation.proceed();
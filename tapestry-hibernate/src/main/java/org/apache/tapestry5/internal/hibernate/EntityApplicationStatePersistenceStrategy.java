@@ -1,4 +1,4 @@
-// Copyright 2009 The Apache Software Foundation
+// Copyright 2009, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -30,10 +30,14 @@ public class EntityApplicationStatePersistenceStrategy extends SessionApplicatio
 
 	private final org.hibernate.Session hibernateSession;
 
-	public EntityApplicationStatePersistenceStrategy(Request request, org.hibernate.Session hibernateSession) 
+	private final EntityLoader loader;
+
+	public EntityApplicationStatePersistenceStrategy(Request request, org.hibernate.Session hibernateSession,
+	                                                 EntityLoader loader) 
 	{
 		super(request);
 		this.hibernateSession = hibernateSession;
+		this.loader = loader;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -45,7 +49,7 @@ public class EntityApplicationStatePersistenceStrategy extends SessionApplicatio
 		{
 			final PersistedEntity persisted = (PersistedEntity) persistedValue;
 			
-			Object restored = persisted.restore(this.hibernateSession);
+			Object restored = persisted.restore(this.loader);
 			
 			//shall we maybe throw an exception instead?
 			if(restored == null)
@@ -0,0 +1,178 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.hibernate;
+
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.hibernate.Session;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.metadata.ClassMetadata;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class EntityLoaderImpl implements EntityLoader
+{
+    /**
+     * Largest number of ids in a single query; some databases limit the number of values in an IN clause.
+     */
+    static final int MAX_BATCH_SIZE = 500;
+
+    private final Session session;
+
+    private final boolean cacheEnabled;
+
+    /**
+     * Per entity name, the ids known not to exist.
+     */
+    private final Map<String, Set<Serializable>> missing = CollectionFactory.newMap();
+
+    /**
+     * Per entity name, the entities already returned by {@link #get(String, java.io.Serializable)}; only used when the
+     * cache is enabled.
+     */
+    private final Map<String, Map<Serializable, Object>> cache = CollectionFactory.newMap();
+
+    public EntityLoaderImpl(Session session, boolean cacheEnabled)
+    {
+        this.session = session;
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public void prefetch(String entityName, Collection<Serializable> ids)
+    {
+        ClassMetadata metadata = session.getSessionFactory().getClassMetadata(entityName);
+
+        // Composite ids can't be matched with a simple IN clause.
+
+        if (metadata == null || !metadata.hasIdentifierProperty() || metadata.getIdentifierType().isComponentType())
+        {
+            return;
+        }
+
+        Set<Serializable> remaining = CollectionFactory.newSet(ids);
+
+        Set<Serializable> entityMissing = missing.get(entityName);
+
+        if (entityMissing != null)
+        {
+            remaining.removeAll(entityMissing);
+        }
+
+        if (remaining.size() < 2)
+        {
+            return;
+        }
+
+        List<Serializable> batch = CollectionFactory.newList();
+
+        for (Serializable id : remaining)
+        {
+            batch.add(id);
+
+            if (batch.size() == MAX_BATCH_SIZE)
+            {
+                load(entityName, metadata.getIdentifierPropertyName(), batch);
+
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty())
+        {
+            load(entityName, metadata.getIdentifierPropertyName(), batch);
+        }
+    }
+
+    private void load(String entityName, String idPropertyName, List<Serializable> ids)
+    {
+        List<?> entities = session.createCriteria(entityName).add(Restrictions.in(idPropertyName, ids)).list();
+
+        // The entities are now in the session; only the ids that weren't found need to be remembered.
+
+        Set<Serializable> notFound = CollectionFactory.newSet(ids);
+
+        for (Object entity : entities)
+        {
+            notFound.remove(session.getIdentifier(entity));
+        }
+
+        if (notFound.isEmpty())
+        {
+            return;
+        }
+
+        Set<Serializable> entityMissing = missing.get(entityName);
+
+        if (entityMissing == null)
+        {
+            entityMissing = CollectionFactory.newSet();
+            missing.put(entityName, entityMissing);
+        }
+
+        entityMissing.addAll(notFound);
+    }
+
+    public Object get(String entityName, Serializable id)
+    {
+        Set<Serializable> entityMissing = missing.get(entityName);
+
+        if (entityMissing != null && entityMissing.contains(id))
+        {
+            return null;
+        }
+
+        if (!cacheEnabled)
+        {
+            return session.get(entityName, id);
+        }
+
+        Map<Serializable, Object> entities = cache.get(entityName);
+
+        if (entities == null)
+        {
+            entities = CollectionFactory.newMap();
+            cache.put(entityName, entities);
+        }
+
+        Object entity = entities.get(id);
+
+        // An entity evicted from the session (or from a session that has been cleared) must be loaded again.
+
+        if (entity == null || !session.contains(entity))
+        {
+            entity = session.get(entityName, id);
+
+            if (entity == null)
+            {
+                if (entityMissing == null)
+                {
+                    entityMissing = CollectionFactory.newSet();
+                    missing.put(entityName, entityMissing);
+                }
+
+                entityMissing.add(id);
+
+                return null;
+            }
+
+            entities.put(id, entity);
+        }
+
+        return entity;
+    }
+}
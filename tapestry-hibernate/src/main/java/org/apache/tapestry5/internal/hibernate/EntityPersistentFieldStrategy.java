@@ -1,4 +1,4 @@
-// Copyright 2008m 2913 The Apache Software Foundation
+// Copyright 2008, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,11 +15,14 @@
 package org.apache.tapestry5.internal.hibernate;
 
 import org.apache.tapestry5.internal.services.AbstractSessionPersistentFieldStrategy;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.services.Request;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Persists Hibernate entities by storing their id in the session.
@@ -30,11 +33,14 @@ public class EntityPersistentFieldStrategy extends AbstractSessionPersistentFiel
 {
     private final Session session;
 
-    public EntityPersistentFieldStrategy(Session session, Request request)
+    private final EntityLoader loader;
+
+    public EntityPersistentFieldStrategy(Session session, EntityLoader loader, Request request)
     {
         super("entity:", request);
 
         this.session = session;
+        this.loader = loader;
     }
 
     @Override
@@ -58,6 +64,40 @@ public class EntityPersistentFieldStrategy extends AbstractSessionPersistentFiel
     {
         PersistedEntity persisted = (PersistedEntity) persistedValue;
 
-        return persisted.restore(session);
+        return persisted.restore(loader);
+    }
+
+    /**
+     * Prefetches the page's persisted entities, so that each entity type is loaded with a single query.
+     */
+    @Override
+    protected void willConvertPersistedValues(List<Object> persistedValues)
+    {
+        Map<String, List<Serializable>> ids = CollectionFactory.newMap();
+
+        for (Object value : persistedValues)
+        {
+            if (!(value instanceof PersistedEntity))
+            {
+                continue;
+            }
+
+            PersistedEntity persisted = (PersistedEntity) value;
+
+            List<Serializable> entityIds = ids.get(persisted.getEntityName());
+
+            if (entityIds == null)
+            {
+                entityIds = CollectionFactory.newList();
+                ids.put(persisted.getEntityName(), entityIds);
+            }
+
+            entityIds.add(persisted.getId());
+        }
+
+        for (Map.Entry<String, List<Serializable>> entry : ids.entrySet())
+        {
+            loader.prefetch(entry.getKey(), entry.getValue());
+        }
     }
 }
@@ -14,24 +14,28 @@
 
 package org.apache.tapestry5.internal.hibernate;
 
-import org.apache.tapestry5.ValueEncoder;
+import org.apache.tapestry5.BatchValueEncoder;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.ioc.services.PropertyAccess;
 import org.apache.tapestry5.ioc.services.PropertyAdapter;
 import org.apache.tapestry5.ioc.services.TypeCoercer;
 import org.apache.tapestry5.ioc.util.ExceptionUtils;
-import org.hibernate.Session;
 import org.hibernate.mapping.PersistentClass;
 import org.hibernate.mapping.Property;
 import org.slf4j.Logger;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
 
-public final class HibernateEntityValueEncoder<E> implements ValueEncoder<E>
+public final class HibernateEntityValueEncoder<E> implements BatchValueEncoder<E>
 {
     private final Class<E> entityClass;
 
-    private final Session session;
+    private final String entityName;
+
+    private final EntityLoader loader;
 
     private final TypeCoercer typeCoercer;
 
@@ -39,11 +43,12 @@ public final class HibernateEntityValueEncoder<E> implements ValueEncoder<E>
 
     private final Logger logger;
 
-    public HibernateEntityValueEncoder(Class<E> entityClass, PersistentClass persistentClass, Session session,
+    public HibernateEntityValueEncoder(Class<E> entityClass, PersistentClass persistentClass, EntityLoader loader,
                                        PropertyAccess propertyAccess, TypeCoercer typeCoercer, Logger logger)
     {
         this.entityClass = entityClass;
-        this.session = session;
+        this.entityName = persistentClass.getEntityName();
+        this.loader = loader;
         this.typeCoercer = typeCoercer;
         this.logger = logger;
 
@@ -73,22 +78,9 @@ public final class HibernateEntityValueEncoder<E> implements ValueEncoder<E>
         if (InternalUtils.isBlank(clientValue))
             return null;
 
-        Object id = null;
+        Serializable ser = toId(clientValue);
 
-        try
-        {
-
-            id = typeCoercer.coerce(clientValue, propertyAdapter.getType());
-        } catch (Exception ex)
-        {
-            throw new RuntimeException(String.format(
-                    "Exception converting '%s' to instance of %s (id type for entity %s): %s", clientValue,
-                    propertyAdapter.getType().getName(), entityClass.getName(), ExceptionUtils.toMessage(ex)), ex);
-        }
-
-        Serializable ser = (Serializable) id;
-
-        E result = (E) session.get(entityClass, ser);
+        E result = (E) loader.get(entityName, ser);
 
         if (result == null)
         {
@@ -100,4 +92,35 @@ public final class HibernateEntityValueEncoder<E> implements ValueEncoder<E>
         return result;
     }
 
+    public void prefetch(Collection<String> clientValues)
+    {
+        List<Serializable> ids = CollectionFactory.newList();
+
+        for (String clientValue : clientValues)
+        {
+            try
+            {
+                ids.add(toId(clientValue));
+            } catch (RuntimeException ex)
+            {
+                // Reported when the value itself is converted.
+            }
+        }
+
+        loader.prefetch(entityName, ids);
+    }
+
+    private Serializable toId(String clientValue)
+    {
+        try
+        {
+            return (Serializable) typeCoercer.coerce(clientValue, propertyAdapter.getType());
+        } catch (Exception ex)
+        {
+            throw new RuntimeException(String.format(
+                    "Exception converting '%s' to instance of %s (id type for entity %s): %s", clientValue,
+                    propertyAdapter.getType().getName(), entityClass.getName(), ExceptionUtils.toMessage(ex)), ex);
+        }
+    }
+
 }
@@ -15,8 +15,6 @@
 package org.apache.tapestry5.internal.hibernate;
 
 import org.apache.tapestry5.annotations.ImmutableSessionPersistedObject;
-import org.hibernate.Session;
-
 import java.io.Serializable;
 
 /**
@@ -37,11 +35,21 @@ public class PersistedEntity implements Serializable
         this.id = id;
     }
 
-    public Object restore(Session session)
+    String getEntityName()
+    {
+        return entityName;
+    }
+
+    Serializable getId()
+    {
+        return id;
+    }
+
+    public Object restore(EntityLoader loader)
     {
         try
         {
-            return session.get(entityName, id);
+            return loader.get(entityName, id);
         }
         catch (Exception ex)
         {
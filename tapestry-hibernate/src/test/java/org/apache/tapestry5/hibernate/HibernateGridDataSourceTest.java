@@ -0,0 +1,274 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.hibernate;
+
+import org.apache.tapestry5.PropertyConduit;
+import org.apache.tapestry5.beaneditor.PropertyModel;
+import org.apache.tapestry5.grid.ColumnSort;
+import org.apache.tapestry5.grid.SortConstraint;
+import org.apache.tapestry5.internal.hibernate.DefaultHibernateConfigurer;
+import org.apache.tapestry5.internal.hibernate.HibernateSessionSourceImpl;
+import org.apache.tapestry5.ioc.Invokable;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.RowCountCache;
+import org.apache.tapestry5.test.TapestryTestCase;
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.isA;
+
+public class HibernateGridDataSourceTest extends TapestryTestCase
+{
+    private static final int ROW_COUNT = 23;
+
+    private static final int ROWS_PER_PAGE = 5;
+
+    private HibernateSessionSource sessionSource;
+
+    private Session session;
+
+    @BeforeClass
+    public void setup()
+    {
+        HibernateConfigurer configurer = new HibernateConfigurer()
+        {
+            public void configure(Configuration configuration)
+            {
+                configuration.setProperty("hibernate.connection.url", "jdbc:hsqldb:mem:griddatasource");
+                configuration.addAnnotatedClass(RankedEntity.class);
+            }
+        };
+
+        sessionSource = new HibernateSessionSourceImpl(LoggerFactory.getLogger(HibernateGridDataSourceTest.class),
+                Arrays.asList(new DefaultHibernateConfigurer(true), configurer));
+
+        session = sessionSource.create();
+
+        session.beginTransaction();
+
+        // Many ties on score, and some null labels.
+
+        for (long i = 1; i <= ROW_COUNT; i++)
+        {
+            session.save(new RankedEntity(i, (int) (i % 4), i % 5 == 0 ? null : "label" + (i % 3)));
+        }
+
+        session.getTransaction().commit();
+    }
+
+    @AfterClass
+    public void cleanup()
+    {
+        session.close();
+
+        sessionSource.getSessionFactory().close();
+    }
+
+    @Test
+    public void keyset_paging_matches_offset_paging_ascending()
+    {
+        List<SortConstraint> sortConstraints = sort("score", int.class, ColumnSort.ASCENDING);
+
+        replay();
+
+        assertKeysetPagingMatchesOffsetPaging(sortConstraints, true);
+
+        verify();
+    }
+
+    @Test
+    public void keyset_paging_matches_offset_paging_descending()
+    {
+        List<SortConstraint> sortConstraints = sort("score", int.class, ColumnSort.DESCENDING);
+
+        replay();
+
+        assertKeysetPagingMatchesOffsetPaging(sortConstraints, true);
+
+        verify();
+    }
+
+    @Test
+    public void keyset_paging_when_unsorted()
+    {
+        List<SortConstraint> sortConstraints = sort("score", int.class, ColumnSort.UNSORTED);
+
+        replay();
+
+        assertKeysetPagingMatchesOffsetPaging(sortConstraints, true);
+
+        verify();
+    }
+
+    @Test
+    public void nullable_sort_property_uses_offset()
+    {
+        List<SortConstraint> sortConstraints = sort("label", String.class, ColumnSort.ASCENDING);
+
+        replay();
+
+        assertKeysetPagingMatchesOffsetPaging(sortConstraints, false);
+
+        verify();
+    }
+
+    @Test
+    public void row_count_cached_by_supplied_key()
+    {
+        RowCountCache cache = newMock(RowCountCache.class);
+
+        expect(cache.getRowCount(eq("ranked:all"), isA(Invokable.class))).andReturn(99);
+
+        replay();
+
+        HibernateGridDataSource source = new HibernateGridDataSource(session, RankedEntity.class, cache,
+                "ranked:all");
+
+        assertEquals(source.getAvailableRows(), 99);
+
+        verify();
+    }
+
+    @Test
+    public void row_count_not_cached_by_default()
+    {
+        HibernateGridDataSource source = new HibernateGridDataSource(session, RankedEntity.class);
+
+        assertEquals(source.getAvailableRows(), ROW_COUNT);
+    }
+
+    /**
+     * Reads every page by offset, then reads each again relative to the last row of the preceding page, and to the
+     * first row of the following page, expecting the same rows. Then checks whether the row key was used, by passing
+     * a start index that would select the first page were an offset used instead.
+     */
+    private void assertKeysetPagingMatchesOffsetPaging(List<SortConstraint> sortConstraints, boolean seekable)
+    {
+        HibernateGridDataSource source = new HibernateGridDataSource(session, RankedEntity.class);
+
+        assertEquals(source.getAvailableRows(), ROW_COUNT);
+
+        List<List<Long>> pages = CollectionFactory.newList();
+        List<Object[]> firstRowKeys = CollectionFactory.newList();
+        List<Object[]> lastRowKeys = CollectionFactory.newList();
+
+        Set<Long> all = CollectionFactory.newSet();
+
+        for (int startIndex = 0; startIndex < ROW_COUNT; startIndex += ROWS_PER_PAGE)
+        {
+            int endIndex = Math.min(startIndex + ROWS_PER_PAGE, ROW_COUNT) - 1;
+
+            source.prepare(startIndex, endIndex, sortConstraints);
+
+            pages.add(ids(source, startIndex, endIndex));
+
+            firstRowKeys.add(source.getRowKey(source.getRowValue(startIndex), sortConstraints));
+            lastRowKeys.add(source.getRowKey(source.getRowValue(endIndex), sortConstraints));
+
+            all.addAll(pages.get(pages.size() - 1));
+        }
+
+        assertEquals(all.size(), ROW_COUNT);
+
+        for (int page = 1; page < pages.size(); page++)
+        {
+            int startIndex = page * ROWS_PER_PAGE;
+            int endIndex = Math.min(startIndex + ROWS_PER_PAGE, ROW_COUNT) - 1;
+
+            source.prepareAfter(startIndex, endIndex, sortConstraints, lastRowKeys.get(page - 1));
+
+            assertEquals(ids(source, startIndex, endIndex), pages.get(page));
+        }
+
+        for (int page = pages.size() - 2; page >= 0; page--)
+        {
+            int startIndex = page * ROWS_PER_PAGE;
+            int endIndex = startIndex + ROWS_PER_PAGE - 1;
+
+            source.prepareBefore(startIndex, endIndex, sortConstraints, firstRowKeys.get(page + 1));
+
+            assertEquals(ids(source, startIndex, endIndex), pages.get(page));
+        }
+
+        source.prepareAfter(0, ROWS_PER_PAGE - 1, sortConstraints, lastRowKeys.get(1));
+
+        assertEquals(ids(source, 0, ROWS_PER_PAGE - 1), pages.get(seekable ? 2 : 0));
+    }
+
+    private static List<Long> ids(HibernateGridDataSource source, int startIndex, int endIndex)
+    {
+        List<Long> result = CollectionFactory.newList();
+
+        for (int i = startIndex; i <= endIndex; i++)
+        {
+            RankedEntity row = (RankedEntity) source.getRowValue(i);
+
+            result.add(row == null ? null : row.getId());
+        }
+
+        return result;
+    }
+
+    private List<SortConstraint> sort(final String propertyName, Class propertyType, ColumnSort columnSort)
+    {
+        PropertyModel model = mockPropertyModel();
+
+        PropertyConduit conduit = new PropertyConduit()
+        {
+            public Object get(Object instance)
+            {
+                RankedEntity entity = (RankedEntity) instance;
+
+                if (propertyName.equals("score"))
+                {
+                    return entity.getScore();
+                }
+
+                return entity.getLabel();
+            }
+
+            public void set(Object instance, Object value)
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            public Class getPropertyType()
+            {
+                return null;
+            }
+
+            public <T extends Annotation> T getAnnotation(Class<T> annotationClass)
+            {
+                return null;
+            }
+        };
+
+        expect(model.getPropertyName()).andStubReturn(propertyName);
+        expect(model.getPropertyType()).andStubReturn(propertyType);
+        expect(model.getConduit()).andStubReturn(conduit);
+
+        return Arrays.asList(new SortConstraint(model, columnSort));
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2008 The Apache Software Foundation
+// Copyright 2008, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -26,7 +26,7 @@ public class EntityPersistentFieldStrategyTest extends TapestryTestCase
     {
         String nonEntity = "foo";
         Session session = newMock(Session.class);
-        EntityPersistentFieldStrategy strategy = new EntityPersistentFieldStrategy(session, null);
+        EntityPersistentFieldStrategy strategy = new EntityPersistentFieldStrategy(session, null, null);
 
         expect(session.getEntityName(nonEntity)).andThrow(new HibernateException("error"));
 
@@ -1,4 +1,4 @@
-// Copyright 2008, 2010, 2011 The Apache Software Foundation
+// Copyright 2008, 2010, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -18,14 +18,23 @@ import org.apache.tapestry5.ioc.Registry;
 import org.apache.tapestry5.ioc.services.PropertyAccess;
 import org.apache.tapestry5.ioc.services.TypeCoercer;
 import org.apache.tapestry5.ioc.test.IOCTestCase;
+import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.mapping.Property;
 import org.hibernate.mapping.RootClass;
+import org.hibernate.type.Type;
 import org.slf4j.Logger;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+
+import static org.easymock.EasyMock.isA;
+
 public class HibernateEntityValueEncoderTest extends IOCTestCase
 {
     private Registry registry;
@@ -66,7 +75,7 @@ public class HibernateEntityValueEncoderTest extends IOCTestCase
         SampleEntity entity = new SampleEntity();
 
         HibernateEntityValueEncoder<SampleEntity> encoder = new HibernateEntityValueEncoder<SampleEntity>(
-                SampleEntity.class, persistentClass, session, access, typeCoercer, logger);
+                SampleEntity.class, persistentClass, new EntityLoaderImpl(session, false), access, typeCoercer, logger);
 
         assertNull(encoder.toClient(entity));
 
@@ -79,7 +88,7 @@ public class HibernateEntityValueEncoderTest extends IOCTestCase
         Session session = mockSession();
         Logger logger = mockLogger();
 
-        expect(session.get(SampleEntity.class, new Long(12345))).andReturn(null);
+        expect(session.get(SampleEntity.class.getName(), new Long(12345))).andReturn(null);
 
         logger.error("Unable to convert client value '12345' into an entity instance.");
 
@@ -89,10 +98,10 @@ public class HibernateEntityValueEncoderTest extends IOCTestCase
         Property idProperty = new Property();
         idProperty.setName("id");
         persistentClass.setIdentifierProperty(idProperty);
-        SampleEntity entity = new SampleEntity();
+        persistentClass.setEntityName(SampleEntity.class.getName());
 
         HibernateEntityValueEncoder<SampleEntity> encoder = new HibernateEntityValueEncoder<SampleEntity>(
-                SampleEntity.class, persistentClass, session, access, typeCoercer, logger);
+                SampleEntity.class, persistentClass, new EntityLoaderImpl(session, false), access, typeCoercer, logger);
 
         assertNull(encoder.toValue("12345"));
 
@@ -113,7 +122,7 @@ public class HibernateEntityValueEncoderTest extends IOCTestCase
         persistentClass.setIdentifierProperty(idProperty);
 
         HibernateEntityValueEncoder<SampleEntity> encoder = new HibernateEntityValueEncoder<SampleEntity>(
-                SampleEntity.class, persistentClass, session, access, typeCoercer, logger);
+                SampleEntity.class, persistentClass, new EntityLoaderImpl(session, false), access, typeCoercer, logger);
 
         try
         {
@@ -131,6 +140,57 @@ public class HibernateEntityValueEncoderTest extends IOCTestCase
         verify();
     }
 
+    @Test
+    public void prefetched_values_are_loaded_with_single_query()
+    {
+        String entityName = SampleEntity.class.getName();
+        Session session = mockSession();
+        Logger logger = mockLogger();
+        SessionFactory sessionFactory = newMock(SessionFactory.class);
+        ClassMetadata metadata = newMock(ClassMetadata.class);
+        Type idType = newMock(Type.class);
+        Criteria criteria = newMock(Criteria.class);
+        SampleEntity entity = new SampleEntity();
+
+        expect(session.getSessionFactory()).andReturn(sessionFactory);
+        expect(sessionFactory.getClassMetadata(entityName)).andReturn(metadata);
+        expect(metadata.hasIdentifierProperty()).andReturn(true);
+        expect(metadata.getIdentifierType()).andReturn(idType);
+        expect(idType.isComponentType()).andReturn(false);
+        expect(metadata.getIdentifierPropertyName()).andReturn("id");
+
+        expect(session.createCriteria(entityName)).andReturn(criteria);
+        expect(criteria.add(isA(Criterion.class))).andReturn(criteria);
+        expect(criteria.list()).andReturn(Arrays.asList(entity));
+        expect(session.getIdentifier(entity)).andReturn(new Long(1));
+
+        // Found by the prefetch, so already in the session:
+
+        expect(session.get(entityName, new Long(1))).andReturn(entity);
+
+        // Not found by the prefetch, so not queried again:
+
+        logger.error("Unable to convert client value '2' into an entity instance.");
+
+        replay();
+
+        RootClass persistentClass = new RootClass();
+        Property idProperty = new Property();
+        idProperty.setName("id");
+        persistentClass.setIdentifierProperty(idProperty);
+        persistentClass.setEntityName(entityName);
+
+        HibernateEntityValueEncoder<SampleEntity> encoder = new HibernateEntityValueEncoder<SampleEntity>(
+                SampleEntity.class, persistentClass, new EntityLoaderImpl(session, false), access, typeCoercer, logger);
+
+        encoder.prefetch(Arrays.asList("1", "2"));
+
+        assertSame(encoder.toValue("1"), entity);
+        assertNull(encoder.toValue("2"));
+
+        verify();
+    }
+
     protected final Session mockSession()
     {
         return newMock(Session.class);
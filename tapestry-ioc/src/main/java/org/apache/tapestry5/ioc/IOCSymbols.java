@@ -1,4 +1,4 @@
-// Copyright 2010, 2011 The Apache Software Foundation
+// Copyright 2010, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -61,4 +61,26 @@ public class IOCSymbols
      * @since 5.1.0.3
      */
     public static final String THREAD_POOL_ENABLED = "tapestry.thread-pool-enabled";
+
+    /**
+     * The number of threads used, at {@linkplain Registry#performRegistryStartup() registry startup}, to realize
+     * services marked for eager loading in parallel. Services needed by more than one eager loaded service are still
+     * only realized once; the threads that need such a service wait for it. The contributions to the RegistryStartup
+     * service are then run, in order, as usual. Eager loaded services often spend their time waiting (for a database,
+     * or for files to be read), so this may usefully be larger than the number of processors. The default, 0, realizes
+     * the services one at a time in the thread starting the registry.
+     *
+     * @since 5.4
+     */
+    public static final String STARTUP_THREAD_COUNT = "tapestry.startup-thread-count";
+
+    /**
+     * If true (the default), the {@link org.apache.tapestry5.ioc.services.FileWatcher} service uses the file system's
+     * native change notifications (where available, starting with Java 7) so that changes to tracked files are detected
+     * without re-reading every file's timestamp. This can be set to "false" when files are modified in ways that are
+     * not reported by the file system (for example, on some network file systems).
+     *
+     * @since 5.4
+     */
+    public static final String FILE_WATCHER_ENABLED = "tapestry.file-watcher-enabled";
 }
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2009, 2010, 2011, 2012 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2009, 2010, 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 
 import static java.lang.String.format;
 
@@ -49,9 +50,11 @@ public class ModuleImpl implements Module
     private final Logger logger;
 
     /**
-     * Lazily instantiated. Access is guarded by BARRIER.
+     * Lazily instantiated. Creation is guarded by moduleInstanceLock.
      */
-    private Object moduleInstance;
+    private volatile Object moduleInstance;
+
+    private final CreationLock moduleInstanceLock;
 
     // Set to true when invoking the module constructor. Used to
     // detect endless loops caused by irresponsible dependencies in
@@ -59,17 +62,17 @@ public class ModuleImpl implements Module
     private boolean insideConstructor;
 
     /**
-     * Keyed on fully qualified service id; values are instantiated services (proxies). Guarded by BARRIER.
+     * Keyed on service id (exactly as defined by the service def); values are instantiated services (proxies).
      */
-    private final Map<String, Object> services = CollectionFactory.newCaseInsensitiveMap();
-
-    private final Map<String, ServiceDef3> serviceDefs = CollectionFactory.newCaseInsensitiveMap();
+    private final ConcurrentMap<String, Object> services = CollectionFactory.newConcurrentMap();
 
     /**
-     * The barrier is shared by all modules, which means that creation of *any* service for any module is single
-     * threaded.
+     * Keyed on service id; locks that ensure each service proxy is created only once, while allowing
+     * different services to be created in parallel.
      */
-    private final static ConcurrentBarrier BARRIER = new ConcurrentBarrier();
+    private final ConcurrentMap<String, CreationLock> serviceLocks = CollectionFactory.newConcurrentMap();
+
+    private final Map<String, ServiceDef3> serviceDefs = CollectionFactory.newCaseInsensitiveMap();
 
     /**
      * "Magic" method related to Serializable that allows the Proxy object to replace itself with the token when being
@@ -88,6 +91,8 @@ public class ModuleImpl implements Module
         this.moduleDef = InternalUtils.toModuleDef2(moduleDef);
         this.logger = logger;
 
+        moduleInstanceLock = new CreationLock("instance of module " + moduleDef.getLoggerName());
+
         for (String id : moduleDef.getServiceIds())
         {
             ServiceDef sd = moduleDef.getServiceDef(id);
@@ -175,11 +180,18 @@ public class ModuleImpl implements Module
     {
         final String key = def.getServiceId();
 
-        final Invokable create = new Invokable()
+        Object result = services.get(key);
+
+        if (result != null)
+        {
+            return result;
+        }
+
+        Invokable create = new Invokable()
         {
             public Object invoke()
             {
-                // In a race condition, two threads may try to create the same service simulatenously.
+                // In a race condition, two threads may try to create the same service simultaneously.
                 // The second will block until after the first creates the service.
 
                 Object result = services.get(key);
@@ -198,20 +210,26 @@ public class ModuleImpl implements Module
             }
         };
 
-        Invokable find = new Invokable()
+        return lockForService(key).withLock(create);
+    }
+
+    private CreationLock lockForService(String serviceId)
+    {
+        CreationLock lock = serviceLocks.get(serviceId);
+
+        if (lock == null)
         {
-            public Object invoke()
-            {
-                Object result = services.get(key);
+            CreationLock newLock = new CreationLock("service " + serviceId);
 
-                if (result == null)
-                    result = BARRIER.withWrite(create);
+            lock = serviceLocks.putIfAbsent(serviceId, newLock);
 
-                return result;
+            if (lock == null)
+            {
+                lock = newLock;
             }
-        };
+        }
 
-        return BARRIER.withRead(find);
+        return lock;
     }
 
     public void collectEagerLoadServices(final Collection<EagerLoadServiceProxy> proxies)
@@ -364,7 +382,7 @@ public class ModuleImpl implements Module
         public Object invoke()
         {
             if (moduleInstance == null)
-                BARRIER.withWrite(instantiateModule);
+                instantiateModule.run();
 
             return moduleInstance;
         }
@@ -372,7 +390,9 @@ public class ModuleImpl implements Module
 
     public Object getModuleBuilder()
     {
-        return BARRIER.withRead(provideModuleInstance);
+        Object result = moduleInstance;
+
+        return result != null ? result : moduleInstanceLock.withLock(provideModuleInstance);
     }
 
     private Object instantiateModuleInstance()
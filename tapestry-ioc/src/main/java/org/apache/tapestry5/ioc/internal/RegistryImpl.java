@@ -38,6 +38,8 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings("all")
 public class RegistryImpl implements Registry, InternalRegistry, ServiceProxyProvider
@@ -314,14 +316,104 @@ public class RegistryImpl implements Registry, InternalRegistry, ServiceProxyPro
 
         // TAPESTRY-2267: Gather up all the proxies before instantiating any of them.
 
-        for (EagerLoadServiceProxy proxy : proxies)
-            proxy.eagerLoadService();
+        int threadCount = Math.min(proxies.size(),
+                Integer.parseInt(getSymbolSource().valueForSymbol(IOCSymbols.STARTUP_THREAD_COUNT)));
+
+        if (threadCount > 1)
+        {
+            eagerLoadInParallel(proxies, threadCount);
+        } else
+        {
+            for (EagerLoadServiceProxy proxy : proxies)
+                proxy.eagerLoadService();
+        }
 
         getService("RegistryStartup", Runnable.class).run();
 
         cleanupThread();
     }
 
+    /**
+     * Realizes the eager loaded services using a pool of threads. Each service is realized at most once (see
+     * {@link CreationLock}), so services needed by several eager loaded services are realized by whichever thread
+     * needs them first, while the other threads wait.
+     */
+    private void eagerLoadInParallel(List<EagerLoadServiceProxy> proxies, int threadCount)
+    {
+        Logger logger = loggerSource.getLogger(RegistryImpl.class);
+
+        long startNanos = System.nanoTime();
+
+        final AtomicInteger threadIndex = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "Tapestry IoC startup " + threadIndex.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+        try
+        {
+            List<Future<?>> futures = CollectionFactory.newList();
+
+            for (final EagerLoadServiceProxy proxy : proxies)
+            {
+                futures.add(executor.submit(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            proxy.eagerLoadService();
+                        } finally
+                        {
+                            cleanupThread();
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+            {
+                try
+                {
+                    future.get();
+                } catch (ExecutionException ex)
+                {
+                    Throwable cause = ex.getCause();
+
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+
+                    throw new RuntimeException(cause);
+                } catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+
+                    throw new RuntimeException("Interrupted while eager loading services.", ex);
+                }
+            }
+        } finally
+        {
+            executor.shutdownNow();
+        }
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(String.format("Eager loaded %d services using %d threads in %,d ms.", proxies.size(),
+                    threadCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+        }
+    }
+
     public Logger getServiceLogger(String serviceId)
     {
         Module module = serviceIdToModule.get(serviceId);
@@ -1,4 +1,4 @@
-// Copyright 2007 The Apache Software Foundation
+// Copyright 2007, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -39,4 +39,13 @@ public interface ServiceActivityTracker
      * @param status    the new status value
      */
     void setStatus(String serviceId, Status status);
+
+    /**
+     * Records how long it took to realize the service.
+     *
+     * @param serviceId identifies the service, which must be previously defined
+     * @param millis    elapsed time, in milliseconds
+     * @since 5.4
+     */
+    void setRealizationTime(String serviceId, long millis);
 }
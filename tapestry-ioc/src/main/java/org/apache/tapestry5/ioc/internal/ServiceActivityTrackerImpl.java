@@ -1,4 +1,4 @@
-// Copyright 2007 The Apache Software Foundation
+// Copyright 2007, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -39,6 +39,8 @@ public class ServiceActivityTrackerImpl implements ServiceActivityScoreboard,
 
         private final PerThreadValue<Status> perThreadStatus;
 
+        private volatile long realizationTime;
+
         public MutableServiceActivity(ServiceDef serviceDef, PerthreadManager perthreadManager, Status status)
         {
             this.serviceDef = serviceDef;
@@ -88,6 +90,16 @@ public class ServiceActivityTrackerImpl implements ServiceActivityScoreboard,
             if (perThreadStatus != null) perThreadStatus.set(status);
             else this.status = status;
         }
+
+        public long getRealizationTime()
+        {
+            return realizationTime;
+        }
+
+        void setRealizationTime(long realizationTime)
+        {
+            this.realizationTime = realizationTime;
+        }
     }
 
     private final PerthreadManager perthreadManager;
@@ -138,4 +150,9 @@ public class ServiceActivityTrackerImpl implements ServiceActivityScoreboard,
         serviceIdToServiceStatus.get(serviceId).setStatus(status);
     }
 
+    public synchronized void setRealizationTime(String serviceId, long millis)
+    {
+        serviceIdToServiceStatus.get(serviceId).setRealizationTime(millis);
+    }
+
 }
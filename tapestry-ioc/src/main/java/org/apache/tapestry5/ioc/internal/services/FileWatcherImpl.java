@@ -0,0 +1,267 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.ioc.internal.services;
+
+import org.apache.tapestry5.ioc.annotations.PostInjection;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.services.FileChangeListener;
+import org.apache.tapestry5.ioc.services.FileWatcher;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * {@link FileWatcher} based on the Java 7 {@link WatchService}. This class must only be loaded once it is known that
+ * the {@code java.nio.file} APIs are available. A single daemon thread, started when the first directory is watched,
+ * waits for notifications and passes them to the listeners.
+ *
+ * @since 5.4
+ */
+public class FileWatcherImpl implements FileWatcher, Runnable
+{
+    private final Logger logger;
+
+    /**
+     * Null if the file system has no native support for notifications.
+     */
+    private final WatchService watchService;
+
+    private final Thread thread = new Thread(this, "Tapestry FileWatcher");
+
+    private final Map<WatchKey, File> keyToDirectory = CollectionFactory.newConcurrentMap();
+
+    private final Map<File, List<FileChangeListener>> directoryToListeners = CollectionFactory.newConcurrentMap();
+
+    private boolean started;
+
+    public FileWatcherImpl(Logger logger)
+    {
+        this.logger = logger;
+
+        watchService = openWatchService();
+
+        thread.setDaemon(true);
+    }
+
+    private WatchService openWatchService()
+    {
+        WatchService result;
+
+        try
+        {
+            result = FileSystems.getDefault().newWatchService();
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to watch for file changes, files will be polled instead: %s", ex));
+
+            return null;
+        }
+
+        // Where the JDK has no native support, it emulates notifications by scanning every watched directory at
+        // intervals of several seconds; that is both slower to notice changes and less efficient than polling just
+        // the tracked files.
+
+        if (result.getClass().getName().endsWith("PollingWatchService"))
+        {
+            logger.info("File system change notifications are not supported on this platform; files will be polled instead.");
+
+            try
+            {
+                result.close();
+            } catch (IOException ex)
+            {
+                // Ignore.
+            }
+
+            return null;
+        }
+
+        return result;
+    }
+
+    @PostInjection
+    public void listenForShutdown(RegistryShutdownHub hub)
+    {
+        hub.addRegistryShutdownListener(new Runnable()
+        {
+            public void run()
+            {
+                registryDidShutdown();
+            }
+        });
+    }
+
+    private void registryDidShutdown()
+    {
+        if (watchService == null)
+        {
+            return;
+        }
+
+        try
+        {
+            // Causes the thread to exit.
+
+            watchService.close();
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to close file watch service: %s", ex));
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return watchService != null;
+    }
+
+    public synchronized boolean watch(File directory, FileChangeListener listener)
+    {
+        assert directory != null;
+        assert listener != null;
+
+        if (watchService == null)
+        {
+            return false;
+        }
+
+        List<FileChangeListener> listeners = directoryToListeners.get(directory);
+
+        if (listeners == null)
+        {
+            try
+            {
+                WatchKey key = directory.toPath().register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+
+                keyToDirectory.put(key, directory);
+            } catch (Exception ex)
+            {
+                // Most likely, the directory doesn't exist (yet), or is on a file system that doesn't support
+                // notifications.
+
+                logger.debug(String.format("Unable to watch directory %s: %s", directory, ex));
+
+                return false;
+            }
+
+            listeners = CollectionFactory.newThreadSafeList();
+
+            directoryToListeners.put(directory, listeners);
+
+            if (!started)
+            {
+                thread.start();
+
+                started = true;
+            }
+        }
+
+        if (!listeners.contains(listener))
+        {
+            listeners.add(listener);
+        }
+
+        return true;
+    }
+
+    private synchronized List<FileChangeListener> unwatch(WatchKey key, File directory)
+    {
+        keyToDirectory.remove(key);
+
+        List<FileChangeListener> listeners = directoryToListeners.remove(directory);
+
+        return listeners == null ? Collections.<FileChangeListener>emptyList() : listeners;
+    }
+
+    public void run()
+    {
+        while (true)
+        {
+            WatchKey key;
+
+            try
+            {
+                key = watchService.take();
+            } catch (InterruptedException ex)
+            {
+                return;
+            } catch (ClosedWatchServiceException ex)
+            {
+                return;
+            }
+
+            // The individual events don't matter (and may have overflowed); the listeners will check the timestamps
+            // of their files within the directory.
+
+            key.pollEvents();
+
+            boolean valid = key.reset();
+
+            File directory = keyToDirectory.get(key);
+
+            if (directory == null)
+            {
+                continue;
+            }
+
+            if (valid)
+            {
+                List<FileChangeListener> listeners = directoryToListeners.get(directory);
+
+                if (listeners != null)
+                {
+                    for (FileChangeListener listener : listeners)
+                    {
+                        notify(listener, directory, true);
+                    }
+                }
+
+                continue;
+            }
+
+            for (FileChangeListener listener : unwatch(key, directory))
+            {
+                notify(listener, directory, false);
+            }
+        }
+    }
+
+    private void notify(FileChangeListener listener, File directory, boolean changed)
+    {
+        try
+        {
+            if (changed)
+            {
+                listener.directoryChanged(directory);
+            } else
+            {
+                listener.directoryUnwatched(directory);
+            }
+        } catch (RuntimeException ex)
+        {
+            logger.error(String.format("Error notifying %s about changes to directory %s: %s", listener, directory, ex), ex);
+        }
+    }
+}
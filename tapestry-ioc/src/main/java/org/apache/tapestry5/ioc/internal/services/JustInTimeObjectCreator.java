@@ -1,4 +1,4 @@
-// Copyright 2007, 2009, 2011 The Apache Software Foundation
+// Copyright 2007, 2009, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,15 +14,21 @@
 
 package org.apache.tapestry5.ioc.internal.services;
 
+import org.apache.tapestry5.ioc.Invokable;
 import org.apache.tapestry5.ioc.ObjectCreator;
 import org.apache.tapestry5.ioc.internal.EagerLoadServiceProxy;
 import org.apache.tapestry5.ioc.internal.ServiceActivityTracker;
+import org.apache.tapestry5.ioc.internal.util.CreationLock;
 import org.apache.tapestry5.ioc.services.Status;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Invoked from a fabricated service delegate to get or realize (instantiate and configure) the service implementation.
  * This includes synchronization logic, to prevent multiple threads from attempting to realize the same service at the
- * same time (a service should be realized only once). The additional interfaces implemented by this class support eager
+ * same time (a service should be realized only once); each service has its own lock, so different services may be
+ * realized in parallel, and a deadlock between two threads realizing services that depend on each other is detected
+ * and reported. The additional interfaces implemented by this class support eager
  * loading of services (at application startup), and orderly shutdown of proxies.
  */
 public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadServiceProxy, Runnable
@@ -35,11 +41,25 @@ public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadSe
 
     private final String serviceId;
 
+    private final CreationLock lock;
+
+    private final Invokable<T> realize = new Invokable<T>()
+    {
+        public T invoke()
+        {
+            obtainObjectFromCreator();
+
+            return object;
+        }
+    };
+
     public JustInTimeObjectCreator(ServiceActivityTracker tracker, ObjectCreator<T> creator, String serviceId)
     {
         this.tracker = tracker;
         this.creator = creator;
         this.serviceId = serviceId;
+
+        lock = new CreationLock("implementation of service " + serviceId);
     }
 
     /**
@@ -50,24 +70,29 @@ public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadSe
      */
     public T createObject()
     {
-        if (object == null)
-            obtainObjectFromCreator();
+        T result = object;
 
-        return object;
+        return result != null ? result : lock.withLock(realize);
     }
 
-    private synchronized void obtainObjectFromCreator()
+    /**
+     * Invoked while holding the lock.
+     */
+    private void obtainObjectFromCreator()
     {
         if (object != null)
             return;
 
         try
         {
+            long startNanos = System.nanoTime();
+
             object = creator.createObject();
 
             // And if that's successful ...
 
             tracker.setStatus(serviceId, Status.REAL);
+            tracker.setRealizationTime(serviceId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
 
             creator = null;
         } catch (RuntimeException ex)
@@ -90,17 +115,25 @@ public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadSe
      * Invoked when the Registry is shutdown; deletes the instantiated object (if it exists) and replaces
      * the ObjectCreator with one that throws an IllegalStateException.
      */
-    public synchronized void run()
+    public void run()
     {
-        creator = new ObjectCreator<T>()
+        lock.withLock(new Invokable<Void>()
         {
-            public T createObject()
+            public Void invoke()
             {
-                throw new IllegalStateException(ServiceMessages.registryShutdown(serviceId));
-            }
-        };
+                creator = new ObjectCreator<T>()
+                {
+                    public T createObject()
+                    {
+                        throw new IllegalStateException(ServiceMessages.registryShutdown(serviceId));
+                    }
+                };
 
-        object = null;
+                object = null;
+
+                return null;
+            }
+        });
     }
 
 }
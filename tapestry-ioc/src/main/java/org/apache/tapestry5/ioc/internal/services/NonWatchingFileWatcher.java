@@ -0,0 +1,39 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.ioc.internal.services;
+
+import org.apache.tapestry5.ioc.services.FileChangeListener;
+import org.apache.tapestry5.ioc.services.FileWatcher;
+
+import java.io.File;
+
+/**
+ * Implementation of {@link FileWatcher} used when {@linkplain org.apache.tapestry5.ioc.IOCSymbols#FILE_WATCHER_ENABLED
+ * watching is disabled}, or not supported by the JVM; all files are polled.
+ *
+ * @since 5.4
+ */
+public class NonWatchingFileWatcher implements FileWatcher
+{
+    public boolean isEnabled()
+    {
+        return false;
+    }
+
+    public boolean watch(File directory, FileChangeListener listener)
+    {
+        return false;
+    }
+}
@@ -24,7 +24,6 @@ import org.apache.tapestry5.ioc.services.ThreadCleanupListener;
 import org.slf4j.Logger;
 
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
@@ -36,20 +35,26 @@ public class PerthreadManagerImpl implements PerthreadManager
 
     private final PerThreadValue<List<Runnable>> callbacksValue;
 
-    private static class MapHolder extends ThreadLocal<Map>
+    /**
+     * Each thread stores its values in a single array, indexed by the slot assigned to each {@link PerThreadValue}
+     * when it is created. The array is grown as needed, when a value is first stored by a thread.
+     */
+    private static class ValuesHolder extends ThreadLocal<Object[]>
     {
         @Override
-        protected Map initialValue()
+        protected Object[] initialValue()
         {
-            return CollectionFactory.newMap();
+            return EMPTY;
         }
     }
 
+    private static final Object[] EMPTY = new Object[0];
+
     private final Logger logger;
 
-    private final MapHolder holder = new MapHolder();
+    private final ValuesHolder holder = new ValuesHolder();
 
-    private final AtomicInteger uuidGenerator = new AtomicInteger();
+    private final AtomicInteger slotAllocator = new AtomicInteger();
 
     private final AtomicBoolean shutdown = new AtomicBoolean();
 
@@ -72,14 +77,14 @@ public class PerthreadManagerImpl implements PerthreadManager
         });
     }
 
-    private Map getPerthreadMap()
+    private Object[] getPerthreadValues()
     {
         // This is a degenerate case; it may not even exist; but if during registry shutdown somehow code executes
-        // that attempts to create new values or add new listeners, those go into a new map instance that is
+        // that attempts to create new values or add new listeners, those go into a new array instance that is
         // not referenced (and so immediately GCed).
         if (shutdown.get())
         {
-            return CollectionFactory.newMap();
+            return EMPTY;
         }
 
         lock.lock();
@@ -93,6 +98,43 @@ public class PerthreadManagerImpl implements PerthreadManager
         }
     }
 
+    /**
+     * Returns the per-thread values array, expanding it (if necessary) so that it includes the given slot.
+     */
+    private Object[] getPerthreadValues(int slot)
+    {
+        Object[] values = getPerthreadValues();
+
+        if (slot < values.length)
+        {
+            return values;
+        }
+
+        // Grow geometrically (but not past the number of slots allocated so far) so that a thread touching
+        // many values does not expand the array each time.
+
+        Object[] expanded = new Object[Math.max(slot + 1, Math.min(values.length * 2, slotAllocator.get()))];
+
+        System.arraycopy(values, 0, expanded, 0, values.length);
+
+        if (shutdown.get())
+        {
+            return expanded;
+        }
+
+        lock.lock();
+
+        try
+        {
+            holder.set(expanded);
+        } finally
+        {
+            lock.unlock();
+        }
+
+        return expanded;
+    }
+
     private List<Runnable> getCallbacks()
     {
         List<Runnable> result = callbacksValue.get();
@@ -155,7 +197,7 @@ public class PerthreadManagerImpl implements PerthreadManager
         {
             lock.lock();
 
-            // Discard the per-thread map of values, including the key that stores
+            // Discard the per-thread array of values, including the slot that stores
             // the listeners. This means that if a listener attempts to register
             // new listeners, the new listeners will not be triggered and will be
             // released to the GC.
@@ -167,51 +209,61 @@ public class PerthreadManagerImpl implements PerthreadManager
         }
     }
 
-    private static Object NULL_VALUE = new Object();
+    /**
+     * Stored in place of null, to distinguish a value explicitly set to null from one that was never set.
+     */
+    private static final Object NULL_VALUE = new Object();
 
-    <T> PerThreadValue<T> createValue(final Object key)
+    private final class IndexedPerThreadValue<T> implements PerThreadValue<T>
     {
-        return new PerThreadValue<T>()
+        private final int slot;
+
+        IndexedPerThreadValue(int slot)
         {
-            public T get()
-            {
-                return get(null);
-            }
+            this.slot = slot;
+        }
 
-            public T get(T defaultValue)
-            {
-                Map map = getPerthreadMap();
+        private Object read()
+        {
+            Object[] values = getPerthreadValues();
 
-                if (map.containsKey(key))
-                {
-                    Object storedValue = map.get(key);
+            return slot < values.length ? values[slot] : null;
+        }
 
-                    if (storedValue == NULL_VALUE)
-                        return null;
+        public T get()
+        {
+            return get(null);
+        }
 
-                    return (T) storedValue;
-                }
+        public T get(T defaultValue)
+        {
+            Object storedValue = read();
 
+            if (storedValue == null)
                 return defaultValue;
-            }
 
-            public T set(T newValue)
-            {
-                getPerthreadMap().put(key, newValue == null ? NULL_VALUE : newValue);
+            if (storedValue == NULL_VALUE)
+                return null;
 
-                return newValue;
-            }
+            return (T) storedValue;
+        }
 
-            public boolean exists()
-            {
-                return getPerthreadMap().containsKey(key);
-            }
-        };
+        public T set(T newValue)
+        {
+            getPerthreadValues(slot)[slot] = newValue == null ? NULL_VALUE : newValue;
+
+            return newValue;
+        }
+
+        public boolean exists()
+        {
+            return read() != null;
+        }
     }
 
     public <T> PerThreadValue<T> createValue()
     {
-        return createValue(uuidGenerator.getAndIncrement());
+        return new IndexedPerThreadValue<T>(slotAllocator.getAndIncrement());
     }
 
     public void run(Runnable runnable)
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010, 2012 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -18,7 +18,6 @@ import org.apache.tapestry5.func.F;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InheritanceSearch;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
-import org.apache.tapestry5.ioc.internal.util.LockSupport;
 import org.apache.tapestry5.ioc.services.Coercion;
 import org.apache.tapestry5.ioc.services.CoercionTuple;
 import org.apache.tapestry5.ioc.services.TypeCoercer;
@@ -30,7 +29,7 @@ import org.apache.tapestry5.util.StringToEnumCoercion;
 import java.util.*;
 
 @SuppressWarnings("all")
-public class TypeCoercerImpl extends LockSupport implements TypeCoercer
+public class TypeCoercerImpl implements TypeCoercer
 {
     // Constructed from the service's configuration.
 
@@ -50,11 +49,6 @@ public class TypeCoercerImpl extends LockSupport implements TypeCoercer
             this.type = type;
         }
 
-        void clearCache()
-        {
-            cache.clear();
-        }
-
         Object coerce(Object input)
         {
             Class sourceType = input != null ? input.getClass() : Void.class;
@@ -95,9 +89,16 @@ public class TypeCoercerImpl extends LockSupport implements TypeCoercer
     }
 
     /**
-     * Map from a target type to a TargetCoercion for that type.
+     * Map from a target type to a TargetCoercion for that type. The map is never modified once published; instead, a
+     * new copy is created when a TargetCoercion is added, so that the (overwhelmingly common) case of a coercion
+     * to a previously seen target type is lock-free.
+     */
+    private volatile Map<Class, TargetCoercion> typeToTargetCoercion = Collections.emptyMap();
+
+    /**
+     * Held when replacing {@link #typeToTargetCoercion}.
      */
-    private final Map<Class, TargetCoercion> typeToTargetCoercion = new WeakHashMap<Class, TargetCoercion>();
+    private final Object typeToTargetCoercionLock = new Object();
 
     private static final Coercion NO_COERCION = new Coercion<Object, Object>()
     {
@@ -186,25 +187,15 @@ public class TypeCoercerImpl extends LockSupport implements TypeCoercer
 
     private TargetCoercion getTargetCoercion(Class targetType)
     {
-        try
-        {
-            acquireReadLock();
-
-            TargetCoercion tc = typeToTargetCoercion.get(targetType);
+        TargetCoercion tc = typeToTargetCoercion.get(targetType);
 
-            return tc != null ? tc : createAndStoreNewTargetCoercion(targetType);
-        } finally
-        {
-            releaseReadLock();
-        }
+        return tc != null ? tc : createAndStoreNewTargetCoercion(targetType);
     }
 
     private TargetCoercion createAndStoreNewTargetCoercion(Class targetType)
     {
-        try
+        synchronized (typeToTargetCoercionLock)
         {
-            upgradeReadLockToWriteLock();
-
             // Inner check since some other thread may have beat us to it.
 
             TargetCoercion tc = typeToTargetCoercion.get(targetType);
@@ -212,36 +203,27 @@ public class TypeCoercerImpl extends LockSupport implements TypeCoercer
             if (tc == null)
             {
                 tc = new TargetCoercion(targetType);
-                typeToTargetCoercion.put(targetType, tc);
+
+                Map<Class, TargetCoercion> copy = new HashMap<Class, TargetCoercion>(typeToTargetCoercion);
+
+                copy.put(targetType, tc);
+
+                typeToTargetCoercion = copy;
             }
 
             return tc;
-        } finally
-        {
-            downgradeWriteLockToReadLock();
         }
     }
 
     public void clearCache()
     {
-        try
-        {
-            acquireReadLock();
-
-            // There's no need to clear the typeToTargetCoercion map, as it is a WeakHashMap and
-            // will release the keys for classes that are no longer in existence. On the other hand,
-            // there's likely all sorts of references to unloaded classes inside each TargetCoercion's
-            // individual cache, so clear all those.
+        // Discard everything, including the target types themselves; as classes are invalidated, some of the target types
+        // (and many of the source types cached inside each TargetCoercion) may come from a discarded class loader.
+        // Coercions that are in progress may still complete using the old TargetCoercions.
 
-            for (TargetCoercion tc : typeToTargetCoercion.values())
-            {
-                // Can tc ever be null?
-
-                tc.clearCache();
-            }
-        } finally
+        synchronized (typeToTargetCoercionLock)
         {
-            releaseReadLock();
+            typeToTargetCoercion = Collections.emptyMap();
         }
     }
 
@@ -0,0 +1,155 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.ioc.internal.util;
+
+import org.apache.tapestry5.ioc.Invokable;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An exclusive, reentrant lock guarding the creation of a single object (a service proxy, a service implementation,
+ * or a module instance), so that unrelated objects may be created in parallel by different threads. Because each
+ * object has its own lock, two threads that each need the object the other is creating would deadlock; this is
+ * detected when a thread must wait for the lock, and reported as an exception rather than hanging both threads.
+ *
+ * @since 5.4
+ */
+public class CreationLock
+{
+    /**
+     * How long to wait for the lock before checking, again, for a deadlock.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * The lock each blocked thread is waiting for; this is the edges of the "waits-for" graph used to detect deadlocks.
+     */
+    private static final ConcurrentMap<Thread, CreationLock> waiting = CollectionFactory.newConcurrentMap();
+
+    private final String description;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Thread owner;
+
+    /**
+     * @param description
+     *         identifies the object being created, used when reporting a deadlock
+     */
+    public CreationLock(String description)
+    {
+        this.description = description;
+    }
+
+    /**
+     * Invokes the invokable while holding the lock.
+     *
+     * @throws IllegalStateException
+     *         if waiting for the lock would deadlock
+     */
+    public <T> T withLock(Invokable<T> invokable)
+    {
+        if (!lock.tryLock())
+        {
+            waitForLock();
+        }
+
+        owner = Thread.currentThread();
+
+        try
+        {
+            return invokable.invoke();
+        } finally
+        {
+            if (lock.getHoldCount() == 1)
+            {
+                owner = null;
+            }
+
+            lock.unlock();
+        }
+    }
+
+    private void waitForLock()
+    {
+        Thread current = Thread.currentThread();
+
+        waiting.put(current, this);
+
+        try
+        {
+            // The check is repeated, because the cycle may be completed by another thread after this thread
+            // first checks.
+
+            while (true)
+            {
+                checkForDeadlock(current);
+
+                if (lock.tryLock(POLL_MILLIS, TimeUnit.MILLISECONDS))
+                {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException(String.format("Interrupted while waiting to lock %s.", description), ex);
+        } finally
+        {
+            waiting.remove(current);
+        }
+    }
+
+    private void checkForDeadlock(Thread current)
+    {
+        List<String> cycle = CollectionFactory.newList();
+
+        CreationLock next = this;
+
+        // The chain is limited to the number of waiting threads, in case it changes while being followed.
+
+        int limit = waiting.size() + 1;
+
+        while (next != null && limit-- > 0)
+        {
+            Thread nextOwner = next.owner;
+
+            if (nextOwner == null)
+            {
+                return;
+            }
+
+            cycle.add(String.format("%s (held by thread %s)", next.description, nextOwner.getName()));
+
+            if (nextOwner == current)
+            {
+                throw new IllegalStateException(String.format(
+                        "Thread %s can not wait to lock %s, as that would deadlock: %s.",
+                        current.getName(), description, InternalUtils.join(cycle, ", waiting for ")));
+            }
+
+            next = waiting.get(nextOwner);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("CreationLock[%s]", description);
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,12 +16,15 @@ package org.apache.tapestry5.ioc.internal.util;
 
 import org.apache.tapestry5.ioc.internal.services.ClasspathURLConverterImpl;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
+import org.apache.tapestry5.ioc.services.FileChangeListener;
+import org.apache.tapestry5.ioc.services.FileWatcher;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Given a (growing) set of URLs, can periodically check to see if any of the underlying resources has changed. This
@@ -29,6 +32,10 @@ import java.util.Map;
  * granularity is used by default. Second-level granularity is provided for compatibility with browsers vis-a-vis
  * resource caching -- that's how granular they get with their "If-Modified-Since", "Last-Modified" and "Expires"
  * headers.
+ * <p/>
+ * When constructed with a {@link FileWatcher}, the tracker watches the directories containing the tracked files, and
+ * {@link #containsChanges()} only reads the timestamps of files in directories the watcher has reported as changed
+ * (plus any files whose directory can't be watched, which are still polled).
  */
 public class URLChangeTracker
 {
@@ -42,6 +49,50 @@ public class URLChangeTracker
 
     private final ClasspathURLConverter classpathURLConverter;
 
+    /**
+     * Null if all files are polled.
+     */
+    private final FileWatcher watcher;
+
+    /**
+     * Tracked files (and tracked folders) in each watched directory. Guarded by this tracker's lock, as are
+     * {@link #polledFiles} and {@link #unwatchedDirectories}.
+     */
+    private final Map<File, Set<File>> watchedDirectoryToFiles = CollectionFactory.newMap();
+
+    /**
+     * Tracked files whose directory isn't watched.
+     */
+    private final Set<File> polledFiles = CollectionFactory.newSet();
+
+    /**
+     * Directories that could not be watched, or are no longer watched.
+     */
+    private final Set<File> unwatchedDirectories = CollectionFactory.newSet();
+
+    /**
+     * Updated from the watcher's thread; the keys are the directories with changes since the last check.
+     */
+    private final Map<File, Boolean> changedDirectories = CollectionFactory.newConcurrentMap();
+
+    /**
+     * Updated from the watcher's thread; the keys are the directories the watcher has stopped watching.
+     */
+    private final Map<File, Boolean> cancelledDirectories = CollectionFactory.newConcurrentMap();
+
+    private final FileChangeListener listener = new FileChangeListener()
+    {
+        public void directoryChanged(File directory)
+        {
+            changedDirectories.put(directory, true);
+        }
+
+        public void directoryUnwatched(File directory)
+        {
+            cancelledDirectories.put(directory, true);
+        }
+    };
+
     public static final ClasspathURLConverter DEFAULT_CONVERTER = new ClasspathURLConverterImpl();
 
     /**
@@ -95,10 +146,30 @@ public class URLChangeTracker
      */
     public URLChangeTracker(ClasspathURLConverter classpathURLConverter, boolean granularitySeconds,
             boolean trackFolderChanges)
+    {
+        this(classpathURLConverter, granularitySeconds, trackFolderChanges, null);
+    }
+
+    /**
+     * Creates a new URL change tracker that watches the directories containing tracked files, where possible.
+     *
+     * @param classpathURLConverter
+     *            used to convert URLs from one protocol to another
+     * @param granularitySeconds
+     *            whether or not to use second granularity (as opposed to millisecond granularity)
+     * @param trackFolderChanges
+     *            if true, then adding a file URL will also track the folder containing the file
+     * @param watcher
+     *            used to watch directories, or null to poll all files
+     * @since 5.4
+     */
+    public URLChangeTracker(ClasspathURLConverter classpathURLConverter, boolean granularitySeconds,
+            boolean trackFolderChanges, FileWatcher watcher)
     {
         this.granularitySeconds = granularitySeconds;
         this.classpathURLConverter = classpathURLConverter;
         this.trackFolderChanges = trackFolderChanges;
+        this.watcher = watcher == null || !watcher.isEnabled() ? null : watcher;
     }
 
     /**
@@ -148,6 +219,10 @@ public class URLChangeTracker
         if (fileToTimestamp.containsKey(resourceFile))
             return fileToTimestamp.get(resourceFile);
 
+        // Start watching before reading the timestamp, so that no change can be missed.
+
+        watch(resourceFile);
+
         long timestamp = readTimestamp(resourceFile);
 
         // A quick and imperfect fix for TAPESTRY-1918. When a file
@@ -161,6 +236,8 @@ public class URLChangeTracker
 
             if (!fileToTimestamp.containsKey(dir))
             {
+                watch(dir);
+
                 long dirTimestamp = readTimestamp(dir);
                 fileToTimestamp.put(dir, dirTimestamp);
             }
@@ -169,6 +246,42 @@ public class URLChangeTracker
         return timestamp;
     }
 
+    /**
+     * Watches the directory containing the file, or the folder itself (a folder's timestamp changes when files are
+     * added to or removed from it).
+     */
+    private void watch(File file)
+    {
+        if (watcher == null)
+            return;
+
+        File directory = file.isDirectory() ? file : file.getParentFile();
+
+        synchronized (this)
+        {
+            Set<File> files = watchedDirectoryToFiles.get(directory);
+
+            if (files == null)
+            {
+                if (directory == null || unwatchedDirectories.contains(directory) || !watcher.watch(directory, listener))
+                {
+                    if (directory != null)
+                        unwatchedDirectories.add(directory);
+
+                    polledFiles.add(file);
+
+                    return;
+                }
+
+                files = CollectionFactory.newSet();
+
+                watchedDirectoryToFiles.put(directory, files);
+            }
+
+            files.add(file);
+        }
+    }
+
     private long timestampForNonFileURL(URL url)
     {
         long timestamp;
@@ -191,6 +304,16 @@ public class URLChangeTracker
     public void clear()
     {
         fileToTimestamp.clear();
+
+        // The watcher keeps watching the directories; notifications about directories that are no longer
+        // of interest are simply ignored.
+
+        synchronized (this)
+        {
+            watchedDirectoryToFiles.clear();
+            polledFiles.clear();
+            unwatchedDirectories.clear();
+        }
     }
 
     /**
@@ -198,22 +321,77 @@ public class URLChangeTracker
      */
     public boolean containsChanges()
     {
-        boolean result = false;
-
         // This code would be highly suspect if this method was expected to be invoked
         // concurrently, but CheckForUpdatesFilter ensures that it will be invoked
         // synchronously.
 
-        for (Map.Entry<File, Long> entry : fileToTimestamp.entrySet())
+        if (watcher == null)
+            return checkTimestamps(fileToTimestamp.keySet());
+
+        boolean result = false;
+
+        synchronized (this)
         {
-            long newTimestamp = readTimestamp(entry.getKey());
-            long current = entry.getValue();
+            for (File directory : drain(cancelledDirectories))
+            {
+                Set<File> files = watchedDirectoryToFiles.remove(directory);
+
+                if (files != null)
+                {
+                    unwatchedDirectories.add(directory);
+                    polledFiles.addAll(files);
+                }
+            }
+
+            result |= checkTimestamps(polledFiles);
+
+            for (File directory : drain(changedDirectories))
+            {
+                Set<File> files = watchedDirectoryToFiles.get(directory);
+
+                if (files != null)
+                    result |= checkTimestamps(files);
+            }
+        }
+
+        return result;
+    }
+
+    private static Set<File> drain(Map<File, Boolean> directories)
+    {
+        Set<File> result = CollectionFactory.newSet();
+
+        for (File directory : directories.keySet())
+        {
+            directories.remove(directory);
+
+            result.add(directory);
+        }
+
+        return result;
+    }
+
+    /**
+     * Re-acquires the timestamp for each file, returning true if any has changed.
+     */
+    private boolean checkTimestamps(Set<File> files)
+    {
+        boolean result = false;
+
+        for (File file : files)
+        {
+            Long current = fileToTimestamp.get(file);
+
+            if (current == null)
+                continue;
+
+            long newTimestamp = readTimestamp(file);
 
             if (current == newTimestamp)
                 continue;
 
             result = true;
-            entry.setValue(newTimestamp);
+            fileToTimestamp.put(file, newTimestamp);
         }
 
         return result;
@@ -252,6 +430,14 @@ public class URLChangeTracker
         {
             e.setValue(0l);
         }
+
+        synchronized (this)
+        {
+            for (File directory : watchedDirectoryToFiles.keySet())
+            {
+                changedDirectories.put(directory, true);
+            }
+        }
     }
 
     /**
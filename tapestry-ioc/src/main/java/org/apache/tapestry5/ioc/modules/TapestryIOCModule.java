@@ -25,6 +25,7 @@ import org.apache.tapestry5.ioc.services.*;
 import org.apache.tapestry5.ioc.services.cron.PeriodicExecutor;
 import org.apache.tapestry5.ioc.util.TimeInterval;
 import org.apache.tapestry5.services.UpdateListenerHub;
+import org.slf4j.Logger;
 
 import java.io.File;
 import java.lang.reflect.Array;
@@ -520,6 +521,42 @@ public final class TapestryIOCModule
         return new ParallelExecutorImpl(executorService, thunkCreator, perthreadManager);
     }
 
+    /**
+     * Watches directories using {@code java.nio.file.WatchService} when running on Java 7 or better, unless
+     * {@linkplain IOCSymbols#FILE_WATCHER_ENABLED disabled}.
+     *
+     * @since 5.4
+     */
+    public static FileWatcher buildFileWatcher(@Symbol(IOCSymbols.FILE_WATCHER_ENABLED)
+                                               boolean fileWatcherEnabled,
+
+                                               Logger logger,
+
+                                               RegistryShutdownHub shutdownHub)
+    {
+        if (!fileWatcherEnabled || !isWatchServiceAvailable())
+            return new NonWatchingFileWatcher();
+
+        FileWatcherImpl watcher = new FileWatcherImpl(logger);
+
+        watcher.listenForShutdown(shutdownHub);
+
+        return watcher;
+    }
+
+    private static boolean isWatchServiceAvailable()
+    {
+        try
+        {
+            Class.forName("java.nio.file.WatchService");
+
+            return true;
+        } catch (ClassNotFoundException ex)
+        {
+            return false;
+        }
+    }
+
     @Contribute(SymbolProvider.class)
     @FactoryDefaults
     public static void setupDefaultSymbols(MappedConfiguration<String, Object> configuration)
@@ -529,5 +566,7 @@ public final class TapestryIOCModule
         configuration.add(IOCSymbols.THREAD_POOL_KEEP_ALIVE, "1 m");
         configuration.add(IOCSymbols.THREAD_POOL_ENABLED, true);
         configuration.add(IOCSymbols.THREAD_POOL_QUEUE_SIZE, 100);
+        configuration.add(IOCSymbols.STARTUP_THREAD_COUNT, 0);
+        configuration.add(IOCSymbols.FILE_WATCHER_ENABLED, true);
     }
 }
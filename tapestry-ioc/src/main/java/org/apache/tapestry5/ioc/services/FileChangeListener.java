@@ -0,0 +1,38 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.ioc.services;
+
+import java.io.File;
+
+/**
+ * Notified by the {@link FileWatcher} about changes within a watched directory. Methods are invoked from the watcher's
+ * own thread, and should return quickly: typically, they just note the directory for the next check for updates.
+ *
+ * @since 5.4
+ */
+public interface FileChangeListener
+{
+    /**
+     * Invoked when a file within the directory has been created, modified or deleted (or when such notifications have
+     * been lost, and anything within the directory may have changed).
+     */
+    void directoryChanged(File directory);
+
+    /**
+     * Invoked when the directory is no longer watched, typically because it has been deleted (perhaps as part of a
+     * clean build). Files within the directory must be polled from now on.
+     */
+    void directoryUnwatched(File directory);
+}
@@ -0,0 +1,51 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.ioc.services;
+
+import java.io.File;
+
+/**
+ * Watches directories for changes, using the file system's own change notifications, and reports them to
+ * {@link FileChangeListener}s from a background thread. Used by {@link org.apache.tapestry5.ioc.internal.util.URLChangeTracker}
+ * so that checking for updates only needs to look at files in directories that have actually changed.
+ * <p/>
+ * Watching requires Java 7 (and a file system with native support; on platforms where Java only emulates change
+ * notifications by polling, the watcher is disabled). It can be turned off entirely using the
+ * {@link org.apache.tapestry5.ioc.IOCSymbols#FILE_WATCHER_ENABLED} symbol. Callers must poll any files whose directory
+ * can't be watched.
+ *
+ * @since 5.4
+ */
+public interface FileWatcher
+{
+    /**
+     * Returns true if directories may be watched, false if {@link #watch(java.io.File, FileChangeListener)} will
+     * always return false.
+     */
+    boolean isEnabled();
+
+    /**
+     * Starts watching a directory (if not already watched), and adds a listener to be notified about changes within
+     * the directory. Adding the same listener for the same directory more than once has no additional effect.
+     *
+     * @param directory
+     *         the directory to watch
+     * @param listener
+     *         notified when there are changes within the directory
+     * @return true if the directory is being watched, false if it can't be watched (watching is disabled, or the
+     *         directory doesn't exist, or its file system doesn't support notifications)
+     */
+    boolean watch(File directory, FileChangeListener listener);
+}
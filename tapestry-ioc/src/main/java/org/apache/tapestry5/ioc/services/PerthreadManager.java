@@ -52,6 +52,10 @@ public interface PerthreadManager
 
     /**
      * Creates a value using a unique internal key.
+     * <p/>
+     * Starting in 5.4, each value is assigned a dense integer slot, and each thread stores its values in a single
+     * array, making access to the value very inexpensive. Slots are never reclaimed, so values should be created
+     * once (for example, when a service or page is instantiated) and then reused, rather than created per-request.
      *
      * @since 5.2.0
      */
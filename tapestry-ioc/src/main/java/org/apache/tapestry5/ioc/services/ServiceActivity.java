@@ -1,4 +1,4 @@
-// Copyright 2007 The Apache Software Foundation
+// Copyright 2007, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -48,4 +48,12 @@ public interface ServiceActivity
      * The markers on this service
      */
     Set<Class> getMarkers();
+
+    /**
+     * The time, in milliseconds, it took to realize the service (including realizing any services it invoked while
+     * being constructed), or 0 if the service has not been realized.
+     *
+     * @since 5.4
+     */
+    long getRealizationTime();
 }
@@ -0,0 +1,89 @@
+package ioc.specs
+
+import org.apache.tapestry5.ioc.Invokable
+import org.apache.tapestry5.ioc.internal.util.CreationLock
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CyclicBarrier
+
+class CreationLockSpec extends Specification {
+
+  def "lock is reentrant"() {
+    def lock = new CreationLock("fred")
+
+    when:
+
+    def result = lock.withLock({ lock.withLock({ "barney" } as Invokable) } as Invokable)
+
+    then:
+
+    result == "barney"
+  }
+
+  def "a waiting thread obtains the lock once released"() {
+    def lock = new CreationLock("fred")
+    def locked = new CountDownLatch(1)
+    def release = new CountDownLatch(1)
+    def result
+
+    def holder = Thread.start {
+      lock.withLock({
+        locked.countDown()
+        release.await()
+      } as Invokable)
+    }
+
+    locked.await()
+
+    def waiter = Thread.start { result = lock.withLock({ "wilma" } as Invokable) }
+
+    when:
+
+    Thread.sleep 50
+
+    release.countDown()
+
+    holder.join()
+    waiter.join()
+
+    then:
+
+    result == "wilma"
+  }
+
+  def "a deadlock between two threads is detected"() {
+    def fred = new CreationLock("service Fred")
+    def barney = new CreationLock("service Barney")
+    def bothLocked = new CyclicBarrier(2)
+    def failures = Collections.synchronizedList([])
+
+    def lockBoth = { first, second ->
+      Thread.start {
+        try {
+          first.withLock({
+            bothLocked.await()
+            second.withLock({ null } as Invokable)
+          } as Invokable)
+        }
+        catch (IllegalStateException ex) {
+          failures << ex
+        }
+      }
+    }
+
+    when:
+
+    def threads = [lockBoth(fred, barney), lockBoth(barney, fred)]
+
+    threads*.join()
+
+    then:
+
+    // Usually only one thread detects the deadlock, and the other then obtains the lock it was waiting for;
+    // both may fail if they check at the same instant.
+
+    !failures.empty
+    failures[0].message.contains "as that would deadlock"
+  }
+}
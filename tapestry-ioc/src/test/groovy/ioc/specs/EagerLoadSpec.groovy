@@ -1,6 +1,9 @@
 package ioc.specs
 
 import org.apache.tapestry5.ioc.EagerProxyReloadModule
+import org.apache.tapestry5.ioc.ParallelEagerLoadModule
+import org.apache.tapestry5.ioc.services.ServiceActivityScoreboard
+import org.apache.tapestry5.ioc.services.Status
 
 class EagerLoadSpec extends AbstractRegistrySpecification {
 
@@ -19,4 +22,21 @@ class EagerLoadSpec extends AbstractRegistrySpecification {
 
     EagerProxyReloadModule.eagerLoadServiceDidLoad == true
   }
+
+  def "eager loaded services are realized in parallel, when enabled"() {
+    when:
+
+    buildRegistry ParallelEagerLoadModule
+
+    performRegistryStartup()
+
+    then:
+
+    ParallelEagerLoadModule.firstSawSecond
+    ParallelEagerLoadModule.secondSawFirst
+
+    def activity = getService(ServiceActivityScoreboard).serviceActivity.find { it.serviceId == "First" }
+
+    activity.status == Status.REAL
+  }
 }
@@ -46,6 +46,7 @@ class JustInTimeObjectCreatorSpec extends Specification {
 
     1 * creator.createObject() >> service
     1 * tracker.setStatus(SERVICE_ID, Status.REAL)
+    1 * tracker.setRealizationTime(SERVICE_ID, _)
     0 * _
 
     jit.createObject().is service
@@ -179,5 +179,50 @@ class PerthreadManagerImplSpec extends Specification {
 
   }
 
+  def "many values may be stored, in any order"() {
+    Logger logger = Mock()
+    def manager = new PerthreadManagerImpl(logger)
+
+    def values = (0..99).collect { manager.createValue() }
+
+    when:
+
+    values.reverse().eachWithIndex { value, i -> value.set i }
+
+    then:
+
+    values.every { it.exists() }
+    values.collect { it.get() } == (99..0).collect { it }
+
+    when:
+
+    manager.cleanup()
+
+    then:
 
+    values.every { !it.exists() }
+  }
+
+  def "values are stored per-thread"() {
+    Logger logger = Mock()
+    def manager = new PerthreadManagerImpl(logger)
+    def value = manager.createValue()
+    def other = null
+
+    value.set "main"
+
+    when:
+
+    def thread = new Thread({
+      other = [value.exists(), value.set("other"), value.get()]
+    })
+
+    thread.start()
+    thread.join()
+
+    then:
+
+    other == [false, "other", "other"]
+    value.get() == "main"
+  }
 }
@@ -3,6 +3,8 @@ package ioc.specs
 import org.apache.tapestry5.ioc.internal.services.ClasspathURLConverterImpl
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter
+import org.apache.tapestry5.ioc.services.FileChangeListener
+import org.apache.tapestry5.ioc.services.FileWatcher
 import spock.lang.Shared
 import spock.lang.Specification
 
@@ -184,4 +186,108 @@ class URLChangeTrackerSpec extends Specification {
     updated % 1000 == 0
     updated != initial
   }
+
+  def "with a watcher, only files in changed directories are checked"() {
+    def watcher = new StubFileWatcher()
+
+    tracker = new URLChangeTracker(converter, false, true, watcher)
+
+    def file = newFile()
+    def dir = file.parentFile
+
+    when:
+
+    tracker.add(file.toURL())
+
+    then:
+
+    watcher.listeners.keySet() == [dir] as Set
+    tracker.trackedFileCount() == 2
+    !tracker.containsChanges()
+
+    when:
+
+    touch(file)
+
+    then:
+
+    // No notification yet, so the file isn't checked.
+
+    !tracker.containsChanges()
+
+    when:
+
+    watcher.listeners[dir].directoryChanged(dir)
+
+    then:
+
+    tracker.containsChanges()
+    !tracker.containsChanges()
+  }
+
+  def "files in directories that can't be watched are polled"() {
+    def watcher = new StubFileWatcher(watchable: false)
+
+    tracker = new URLChangeTracker(converter, false, false, watcher)
+
+    def file = newFile()
+
+    when:
+
+    tracker.add(file.toURL())
+
+    then:
+
+    !tracker.containsChanges()
+
+    when:
+
+    touch(file)
+
+    then:
+
+    tracker.containsChanges()
+  }
+
+  def "files are polled once their directory is no longer watched"() {
+    def watcher = new StubFileWatcher()
+
+    tracker = new URLChangeTracker(converter, false, false, watcher)
+
+    def file = newFile()
+    def dir = file.parentFile
+
+    when:
+
+    tracker.add(file.toURL())
+    watcher.listeners[dir].directoryUnwatched(dir)
+
+    then:
+
+    !tracker.containsChanges()
+
+    when:
+
+    touch(file)
+
+    then:
+
+    tracker.containsChanges()
+  }
+}
+
+class StubFileWatcher implements FileWatcher {
+
+  boolean watchable = true
+
+  Map<File, FileChangeListener> listeners = [:]
+
+  boolean isEnabled() { true }
+
+  boolean watch(File directory, FileChangeListener listener) {
+
+    if (watchable) { listeners[directory] = listener }
+
+    return watchable
+  }
 }
@@ -0,0 +1,58 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.ioc;
+
+import org.apache.tapestry5.ioc.annotations.EagerLoad;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Used to test parallel eager loading of services: each service waits for the other to start being built, which only
+ * succeeds when they are built by different threads.
+ */
+public class ParallelEagerLoadModule
+{
+    public static final CountDownLatch building = new CountDownLatch(2);
+
+    public static volatile boolean firstSawSecond, secondSawFirst;
+
+    public static void contributeApplicationDefaults(MappedConfiguration<String, String> configuration)
+    {
+        configuration.add(IOCSymbols.STARTUP_THREAD_COUNT, "2");
+    }
+
+    private static boolean awaitOther() throws InterruptedException
+    {
+        building.countDown();
+
+        return building.await(5, TimeUnit.SECONDS);
+    }
+
+    @EagerLoad
+    public static StringHolder buildFirst() throws InterruptedException
+    {
+        firstSawSecond = awaitOther();
+
+        return new StringHolderImpl();
+    }
+
+    @EagerLoad
+    public static StringHolder buildSecond() throws InterruptedException
+    {
+        secondSawFirst = awaitOther();
+
+        return new StringHolderImpl();
+    }
+}
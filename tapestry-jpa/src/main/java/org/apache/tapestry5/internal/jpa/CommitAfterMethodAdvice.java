@@ -1,4 +1,4 @@
-// Copyright 2011, 2012 The Apache Software Foundation
+// Copyright 2011, 2012, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,54 +15,114 @@
 package org.apache.tapestry5.internal.jpa;
 
 import org.apache.tapestry5.jpa.EntityManagerManager;
-import org.apache.tapestry5.plastic.MethodAdvice;
-import org.apache.tapestry5.plastic.MethodInvocation;
+import org.apache.tapestry5.jpa.JpaTransactionStatistics;
+import org.apache.tapestry5.plastic.AbstractInlineMethodAdvice;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.PersistenceContext;
 
-public class CommitAfterMethodAdvice implements MethodAdvice
+/**
+ * Begins a transaction before the advised method, commits it on success or checked exception, and rolls it back on
+ * a runtime exception. The advice is inline, so advised methods do not allocate a MethodInvocation per call.
+ */
+public class CommitAfterMethodAdvice extends AbstractInlineMethodAdvice
 {
     private final EntityManagerManager manager;
 
     private final PersistenceContext annotation;
 
-    public CommitAfterMethodAdvice(final EntityManagerManager manager, PersistenceContext annotation)
+    private final JpaTransactionStatistics statistics;
+
+    /**
+     * State for a transaction begun by the advice, so that the time it was held can be recorded when it ends. When the
+     * transaction was already active, the state is just the transaction.
+     */
+    private static final class BegunTransaction
+    {
+        final EntityTransaction transaction;
+
+        final long startNanos = System.nanoTime();
+
+        BegunTransaction(EntityTransaction transaction)
+        {
+            this.transaction = transaction;
+        }
+    }
+
+    public CommitAfterMethodAdvice(final EntityManagerManager manager, PersistenceContext annotation,
+                                   JpaTransactionStatistics statistics)
     {
         this.manager = manager;
         this.annotation = annotation;
+        this.statistics = statistics;
     }
 
-    public void advise(final MethodInvocation invocation)
+    public Object beforeInvocation(Object instance)
     {
         final EntityTransaction transaction = getTransaction();
 
         if (transaction != null && !transaction.isActive())
         {
             transaction.begin();
+
+            return new BegunTransaction(transaction);
         }
 
-        try
+        return transaction;
+    }
+
+    public void afterSuccess(Object state)
+    {
+        EntityTransaction transaction = toTransaction(state);
+
+        if (transaction != null && transaction.isActive())
         {
-            invocation.proceed();
-        } catch (final RuntimeException e)
+            try
+            {
+                transaction.commit();
+            } finally
+            {
+                recordTransaction(state);
+            }
+        }
+    }
+
+    public void afterException(Object state, Throwable exception)
+    {
+        EntityTransaction transaction = toTransaction(state);
+
+        if (exception instanceof RuntimeException)
         {
             if (transaction != null && transaction.isActive())
             {
                 rollbackTransaction(transaction);
+
+                recordTransaction(state);
             }
 
-            throw e;
+            return;
         }
 
-        // Success or checked exception:
+        // Checked exception:
 
-        if (transaction != null && transaction.isActive())
+        if (exception instanceof Exception)
         {
-            transaction.commit();
+            afterSuccess(state);
         }
+    }
+
+    private static EntityTransaction toTransaction(Object state)
+    {
+        return state instanceof BegunTransaction ? ((BegunTransaction) state).transaction : (EntityTransaction) state;
+    }
 
+    private void recordTransaction(Object state)
+    {
+        if (statistics != null && state instanceof BegunTransaction)
+        {
+            statistics.recordTransaction(System.nanoTime() - ((BegunTransaction) state).startNanos);
+        }
     }
 
     private void rollbackTransaction(EntityTransaction transaction)
@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
 package org.apache.tapestry5.internal.jpa;
 
 import org.apache.tapestry5.jpa.EntityManagerManager;
+import org.apache.tapestry5.jpa.JpaTransactionStatistics;
 import org.apache.tapestry5.jpa.annotations.CommitAfter;
 import org.apache.tapestry5.model.MutableComponentModel;
 import org.apache.tapestry5.plastic.MethodAdvice;
@@ -32,11 +33,14 @@ public class CommitAfterWorker implements ComponentClassTransformWorker2
 
     private final EntityManagerManager manager;
 
-    public CommitAfterWorker(EntityManagerManager manager)
+    private final JpaTransactionStatistics statistics;
+
+    public CommitAfterWorker(EntityManagerManager manager, JpaTransactionStatistics statistics)
     {
         this.manager = manager;
+        this.statistics = statistics;
 
-        shared = new CommitAfterMethodAdvice(manager, null);
+        shared = new CommitAfterMethodAdvice(manager, null, statistics);
     }
 
     public void transform(PlasticClass plasticClass, TransformationSupport support, MutableComponentModel model)
@@ -46,7 +50,7 @@ public class CommitAfterWorker implements ComponentClassTransformWorker2
         {
             PersistenceContext annotation = method.getAnnotation(PersistenceContext.class);
 
-            MethodAdvice advice = annotation == null ? shared : new CommitAfterMethodAdvice(manager, annotation);
+            MethodAdvice advice = annotation == null ? shared : new CommitAfterMethodAdvice(manager, annotation, statistics);
 
             method.addAdvice(advice);
         }
@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -24,12 +24,15 @@ public class EntityApplicationStatePersistenceStrategy extends
 {
     private final EntityManagerManager entityManagerManager;
 
+    private final EntityLoader entityLoader;
+
     public EntityApplicationStatePersistenceStrategy(final Request request,
-            final EntityManagerManager entityManagerManager)
+            final EntityManagerManager entityManagerManager, final EntityLoader entityLoader)
     {
         super(request);
 
         this.entityManagerManager = entityManagerManager;
+        this.entityLoader = entityLoader;
     }
 
     @Override
@@ -41,7 +44,7 @@ public class EntityApplicationStatePersistenceStrategy extends
         {
             final PersistedEntity persisted = (PersistedEntity) persistedValue;
 
-            final Object restored = persisted.restore(entityManagerManager);
+            final Object restored = persisted.restore(entityLoader);
 
             // shall we maybe throw an exception instead?
             if (restored == null)
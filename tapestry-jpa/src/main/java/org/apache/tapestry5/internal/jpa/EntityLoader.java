@@ -0,0 +1,39 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.jpa;
+
+import java.util.Collection;
+
+/**
+ * Loads entities by id on behalf of the entity {@link org.apache.tapestry5.ValueEncoder}s and the "entity" persistence
+ * strategies. Ids that are known in advance can be {@linkplain #prefetch(String, Class, java.util.Collection)
+ * prefetched} with a single query. This service is per-thread.
+ *
+ * @since 5.4
+ * @see org.apache.tapestry5.jpa.JpaSymbols#ENTITY_CACHE_ENABLED
+ */
+public interface EntityLoader
+{
+    /**
+     * Loads the entities with the given ids into the persistence context using as few queries as possible, so that
+     * later calls to {@link #get(String, Class, Object)} don't need to query the database.
+     */
+    void prefetch(String persistenceUnitName, Class entityClass, Collection<Object> ids);
+
+    /**
+     * Returns the entity with the given id, or null if it does not exist.
+     */
+    <E> E get(String persistenceUnitName, Class<E> entityClass, Object id);
+}
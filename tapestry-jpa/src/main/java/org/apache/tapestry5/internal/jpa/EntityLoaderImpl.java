@@ -0,0 +1,217 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.jpa;
+
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.jpa.EntityManagerManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class EntityLoaderImpl implements EntityLoader
+{
+    /**
+     * Largest number of ids in a single query; some databases limit the number of values in an IN clause.
+     */
+    static final int MAX_BATCH_SIZE = 500;
+
+    private final EntityManagerManager entityManagerManager;
+
+    private final boolean cacheEnabled;
+
+    /**
+     * Per persistence unit and entity class, the ids known not to exist.
+     */
+    private final Map<String, Set<Object>> missing = CollectionFactory.newMap();
+
+    /**
+     * Per persistence unit and entity class, the entities already returned by {@link #get(String, Class, Object)};
+     * only used when the cache is enabled.
+     */
+    private final Map<String, Map<Object, Object>> cache = CollectionFactory.newMap();
+
+    public EntityLoaderImpl(final EntityManagerManager entityManagerManager, final boolean cacheEnabled)
+    {
+        this.entityManagerManager = entityManagerManager;
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    private static String toKey(final String persistenceUnitName, final Class entityClass)
+    {
+        return persistenceUnitName + ":" + entityClass.getName();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void prefetch(final String persistenceUnitName, final Class entityClass, final Collection<Object> ids)
+    {
+        final EntityManager em = entityManagerManager.getEntityManager(persistenceUnitName);
+
+        final EntityType type;
+
+        try
+        {
+            type = em.getMetamodel().entity(entityClass);
+        }
+        catch (final IllegalArgumentException ex)
+        {
+            // Not an entity class (perhaps a proxy); leave it to get().
+
+            return;
+        }
+
+        // Composite ids can't be matched with a simple IN clause.
+
+        if (!type.hasSingleIdAttribute())
+        {
+            return;
+        }
+
+        final SingularAttribute idAttribute = type.getId(type.getIdType().getJavaType());
+
+        final String key = toKey(persistenceUnitName, entityClass);
+
+        final Set<Object> remaining = CollectionFactory.newSet(ids);
+
+        final Set<Object> entityMissing = missing.get(key);
+
+        if (entityMissing != null)
+        {
+            remaining.removeAll(entityMissing);
+        }
+
+        if (remaining.size() < 2)
+        {
+            return;
+        }
+
+        final List<Object> batch = CollectionFactory.newList();
+
+        for (final Object id : remaining)
+        {
+            batch.add(id);
+
+            if (batch.size() == MAX_BATCH_SIZE)
+            {
+                load(em, key, entityClass, idAttribute, batch);
+
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty())
+        {
+            load(em, key, entityClass, idAttribute, batch);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load(final EntityManager em, final String key, final Class entityClass,
+            final SingularAttribute idAttribute, final List<Object> ids)
+    {
+        final CriteriaQuery query = em.getCriteriaBuilder().createQuery(entityClass);
+
+        final Root root = query.from(entityClass);
+
+        query.select(root).where(root.get(idAttribute).in(ids));
+
+        final List<Object> entities = em.createQuery(query).getResultList();
+
+        // The entities are now in the persistence context; only the ids that weren't found need to be remembered.
+
+        final PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+
+        final Set<Object> notFound = CollectionFactory.newSet(ids);
+
+        for (final Object entity : entities)
+        {
+            notFound.remove(util.getIdentifier(entity));
+        }
+
+        if (!notFound.isEmpty())
+        {
+            addMissing(key, notFound);
+        }
+    }
+
+    private void addMissing(final String key, final Collection<Object> ids)
+    {
+        Set<Object> entityMissing = missing.get(key);
+
+        if (entityMissing == null)
+        {
+            entityMissing = CollectionFactory.newSet();
+            missing.put(key, entityMissing);
+        }
+
+        entityMissing.addAll(ids);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <E> E get(final String persistenceUnitName, final Class<E> entityClass, final Object id)
+    {
+        final String key = toKey(persistenceUnitName, entityClass);
+
+        final Set<Object> entityMissing = missing.get(key);
+
+        if (entityMissing != null && entityMissing.contains(id))
+        {
+            return null;
+        }
+
+        final EntityManager em = entityManagerManager.getEntityManager(persistenceUnitName);
+
+        if (!cacheEnabled)
+        {
+            return em.find(entityClass, id);
+        }
+
+        Map<Object, Object> entities = cache.get(key);
+
+        if (entities == null)
+        {
+            entities = CollectionFactory.newMap();
+            cache.put(key, entities);
+        }
+
+        E entity = (E) entities.get(id);
+
+        // An entity detached from the persistence context (for example, after a clear()) must be found again.
+
+        if (entity == null || !em.contains(entity))
+        {
+            entity = em.find(entityClass, id);
+
+            if (entity == null)
+            {
+                addMissing(key, Collections.singleton(id));
+
+                return null;
+            }
+
+            entities.put(id, entity);
+        }
+
+        return entity;
+    }
+}
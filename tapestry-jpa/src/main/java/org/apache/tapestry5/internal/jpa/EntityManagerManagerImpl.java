@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.services.ThreadCleanupListener;
 import org.apache.tapestry5.jpa.EntityManagerManager;
 import org.apache.tapestry5.jpa.EntityManagerSource;
+import org.apache.tapestry5.jpa.JpaTransactionStatistics;
 import org.slf4j.Logger;
 
 public class EntityManagerManagerImpl implements EntityManagerManager, ThreadCleanupListener
@@ -33,14 +34,22 @@ public class EntityManagerManagerImpl implements EntityManagerManager, ThreadCle
 
     private final Logger logger;
 
+    private final JpaTransactionStatistics statistics;
+
     private final Map<String, EntityManager> entityManagers = CollectionFactory.newMap();
 
+    /**
+     * When the first entity manager was created, for statistics.
+     */
+    private long firstCreatedNanos;
+
     public EntityManagerManagerImpl(final EntityManagerSource entityManagerSource,
-            final Logger logger)
+            final Logger logger, final JpaTransactionStatistics statistics)
     {
         super();
         this.entityManagerSource = entityManagerSource;
         this.logger = logger;
+        this.statistics = statistics;
     }
 
     /**
@@ -75,6 +84,11 @@ public class EntityManagerManagerImpl implements EntityManagerManager, ThreadCle
 
         if (em == null)
         {
+            if (entityManagers.isEmpty())
+            {
+                firstCreatedNanos = System.nanoTime();
+            }
+
             em = entityManagerSource.create(persistenceUnitName);
 
             entityManagers.put(persistenceUnitName, em);
@@ -85,6 +99,8 @@ public class EntityManagerManagerImpl implements EntityManagerManager, ThreadCle
 
     public void threadDidCleanup()
     {
+        recordStatistics();
+
         for (final Entry<String, EntityManager> next : entityManagers.entrySet())
         {
             try
@@ -107,4 +123,29 @@ public class EntityManagerManagerImpl implements EntityManagerManager, ThreadCle
 
     }
 
+    private void recordStatistics()
+    {
+        if (statistics == null)
+        {
+            return;
+        }
+
+        if (entityManagers.isEmpty())
+        {
+            statistics.recordUnused();
+
+            return;
+        }
+
+        // Entity managers created later in the request are counted as open from the first one's creation; the
+        // difference is rarely significant.
+
+        long openTime = System.nanoTime() - firstCreatedNanos;
+
+        for (int i = 0; i < entityManagers.size(); i++)
+        {
+            statistics.recordEntityManager(openTime);
+        }
+    }
+
 }
@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,9 +15,13 @@
 package org.apache.tapestry5.internal.jpa;
 
 import org.apache.tapestry5.internal.services.AbstractSessionPersistentFieldStrategy;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.jpa.EntityManagerManager;
 import org.apache.tapestry5.services.Request;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Persists JPA entities by storing their id in the session.
  */
@@ -25,12 +29,15 @@ public class EntityPersistentFieldStrategy extends AbstractSessionPersistentFiel
 {
     private final EntityManagerManager entityManagerManager;
 
+    private final EntityLoader entityLoader;
+
     public EntityPersistentFieldStrategy(final EntityManagerManager entityManagerManager,
-            final Request request)
+            final EntityLoader entityLoader, final Request request)
     {
         super("entity:", request);
 
         this.entityManagerManager = entityManagerManager;
+        this.entityLoader = entityLoader;
     }
 
     @Override
@@ -44,6 +51,51 @@ public class EntityPersistentFieldStrategy extends AbstractSessionPersistentFiel
     {
         final PersistedEntity persisted = (PersistedEntity) persistedValue;
 
-        return persisted.restore(entityManagerManager);
+        return persisted.restore(entityLoader);
+    }
+
+    /**
+     * Prefetches the page's persisted entities, so that each entity type is loaded with a single query.
+     */
+    @Override
+    protected void willConvertPersistedValues(final List<Object> persistedValues)
+    {
+        final Map<String, List<PersistedEntity>> byType = CollectionFactory.newMap();
+
+        for (final Object value : persistedValues)
+        {
+            if (!(value instanceof PersistedEntity))
+            {
+                continue;
+            }
+
+            final PersistedEntity persisted = (PersistedEntity) value;
+
+            final String key = persisted.getPersistenceUnitName() + ":" + persisted.getEntityClass().getName();
+
+            List<PersistedEntity> entities = byType.get(key);
+
+            if (entities == null)
+            {
+                entities = CollectionFactory.newList();
+                byType.put(key, entities);
+            }
+
+            entities.add(persisted);
+        }
+
+        for (final List<PersistedEntity> entities : byType.values())
+        {
+            final List<Object> ids = CollectionFactory.newList();
+
+            for (final PersistedEntity persisted : entities)
+            {
+                ids.add(persisted.getId());
+            }
+
+            final PersistedEntity first = entities.get(0);
+
+            entityLoader.prefetch(first.getPersistenceUnitName(), first.getEntityClass(), ids);
+        }
     }
 }
@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@ package org.apache.tapestry5.internal.jpa;
 
 import org.apache.tapestry5.ioc.MethodAdviceReceiver;
 import org.apache.tapestry5.jpa.EntityManagerManager;
+import org.apache.tapestry5.jpa.JpaTransactionStatistics;
 import org.apache.tapestry5.jpa.JpaTransactionAdvisor;
 import org.apache.tapestry5.jpa.annotations.CommitAfter;
 import org.apache.tapestry5.plastic.MethodAdvice;
@@ -27,14 +28,17 @@ public class JpaTransactionAdvisorImpl implements JpaTransactionAdvisor
 {
     private final EntityManagerManager manager;
 
+    private final JpaTransactionStatistics statistics;
+
     private final MethodAdvice shared;
 
 
-    public JpaTransactionAdvisorImpl(EntityManagerManager manager)
+    public JpaTransactionAdvisorImpl(EntityManagerManager manager, JpaTransactionStatistics statistics)
     {
         this.manager = manager;
+        this.statistics = statistics;
 
-        shared = new CommitAfterMethodAdvice(manager, null);
+        shared = new CommitAfterMethodAdvice(manager, null, statistics);
     }
 
     public void addTransactionCommitAdvice(final MethodAdviceReceiver receiver)
@@ -46,7 +50,7 @@ public class JpaTransactionAdvisorImpl implements JpaTransactionAdvisor
                 PersistenceContext annotation = receiver.getMethodAnnotation(m, PersistenceContext.class);
 
                 MethodAdvice advice =
-                        annotation == null ? shared : new CommitAfterMethodAdvice(manager, annotation);
+                        annotation == null ? shared : new CommitAfterMethodAdvice(manager, annotation, statistics);
 
                 receiver.adviseMethod(m, advice);
             }
@@ -14,24 +14,25 @@
 
 package org.apache.tapestry5.internal.jpa;
 
-import org.apache.tapestry5.ValueEncoder;
+import org.apache.tapestry5.BatchValueEncoder;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.ioc.services.PropertyAccess;
 import org.apache.tapestry5.ioc.services.PropertyAdapter;
 import org.apache.tapestry5.ioc.services.TypeCoercer;
 import org.apache.tapestry5.ioc.util.ExceptionUtils;
-import org.apache.tapestry5.jpa.EntityManagerManager;
 import org.slf4j.Logger;
 
-import javax.persistence.EntityManager;
 import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.SingularAttribute;
 import javax.persistence.metamodel.Type;
+import java.util.Collection;
+import java.util.List;
 
-public class JpaValueEncoder<E> implements ValueEncoder<E>
+public class JpaValueEncoder<E> implements BatchValueEncoder<E>
 {
     private final EntityType<E> entity;
-    private final EntityManagerManager entityManagerManager;
+    private final EntityLoader entityLoader;
     private final String persistenceUnitName;
     private final TypeCoercer typeCoercer;
     private final Logger logger;
@@ -39,12 +40,12 @@ public class JpaValueEncoder<E> implements ValueEncoder<E>
     private final PropertyAdapter propertyAdapter;
 
     public JpaValueEncoder(final EntityType<E> entity,
-            final EntityManagerManager entityManagerManager, final String persistenceUnitName,
+            final EntityLoader entityLoader, final String persistenceUnitName,
             final PropertyAccess propertyAccess, final TypeCoercer typeCoercer, final Logger logger)
     {
         super();
         this.entity = entity;
-        this.entityManagerManager = entityManagerManager;
+        this.entityLoader = entityLoader;
         this.persistenceUnitName = persistenceUnitName;
         this.typeCoercer = typeCoercer;
         this.logger = logger;
@@ -86,25 +87,9 @@ public class JpaValueEncoder<E> implements ValueEncoder<E>
         if (InternalUtils.isBlank(clientValue))
             return null;
 
-        Object id = null;
-        final Class<E> entityClass = entity.getJavaType();
+        final Object id = toId(clientValue);
 
-        try
-        {
-
-            id = typeCoercer.coerce(clientValue, propertyAdapter.getType());
-        }
-        catch (final Exception ex)
-        {
-            throw new RuntimeException(String.format(
-                    "Exception converting '%s' to instance of %s (id type for entity %s): %s",
-                    clientValue, propertyAdapter.getType().getName(), entityClass.getName(),
-                    ExceptionUtils.toMessage(ex)), ex);
-        }
-
-        final EntityManager em = entityManagerManager.getEntityManager(persistenceUnitName);
-
-        final E result = em.find(entityClass, id);
+        final E result = entityLoader.get(persistenceUnitName, entity.getJavaType(), id);
 
         if (result == null)
         {
@@ -116,4 +101,41 @@ public class JpaValueEncoder<E> implements ValueEncoder<E>
 
         return result;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void prefetch(final Collection<String> clientValues)
+    {
+        final List<Object> ids = CollectionFactory.newList();
+
+        for (final String clientValue : clientValues)
+        {
+            try
+            {
+                ids.add(toId(clientValue));
+            }
+            catch (final RuntimeException ex)
+            {
+                // Reported when the value itself is converted.
+            }
+        }
+
+        entityLoader.prefetch(persistenceUnitName, entity.getJavaType(), ids);
+    }
+
+    private Object toId(final String clientValue)
+    {
+        try
+        {
+            return typeCoercer.coerce(clientValue, propertyAdapter.getType());
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(String.format(
+                    "Exception converting '%s' to instance of %s (id type for entity %s): %s",
+                    clientValue, propertyAdapter.getType().getName(), entity.getJavaType().getName(),
+                    ExceptionUtils.toMessage(ex)), ex);
+        }
+    }
 }
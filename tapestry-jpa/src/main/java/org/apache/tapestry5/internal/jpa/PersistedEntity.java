@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,10 +16,7 @@ package org.apache.tapestry5.internal.jpa;
 
 import java.io.Serializable;
 
-import javax.persistence.EntityManager;
-
 import org.apache.tapestry5.annotations.ImmutableSessionPersistedObject;
-import org.apache.tapestry5.jpa.EntityManagerManager;
 
 /**
  * Encapsulates a JPA entity name with an entity id.
@@ -43,14 +40,26 @@ public class PersistedEntity implements Serializable
         this.persistenceUnitName = persistenceUnitName;
     }
 
-    public Object restore(final EntityManagerManager entityManagerManager)
+    Class getEntityClass()
+    {
+        return entityClass;
+    }
+
+    Object getId()
+    {
+        return id;
+    }
+
+    String getPersistenceUnitName()
+    {
+        return persistenceUnitName;
+    }
+
+    public Object restore(final EntityLoader loader)
     {
         try
         {
-            final EntityManager entityManager = entityManagerManager
-                    .getEntityManager(persistenceUnitName);
-
-            return entityManager.find(entityClass, id);
+            return loader.get(persistenceUnitName, entityClass, id);
         }
         catch (final Exception ex)
         {
@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,17 +14,26 @@
 
 package org.apache.tapestry5.jpa;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
 
-import org.apache.tapestry5.grid.GridDataSource;
+import org.apache.tapestry5.grid.ColumnSort;
+import org.apache.tapestry5.grid.SeekableGridDataSource;
 import org.apache.tapestry5.grid.SortConstraint;
+import org.apache.tapestry5.ioc.Invokable;
+import org.apache.tapestry5.services.RowCountCache;
 
 /**
  * A simple implementation of {@link org.apache.tapestry5.grid.GridDataSource} based on a
@@ -33,6 +42,18 @@ import org.apache.tapestry5.grid.SortConstraint;
  * {@link org.apache.tapestry5.grid.SortConstraint sort
  * constraints}.
  * <p/>
+ * Rows with equal sort values are ordered by the entity's identifier. As a {@link SeekableGridDataSource}, this
+ * allows the Grid to query the next or previous page by comparing the sort properties and identifier against those
+ * of the adjacent row, rather than using an offset. An offset is used instead for entities with a composite
+ * identifier, and when sorting on any attribute that may be null (that is, an optional attribute, unless it is of a
+ * primitive type): a comparison never matches a null value, and databases differ in whether nulls sort first or last.
+ * <p/>
+ * When constructed with a {@link RowCountCache} and a key, the row count is cached, and refreshed in the background,
+ * using a new entity manager obtained from the entity manager's factory. The key must identify everything that
+ * affects the count, including any constraints added by
+ * {@link #applyAdditionalConstraints(CriteriaQuery, Root, CriteriaBuilder)} (for example, the current user, if the
+ * rows are restricted to those visible to the user).
+ * <p/>
  * This class is <em>not</em> thread-safe; it maintains internal state.
  * <p/>
  * Typically, an instance of this object is created fresh as needed (that is, it is not stored
@@ -40,28 +61,79 @@ import org.apache.tapestry5.grid.SortConstraint;
  *
  * @since 5.3
  */
-public class JpaGridDataSource<E> implements GridDataSource
+public class JpaGridDataSource<E> implements SeekableGridDataSource
 {
 
     private final EntityManager entityManager;
 
     private final Class<E> entityType;
 
+    private final RowCountCache rowCountCache;
+
+    private final String rowCountCacheKey;
+
     private int startIndex;
 
     private List<E> preparedResults;
 
     public JpaGridDataSource(final EntityManager entityManager, final Class<E> entityType)
+    {
+        this(entityManager, entityType, null, null);
+    }
+
+    /**
+     * @param entityManager
+     *         used to query the rows
+     * @param entityType
+     *         type of entity to query
+     * @param rowCountCache
+     *         used to cache the row count; if null, the rows are counted each time
+     * @param rowCountCacheKey
+     *         key under which the row count is cached, which must identify the entity type and any
+     *         additional constraints; required if rowCountCache is non-null
+     * @since 5.4
+     */
+    public JpaGridDataSource(final EntityManager entityManager, final Class<E> entityType,
+            final RowCountCache rowCountCache, final String rowCountCacheKey)
     {
         super();
+        assert rowCountCache == null || rowCountCacheKey != null;
         this.entityManager = entityManager;
         this.entityType = entityType;
+        this.rowCountCache = rowCountCache;
+        this.rowCountCacheKey = rowCountCacheKey;
     }
 
     /**
      * {@inheritDoc}
      */
     public int getAvailableRows()
+    {
+        if (rowCountCache == null)
+        {
+            return countRows(entityManager);
+        }
+
+        return rowCountCache.getRowCount(rowCountCacheKey, new Invokable<Integer>()
+        {
+            public Integer invoke()
+            {
+                final EntityManager countEntityManager = entityManager.getEntityManagerFactory()
+                        .createEntityManager();
+
+                try
+                {
+                    return countRows(countEntityManager);
+                }
+                finally
+                {
+                    countEntityManager.close();
+                }
+            }
+        });
+    }
+
+    private int countRows(final EntityManager entityManager)
     {
         final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 
@@ -81,6 +153,53 @@ public class JpaGridDataSource<E> implements GridDataSource
      */
     public void prepare(final int startIndex, final int endIndex,
             final List<SortConstraint> sortConstraints)
+    {
+        prepare(startIndex, endIndex, sortConstraints, null, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void prepareAfter(final int startIndex, final int endIndex,
+            final List<SortConstraint> sortConstraints, final Object[] precedingRowKey)
+    {
+        prepare(startIndex, endIndex, sortConstraints, precedingRowKey, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void prepareBefore(final int startIndex, final int endIndex,
+            final List<SortConstraint> sortConstraints, final Object[] followingRowKey)
+    {
+        prepare(startIndex, endIndex, sortConstraints, followingRowKey, true);
+    }
+
+    /**
+     * Returns the values of the sorted properties of the row, followed by its identifier.
+     */
+    public Object[] getRowKey(final Object row, final List<SortConstraint> sortConstraints)
+    {
+        final List<Object> result = new ArrayList<Object>();
+
+        for (final SortConstraint constraint : sortConstraints)
+        {
+            if (constraint.getColumnSort() != ColumnSort.UNSORTED)
+            {
+                result.add(constraint.getPropertyModel().getConduit().get(row));
+            }
+        }
+
+        result.add(entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(row));
+
+        return result.toArray();
+    }
+
+    /**
+     * Queries the rows, either by index or, if the row key is usable, relative to the row key.
+     */
+    private void prepare(final int startIndex, final int endIndex,
+            final List<SortConstraint> sortConstraints, final Object[] rowKey, final boolean reverse)
     {
         final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 
@@ -88,42 +207,195 @@ public class JpaGridDataSource<E> implements GridDataSource
 
         final Root<E> root = criteria.from(entityType);
 
-        applyAdditionalConstraints(criteria.select(root), root, builder);
+        final EntityType<E> type = entityManager.getMetamodel().entity(entityType);
+
+        final List<Path<Comparable>> paths = new ArrayList<Path<Comparable>>();
+        final List<Boolean> ascending = new ArrayList<Boolean>();
+
+        boolean nullable = false;
 
         for (final SortConstraint constraint : sortConstraints)
         {
 
             final String propertyName = constraint.getPropertyModel().getPropertyName();
 
-            final Path<Object> propertyPath = root.get(propertyName);
-
             switch (constraint.getColumnSort())
             {
 
                 case ASCENDING:
 
-                    criteria.orderBy(builder.asc(propertyPath));
+                    paths.add(root.<Comparable> get(propertyName));
+                    ascending.add(true);
                     break;
 
                 case DESCENDING:
-                    criteria.orderBy(builder.desc(propertyPath));
+
+                    paths.add(root.<Comparable> get(propertyName));
+                    ascending.add(false);
                     break;
 
                 default:
+
+                    continue;
             }
+
+            nullable |= isNullable(type, constraint);
+        }
+
+        final String identifierName = getIdentifierAttributeName(type);
+
+        if (identifierName != null)
+        {
+            paths.add(root.<Comparable> get(identifierName));
+            ascending.add(true);
+        }
+
+        final boolean seek = identifierName != null && !nullable && isUsable(rowKey, paths.size());
+
+        applyAdditionalConstraints(criteria.select(root), root, builder);
+
+        if (seek)
+        {
+            final Predicate restriction = criteria.getRestriction();
+
+            final Predicate seekRestriction = seek(builder, paths, ascending, rowKey, reverse);
+
+            criteria.where(restriction == null ? seekRestriction : builder.and(restriction, seekRestriction));
         }
 
+        final boolean flip = seek && reverse;
+
+        final List<Order> orders = new ArrayList<Order>();
+
+        for (int i = 0; i < paths.size(); i++)
+        {
+            orders.add(ascending.get(i) != flip ? builder.asc(paths.get(i)) : builder.desc(paths.get(i)));
+        }
+
+        criteria.orderBy(orders);
+
         final TypedQuery<E> query = entityManager.createQuery(criteria);
 
-        query.setFirstResult(startIndex);
+        if (!seek)
+        {
+            query.setFirstResult(startIndex);
+        }
+
         query.setMaxResults(endIndex - startIndex + 1);
 
         this.startIndex = startIndex;
 
         preparedResults = query.getResultList();
 
+        if (flip)
+        {
+            preparedResults = new ArrayList<E>(preparedResults);
+
+            Collections.reverse(preparedResults);
+        }
+    }
+
+    /**
+     * Returns true if the sorted attribute may be null; that is, it is not a primitive, and is not a
+     * non-optional singular attribute.
+     */
+    private static boolean isNullable(final EntityType<?> type, final SortConstraint constraint)
+    {
+        if (constraint.getPropertyModel().getPropertyType().isPrimitive())
+        {
+            return false;
+        }
+
+        for (final SingularAttribute<?, ?> attribute : type.getSingularAttributes())
+        {
+            if (attribute.getName().equals(constraint.getPropertyModel().getPropertyName()))
+            {
+                return !attribute.isId() && attribute.isOptional();
+            }
+        }
+
+        return true;
     }
 
+    private static boolean isUsable(final Object[] rowKey, final int length)
+    {
+        if (rowKey == null || rowKey.length != length)
+        {
+            return false;
+        }
+
+        for (final Object value : rowKey)
+        {
+            if (value == null)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds the predicate that matches rows after (or before, if reverse) the row key, in sort
+     * order. For sort properties a, b and identifier id, all ascending, that is
+     * {@code a > ? or (a = ? and b > ?) or (a = ? and b = ? and id > ?)}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Predicate seek(final CriteriaBuilder builder, final List<Path<Comparable>> paths,
+            final List<Boolean> ascending, final Object[] rowKey, final boolean reverse)
+    {
+        final List<Predicate> alternatives = new ArrayList<Predicate>();
+
+        for (int i = 0; i < paths.size(); i++)
+        {
+            final List<Predicate> conjuncts = new ArrayList<Predicate>();
+
+            for (int j = 0; j < i; j++)
+            {
+                conjuncts.add(builder.equal(paths.get(j), rowKey[j]));
+            }
+
+            final Comparable value = (Comparable) rowKey[i];
+
+            conjuncts.add(ascending.get(i) != reverse
+                    ? builder.greaterThan(paths.get(i), value)
+                    : builder.lessThan(paths.get(i), value));
+
+            alternatives.add(builder.and(conjuncts.toArray(new Predicate[conjuncts.size()])));
+        }
+
+        return builder.or(alternatives.toArray(new Predicate[alternatives.size()]));
+    }
+
+    /**
+     * Returns the name of the entity's identifier attribute, or null if it does not have a single
+     * identifier attribute.
+     */
+    private static String getIdentifierAttributeName(final EntityType<?> type)
+    {
+        if (!type.hasSingleIdAttribute())
+        {
+            return null;
+        }
+
+        for (final SingularAttribute<?, ?> attribute : type.getSingularAttributes())
+        {
+            if (attribute.isId())
+            {
+                return attribute.getName();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Invoked to apply additional constraints to the criteria used to query or count the rows. When rows are
+     * located relative to an adjacent row, the restriction used to do so is combined with any restriction
+     * set here. This implementation does nothing and may be overridden.
+     * <p/>
+     * When a {@link RowCountCache} is used, this may be invoked from a different thread, to count the rows.
+     */
     protected void applyAdditionalConstraints(final CriteriaQuery<?> criteria, final Root<E> root,
             final CriteriaBuilder builder)
     {
@@ -134,7 +406,9 @@ public class JpaGridDataSource<E> implements GridDataSource
      */
     public Object getRowValue(final int index)
     {
-        return preparedResults.get(index - startIndex);
+        final int offset = index - startIndex;
+
+        return offset < preparedResults.size() ? preparedResults.get(offset) : null;
     }
 
     /**
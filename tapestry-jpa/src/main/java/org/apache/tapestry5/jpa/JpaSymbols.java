@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -45,4 +45,14 @@ public class JpaSymbols
      * @since 5.3
      */
     public static final String PERSISTENCE_DESCRIPTOR = "tapestry.jpa.persistence-descriptor";
+
+    /**
+     * If true, entities found by the entity {@link org.apache.tapestry5.ValueEncoder}s and the "entity" persistence
+     * strategies are cached for the rest of the request, shared by all encoders, and ids found not to exist are not
+     * queried again. The entity manager itself already returns the same instance for an id, so this mostly saves
+     * repeated lookups of missing entities. Defaults to false.
+     *
+     * @since 5.4
+     */
+    public static final String ENTITY_CACHE_ENABLED = "tapestry.jpa.entity-cache-enabled";
 }
@@ -0,0 +1,125 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.jpa;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide statistics about the entity managers created by the {@link EntityManagerManager}, and the
+ * transactions begun for {@link org.apache.tapestry5.jpa.annotations.CommitAfter} methods. A resource-local transaction
+ * holds a JDBC connection from when it begins until it is committed or rolled back, so the transaction times are the
+ * times connections were held; together with the request rate, they give the number of pooled connections that are
+ * actually needed. The time entity managers are open is an upper bound, for providers that keep a connection for as
+ * long as the entity manager is open.
+ *
+ * @since 5.4
+ */
+public class JpaTransactionStatistics
+{
+    private final AtomicLong transactions = new AtomicLong(), holdNanos = new AtomicLong(),
+            maxHoldNanos = new AtomicLong(), entityManagers = new AtomicLong(), openNanos = new AtomicLong(),
+            unusedManagers = new AtomicLong();
+
+    private static void recordMax(AtomicLong max, long value)
+    {
+        while (true)
+        {
+            long current = max.get();
+
+            if (value <= current || max.compareAndSet(current, value))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records the end (by commit or rollback) of a transaction.
+     *
+     * @param holdTime
+     *         time, in nanoseconds, since the transaction began
+     */
+    public void recordTransaction(long holdTime)
+    {
+        transactions.incrementAndGet();
+        holdNanos.addAndGet(holdTime);
+
+        recordMax(maxHoldNanos, holdTime);
+    }
+
+    /**
+     * Records the closing of an entity manager.
+     *
+     * @param openTime
+     *         time, in nanoseconds, since the entity manager was created
+     */
+    public void recordEntityManager(long openTime)
+    {
+        entityManagers.incrementAndGet();
+        openNanos.addAndGet(openTime);
+    }
+
+    /**
+     * Records a request that created the per-thread entity manager manager, but never obtained an entity manager from
+     * it.
+     */
+    public void recordUnused()
+    {
+        unusedManagers.incrementAndGet();
+    }
+
+    public long getTransactionCount()
+    {
+        return transactions.get();
+    }
+
+    /**
+     * Total time, in milliseconds, that transactions (and so connections) were held.
+     */
+    public long getHoldTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(holdNanos.get());
+    }
+
+    /**
+     * Longest time, in milliseconds, that a single transaction was held.
+     */
+    public long getMaxHoldTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(maxHoldNanos.get());
+    }
+
+    public long getEntityManagerCount()
+    {
+        return entityManagers.get();
+    }
+
+    /**
+     * Total time, in milliseconds, that entity managers were open.
+     */
+    public long getEntityManagerOpenTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(openNanos.get());
+    }
+
+    /**
+     * Number of requests that never used an entity manager.
+     */
+    public long getUnusedCount()
+    {
+        return unusedManagers.get();
+    }
+}
@@ -44,6 +44,7 @@ public class JpaModule
         binder.bind(JpaTransactionAdvisor.class, JpaTransactionAdvisorImpl.class);
         binder.bind(PersistenceUnitConfigurer.class, PackageNamePersistenceUnitConfigurer.class).withSimpleId();
         binder.bind(EntityManagerSource.class, EntityManagerSourceImpl.class);
+        binder.bind(JpaTransactionStatistics.class);
     }
 
     public static JpaEntityPackageManager buildJpaEntityPackageManager(final Collection<String> packageNames)
@@ -59,9 +60,11 @@ public class JpaModule
 
     @Scope(ScopeConstants.PERTHREAD)
     public static EntityManagerManager buildEntityManagerManager(final EntityManagerSource entityManagerSource,
-                                                                 final PerthreadManager perthreadManager, final Logger logger)
+                                                                 final PerthreadManager perthreadManager, final Logger logger,
+                                                                 final JpaTransactionStatistics statistics)
     {
-        final EntityManagerManagerImpl service = new EntityManagerManagerImpl(entityManagerSource, logger);
+        final EntityManagerManagerImpl service = new EntityManagerManagerImpl(entityManagerSource, logger,
+                statistics);
 
         perthreadManager.addThreadCleanupListener(service);
 
@@ -77,6 +80,21 @@ public class JpaModule
         configuration.add(appRootPackage + ".entities");
     }
 
+    /**
+     * Finds entities for the entity value encoders and persistence strategies, prefetching batches of ids when they
+     * are known in advance. Per-thread, so that (with {@link JpaSymbols#ENTITY_CACHE_ENABLED}) entities are cached for
+     * the request.
+     *
+     * @since 5.4
+     */
+    @Scope(ScopeConstants.PERTHREAD)
+    public static EntityLoader buildEntityLoader(final EntityManagerManager entityManagerManager,
+                                                 @Symbol(JpaSymbols.ENTITY_CACHE_ENABLED)
+                                                 final boolean cacheEnabled)
+    {
+        return new EntityLoaderImpl(entityManagerManager, cacheEnabled);
+    }
+
     @Contribute(PersistentFieldManager.class)
     public static void provideEntityPersistentFieldStrategies(
             final MappedConfiguration<String, PersistentFieldStrategy> configuration)
@@ -114,13 +132,14 @@ public class JpaModule
         configuration.add(JpaSymbols.EARLY_START_UP, "true");
         configuration.add(JpaSymbols.ENTITY_SESSION_STATE_PERSISTENCE_STRATEGY_ENABLED, "true");
         configuration.add(JpaSymbols.PERSISTENCE_DESCRIPTOR, "/META-INF/persistence.xml");
+        configuration.add(JpaSymbols.ENTITY_CACHE_ENABLED, "false");
     }
 
     @Contribute(ValueEncoderSource.class)
     public static void provideValueEncoders(final MappedConfiguration<Class, ValueEncoderFactory> configuration,
                                             @Symbol(JpaSymbols.PROVIDE_ENTITY_VALUE_ENCODERS)
                                             final boolean provideEncoders, final EntityManagerSource entityManagerSource,
-                                            final EntityManagerManager entityManagerManager, final TypeCoercer typeCoercer,
+                                            final EntityLoader entityLoader, final TypeCoercer typeCoercer,
                                             final PropertyAccess propertyAccess, final LoggerSource loggerSource)
     {
 
@@ -141,7 +160,7 @@ public class JpaModule
                 {
                     public ValueEncoder create(final Class type)
                     {
-                        return new JpaValueEncoder(entity, entityManagerManager, info.getPersistenceUnitName(),
+                        return new JpaValueEncoder(entity, entityLoader, info.getPersistenceUnitName(),
                                 propertyAccess, typeCoercer, loggerSource.getLogger(javaType));
                     }
                 };
@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import org.apache.tapestry5.ioc.test.IOCTestCase;
 import org.apache.tapestry5.ioc.test.TestBase;
 import org.apache.tapestry5.jpa.EntityManagerManager;
 import org.apache.tapestry5.jpa.JpaTransactionAdvisor;
+import org.apache.tapestry5.jpa.JpaTransactionStatistics;
 import org.apache.tapestry5.jpa.annotations.CommitAfter;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -450,7 +451,7 @@ public class JpaTransactionAdvisorImplTest extends IOCTestCase
 
     private JpaTransactionAdvisor newJpaTransactionAdvisor(final EntityManagerManager manager)
     {
-        return new JpaTransactionAdvisorImpl(manager);
+        return new JpaTransactionAdvisorImpl(manager, new JpaTransactionStatistics());
     }
 
     private ReturnTypeService newTestService()
@@ -0,0 +1,74 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.jpa;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Entity used by {@link JpaGridDataSourceTest}; the score is never null but has many ties, the label may be
+ * null.
+ */
+@Entity
+public class RankedEntity
+{
+    @Id
+    private Long id;
+
+    private int score;
+
+    private String label;
+
+    public RankedEntity()
+    {
+    }
+
+    public RankedEntity(Long id, int score, String label)
+    {
+        this.id = id;
+        this.score = score;
+        this.label = label;
+    }
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public void setId(Long id)
+    {
+        this.id = id;
+    }
+
+    public int getScore()
+    {
+        return score;
+    }
+
+    public void setScore(int score)
+    {
+        this.score = score;
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+
+    public void setLabel(String label)
+    {
+        this.label = label;
+    }
+}
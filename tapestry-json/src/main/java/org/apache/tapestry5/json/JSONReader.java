@@ -0,0 +1,456 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.json;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads JSON content from a {@link Reader} as a series of {@linkplain Token tokens}, without building the
+ * entire content in memory. Characters are read from the reader only as needed.
+ * <p/>
+ * At any point where a value is expected, {@link #readObject()}, {@link #readArray()} or {@link #readValue()}
+ * may be used to read the entire value as a {@link JSONObject}, {@link JSONArray} or simple value; this makes it
+ * easy to stream through a large array of small objects.
+ * <p/>
+ * The reader accepts the same (somewhat relaxed) syntax as the {@link JSONObject} and {@link JSONArray}
+ * constructors.
+ * <p/>
+ * A JSONReader is not thread safe.
+ *
+ * @since 5.4
+ */
+public final class JSONReader implements Closeable
+{
+    /**
+     * The kinds of token returned by {@link JSONReader#next()}.
+     */
+    public enum Token
+    {
+        BEGIN_OBJECT,
+
+        END_OBJECT,
+
+        BEGIN_ARRAY,
+
+        END_ARRAY,
+
+        /**
+         * A property name inside an object; see {@link JSONReader#getKey()}.
+         */
+        KEY,
+
+        /**
+         * A String, Boolean, Number or {@link JSONObject#NULL}; see {@link JSONReader#getValue()}.
+         */
+        VALUE,
+
+        /**
+         * The end of the JSON content.
+         */
+        END_DOCUMENT
+    }
+
+    private enum Scope
+    {
+        EMPTY_DOCUMENT, NONEMPTY_DOCUMENT, EMPTY_ARRAY, NONEMPTY_ARRAY, EMPTY_OBJECT, DANGLING_KEY, NONEMPTY_OBJECT
+    }
+
+    private final Reader reader;
+
+    private final JSONTokener tokener;
+
+    private final List<Scope> stack = new ArrayList<Scope>();
+
+    /**
+     * The next token, as determined by {@link #peek()}, or null if not yet determined.
+     */
+    private Token peeked;
+
+    private String key;
+
+    private Object value;
+
+    /**
+     * @param reader
+     *         source of JSON content; it will be buffered if not already a {@link BufferedReader}
+     */
+    public JSONReader(Reader reader)
+    {
+        assert reader != null;
+
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+
+        tokener = new JSONTokener(this.reader);
+
+        stack.add(Scope.EMPTY_DOCUMENT);
+    }
+
+    /**
+     * Returns the type of the next token, without consuming it.
+     *
+     * @throws RuntimeException
+     *         if there is a syntax error
+     */
+    public Token peek()
+    {
+        if (peeked == null)
+        {
+            peeked = advance();
+        }
+
+        return peeked;
+    }
+
+    /**
+     * Consumes and returns the next token. After a {@link Token#KEY}, the key is available from {@link #getKey()};
+     * after a {@link Token#VALUE}, the value is available from {@link #getValue()}.
+     *
+     * @throws RuntimeException
+     *         if there is a syntax error
+     */
+    public Token next()
+    {
+        Token result = peek();
+
+        peeked = null;
+
+        switch (result)
+        {
+            case BEGIN_OBJECT:
+                stack.add(Scope.EMPTY_OBJECT);
+                break;
+
+            case BEGIN_ARRAY:
+                stack.add(Scope.EMPTY_ARRAY);
+                break;
+
+            case END_OBJECT:
+            case END_ARRAY:
+                stack.remove(stack.size() - 1);
+                break;
+
+            default:
+                break;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns true if the current object or array has further keys or values.
+     */
+    public boolean hasNext()
+    {
+        Token token = peek();
+
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Returns the most recently read key.
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * Returns the most recently read simple value (String, Boolean, Number or {@link JSONObject#NULL}).
+     */
+    public Object getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Reads the next value, which must be an object, in its entirety.
+     *
+     * @throws RuntimeException
+     *         if the next value is not an object, or if there is a syntax error
+     */
+    public JSONObject readObject()
+    {
+        if (peek() != Token.BEGIN_OBJECT)
+        {
+            throw unexpected("an object");
+        }
+
+        return (JSONObject) readValue();
+    }
+
+    /**
+     * Reads the next value, which must be an array, in its entirety.
+     *
+     * @throws RuntimeException
+     *         if the next value is not an array, or if there is a syntax error
+     */
+    public JSONArray readArray()
+    {
+        if (peek() != Token.BEGIN_ARRAY)
+        {
+            throw unexpected("an array");
+        }
+
+        return (JSONArray) readValue();
+    }
+
+    /**
+     * Reads the next value in its entirety: a {@link JSONObject}, {@link JSONArray}, or a simple value.
+     *
+     * @throws RuntimeException
+     *         if the next token is not the start of a value, or if there is a syntax error
+     */
+    public Object readValue()
+    {
+        Token token = peek();
+
+        peeked = null;
+
+        switch (token)
+        {
+            case BEGIN_OBJECT:
+
+                // The open brace has already been consumed; the tokener can back up over it.
+
+                tokener.back();
+
+                return new JSONObject(tokener);
+
+            case BEGIN_ARRAY:
+
+                tokener.back();
+
+                return new JSONArray(tokener);
+
+            case VALUE:
+                return value;
+
+            default:
+                peeked = token;
+
+                throw unexpected("a value");
+        }
+    }
+
+    /**
+     * Skips over the next value, including the entire content of an object or array.
+     */
+    public void skipValue()
+    {
+        int depth = 0;
+
+        do
+        {
+            switch (next())
+            {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    depth++;
+                    break;
+
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+
+                case END_DOCUMENT:
+                    throw tokener.syntaxError("Unexpected end of input");
+
+                default:
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Closes the underlying reader.
+     */
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+
+    private RuntimeException unexpected(String expected)
+    {
+        return tokener.syntaxError(String.format("Expected %s but found %s", expected, peeked));
+    }
+
+    private Scope scope()
+    {
+        return stack.get(stack.size() - 1);
+    }
+
+    private void replace(Scope scope)
+    {
+        stack.set(stack.size() - 1, scope);
+    }
+
+    /**
+     * Reads from the tokener to determine the next token. The rules follow those of the tokener based
+     * JSONObject and JSONArray constructors.
+     */
+    private Token advance()
+    {
+        switch (scope())
+        {
+            case EMPTY_DOCUMENT:
+                replace(Scope.NONEMPTY_DOCUMENT);
+
+                return nextValue(false);
+
+            case NONEMPTY_DOCUMENT:
+                if (tokener.nextClean() != 0)
+                {
+                    throw tokener.syntaxError("Expected end of input");
+                }
+
+                return Token.END_DOCUMENT;
+
+            case EMPTY_ARRAY:
+                if (tokener.nextClean() == ']')
+                {
+                    return Token.END_ARRAY;
+                }
+
+                tokener.back();
+
+                replace(Scope.NONEMPTY_ARRAY);
+
+                return nextValue(true);
+
+            case NONEMPTY_ARRAY:
+                switch (tokener.nextClean())
+                {
+                    case ';':
+                    case ',':
+                        if (tokener.nextClean() == ']')
+                        {
+                            return Token.END_ARRAY;
+                        }
+
+                        tokener.back();
+
+                        return nextValue(true);
+
+                    case ']':
+                        return Token.END_ARRAY;
+
+                    default:
+                        throw tokener.syntaxError("Expected a ',' or ']'");
+                }
+
+            case EMPTY_OBJECT:
+                return nextKey(tokener.nextClean());
+
+            case NONEMPTY_OBJECT:
+                switch (tokener.nextClean())
+                {
+                    case ';':
+                    case ',':
+                        return nextKey(tokener.nextClean());
+
+                    case '}':
+                        return Token.END_OBJECT;
+
+                    default:
+                        throw tokener.syntaxError("Expected a ',' or '}'");
+                }
+
+            default:
+                // DANGLING_KEY
+
+                replace(Scope.NONEMPTY_OBJECT);
+
+                return nextValue(false);
+        }
+    }
+
+    private Token nextKey(char c)
+    {
+        switch (c)
+        {
+            case 0:
+                throw tokener.syntaxError("A JSONObject text must end with '}'");
+
+            case '}':
+                return Token.END_OBJECT;
+
+            default:
+                tokener.back();
+                key = tokener.nextValue().toString();
+        }
+
+        // The key is followed by ':'. We will also tolerate '=' or '=>'.
+
+        c = tokener.nextClean();
+
+        if (c == '=')
+        {
+            if (tokener.next() != '>')
+            {
+                tokener.back();
+            }
+        } else if (c != ':')
+        {
+            throw tokener.syntaxError("Expected a ':' after a key");
+        }
+
+        replace(Scope.DANGLING_KEY);
+
+        return Token.KEY;
+    }
+
+    private Token nextValue(boolean inArray)
+    {
+        char c = tokener.nextClean();
+
+        switch (c)
+        {
+            case '{':
+                return Token.BEGIN_OBJECT;
+
+            case '[':
+                return Token.BEGIN_ARRAY;
+
+            case ',':
+
+                // Elision inside an array, i.e., [1,,2]
+
+                if (inArray)
+                {
+                    tokener.back();
+                    value = JSONObject.NULL;
+
+                    return Token.VALUE;
+                }
+
+                break;
+
+            default:
+                break;
+        }
+
+        tokener.back();
+
+        value = tokener.nextValue();
+
+        return Token.VALUE;
+    }
+}
@@ -0,0 +1,34 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.json;
+
+/**
+ * JSON content that is written incrementally, rather than built as a {@link JSONObject} or {@link JSONArray}. An
+ * event handler method may return a JSONStreamable; its content is written directly to the response, so a large
+ * result is never held in memory all at once.
+ *
+ * @since 5.4
+ */
+public interface JSONStreamable
+{
+    /**
+     * Writes a single JSON value (usually, an object or an array) to the writer. The writer is flushed and closed
+     * by the caller.
+     *
+     * @param writer
+     *         to which content is written
+     */
+    void write(JSONWriter writer);
+}
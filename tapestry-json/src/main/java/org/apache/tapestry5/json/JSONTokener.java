@@ -1,4 +1,4 @@
-// Copyright 2007 The Apache Software Foundation
+// Copyright 2007, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,6 +14,9 @@
 
 package org.apache.tapestry5.json;
 
+import java.io.IOException;
+import java.io.Reader;
+
 /*
  Copyright (c) 2002 JSON.org
 
@@ -39,8 +42,8 @@ package org.apache.tapestry5.json;
  */
 
 /**
- * A JSONTokener takes a source string and extracts characters and tokens from it. It is used by the JSONObject and
- * JSONArray constructors to parse JSON source strings.
+ * A JSONTokener takes a source string (or reader) and extracts characters and tokens from it. It is used by the
+ * JSONObject and JSONArray constructors to parse JSON source strings, and by {@link JSONReader}.
  *
  * @author JSON.org
  * @version 2
@@ -54,10 +57,25 @@ class JSONTokener
     private int index;
 
     /**
-     * The source string being tokenized.
+     * The source string being tokenized, or null when reading from {@link #reader}.
      */
     private final String source;
 
+    /**
+     * The reader being tokenized, or null when tokenizing {@link #source}.
+     */
+    private final Reader reader;
+
+    /**
+     * The last character read from the reader, or -1 for the end of the input.
+     */
+    private int previous;
+
+    /**
+     * If true, the next call to {@link #next()} re-uses the previous character, rather than reading from the reader.
+     */
+    private boolean usePrevious;
+
     /**
      * Construct a JSONTokener from a string.
      *
@@ -69,6 +87,23 @@ class JSONTokener
 
         index = 0;
         this.source = source;
+        this.reader = null;
+    }
+
+    /**
+     * Construct a JSONTokener that reads characters from a reader, as they are needed. Only a single character of
+     * lookahead is supported. The reader should be buffered.
+     *
+     * @param reader source of characters, in JSON format.
+     * @since 5.4
+     */
+    public JSONTokener(Reader reader)
+    {
+        assert reader != null;
+
+        index = 0;
+        this.source = null;
+        this.reader = reader;
     }
 
     /**
@@ -77,6 +112,18 @@ class JSONTokener
      */
     public void back()
     {
+        if (reader != null)
+        {
+            if (previous >= 0)
+            {
+                index -= 1;
+            }
+
+            usePrevious = true;
+
+            return;
+        }
+
         if (index > 0)
         {
             index -= 1;
@@ -90,9 +137,31 @@ class JSONTokener
      */
     public boolean more()
     {
+        if (reader != null)
+        {
+            if (!usePrevious)
+            {
+                previous = read();
+                usePrevious = true;
+            }
+
+            return previous >= 0;
+        }
+
         return index < source.length();
     }
 
+    private int read()
+    {
+        try
+        {
+            return reader.read();
+        } catch (IOException ex)
+        {
+            throw new RuntimeException(String.format("Unable to read JSON content: %s", ex.getMessage()), ex);
+        }
+    }
+
     /**
      * Get the next character in the source string.
      *
@@ -102,6 +171,14 @@ class JSONTokener
     {
         if (more())
         {
+            if (reader != null)
+            {
+                usePrevious = false;
+                index++;
+
+                return (char) previous;
+            }
+
             return source.charAt(index++);
         }
 
@@ -117,6 +194,23 @@ class JSONTokener
      */
     public String next(int n)
     {
+        if (reader != null)
+        {
+            StringBuilder builder = new StringBuilder(n);
+
+            for (int i = 0; i < n; i++)
+            {
+                if (!more())
+                {
+                    throw syntaxError("Substring bounds error");
+                }
+
+                builder.append(next());
+            }
+
+            return builder.toString();
+        }
+
         int i = index;
         int j = i + n;
         if (j >= source.length())
@@ -387,11 +481,16 @@ class JSONTokener
     /**
      * Make a printable string of this JSONTokener.
      *
-     * @return " at character [myIndex] of [mySource]"
+     * @return " at character [myIndex] of [mySource]", or just " at character [myIndex]" when reading from a reader
      */
     @Override
     public String toString()
     {
+        if (reader != null)
+        {
+            return " at character " + index;
+        }
+
         return " at character " + index + " of " + source;
     }
 }
@@ -0,0 +1,310 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes JSON content incrementally, as it is generated, rather than building a {@link JSONObject} or
+ * {@link JSONArray} in memory and then printing it. The output is identical to printing the equivalent
+ * tree, compactly or pretty printed.
+ * <p/>
+ * Values passed to {@link #value(Object)} may be any type that may be stored in a JSONObject, including
+ * JSONObject and JSONArray themselves; those are printed in place, so an existing tree may be embedded within
+ * the streamed content.
+ * <p/>
+ * A JSONWriter is not thread safe.
+ *
+ * @see JSONStreamable
+ * @since 5.4
+ */
+public final class JSONWriter implements Closeable, Flushable
+{
+    private enum Scope
+    {
+        /**
+         * Nothing written yet.
+         */
+        EMPTY_DOCUMENT,
+
+        /**
+         * The single top-level value has been written.
+         */
+        NONEMPTY_DOCUMENT,
+
+        EMPTY_ARRAY,
+
+        NONEMPTY_ARRAY,
+
+        EMPTY_OBJECT,
+
+        /**
+         * A key has been written, and its value is expected next.
+         */
+        DANGLING_KEY,
+
+        NONEMPTY_OBJECT
+    }
+
+    private final PrintWriter writer;
+
+    private final JSONPrintSession session;
+
+    private final List<Scope> stack = new ArrayList<Scope>();
+
+    /**
+     * Creates a writer that writes compact output.
+     *
+     * @param writer
+     *         to which JSON content is written
+     */
+    public JSONWriter(Writer writer)
+    {
+        this(writer, true);
+    }
+
+    /**
+     * @param writer
+     *         to which JSON content is written
+     * @param compact
+     *         if true, write compactly, if false, write with pretty printing
+     */
+    public JSONWriter(Writer writer, boolean compact)
+    {
+        assert writer != null;
+
+        this.writer = writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer);
+
+        session = compact ? new CompactSession(this.writer) : new PrettyPrintSession(this.writer);
+
+        stack.add(Scope.EMPTY_DOCUMENT);
+    }
+
+    /**
+     * Begins a new object, as a value.
+     *
+     * @return this writer, for further operations
+     */
+    public JSONWriter beginObject()
+    {
+        beforeValue();
+
+        session.printSymbol('{');
+        session.indent();
+
+        stack.add(Scope.EMPTY_OBJECT);
+
+        return this;
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return this writer, for further operations
+     */
+    public JSONWriter endObject()
+    {
+        return end(Scope.EMPTY_OBJECT, Scope.NONEMPTY_OBJECT, '}');
+    }
+
+    /**
+     * Begins a new array, as a value.
+     *
+     * @return this writer, for further operations
+     */
+    public JSONWriter beginArray()
+    {
+        beforeValue();
+
+        session.printSymbol('[');
+        session.indent();
+
+        stack.add(Scope.EMPTY_ARRAY);
+
+        return this;
+    }
+
+    /**
+     * Ends the current array.
+     *
+     * @return this writer, for further operations
+     */
+    public JSONWriter endArray()
+    {
+        return end(Scope.EMPTY_ARRAY, Scope.NONEMPTY_ARRAY, ']');
+    }
+
+    /**
+     * Writes the key for the next value of the current object.
+     *
+     * @param key
+     *         property name, which may not be null
+     * @return this writer, for further operations
+     */
+    public JSONWriter key(String key)
+    {
+        if (key == null)
+        {
+            throw new RuntimeException("Null key.");
+        }
+
+        Scope scope = peek();
+
+        if (scope == Scope.NONEMPTY_OBJECT)
+        {
+            session.printSymbol(',');
+        } else if (scope != Scope.EMPTY_OBJECT)
+        {
+            throw new IllegalStateException("A key may only be written inside an object, before each value.");
+        }
+
+        session.newline();
+        session.printQuoted(key);
+        session.printSymbol(':');
+
+        replace(Scope.DANGLING_KEY);
+
+        return this;
+    }
+
+    /**
+     * Writes a value: a String, Boolean, Number, {@link JSONString}, {@link JSONObject} or {@link JSONArray}, or
+     * {@link JSONObject#NULL}. A null value is written as JSONObject.NULL.
+     *
+     * @param value
+     *         the value to write
+     * @return this writer, for further operations
+     * @throws RuntimeException
+     *         if the value is not of an allowed type, or is a non-finite number
+     */
+    public JSONWriter value(Object value)
+    {
+        JSONObject.testValidity(value);
+
+        beforeValue();
+
+        JSONObject.printValue(session, value == null ? JSONObject.NULL : value);
+
+        return this;
+    }
+
+    /**
+     * Writes a property of the current object; this is the same as invoking {@link #key(String)}, then
+     * {@link #value(Object)}.
+     *
+     * @return this writer, for further operations
+     */
+    public JSONWriter put(String key, Object value)
+    {
+        return key(key).value(value);
+    }
+
+    /**
+     * Flushes the underlying writer.
+     */
+    public void flush()
+    {
+        writer.flush();
+    }
+
+    /**
+     * Closes the underlying writer.
+     *
+     * @throws IllegalStateException
+     *         if an object or array has not been ended
+     */
+    public void close()
+    {
+        writer.close();
+
+        if (peek() != Scope.NONEMPTY_DOCUMENT)
+        {
+            throw new IllegalStateException("JSON content is incomplete.");
+        }
+    }
+
+    private Scope peek()
+    {
+        return stack.get(stack.size() - 1);
+    }
+
+    private void replace(Scope scope)
+    {
+        stack.set(stack.size() - 1, scope);
+    }
+
+    /**
+     * Updates the current scope to reflect that a value is about to be written, and writes the separator (if any)
+     * that precedes the value.
+     */
+    private void beforeValue()
+    {
+        switch (peek())
+        {
+            case EMPTY_DOCUMENT:
+                replace(Scope.NONEMPTY_DOCUMENT);
+                break;
+
+            case NONEMPTY_ARRAY:
+                session.printSymbol(',');
+
+                // Fall through
+
+            case EMPTY_ARRAY:
+                session.newline();
+                replace(Scope.NONEMPTY_ARRAY);
+                break;
+
+            case DANGLING_KEY:
+                replace(Scope.NONEMPTY_OBJECT);
+                break;
+
+            case NONEMPTY_DOCUMENT:
+                throw new IllegalStateException("JSON content may only contain a single top-level value.");
+
+            default:
+                throw new IllegalStateException("A value inside an object must be preceded by a key.");
+        }
+    }
+
+    private JSONWriter end(Scope empty, Scope nonempty, char symbol)
+    {
+        Scope scope = peek();
+
+        if (scope != empty && scope != nonempty)
+        {
+            throw new IllegalStateException(String.format("Unexpected '%s': there is no matching open %s.", symbol,
+                    symbol == '}' ? "object" : "array"));
+        }
+
+        stack.remove(stack.size() - 1);
+
+        session.outdent();
+
+        if (scope == nonempty)
+        {
+            session.newline();
+        }
+
+        session.printSymbol(symbol);
+
+        return this;
+    }
+}
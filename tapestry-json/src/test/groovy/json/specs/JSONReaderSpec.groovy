@@ -0,0 +1,148 @@
+package json.specs
+
+import org.apache.tapestry5.json.JSONArray
+import org.apache.tapestry5.json.JSONObject
+import org.apache.tapestry5.json.JSONReader
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static org.apache.tapestry5.json.JSONReader.Token.*
+
+class JSONReaderSpec extends Specification {
+
+    def tokens(String input) {
+        def reader = new JSONReader(new StringReader(input))
+        def result = []
+
+        while (true) {
+            def token = reader.next()
+
+            switch (token) {
+                case KEY: result << "key:${reader.key}"; break
+                case VALUE: result << reader.value; break
+                default: result << token
+            }
+
+            if (token == END_DOCUMENT) { return result }
+        }
+    }
+
+    def "read tokens of nested content"() {
+        expect:
+
+        tokens(/{ "name": "fred", "list": [1, true, null, { }], 'pi' : 3.5 }/) ==
+            [BEGIN_OBJECT, "key:name", "fred", "key:list", BEGIN_ARRAY, 1, true, JSONObject.NULL, BEGIN_OBJECT,
+                END_OBJECT, END_ARRAY, "key:pi", 3.5d, END_OBJECT, END_DOCUMENT]
+    }
+
+    def "relaxed syntax is accepted, as with the JSONObject and JSONArray constructors"() {
+        expect:
+
+        tokens("[1,,3,] // comment") == [BEGIN_ARRAY, 1, JSONObject.NULL, 3, END_ARRAY, END_DOCUMENT]
+        tokens("{a=>1; b=2,}") == [BEGIN_OBJECT, "key:a", 1, "key:b", 2, END_OBJECT, END_DOCUMENT]
+    }
+
+    def "peek does not consume the token"() {
+        def reader = new JSONReader(new StringReader("[1]"))
+
+        expect:
+
+        reader.peek() == BEGIN_ARRAY
+        reader.next() == BEGIN_ARRAY
+        reader.hasNext()
+        reader.peek() == VALUE
+        reader.next() == VALUE
+        !reader.hasNext()
+        reader.next() == END_ARRAY
+        reader.next() == END_DOCUMENT
+    }
+
+    def "stream through an array of objects, reading each as a JSONObject"() {
+        def reader = new JSONReader(new StringReader(/{"rows": [{"id": 1}, {"id": 2, "tags": ["a"]}], "total": 2}/))
+        def rows = []
+
+        when:
+
+        reader.next()
+        reader.next()
+        reader.next()
+
+        while (reader.hasNext()) {
+            rows << reader.readObject()
+        }
+
+        reader.next()
+
+        then:
+
+        rows == [new JSONObject("id", 1), new JSONObject("id", 2, "tags", new JSONArray("a"))]
+
+        reader.next() == KEY
+        reader.key == "total"
+        reader.readValue() == 2
+        reader.next() == END_OBJECT
+        reader.next() == END_DOCUMENT
+    }
+
+    def "read an entire array"() {
+        def reader = new JSONReader(new StringReader("[1, [2, 3]]"))
+
+        expect:
+
+        reader.readArray() == new JSONArray(1, new JSONArray(2, 3))
+        reader.next() == END_DOCUMENT
+    }
+
+    def "skip a value"() {
+        def reader = new JSONReader(new StringReader(/{"skip": {"a": [1, {"b": 2}]}, "keep": "yes"}/))
+
+        when:
+
+        reader.next()
+        reader.next()
+        reader.skipValue()
+
+        then:
+
+        reader.next() == KEY
+        reader.key == "keep"
+        reader.next() == VALUE
+        reader.value == "yes"
+    }
+
+    def "reading an object when an array is next is an error"() {
+        def reader = new JSONReader(new StringReader("[]"))
+
+        when:
+
+        reader.readObject()
+
+        then:
+
+        RuntimeException e = thrown()
+
+        e.message == "Expected an object but found BEGIN_ARRAY at character 1"
+    }
+
+    @Unroll
+    def "syntax errors are reported with the position (#desc)"() {
+        when:
+
+        tokens(input)
+
+        then:
+
+        RuntimeException e = thrown()
+
+        e.message == expected
+
+        where:
+
+        input                     | expected                                     | desc
+        "{  "                     | "A JSONObject text must end with '}' at character 3" | "unmatched open brace"
+        /{ "akey" }/              | "Expected a ':' after a key at character 10" | "missing value after key"
+        /{ "fred" : 1 "barney" }/ | "Expected a ',' or '}' at character 14"      | "missing property separator"
+        /[1, 2/                   | "Expected a ',' or ']' at character 5"       | "missing separator or closing bracket"
+        "[1] 2"                   | "Expected end of input at character 5"       | "trailing content"
+    }
+}
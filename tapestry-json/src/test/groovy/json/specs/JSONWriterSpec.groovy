@@ -0,0 +1,122 @@
+package json.specs
+
+import org.apache.tapestry5.json.JSONArray
+import org.apache.tapestry5.json.JSONLiteral
+import org.apache.tapestry5.json.JSONObject
+import org.apache.tapestry5.json.JSONWriter
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class JSONWriterSpec extends Specification {
+
+    def write(boolean compact, Closure closure) {
+        def sw = new StringWriter()
+        def writer = new JSONWriter(sw, compact)
+
+        closure.call(writer)
+
+        writer.close()
+
+        return sw.toString()
+    }
+
+    def "write a simple object"() {
+        when:
+
+        def json = write(true) { JSONWriter w ->
+            w.beginObject().put("fred", "flintstone").put("age", 37).put("yabba", true).endObject()
+        }
+
+        then:
+
+        json == /{"fred":"flintstone","age":37,"yabba":true}/
+    }
+
+    def "a null value is written as null"() {
+        when:
+
+        def json = write(true) { JSONWriter w -> w.beginArray().value(null).value(JSONObject.NULL).endArray() }
+
+        then:
+
+        json == "[null,null]"
+    }
+
+    def "JSONObject and JSONArray values are printed in place"() {
+        when:
+
+        def json = write(true) { JSONWriter w ->
+            w.beginArray()
+            w.value(new JSONObject("a", 1))
+            w.value(new JSONArray(2, 3))
+            w.value(new JSONLiteral("function() {}"))
+            w.endArray()
+        }
+
+        then:
+
+        json == /[{"a":1},[2,3],function() {}]/
+    }
+
+    @Unroll
+    def "output matches printing the equivalent tree (#desc)"() {
+        def tree = new JSONArray("fred", new JSONArray(), new JSONObject("nested",
+                new JSONObject("list", new JSONArray(1, new JSONObject(), "two"))), false)
+
+        when:
+
+        def json = write(compact) { JSONWriter w ->
+            w.beginArray()
+            w.value("fred")
+            w.beginArray().endArray()
+            w.beginObject().key("nested").beginObject()
+            w.key("list").beginArray().value(1).beginObject().endObject().value("two").endArray()
+            w.endObject().endObject()
+            w.value(false)
+            w.endArray()
+        }
+
+        then:
+
+        json == tree.toString(compact)
+
+        where:
+
+        compact << [true, false]
+        desc = compact ? "compact" : "pretty"
+    }
+
+    def "values of a disallowed type are rejected"() {
+        when:
+
+        write(true) { JSONWriter w -> w.beginArray().value(new Date()) }
+
+        then:
+
+        RuntimeException e = thrown()
+
+        e.message.contains "Type java.util.Date is not allowed"
+    }
+
+    @Unroll
+    def "misuse is detected: #desc"() {
+        when:
+
+        write(true, closure)
+
+        then:
+
+        IllegalStateException e = thrown()
+
+        e.message == message
+
+        where:
+
+        desc                       | closure                                                  | message
+        "value without key"        | { JSONWriter w -> w.beginObject().value(1) }             | "A value inside an object must be preceded by a key."
+        "key inside array"         | { JSONWriter w -> w.beginArray().key("a") }              | "A key may only be written inside an object, before each value."
+        "mismatched end"           | { JSONWriter w -> w.beginArray().endObject() }           | "Unexpected '}': there is no matching open object."
+        "two top-level values"     | { JSONWriter w -> w.value(1).value(2) }                  | "JSON content may only contain a single top-level value."
+        "incomplete content"       | { JSONWriter w -> w.beginObject() }                      | "JSON content is incomplete."
+    }
+}
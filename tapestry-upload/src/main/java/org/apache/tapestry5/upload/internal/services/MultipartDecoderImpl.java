@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2010, 2011 The Apache Software Foundation
+// Copyright 2007, 2008, 2010, 2011, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,17 +16,25 @@ package org.apache.tapestry5.upload.internal.services;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileItemFactory;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
 import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.util.Streams;
 import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.services.ThreadCleanupListener;
 import org.apache.tapestry5.upload.services.MultipartDecoder;
+import org.apache.tapestry5.upload.services.UploadStreamHandler;
 import org.apache.tapestry5.upload.services.UploadSymbols;
 import org.apache.tapestry5.upload.services.UploadedFile;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Collections;
 import java.util.List;
@@ -34,10 +42,14 @@ import java.util.Map;
 
 /**
  * Implementation of multipart decoder for servlets. This implementation is perthread scope.
+ * <p/>
+ * When {@linkplain UploadSymbols#STREAMING streaming} is enabled, the request is read part by part, and each uploaded
+ * file is offered to the {@link UploadStreamHandler} as it arrives; only uploads that are not handled are written to
+ * temporary files.
  */
 public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupListener
 {
-    private final Map<String, UploadedFileItem> uploads = CollectionFactory.newMap();
+    private final Map<String, UploadedFile> uploads = CollectionFactory.newMap();
 
     private final FileItemFactory fileItemFactory;
 
@@ -47,6 +59,10 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
 
     private final String requestEncoding;
 
+    private final UploadStreamHandler streamHandler;
+
+    private final boolean streaming;
+
     private FileUploadException uploadException;
 
     public MultipartDecoderImpl(
@@ -61,11 +77,35 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
 
             @Symbol(SymbolConstants.CHARSET)
             String requestEncoding)
+    {
+        this(fileItemFactory, maxRequestSize, maxFileSize, requestEncoding, null, false);
+    }
+
+    @Inject
+    public MultipartDecoderImpl(
+
+            FileItemFactory fileItemFactory,
+
+            @Symbol(UploadSymbols.REQUESTSIZE_MAX)
+            long maxRequestSize,
+
+            @Symbol(UploadSymbols.FILESIZE_MAX)
+            long maxFileSize,
+
+            @Symbol(SymbolConstants.CHARSET)
+            String requestEncoding,
+
+            UploadStreamHandler streamHandler,
+
+            @Symbol(UploadSymbols.STREAMING)
+            boolean streaming)
     {
         this.fileItemFactory = fileItemFactory;
         this.maxRequestSize = maxRequestSize;
         this.maxFileSize = maxFileSize;
         this.requestEncoding = requestEncoding;
+        this.streamHandler = streamHandler;
+        this.streaming = streaming;
     }
 
     public UploadedFile getFileUpload(String parameterName)
@@ -83,6 +123,11 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
             throw new RuntimeException(ex);
         }
 
+        if (streaming)
+        {
+            return processStreams(request);
+        }
+
         List<FileItem> fileItems = parseRequest(request);
 
         return processFileItems(request, fileItems);
@@ -90,9 +135,12 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
 
     public void threadDidCleanup()
     {
-        for (UploadedFileItem uploaded : uploads.values())
+        for (UploadedFile uploaded : uploads.values())
         {
-            uploaded.cleanup();
+            if (uploaded instanceof UploadedFileItem)
+            {
+                ((UploadedFileItem) uploaded).cleanup();
+            }
         }
     }
 
@@ -128,15 +176,7 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
             return request;
         }
 
-        ParametersServletRequestWrapper wrapper = new ParametersServletRequestWrapper(request);
-
-        // First add parameters from the request
-        for (Object e : request.getParameterMap().entrySet())
-        {
-            Map.Entry<String, String[]> ee = (Map.Entry<String, String[]>) e;
-            for (String s : ee.getValue())
-                wrapper.addParameter(ee.getKey(), s);
-        }
+        ParametersServletRequestWrapper wrapper = createWrapper(request);
 
         for (FileItem item : fileItems)
         {
@@ -164,7 +204,102 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
         return wrapper;
     }
 
-    protected void addUploadedFile(String name, UploadedFileItem file)
+    /**
+     * Reads the request part by part, offering each uploaded file to the {@link UploadStreamHandler} as it arrives.
+     */
+    protected HttpServletRequest processStreams(HttpServletRequest request)
+    {
+        ParametersServletRequestWrapper wrapper = createWrapper(request);
+
+        try
+        {
+            FileItemIterator iterator = createFileUpload().getItemIterator(request);
+
+            while (iterator.hasNext())
+            {
+                FileItemStream item = iterator.next();
+
+                if (item.isFormField())
+                {
+                    wrapper.addParameter(item.getFieldName(), Streams.asString(item.openStream(), requestEncoding));
+                } else
+                {
+                    wrapper.addParameter(item.getFieldName(), item.getName());
+                    addUploadedFile(item.getFieldName(), processStream(wrapper, item));
+                }
+            }
+        } catch (FileUploadException ex)
+        {
+            uploadException = ex;
+        } catch (IOException ex)
+        {
+            // Size limits are enforced as the content is read, and surface as an IOException wrapping the
+            // FileUploadException.
+
+            uploadException = ex.getCause() instanceof FileUploadException
+                    ? (FileUploadException) ex.getCause()
+                    : new FileUploadException(UploadMessages.unableToDecode(), ex);
+        }
+
+        return wrapper;
+    }
+
+    private UploadedFile processStream(HttpServletRequest request, FileItemStream item) throws IOException
+    {
+        StreamedUploadImpl upload = new StreamedUploadImpl(item);
+
+        try
+        {
+            if (streamHandler.handle(request, upload))
+            {
+                return upload;
+            }
+
+            return bufferStream(item, upload.getStream());
+        } finally
+        {
+            upload.close();
+        }
+    }
+
+    /**
+     * Writes an upload that no handler accepted to a FileItem, as if the request had not been streamed.
+     */
+    private UploadedFileItem bufferStream(FileItemStream item, InputStream stream) throws IOException
+    {
+        FileItem fileItem = fileItemFactory.createItem(item.getFieldName(), item.getContentType(), false, item.getName());
+
+        try
+        {
+            OutputStream output = fileItem.getOutputStream();
+
+            Streams.copy(stream, output, true);
+        } catch (IOException ex)
+        {
+            fileItem.delete();
+
+            throw ex;
+        }
+
+        return new UploadedFileItem(fileItem);
+    }
+
+    private ParametersServletRequestWrapper createWrapper(HttpServletRequest request)
+    {
+        ParametersServletRequestWrapper wrapper = new ParametersServletRequestWrapper(request);
+
+        // First add parameters from the request
+        for (Object e : request.getParameterMap().entrySet())
+        {
+            Map.Entry<String, String[]> ee = (Map.Entry<String, String[]>) e;
+            for (String s : ee.getValue())
+                wrapper.addParameter(ee.getKey(), s);
+        }
+
+        return wrapper;
+    }
+
+    protected void addUploadedFile(String name, UploadedFile file)
     {
         uploads.put(name, file);
     }
@@ -0,0 +1,275 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.upload.internal.services;
+
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.tapestry5.upload.services.StreamedUpload;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Implementation of {@link StreamedUpload} that reads directly from a {@link FileItemStream}, counting (and
+ * optionally digesting) the content as it is read.
+ *
+ * @since 5.4
+ */
+public class StreamedUploadImpl implements StreamedUpload
+{
+    /**
+     * Maximum number of bytes requested from each {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}.
+     */
+    private static final long TRANSFER_SIZE = 64 * 1024;
+
+    private final FileItemStream item;
+
+    private final InputStream stream;
+
+    private final ReadableByteChannel channel;
+
+    private long size;
+
+    private MessageDigest digest;
+
+    private byte[] digestValue;
+
+    private boolean closed;
+
+    private class ContentStream extends FilterInputStream
+    {
+        ContentStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int b = super.read();
+
+            if (b >= 0)
+            {
+                size++;
+
+                if (digest != null)
+                {
+                    digest.update((byte) b);
+                }
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int count = super.read(b, off, len);
+
+            if (count > 0)
+            {
+                size += count;
+
+                if (digest != null)
+                {
+                    digest.update(b, off, count);
+                }
+            }
+
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            // Skipped content must still be counted and digested.
+
+            byte[] buffer = new byte[(int) Math.min(n, 4096)];
+
+            int count = read(buffer, 0, buffer.length);
+
+            return Math.max(count, 0);
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+
+    public StreamedUploadImpl(FileItemStream item) throws IOException
+    {
+        this.item = item;
+
+        stream = new ContentStream(item.openStream());
+        channel = Channels.newChannel(stream);
+    }
+
+    public String getFieldName()
+    {
+        return item.getFieldName();
+    }
+
+    public String getContentType()
+    {
+        return item.getContentType();
+    }
+
+    public String getFileName()
+    {
+        return FilenameUtils.getName(getFilePath());
+    }
+
+    public String getFilePath()
+    {
+        return item.getName();
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    public InputStream getStream()
+    {
+        checkOpen();
+
+        return stream;
+    }
+
+    public ReadableByteChannel getChannel()
+    {
+        checkOpen();
+
+        return channel;
+    }
+
+    public boolean isInMemory()
+    {
+        return false;
+    }
+
+    public long transferTo(FileChannel destination) throws IOException
+    {
+        checkOpen();
+
+        long start = destination.position();
+        long total = 0;
+
+        while (true)
+        {
+            long count = destination.transferFrom(channel, start + total, TRANSFER_SIZE);
+
+            // transferFrom() reads until it has the requested number of bytes, or the content is exhausted.
+
+            if (count <= 0)
+            {
+                break;
+            }
+
+            total += count;
+        }
+
+        destination.position(start + total);
+
+        return total;
+    }
+
+    public void write(File file)
+    {
+        try
+        {
+            FileOutputStream output = new FileOutputStream(file);
+
+            try
+            {
+                transferTo(output.getChannel());
+            } finally
+            {
+                output.close();
+            }
+        } catch (IOException ex)
+        {
+            throw new RuntimeException(UploadMessages.writeFailure(file), ex);
+        }
+    }
+
+    public void computeDigest(String algorithm)
+    {
+        checkOpen();
+
+        if (size > 0)
+        {
+            throw new IllegalStateException(UploadMessages.digestAfterRead(this));
+        }
+
+        try
+        {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex)
+        {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+    }
+
+    public byte[] getDigest()
+    {
+        if (closed || digest == null)
+        {
+            return digestValue;
+        }
+
+        // Digest a copy, so that the digest can still be updated as more content is read.
+
+        try
+        {
+            return ((MessageDigest) digest.clone()).digest();
+        } catch (CloneNotSupportedException ex)
+        {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Invoked once the handler has returned; the remaining content will be skipped by the upload parser, and may no
+     * longer be read.
+     */
+    void close()
+    {
+        if (!closed && digest != null)
+        {
+            digestValue = digest.digest();
+        }
+
+        closed = true;
+    }
+
+    private void checkOpen()
+    {
+        if (closed)
+        {
+            throw new IllegalStateException(UploadMessages.streamClosed(this));
+        }
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008 The Apache Software Foundation
+// Copyright 2007, 2008, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -58,4 +58,14 @@ class UploadMessages
     {
         return MESSAGES.format("enctype-already-set", formId, requiredEncType, existingEncType);
     }
+
+    static String streamClosed(UploadedFile item)
+    {
+        return MESSAGES.format("stream-closed", item.getFilePath());
+    }
+
+    static String digestAfterRead(UploadedFile item)
+    {
+        return MESSAGES.format("digest-after-read", item.getFilePath());
+    }
 }
@@ -25,6 +25,7 @@ import org.apache.tapestry5.ioc.ScopeConstants;
 import org.apache.tapestry5.ioc.annotations.Autobuild;
 import org.apache.tapestry5.ioc.annotations.Scope;
 import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.services.ChainBuilder;
 import org.apache.tapestry5.ioc.services.PerthreadManager;
 import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
 import org.apache.tapestry5.services.ComponentEventRequestFilter;
@@ -34,9 +35,11 @@ import org.apache.tapestry5.upload.internal.services.MultipartDecoderImpl;
 import org.apache.tapestry5.upload.internal.services.MultipartServletRequestFilter;
 import org.apache.tapestry5.upload.internal.services.UploadExceptionFilter;
 import org.apache.tapestry5.upload.services.MultipartDecoder;
+import org.apache.tapestry5.upload.services.UploadStreamHandler;
 import org.apache.tapestry5.upload.services.UploadSymbols;
 
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class UploadModule
@@ -111,6 +114,18 @@ public class UploadModule
         return new DiskFileItemFactory(repositoryThreshold, new File(repositoryLocation));
     }
 
+    /**
+     * Builds a chain of command from the contributed handlers; with no contributions, every upload is buffered in a
+     * temporary file, even when {@linkplain UploadSymbols#STREAMING streaming} is enabled.
+     *
+     * @since 5.4
+     */
+    public static UploadStreamHandler buildUploadStreamHandler(List<UploadStreamHandler> configuration,
+                                                               ChainBuilder chainBuilder)
+    {
+        return chainBuilder.build(UploadStreamHandler.class, configuration);
+    }
+
     public static void contributeFactoryDefaults(MappedConfiguration<String, String> configuration)
     {
         configuration.add(UploadSymbols.REPOSITORY_THRESHOLD, Integer
@@ -118,5 +133,6 @@ public class UploadModule
         configuration.add(UploadSymbols.REPOSITORY_LOCATION, System.getProperty("java.io.tmpdir"));
         configuration.add(UploadSymbols.REQUESTSIZE_MAX, NO_LIMIT);
         configuration.add(UploadSymbols.FILESIZE_MAX, NO_LIMIT);
+        configuration.add(UploadSymbols.STREAMING, "false");
     }
 }
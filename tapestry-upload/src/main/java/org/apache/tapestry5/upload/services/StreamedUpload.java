@@ -0,0 +1,76 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.upload.services;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * An uploaded file whose content is read directly from the request, as it arrives, rather than from a temporary file.
+ * Passed to the {@link UploadStreamHandler} when {@linkplain UploadSymbols#STREAMING streaming} is enabled.
+ * <p/>
+ * The content may only be read once, and only while the handler is invoked: once the handler returns, the request
+ * moves on to the next part. Afterwards, the upload is still available from the {@link MultipartDecoder} (and so to
+ * the {@link org.apache.tapestry5.upload.components.Upload} component), but only for its name, type, size and digest.
+ * Any {@linkplain UploadSymbols#FILESIZE_MAX size limits} are enforced as the content is read.
+ *
+ * @since 5.4
+ */
+public interface StreamedUpload extends UploadedFile
+{
+    /**
+     * @return the name of the request parameter (that is, the Upload component's control name).
+     */
+    String getFieldName();
+
+    /**
+     * @return the content, as a channel (an alternative to {@link #getStream()}; the two share the same position)
+     */
+    ReadableByteChannel getChannel();
+
+    /**
+     * Transfers the remaining content directly to a file, starting at the channel's current position (which is
+     * advanced past the transferred content).
+     *
+     * @param destination
+     *         the channel to write to
+     * @return the number of bytes transferred
+     */
+    long transferTo(FileChannel destination) throws IOException;
+
+    /**
+     * Computes a digest of the content as it is read. Must be invoked before any content is read.
+     *
+     * @param algorithm
+     *         a {@link java.security.MessageDigest} algorithm, such as "SHA-256"
+     */
+    void computeDigest(String algorithm);
+
+    /**
+     * @return the digest of the content read so far, or null if {@link #computeDigest(String)} was not invoked
+     */
+    byte[] getDigest();
+
+    /**
+     * @return the number of bytes read so far (the complete size, once all the content has been read)
+     */
+    long getSize();
+
+    /**
+     * @return false; the content is never buffered
+     */
+    boolean isInMemory();
+}
@@ -0,0 +1,43 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.upload.services;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Receives each uploaded file as it arrives, when {@linkplain UploadSymbols#STREAMING streaming} is enabled. The
+ * UploadStreamHandler service is a chain of command built from an ordered configuration of handlers; the first
+ * handler to return true handles the upload. Uploads that no handler accepts are buffered in temporary files, just as
+ * when streaming is disabled.
+ *
+ * @since 5.4
+ */
+public interface UploadStreamHandler
+{
+    /**
+     * Handles an uploaded file, typically by {@linkplain StreamedUpload#transferTo(java.nio.channels.FileChannel)
+     * transferring} its content to its final location.
+     *
+     * @param request
+     *         the decoded request so far: its parameters include those of the query string, and any form fields that
+     *         precede the upload
+     * @param upload
+     *         the uploaded file, whose content must be read (if at all) before returning
+     * @return true if the upload was handled, false to pass it to the next handler (in which case, none of the
+     *         content may have been read)
+     */
+    boolean handle(HttpServletRequest request, StreamedUpload upload) throws IOException;
+}
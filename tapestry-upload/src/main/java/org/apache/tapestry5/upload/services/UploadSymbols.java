@@ -1,4 +1,4 @@
-// Copyright 2007, 2008 The Apache Software Foundation
+// Copyright 2007, 2008, 2013 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -39,6 +39,14 @@ public final class UploadSymbols
      */
     public static final String FILESIZE_MAX = "upload.filesize-max";
 
+    /**
+     * If true, uploaded files are passed to the {@link UploadStreamHandler} as they are read from the request, rather
+     * than first being written to temporary files. Defaults to false.
+     *
+     * @since 5.4
+     */
+    public static final String STREAMING = "upload.streaming";
+
     private UploadSymbols()
     {
     }
@@ -0,0 +1,111 @@
+// Copyright 2013 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.upload.internal.services;
+
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.tapestry5.test.TapestryTestCase;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+public class StreamedUploadImplTest extends TapestryTestCase
+{
+    private static final byte[] CONTENT = "The quick brown fox jumps over the lazy dog".getBytes();
+
+    private FileItemStream mockFileItemStream() throws Exception
+    {
+        FileItemStream item = newMock(FileItemStream.class);
+
+        expect(item.openStream()).andReturn(new ByteArrayInputStream(CONTENT));
+
+        return item;
+    }
+
+    @Test
+    public void content_transferred_to_file_channel() throws Exception
+    {
+        FileItemStream item = mockFileItemStream();
+
+        replay();
+
+        StreamedUploadImpl upload = new StreamedUploadImpl(item);
+
+        upload.computeDigest("MD5");
+
+        File file = File.createTempFile("upload", ".txt");
+
+        try
+        {
+            RandomAccessFile output = new RandomAccessFile(file, "rw");
+
+            try
+            {
+                FileChannel channel = output.getChannel();
+
+                assertEquals(upload.transferTo(channel), CONTENT.length);
+                assertEquals(channel.position(), CONTENT.length);
+            } finally
+            {
+                output.close();
+            }
+
+            upload.close();
+
+            assertTrue(Arrays.equals(FileUtils.readFileToByteArray(file), CONTENT));
+        } finally
+        {
+            file.delete();
+        }
+
+        assertEquals(upload.getSize(), CONTENT.length);
+        assertTrue(Arrays.equals(upload.getDigest(), MessageDigest.getInstance("MD5").digest(CONTENT)));
+
+        verify();
+    }
+
+    @Test
+    public void content_may_not_be_read_once_closed() throws Exception
+    {
+        FileItemStream item = mockFileItemStream();
+
+        expect(item.getName()).andReturn("foo/blah.txt");
+
+        replay();
+
+        StreamedUploadImpl upload = new StreamedUploadImpl(item);
+
+        upload.close();
+
+        try
+        {
+            upload.getStream();
+            unreachable();
+        } catch (IllegalStateException ex)
+        {
+            assertEquals(ex.getMessage(),
+                    "The content of uploaded file 'foo/blah.txt' was streamed as the request was decoded, and can no longer be read.");
+        }
+
+        assertNull(upload.getDigest());
+
+        verify();
+    }
+}